@@ -36,6 +36,9 @@ import androidx.annotation.VisibleForTesting;
 
 import com.android.settings.applications.ProcStatsData;
 import com.android.settings.fuelgauge.batterytip.AnomalyConfigJobService;
+import com.android.settings.fuelgauge.batterytip.BatteryTipDetectorPipeline;
+import com.android.settings.search.SearchIndexableRawCollector;
+import com.android.settings.slices.SlicesDatabaseHelper;
 import com.android.settingslib.net.DataUsageController;
 
 import org.json.JSONArray;
@@ -45,6 +48,7 @@ import org.json.JSONObject;
 import java.io.File;
 import java.io.FileDescriptor;
 import java.io.PrintWriter;
+import java.util.Map;
 
 public class SettingsDumpService extends Service {
     @VisibleForTesting
@@ -60,6 +64,12 @@ public class SettingsDumpService extends Service {
     @VisibleForTesting
     static final String KEY_ANOMALY_DETECTION = "anomaly_detection";
     @VisibleForTesting
+    static final String KEY_BATTERY_TIP_DETECTORS = "battery_tip_detectors";
+    @VisibleForTesting
+    static final String KEY_SEARCH_PROVIDERS = "search_providers";
+    @VisibleForTesting
+    static final String KEY_SLICES_INDEX = "slices_index";
+    @VisibleForTesting
     static final Intent BROWSER_INTENT =
             new Intent("android.intent.action.VIEW", Uri.parse("http://"));
 
@@ -79,6 +89,9 @@ public class SettingsDumpService extends Service {
             dump.put(KEY_MEMORY, dumpMemory());
             dump.put(KEY_DEFAULT_BROWSER_APP, dumpDefaultBrowser());
             dump.put(KEY_ANOMALY_DETECTION, dumpAnomalyDetection());
+            dump.put(KEY_BATTERY_TIP_DETECTORS, dumpBatteryTipDetectors());
+            dump.put(KEY_SEARCH_PROVIDERS, dumpSearchProviders());
+            dump.put(KEY_SLICES_INDEX, dumpSlicesIndex());
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -191,4 +204,54 @@ public class SettingsDumpService extends Service {
 
         return obj;
     }
+
+    @VisibleForTesting
+    JSONObject dumpBatteryTipDetectors() throws JSONException {
+        final JSONObject obj = new JSONObject();
+        final JSONArray buckets = new JSONArray();
+        for (long bucketMs : BatteryTipDetectorPipeline.LATENCY_BUCKETS_MS) {
+            buckets.put(bucketMs);
+        }
+        obj.put("latency_buckets_ms", buckets);
+
+        final JSONObject latency = new JSONObject();
+        for (Map.Entry<String, long[]> entry :
+                BatteryTipDetectorPipeline.getLatencyHistograms().entrySet()) {
+            final JSONArray counts = new JSONArray();
+            for (long count : entry.getValue()) {
+                counts.put(count);
+            }
+            latency.put(entry.getKey(), counts);
+        }
+        obj.put("latency", latency);
+
+        return obj;
+    }
+
+    @VisibleForTesting
+    JSONObject dumpSearchProviders() throws JSONException {
+        final JSONObject obj = new JSONObject();
+        for (SearchIndexableRawCollector.ProviderLatency latency :
+                SearchIndexableRawCollector.getProviderLatencies()) {
+            final JSONObject latencyObj = new JSONObject();
+            latencyObj.put("count", latency.count);
+            latencyObj.put("timeouts", latency.timeouts);
+            latencyObj.put("average_ms", latency.count == 0 ? 0 : latency.totalMs / latency.count);
+            latencyObj.put("max_ms", latency.maxMs);
+            obj.put(latency.name, latencyObj);
+        }
+
+        return obj;
+    }
+
+    @VisibleForTesting
+    JSONObject dumpSlicesIndex() throws JSONException {
+        final JSONObject obj = new JSONObject();
+        for (Map.Entry<String, Long> entry :
+                SlicesDatabaseHelper.getInstance(this).getIndexingStats().entrySet()) {
+            obj.put(entry.getKey(), entry.getValue());
+        }
+
+        return obj;
+    }
 }
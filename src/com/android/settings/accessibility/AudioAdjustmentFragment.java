@@ -17,12 +17,17 @@
 package com.android.settings.accessibility;
 
 import android.app.settings.SettingsEnums;
+import android.content.Context;
+import android.net.Uri;
 
 import com.android.settings.R;
 import com.android.settings.dashboard.DashboardFragment;
 import com.android.settings.search.BaseSearchIndexProvider;
 import com.android.settingslib.search.SearchIndexable;
 
+import java.util.Collections;
+import java.util.List;
+
 /** Accessibility settings for audio adjustment. */
 @SearchIndexable(forTarget = SearchIndexable.ALL & ~SearchIndexable.ARC)
 public class AudioAdjustmentFragment extends DashboardFragment {
@@ -45,6 +50,12 @@ public class AudioAdjustmentFragment extends DashboardFragment {
     }
 
     public static final BaseSearchIndexProvider SEARCH_INDEX_DATA_PROVIDER =
-            new BaseSearchIndexProvider(R.xml.accessibility_audio_adjustment);
+            new BaseSearchIndexProvider(R.xml.accessibility_audio_adjustment) {
+                @Override
+                public List<Uri> getSearchIndexDependencies(Context context) {
+                    // Only primary mono, which is always available.
+                    return Collections.emptyList();
+                }
+            };
 
 }
@@ -17,7 +17,9 @@
 package com.android.settings.accessibility;
 
 import android.app.settings.SettingsEnums;
+import android.content.Context;
 import android.hardware.display.ColorDisplayManager;
+import android.net.Uri;
 import android.os.Bundle;
 import android.provider.Settings;
 
@@ -30,6 +32,9 @@ import com.android.settings.dashboard.DashboardFragment;
 import com.android.settings.search.BaseSearchIndexProvider;
 import com.android.settingslib.search.SearchIndexable;
 
+import java.util.Collections;
+import java.util.List;
+
 /** Accessibility settings for text and display. */
 @SearchIndexable(forTarget = SearchIndexable.ALL & ~SearchIndexable.ARC)
 public class TextAndDisplayFragment extends DashboardFragment {
@@ -104,5 +109,11 @@ public class TextAndDisplayFragment extends DashboardFragment {
     }
 
     public static final BaseSearchIndexProvider SEARCH_INDEX_DATA_PROVIDER =
-            new BaseSearchIndexProvider(R.xml.accessibility_text_and_display);
+            new BaseSearchIndexProvider(R.xml.accessibility_text_and_display) {
+                @Override
+                public List<Uri> getSearchIndexDependencies(Context context) {
+                    // All the controllers of the page are always available.
+                    return Collections.emptyList();
+                }
+            };
 }
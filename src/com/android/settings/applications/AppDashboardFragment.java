@@ -63,6 +63,11 @@ public class AppDashboardFragment extends DashboardFragment {
         return R.xml.apps;
     }
 
+    @Override
+    protected boolean isParalleledControllers() {
+        return true;
+    }
+
     @Override
     public void onAttach(Context context) {
         super.onAttach(context);
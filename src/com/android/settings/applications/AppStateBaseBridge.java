@@ -15,27 +15,50 @@
  */
 package com.android.settings.applications;
 
+import android.content.pm.ApplicationInfo;
 import android.os.Handler;
 import android.os.Looper;
 import android.os.Message;
+import android.util.ArraySet;
+import android.util.Log;
+
+import androidx.annotation.VisibleForTesting;
 
 import com.android.settingslib.applications.ApplicationsState;
 import com.android.settingslib.applications.ApplicationsState.AppEntry;
 import com.android.settingslib.applications.ApplicationsState.Session;
 
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Common base class for bridging information to ApplicationsState.
+ *
+ * Load requests are coalesced: package list changes that arrive within {@link #LOAD_DEBOUNCE_MS}
+ * of each other, or while a full load is pending, result in a single load. They only load the apps
+ * which were installed or updated since the previous load, unless too many of them changed. Apps
+ * are matched by package name, uid, version code and apk path rather than by
+ * {@link ApplicationInfo} instance, as {@link ApplicationsState} may rebuild them.
  */
 public abstract class AppStateBaseBridge implements ApplicationsState.Callbacks {
 
+    private static final String TAG = "AppStateBaseBridge";
+    @VisibleForTesting
+    static final long LOAD_DEBOUNCE_MS = 100;
+    // Above this many changed apps, a batched full load is cheaper than per-package loads.
+    @VisibleForTesting
+    static final int MAX_INCREMENTAL_LOAD_COUNT = 10;
+
     protected final ApplicationsState mAppState;
     protected final Session mAppSession;
     protected final Callback mCallback;
     protected final BackgroundHandler mHandler;
     protected final MainHandler mMainHandler;
 
+    // Key of every app as of the last load, see getLoadedAppKey(). Only accessed on the
+    // background thread.
+    private final ArraySet<String> mLoadedApps = new ArraySet<>();
+
     public AppStateBaseBridge(ApplicationsState appState, Callback callback) {
         mAppState = appState;
         mAppSession = mAppState != null ? mAppState.newSession(this) : null;
@@ -49,7 +72,8 @@ public abstract class AppStateBaseBridge implements ApplicationsState.Callbacks
     }
 
     public void resume() {
-        mHandler.sendEmptyMessage(BackgroundHandler.MSG_LOAD_ALL);
+        // Extra info may have changed anywhere while paused, reload everything.
+        scheduleLoadAll();
         mAppSession.onResume();
     }
 
@@ -67,14 +91,64 @@ public abstract class AppStateBaseBridge implements ApplicationsState.Callbacks
 
     @Override
     public void onPackageListChanged() {
-        mHandler.sendEmptyMessage(BackgroundHandler.MSG_LOAD_ALL);
+        scheduleLoadChanged();
     }
 
     @Override
     public void onLoadEntriesCompleted() {
+        scheduleLoadChanged();
+    }
+
+    private void scheduleLoadAll() {
+        mHandler.removeMessages(BackgroundHandler.MSG_LOAD_CHANGED);
+        mHandler.removeMessages(BackgroundHandler.MSG_LOAD_ALL);
         mHandler.sendEmptyMessage(BackgroundHandler.MSG_LOAD_ALL);
     }
 
+    private void scheduleLoadChanged() {
+        if (mHandler.hasMessages(BackgroundHandler.MSG_LOAD_ALL)) {
+            // The pending full load covers the changed apps as well.
+            return;
+        }
+        mHandler.removeMessages(BackgroundHandler.MSG_LOAD_CHANGED);
+        mHandler.sendEmptyMessageDelayed(BackgroundHandler.MSG_LOAD_CHANGED, LOAD_DEBOUNCE_MS);
+    }
+
+    private void recordLoadedApps(List<AppEntry> apps) {
+        mLoadedApps.clear();
+        for (AppEntry app : apps) {
+            mLoadedApps.add(getLoadedAppKey(app));
+        }
+    }
+
+    // An update of the package changes its version code, or at least the path of its apk.
+    private static String getLoadedAppKey(AppEntry app) {
+        return app.info.packageName + "/" + app.info.uid + "/" + app.info.longVersionCode + "/"
+                + app.info.sourceDir;
+    }
+
+    private void loadChangedExtraInfo() {
+        final ArrayList<AppEntry> apps = mAppSession.getAllApps();
+        final List<AppEntry> changedApps = new ArrayList<>();
+        for (AppEntry app : apps) {
+            if (!mLoadedApps.contains(getLoadedAppKey(app))) {
+                changedApps.add(app);
+                if (changedApps.size() > MAX_INCREMENTAL_LOAD_COUNT) {
+                    break;
+                }
+            }
+        }
+        if (changedApps.size() > MAX_INCREMENTAL_LOAD_COUNT) {
+            loadAllExtraInfo();
+        } else {
+            Log.d(TAG, "Loading extra info of " + changedApps.size() + " changed apps");
+            for (AppEntry app : changedApps) {
+                updateExtraInfo(app, app.info.packageName, app.info.uid);
+            }
+        }
+        recordLoadedApps(apps);
+    }
+
     @Override
     public void onRunningStateChanged(boolean running) {
         // No op.
@@ -129,6 +203,7 @@ public abstract class AppStateBaseBridge implements ApplicationsState.Callbacks
     private class BackgroundHandler extends Handler {
         private static final int MSG_LOAD_ALL = 1;
         private static final int MSG_FORCE_LOAD_PKG = 2;
+        private static final int MSG_LOAD_CHANGED = 3;
 
         public BackgroundHandler(Looper looper) {
             super(looper);
@@ -139,6 +214,11 @@ public abstract class AppStateBaseBridge implements ApplicationsState.Callbacks
             switch (msg.what) {
                 case MSG_LOAD_ALL:
                     loadAllExtraInfo();
+                    recordLoadedApps(mAppSession.getAllApps());
+                    mMainHandler.sendEmptyMessage(MainHandler.MSG_INFO_UPDATED);
+                    break;
+                case MSG_LOAD_CHANGED:
+                    loadChangedExtraInfo();
                     mMainHandler.sendEmptyMessage(MainHandler.MSG_INFO_UPDATED);
                     break;
                 case MSG_FORCE_LOAD_PKG:
@@ -18,11 +18,12 @@ package com.android.settings.applications;
 import android.app.usage.IUsageStatsManager;
 import android.app.usage.UsageEvents;
 import android.content.Context;
+import android.content.pm.PackageManager;
 import android.os.RemoteException;
 import android.os.UserHandle;
 import android.os.UserManager;
-import android.text.format.DateUtils;
 import android.util.ArrayMap;
+import android.util.ArraySet;
 import android.util.Log;
 import android.util.Slog;
 import android.view.View;
@@ -55,7 +56,8 @@ public class AppStateNotificationBridge extends AppStateBaseBridge {
     private IUsageStatsManager mUsageStatsManager;
     protected List<Integer> mUserIds;
     private NotificationBackend mBackend;
-    private static final int DAYS_TO_CHECK = 7;
+    private final NotificationsSentDatabaseHelper mDatabaseHelper;
+    private static final int DAYS_TO_CHECK = NotificationsSentDatabaseHelper.DAYS_TO_CHECK;
 
     public AppStateNotificationBridge(Context context, ApplicationsState appState,
             Callback callback, IUsageStatsManager usageStatsManager,
@@ -64,6 +66,7 @@ public class AppStateNotificationBridge extends AppStateBaseBridge {
         mContext = context;
         mUsageStatsManager = usageStatsManager;
         mBackend = backend;
+        mDatabaseHelper = NotificationsSentDatabaseHelper.getInstance(context);
         mUserIds = new ArrayList<>();
         mUserIds.add(mContext.getUserId());
         int workUserId = Utils.getManagedProfileId(userManager, mContext.getUserId());
@@ -83,23 +86,53 @@ public class AppStateNotificationBridge extends AppStateBaseBridge {
         }
 
         final Map<String, NotificationsSentState> map = getAggregatedUsageEvents();
+        final float windowDays =
+                NotificationsSentDatabaseHelper.getWindowDays(System.currentTimeMillis());
         for (AppEntry entry : apps) {
             NotificationsSentState stats =
                     map.get(getKey(UserHandle.getUserId(entry.info.uid), entry.info.packageName));
             if (stats == null) {
                 stats = new NotificationsSentState();
             }
-            calculateAvgSentCounts(stats);
+            calculateAvgSentCounts(stats, windowDays);
             addBlockStatus(entry, stats);
             entry.extraInfo = stats;
         }
+        purgeRemovedApps(apps);
+    }
+
+    /**
+     * Drops the daily counts of the removed users and packages, so they don't pile up. A
+     * package missing from {@code apps} is only dropped once the package manager confirms it is
+     * gone, as the app list may still be loading.
+     */
+    private void purgeRemovedApps(List<AppEntry> apps) {
+        mDatabaseHelper.retainUsers(mUserIds);
+        final ArraySet<String> loadedKeys = new ArraySet<>();
+        for (AppEntry entry : apps) {
+            loadedKeys.add(getKey(UserHandle.getUserId(entry.info.uid), entry.info.packageName));
+        }
+        final PackageManager packageManager = mContext.getPackageManager();
+        for (int userId : mUserIds) {
+            for (String pkg : mDatabaseHelper.getPackages(userId)) {
+                if (loadedKeys.contains(getKey(userId, pkg))) {
+                    continue;
+                }
+                try {
+                    packageManager.getPackageUidAsUser(pkg, 0 /* flags */, userId);
+                } catch (PackageManager.NameNotFoundException e) {
+                    mDatabaseHelper.clearPackage(userId, pkg);
+                }
+            }
+        }
     }
 
     @Override
     protected void updateExtraInfo(AppEntry entry, String pkg, int uid) {
         NotificationsSentState stats = getAggregatedUsageEvents(
                 UserHandle.getUserId(entry.info.uid), entry.info.packageName);
-        calculateAvgSentCounts(stats);
+        calculateAvgSentCounts(stats,
+                NotificationsSentDatabaseHelper.getWindowDays(System.currentTimeMillis()));
         addBlockStatus(entry, stats);
         entry.extraInfo = stats;
     }
@@ -132,48 +165,45 @@ public class AppStateNotificationBridge extends AppStateBaseBridge {
         }
     }
 
-    private void calculateAvgSentCounts(NotificationsSentState stats) {
+    // The window is DAYS_TO_CHECK full days plus the part of today gone by, so the daily average
+    // is over its real length.
+    private void calculateAvgSentCounts(NotificationsSentState stats, float windowDays) {
         if (stats != null) {
-            stats.avgSentDaily = Math.round((float) stats.sentCount / DAYS_TO_CHECK);
+            stats.avgSentDaily = Math.round(stats.sentCount / windowDays);
             if (stats.sentCount < DAYS_TO_CHECK) {
                 stats.avgSentWeekly = stats.sentCount;
             }
         }
     }
 
+    /**
+     * Brings the daily counts of {@link NotificationsSentDatabaseHelper} up to date with the
+     * usage events reported since the previous load, and returns the totals of the last
+     * {@link #DAYS_TO_CHECK} full days and today.
+     */
     protected Map<String, NotificationsSentState> getAggregatedUsageEvents() {
         ArrayMap<String, NotificationsSentState> aggregatedStats = new ArrayMap<>();
 
         long now = System.currentTimeMillis();
-        long startTime = now - (DateUtils.DAY_IN_MILLIS * DAYS_TO_CHECK);
+        long windowStart = NotificationsSentDatabaseHelper.getWindowStart(now);
         for (int userId : mUserIds) {
+            long checkpoint = mDatabaseHelper.getCheckpoint(userId);
+            if (checkpoint > now) {
+                // The clock went backwards, the stored days can't be trusted anymore.
+                mDatabaseHelper.clearUser(userId);
+                checkpoint = 0;
+            }
             UsageEvents events = null;
             try {
-                events = mUsageStatsManager.queryEventsForUser(
-                        startTime, now, userId, mContext.getPackageName());
+                events = mUsageStatsManager.queryEventsForUser(Math.max(checkpoint, windowStart),
+                        now, userId, mContext.getPackageName());
             } catch (RemoteException e) {
                 e.printStackTrace();
             }
             if (events != null) {
-                UsageEvents.Event event = new UsageEvents.Event();
-                while (events.hasNextEvent()) {
-                    events.getNextEvent(event);
-                    NotificationsSentState stats =
-                            aggregatedStats.get(getKey(userId, event.getPackageName()));
-                    if (stats == null) {
-                        stats = new NotificationsSentState();
-                        aggregatedStats.put(getKey(userId, event.getPackageName()), stats);
-                    }
-
-                    if (event.getEventType() == UsageEvents.Event.NOTIFICATION_INTERRUPTION) {
-                        if (event.getTimeStamp() > stats.lastSent) {
-                            stats.lastSent = event.getTimeStamp();
-                        }
-                        stats.sentCount++;
-                    }
-
-                }
+                mDatabaseHelper.mergeEvents(userId, events, windowStart, now);
             }
+            mDatabaseHelper.loadSentStates(userId, aggregatedStats);
         }
         return aggregatedStats;
     }
@@ -182,7 +212,7 @@ public class AppStateNotificationBridge extends AppStateBaseBridge {
         NotificationsSentState stats = null;
 
         long now = System.currentTimeMillis();
-        long startTime = now - (DateUtils.DAY_IN_MILLIS * DAYS_TO_CHECK);
+        long startTime = NotificationsSentDatabaseHelper.getWindowStart(now);
         UsageEvents events = null;
         try {
             events = mUsageStatsManager.queryEventsForPackageForUser(
@@ -53,6 +53,7 @@ import androidx.preference.PreferenceCategory;
 import com.android.settings.R;
 import com.android.settings.Utils;
 import com.android.settings.deviceinfo.StorageWizardMoveConfirm;
+import com.android.settings.deviceinfo.storage.AppStorageStatsCache;
 import com.android.settingslib.RestrictedLockUtils;
 import com.android.settingslib.applications.AppUtils;
 import com.android.settingslib.applications.ApplicationsState.Callbacks;
@@ -603,6 +604,7 @@ public class AppStorageSettings extends AppInfoWithHeader
 
     class ClearCacheObserver extends IPackageDataObserver.Stub {
         public void onRemoveCompleted(final String packageName, final boolean succeeded) {
+            AppStorageStatsCache.invalidate(packageName);
             final Message msg = mHandler.obtainMessage(MSG_CLEAR_CACHE);
             msg.arg1 = succeeded ? OP_SUCCESSFUL : OP_FAILED;
             mHandler.sendMessage(msg);
@@ -611,6 +613,7 @@ public class AppStorageSettings extends AppInfoWithHeader
 
     class ClearUserDataObserver extends IPackageDataObserver.Stub {
         public void onRemoveCompleted(final String packageName, final boolean succeeded) {
+            AppStorageStatsCache.invalidate(packageName);
             final Message msg = mHandler.obtainMessage(MSG_CLEAR_USER_DATA);
             msg.arg1 = succeeded ? OP_SUCCESSFUL : OP_FAILED;
             mHandler.sendMessage(msg);
@@ -20,6 +20,7 @@ import android.app.Application;
 import android.app.usage.UsageStats;
 import android.content.Context;
 import android.icu.text.RelativeDateTimeFormatter;
+import android.net.Uri;
 import android.os.UserHandle;
 import android.text.TextUtils;
 import android.util.ArrayMap;
@@ -41,6 +42,7 @@ import com.android.settingslib.applications.ApplicationsState;
 import com.android.settingslib.utils.StringUtil;
 import com.android.settingslib.widget.AppPreference;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -95,6 +97,11 @@ public class AppsPreferenceController extends BasePreferenceController implement
         return AVAILABLE_UNSEARCHABLE;
     }
 
+    @Override
+    public List<Uri> getSearchIndexDependencies() {
+        return Collections.emptyList();
+    }
+
     @Override
     public void displayPreference(PreferenceScreen screen) {
         super.displayPreference(screen);
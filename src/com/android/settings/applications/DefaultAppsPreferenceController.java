@@ -20,6 +20,7 @@ import android.app.role.RoleManager;
 import android.content.Context;
 import android.content.pm.PackageManager;
 import android.icu.text.ListFormatter;
+import android.net.Uri;
 import android.text.TextUtils;
 
 import androidx.core.text.BidiFormatter;
@@ -28,6 +29,7 @@ import com.android.settings.core.BasePreferenceController;
 import com.android.settingslib.applications.AppUtils;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public class DefaultAppsPreferenceController extends BasePreferenceController {
@@ -47,6 +49,11 @@ public class DefaultAppsPreferenceController extends BasePreferenceController {
         return AVAILABLE;
     }
 
+    @Override
+    public List<Uri> getSearchIndexDependencies() {
+        return Collections.emptyList();
+    }
+
     @Override
     public CharSequence getSummary() {
         final List<CharSequence> defaultAppLabels = new ArrayList<>();
@@ -17,6 +17,7 @@
 package com.android.settings.applications;
 
 import android.content.Context;
+import android.net.Uri;
 import android.text.TextUtils;
 
 import androidx.preference.Preference;
@@ -25,6 +26,9 @@ import com.android.internal.annotations.VisibleForTesting;
 import com.android.settings.core.BasePreferenceController;
 import com.android.settings.overlay.FeatureFactory;
 
+import java.util.Collections;
+import java.util.List;
+
 /** Contains logic that deals with showing Game Settings in app settings. */
 public class GameSettingsPreferenceController extends BasePreferenceController {
 
@@ -49,6 +53,11 @@ public class GameSettingsPreferenceController extends BasePreferenceController {
                 ? AVAILABLE : UNSUPPORTED_ON_DEVICE;
     }
 
+    @Override
+    public List<Uri> getSearchIndexDependencies() {
+        return Collections.emptyList();
+    }
+
     @Override
     public boolean handlePreferenceTreeClick(Preference preference) {
         if (TextUtils.equals(getPreferenceKey(), preference.getKey())) {
@@ -27,6 +27,7 @@ import android.apphibernation.AppHibernationManager;
 import android.content.Context;
 import android.content.pm.PackageInfo;
 import android.content.pm.PackageManager;
+import android.net.Uri;
 import android.provider.DeviceConfig;
 import android.util.ArrayMap;
 
@@ -39,10 +40,12 @@ import androidx.preference.Preference;
 import androidx.preference.PreferenceScreen;
 
 import com.android.settings.R;
+import com.android.settings.core.BackgroundAvailabilityController;
 import com.android.settings.core.BasePreferenceController;
 
 import com.google.common.annotations.VisibleForTesting;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Executor;
@@ -53,7 +56,7 @@ import java.util.concurrent.TimeUnit;
  * A preference controller handling the logic for updating summary of hibernated apps.
  */
 public final class HibernatedAppsPreferenceController extends BasePreferenceController
-        implements LifecycleObserver {
+        implements BackgroundAvailabilityController, LifecycleObserver {
     private static final String TAG = "HibernatedAppsPrefController";
     private static final String PROPERTY_HIBERNATION_UNUSED_THRESHOLD_MILLIS =
             "auto_revoke_unused_threshold_millis2";
@@ -83,6 +86,14 @@ public final class HibernatedAppsPreferenceController extends BasePreferenceCont
         return isHibernationEnabled() ? AVAILABLE : CONDITIONALLY_UNAVAILABLE;
     }
 
+    @Override
+    public List<Uri> getSearchIndexDependencies() {
+        return Collections.singletonList(DeviceConfig.CONTENT_URI.buildUpon()
+                .appendPath(NAMESPACE_APP_HIBERNATION)
+                .appendPath(PROPERTY_APP_HIBERNATION_ENABLED)
+                .build());
+    }
+
     @Override
     public CharSequence getSummary() {
         return mLoadedUnusedCount
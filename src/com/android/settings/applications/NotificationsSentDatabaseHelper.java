@@ -0,0 +1,375 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.applications;
+
+import android.app.usage.UsageEvents;
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+import android.text.format.DateUtils;
+import android.util.ArrayMap;
+import android.util.Log;
+import android.util.SparseArray;
+
+import com.android.settings.applications.AppStateNotificationBridge.NotificationsSentState;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * Keeps a daily aggregate of the notifications sent by each package, per user, so that
+ * {@link AppStateNotificationBridge} only needs to read the usage events reported since its last
+ * load instead of the whole window.
+ *
+ * Days are local days, so the window starts at a local midnight.
+ */
+public class NotificationsSentDatabaseHelper extends SQLiteOpenHelper {
+    private static final String TAG = "NotificationsSentDb";
+
+    private static final String DATABASE_NAME = "notifications_sent.db";
+    private static final int DATABASE_VERSION = 2;
+
+    /**
+     * Number of full days the averages are computed over, on top of today.
+     */
+    public static final int DAYS_TO_CHECK = 7;
+
+    public interface Tables {
+        String TABLE_DAILY_COUNT = "daily_count";
+        String TABLE_CHECKPOINT = "checkpoint";
+    }
+
+    public interface DailyCountColumns {
+        /**
+         * The user the notifications were sent to
+         */
+        String USER_ID = "user_id";
+        /**
+         * The package that sent the notifications
+         */
+        String PACKAGE_NAME = "package_name";
+        /**
+         * Days since the epoch, in local time
+         */
+        String DAY = "day";
+        /**
+         * Number of notifications sent in that day
+         */
+        String SENT_COUNT = "sent_count";
+        /**
+         * Time of the last notification sent in that day
+         */
+        String LAST_SENT = "last_sent";
+    }
+
+    public interface CheckpointColumns {
+        /**
+         * The user the checkpoint belongs to
+         */
+        String USER_ID = "user_id";
+        /**
+         * Usage events before this time are already part of the daily counts
+         */
+        String TIMESTAMP = "timestamp";
+    }
+
+    private static final String CREATE_DAILY_COUNT_TABLE =
+            "CREATE TABLE " + Tables.TABLE_DAILY_COUNT +
+                    "(" +
+                    DailyCountColumns.USER_ID +
+                    " INTEGER NOT NULL, " +
+                    DailyCountColumns.PACKAGE_NAME +
+                    " TEXT NOT NULL, " +
+                    DailyCountColumns.DAY +
+                    " INTEGER NOT NULL, " +
+                    DailyCountColumns.SENT_COUNT +
+                    " INTEGER NOT NULL DEFAULT 0, " +
+                    DailyCountColumns.LAST_SENT +
+                    " INTEGER NOT NULL DEFAULT 0, " +
+                    "PRIMARY KEY (" +
+                    DailyCountColumns.USER_ID + "," +
+                    DailyCountColumns.PACKAGE_NAME + "," +
+                    DailyCountColumns.DAY + "))";
+
+    private static final String CREATE_CHECKPOINT_TABLE =
+            "CREATE TABLE " + Tables.TABLE_CHECKPOINT +
+                    "(" +
+                    CheckpointColumns.USER_ID +
+                    " INTEGER PRIMARY KEY, " +
+                    CheckpointColumns.TIMESTAMP +
+                    " INTEGER NOT NULL)";
+
+    private static final String INSERT_DAILY_COUNT =
+            "INSERT OR IGNORE INTO " + Tables.TABLE_DAILY_COUNT + " (" +
+                    DailyCountColumns.USER_ID + "," +
+                    DailyCountColumns.PACKAGE_NAME + "," +
+                    DailyCountColumns.DAY + ") VALUES (?,?,?)";
+
+    private static final String UPDATE_DAILY_COUNT =
+            "UPDATE " + Tables.TABLE_DAILY_COUNT + " SET " +
+                    DailyCountColumns.SENT_COUNT + "=" + DailyCountColumns.SENT_COUNT + "+?," +
+                    DailyCountColumns.LAST_SENT + "=MAX(" + DailyCountColumns.LAST_SENT + ",?)" +
+                    " WHERE " + DailyCountColumns.USER_ID + "=? AND " +
+                    DailyCountColumns.PACKAGE_NAME + "=? AND " +
+                    DailyCountColumns.DAY + "=?";
+
+    private static final String QUERY_SENT_STATES =
+            "SELECT " + DailyCountColumns.PACKAGE_NAME +
+                    ", SUM(" + DailyCountColumns.SENT_COUNT + ")" +
+                    ", MAX(" + DailyCountColumns.LAST_SENT + ")" +
+                    " FROM " + Tables.TABLE_DAILY_COUNT +
+                    " WHERE " + DailyCountColumns.USER_ID + "=?" +
+                    " GROUP BY " + DailyCountColumns.PACKAGE_NAME;
+
+    private static NotificationsSentDatabaseHelper sSingleton;
+
+    public static synchronized NotificationsSentDatabaseHelper getInstance(Context context) {
+        if (sSingleton == null) {
+            sSingleton = new NotificationsSentDatabaseHelper(context.getApplicationContext());
+        }
+        return sSingleton;
+    }
+
+    private NotificationsSentDatabaseHelper(Context context) {
+        super(context, DATABASE_NAME, null /* CursorFactory */, DATABASE_VERSION);
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL(CREATE_DAILY_COUNT_TABLE);
+        db.execSQL(CREATE_CHECKPOINT_TABLE);
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        if (oldVersion < DATABASE_VERSION) {
+            Log.w(TAG, "Reconstructing DB from " + oldVersion + " to " + newVersion);
+            reconstruct(db);
+        }
+    }
+
+    @Override
+    public void onDowngrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        Log.w(TAG, "Reconstructing DB from " + oldVersion + " to " + newVersion);
+        reconstruct(db);
+    }
+
+    /**
+     * @return the start of the window covered by the daily counts at {@code now}, which is the
+     * local midnight {@link #DAYS_TO_CHECK} days before today. Per package queries use it as
+     * well, so their totals match.
+     */
+    public static long getWindowStart(long now) {
+        final Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(now);
+        calendar.set(Calendar.HOUR_OF_DAY, 0);
+        calendar.set(Calendar.MINUTE, 0);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        calendar.add(Calendar.DAY_OF_MONTH, -DAYS_TO_CHECK);
+        return calendar.getTimeInMillis();
+    }
+
+    /**
+     * @return the length in days of the window at {@code now}, the full days and the part of
+     * today it covers, which the daily averages are divided by.
+     */
+    public static float getWindowDays(long now) {
+        return (float) (now - getWindowStart(now)) / DateUtils.DAY_IN_MILLIS;
+    }
+
+    /**
+     * @return the time up to which usage events of {@code userId} are already aggregated, or 0
+     * if nothing has been aggregated yet.
+     */
+    public long getCheckpoint(int userId) {
+        final SQLiteDatabase db = getReadableDatabase();
+        try (Cursor cursor = db.query(Tables.TABLE_CHECKPOINT,
+                new String[]{CheckpointColumns.TIMESTAMP},
+                CheckpointColumns.USER_ID + "=?", new String[]{String.valueOf(userId)},
+                null /* groupBy */, null /* having */, null /* orderBy */)) {
+            return cursor.moveToFirst() ? cursor.getLong(0) : 0;
+        }
+    }
+
+    /**
+     * Forgets everything aggregated for {@code userId}.
+     */
+    public void clearUser(int userId) {
+        final SQLiteDatabase db = getWritableDatabase();
+        final String[] args = new String[]{String.valueOf(userId)};
+        db.beginTransaction();
+        try {
+            db.delete(Tables.TABLE_DAILY_COUNT, DailyCountColumns.USER_ID + "=?", args);
+            db.delete(Tables.TABLE_CHECKPOINT, CheckpointColumns.USER_ID + "=?", args);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Forgets the users not in {@code userIds}, such as a removed work profile.
+     */
+    public void retainUsers(List<Integer> userIds) {
+        final StringBuilder where = new StringBuilder();
+        final String[] args = new String[userIds.size()];
+        for (int i = 0; i < userIds.size(); i++) {
+            where.append(i == 0 ? "?" : ",?");
+            args[i] = String.valueOf(userIds.get(i));
+        }
+        final SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            db.delete(Tables.TABLE_DAILY_COUNT,
+                    DailyCountColumns.USER_ID + " NOT IN (" + where + ")", args);
+            db.delete(Tables.TABLE_CHECKPOINT,
+                    CheckpointColumns.USER_ID + " NOT IN (" + where + ")", args);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * @return the packages of {@code userId} with daily counts.
+     */
+    public List<String> getPackages(int userId) {
+        final List<String> packages = new ArrayList<>();
+        final SQLiteDatabase db = getReadableDatabase();
+        try (Cursor cursor = db.query(true /* distinct */, Tables.TABLE_DAILY_COUNT,
+                new String[]{DailyCountColumns.PACKAGE_NAME},
+                DailyCountColumns.USER_ID + "=?", new String[]{String.valueOf(userId)},
+                null /* groupBy */, null /* having */, null /* orderBy */, null /* limit */)) {
+            while (cursor.moveToNext()) {
+                packages.add(cursor.getString(0));
+            }
+        }
+        return packages;
+    }
+
+    /**
+     * Forgets the daily counts of {@code packageName} for {@code userId}, once it is removed.
+     */
+    public void clearPackage(int userId, String packageName) {
+        getWritableDatabase().delete(Tables.TABLE_DAILY_COUNT,
+                DailyCountColumns.USER_ID + "=? AND " + DailyCountColumns.PACKAGE_NAME + "=?",
+                new String[]{String.valueOf(userId), packageName});
+    }
+
+    /**
+     * Drops the days that ended before {@code windowStart}, adds the notification events in
+     * {@code events} to the daily counts of {@code userId} and moves its checkpoint to
+     * {@code checkpoint}, all in one transaction.
+     */
+    public void mergeEvents(int userId, UsageEvents events, long windowStart, long checkpoint) {
+        // Aggregate in memory first so each (package, day) is written once.
+        final Map<String, SparseArray<long[]>> counts = new ArrayMap<>();
+        final UsageEvents.Event event = new UsageEvents.Event();
+        while (events.hasNextEvent()) {
+            events.getNextEvent(event);
+            if (event.getEventType() != UsageEvents.Event.NOTIFICATION_INTERRUPTION) {
+                continue;
+            }
+            SparseArray<long[]> days = counts.get(event.getPackageName());
+            if (days == null) {
+                days = new SparseArray<>();
+                counts.put(event.getPackageName(), days);
+            }
+            final int day = getDay(event.getTimeStamp());
+            long[] count = days.get(day);
+            if (count == null) {
+                count = new long[2];
+                days.put(day, count);
+            }
+            count[0]++;
+            count[1] = Math.max(count[1], event.getTimeStamp());
+        }
+
+        final SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            db.delete(Tables.TABLE_DAILY_COUNT,
+                    DailyCountColumns.USER_ID + "=? AND " + DailyCountColumns.DAY + "<?",
+                    new String[]{String.valueOf(userId), String.valueOf(getDay(windowStart))});
+            if (!counts.isEmpty()) {
+                final SQLiteStatement insert = db.compileStatement(INSERT_DAILY_COUNT);
+                final SQLiteStatement update = db.compileStatement(UPDATE_DAILY_COUNT);
+                for (Map.Entry<String, SparseArray<long[]>> entry : counts.entrySet()) {
+                    final SparseArray<long[]> days = entry.getValue();
+                    for (int i = 0; i < days.size(); i++) {
+                        final long[] count = days.valueAt(i);
+                        insert.bindLong(1, userId);
+                        insert.bindString(2, entry.getKey());
+                        insert.bindLong(3, days.keyAt(i));
+                        insert.executeInsert();
+                        update.bindLong(1, count[0]);
+                        update.bindLong(2, count[1]);
+                        update.bindLong(3, userId);
+                        update.bindString(4, entry.getKey());
+                        update.bindLong(5, days.keyAt(i));
+                        update.executeUpdateDelete();
+                    }
+                }
+                insert.close();
+                update.close();
+            }
+            final ContentValues values = new ContentValues();
+            values.put(CheckpointColumns.USER_ID, userId);
+            values.put(CheckpointColumns.TIMESTAMP, checkpoint);
+            db.insertWithOnConflict(Tables.TABLE_CHECKPOINT, null /* nullColumnHack */, values,
+                    SQLiteDatabase.CONFLICT_REPLACE);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Adds the aggregated state of every package of {@code userId} to {@code states}, keyed by
+     * {@link AppStateNotificationBridge#getKey(int, String)}.
+     */
+    public void loadSentStates(int userId, Map<String, NotificationsSentState> states) {
+        final SQLiteDatabase db = getReadableDatabase();
+        try (Cursor cursor = db.rawQuery(QUERY_SENT_STATES,
+                new String[]{String.valueOf(userId)})) {
+            while (cursor.moveToNext()) {
+                final NotificationsSentState stats = new NotificationsSentState();
+                stats.sentCount = cursor.getInt(1);
+                stats.lastSent = cursor.getLong(2);
+                states.put(AppStateNotificationBridge.getKey(userId, cursor.getString(0)), stats);
+            }
+        }
+    }
+
+    private void reconstruct(SQLiteDatabase db) {
+        db.execSQL("DROP TABLE IF EXISTS " + Tables.TABLE_DAILY_COUNT);
+        db.execSQL("DROP TABLE IF EXISTS " + Tables.TABLE_CHECKPOINT);
+        onCreate(db);
+    }
+
+    private static int getDay(long timestamp) {
+        return (int) Math.floorDiv(timestamp + TimeZone.getDefault().getOffset(timestamp),
+                DateUtils.DAY_IN_MILLIS);
+    }
+}
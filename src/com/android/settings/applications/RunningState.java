@@ -53,6 +53,7 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * Singleton for retrieving and monitoring the state about all running
@@ -69,6 +70,7 @@ public class RunningState {
     static final int MSG_UPDATE_CONTENTS = 2;
     static final int MSG_REFRESH_UI = 3;
     static final int MSG_UPDATE_TIME = 4;
+    static final int MSG_PACKAGE_CHANGED = 5;
 
     static final long TIME_UPDATE_DELAY = 1000;
     static final long CONTENTS_UPDATE_DELAY = 2000;
@@ -137,6 +139,14 @@ public class RunningState {
     // Temporary structure used when updating above information.
     final SparseArray<AppProcessInfo> mTmpAppProcesses = new SparseArray<AppProcessInfo>();
 
+    // Labels and service info resolved for the items above, see ComponentCache.
+    final ComponentCache mComponentCache = new ComponentCache();
+
+    // The lists the items above were last built from, to skip rebuilding them
+    // when nothing changed since the previous update.
+    List<ActivityManager.RunningServiceInfo> mLastServices;
+    List<ActivityManager.RunningAppProcessInfo> mLastProcesses;
+
     int mSequence = 0;
 
     final Comparator<RunningState.MergedItem> mBackgroundComparator =
@@ -238,6 +248,9 @@ public class RunningState {
                 case MSG_RESET_CONTENTS:
                     reset();
                     break;
+                case MSG_PACKAGE_CHANGED:
+                    onPackageChanged((String) msg.obj);
+                    break;
                 case MSG_UPDATE_CONTENTS:
                     synchronized (mLock) {
                         if (!mResumed) {
@@ -294,6 +307,12 @@ public class RunningState {
 
         @Override
         public void onReceive(Context context, Intent intent) {
+            if (intent.getData() != null) {
+                // Only a package changed, the items of its processes are rebuilt as they restart.
+                mBackgroundHandler.obtainMessage(MSG_PACKAGE_CHANGED,
+                        intent.getData().getSchemeSpecificPart()).sendToTarget();
+                return;
+            }
             synchronized (mLock) {
                 if (mResumed) {
                     mHaveData = false;
@@ -319,6 +338,15 @@ public class RunningState {
             filter.addAction(Intent.ACTION_USER_STARTED);
             filter.addAction(Intent.ACTION_USER_INFO_CHANGED);
             context.registerReceiverAsUser(this, UserHandle.ALL, filter, null, null);
+
+            // Labels and service info are cached per component, a package change
+            // drops the ones of that package, see onPackageChanged().
+            IntentFilter packageFilter = new IntentFilter();
+            packageFilter.addAction(Intent.ACTION_PACKAGE_ADDED);
+            packageFilter.addAction(Intent.ACTION_PACKAGE_CHANGED);
+            packageFilter.addAction(Intent.ACTION_PACKAGE_REMOVED);
+            packageFilter.addDataScheme("package");
+            context.registerReceiverAsUser(this, UserHandle.ALL, packageFilter, null, null);
         }
     }
 
@@ -419,6 +447,24 @@ public class RunningState {
             mProcessName = processName;
         }
 
+        void ensureLabel(PackageManager pm, ComponentCache cache) {
+            if (mLabel != null) {
+                return;
+            }
+            ComponentCache.Label label = cache.getProcessLabel(mUid, mProcessName);
+            if (label != null) {
+                mPackageInfo = label.mPackageInfo;
+                mDisplayLabel = label.mDisplayLabel;
+                mLabel = mDisplayLabel.toString();
+                return;
+            }
+            ensureLabel(pm);
+            if (mLabel != null) {
+                cache.putProcessLabel(mUid, mProcessName,
+                        new ComponentCache.Label(mPackageInfo, mDisplayLabel));
+            }
+        }
+
         void ensureLabel(PackageManager pm) {
             if (mLabel != null) {
                 return;
@@ -495,7 +541,8 @@ public class RunningState {
             }
         }
 
-        boolean updateService(Context context, ActivityManager.RunningServiceInfo service) {
+        boolean updateService(Context context, ActivityManager.RunningServiceInfo service,
+                ComponentCache cache) {
             final PackageManager pm = context.getPackageManager();
 
             boolean changed = false;
@@ -504,20 +551,15 @@ public class RunningState {
                 changed = true;
                 si = new ServiceItem(mUserId);
                 si.mRunningService = service;
-                try {
-                    si.mServiceInfo = ActivityThread.getPackageManager().getServiceInfo(
-                            service.service, PackageManager.MATCH_ANY_USER,
-                            UserHandle.getUserId(service.uid));
-
-                    if (si.mServiceInfo == null) {
-                        Log.d("RunningService", "getServiceInfo returned null for: "
-                                + service.service);
-                        return false;
-                    }
-                } catch (RemoteException e) {
+                ComponentCache.Label serviceLabel = cache.getService(pm, service.service,
+                        UserHandle.getUserId(service.uid));
+                if (serviceLabel == null) {
+                    Log.d("RunningService", "getServiceInfo returned null for: "
+                            + service.service);
+                    return false;
                 }
-                si.mDisplayLabel = makeLabel(pm,
-                        si.mRunningService.service.getClassName(), si.mServiceInfo);
+                si.mServiceInfo = (ServiceInfo) serviceLabel.mPackageInfo;
+                si.mDisplayLabel = serviceLabel.mDisplayLabel;
                 mLabel = mDisplayLabel != null ? mDisplayLabel.toString() : null;
                 si.mPackageInfo = si.mServiceInfo.applicationInfo;
                 mServices.put(service.service, si);
@@ -534,14 +576,11 @@ public class RunningState {
                     si.mShownAsStarted = false;
                     changed = true;
                 }
-                try {
-                    Resources clientr = pm.getResourcesForApplication(service.clientPackage);
-                    String label = clientr.getString(service.clientLabel);
-                    si.mDescription = context.getResources().getString(
-                            R.string.service_client_name, label);
-                } catch (PackageManager.NameNotFoundException e) {
-                    si.mDescription = null;
-                }
+                String label = cache.getClientLabel(pm, service.clientPackage,
+                        service.clientLabel);
+                si.mDescription = label != null
+                        ? context.getResources().getString(R.string.service_client_name, label)
+                        : null;
             } else {
                 if (!si.mShownAsStarted) {
                     si.mShownAsStarted = true;
@@ -570,7 +609,8 @@ public class RunningState {
             return false;
         }
 
-        boolean buildDependencyChain(Context context, PackageManager pm, int curSeq) {
+        boolean buildDependencyChain(Context context, PackageManager pm, ComponentCache cache,
+                int curSeq) {
             final int NP = mDependentProcesses.size();
             boolean changed = false;
             for (int i = 0; i < NP; i++) {
@@ -580,8 +620,8 @@ public class RunningState {
                     proc.mClient = this;
                 }
                 proc.mCurSeq = curSeq;
-                proc.ensureLabel(pm);
-                changed |= proc.buildDependencyChain(context, pm, curSeq);
+                proc.ensureLabel(pm, cache);
+                changed |= proc.buildDependencyChain(context, pm, cache, curSeq);
             }
 
             if (mLastNumDependentProcesses != mDependentProcesses.size()) {
@@ -729,6 +769,113 @@ public class RunningState {
         }
     }
 
+    /**
+     * Labels and {@link ServiceInfo}s resolved on the background thread, per component, so a
+     * process or service that comes back doesn't have to go through the package manager again.
+     * They only change with the packages, which drop their own entries, see
+     * {@link #onPackageChanged(String)}.
+     */
+    static class ComponentCache {
+        static class Label {
+            final PackageItemInfo mPackageInfo;
+            final CharSequence mDisplayLabel;
+
+            Label(PackageItemInfo packageInfo, CharSequence displayLabel) {
+                mPackageInfo = packageInfo;
+                mDisplayLabel = displayLabel;
+            }
+        }
+
+        // Process labels, keyed by uid then process name.
+        final SparseArray<HashMap<String, Label>> mProcessLabels =
+                new SparseArray<HashMap<String, Label>>();
+        // Service info and label, keyed by user id then component.
+        final SparseArray<HashMap<ComponentName, Label>> mServices =
+                new SparseArray<HashMap<ComponentName, Label>>();
+        // Client labels, keyed by package then label resource.
+        final HashMap<String, SparseArray<String>> mClientLabels =
+                new HashMap<String, SparseArray<String>>();
+
+        Label getProcessLabel(int uid, String processName) {
+            HashMap<String, Label> labels = mProcessLabels.get(uid);
+            return labels != null ? labels.get(processName) : null;
+        }
+
+        void putProcessLabel(int uid, String processName, Label label) {
+            HashMap<String, Label> labels = mProcessLabels.get(uid);
+            if (labels == null) {
+                labels = new HashMap<String, Label>();
+                mProcessLabels.put(uid, labels);
+            }
+            labels.put(processName, label);
+        }
+
+        /**
+         * @return the service info of {@code service} in its {@link Label#mPackageInfo}, or null
+         * if it could not be found.
+         */
+        Label getService(PackageManager pm, ComponentName service, int userId) {
+            HashMap<ComponentName, Label> services = mServices.get(userId);
+            if (services == null) {
+                services = new HashMap<ComponentName, Label>();
+                mServices.put(userId, services);
+            }
+            Label label = services.get(service);
+            if (label == null) {
+                ServiceInfo serviceInfo = null;
+                try {
+                    serviceInfo = ActivityThread.getPackageManager().getServiceInfo(
+                            service, PackageManager.MATCH_ANY_USER, userId);
+                } catch (RemoteException e) {
+                }
+                if (serviceInfo == null) {
+                    return null;
+                }
+                label = new Label(serviceInfo, makeLabel(pm, service.getClassName(), serviceInfo));
+                services.put(service, label);
+            }
+            return label;
+        }
+
+        String getClientLabel(PackageManager pm, String clientPackage, int clientLabel) {
+            SparseArray<String> labels = mClientLabels.get(clientPackage);
+            String label = labels != null ? labels.get(clientLabel) : null;
+            if (label == null) {
+                try {
+                    Resources clientr = pm.getResourcesForApplication(clientPackage);
+                    label = clientr.getString(clientLabel);
+                } catch (PackageManager.NameNotFoundException e) {
+                    return null;
+                }
+                if (labels == null) {
+                    labels = new SparseArray<String>();
+                    mClientLabels.put(clientPackage, labels);
+                }
+                labels.put(clientLabel, label);
+            }
+            return label;
+        }
+
+        void removePackage(String packageName) {
+            for (int i = 0; i < mProcessLabels.size(); i++) {
+                mProcessLabels.valueAt(i).values().removeIf(label ->
+                        label.mPackageInfo != null
+                                && packageName.equals(label.mPackageInfo.packageName));
+            }
+            for (int i = 0; i < mServices.size(); i++) {
+                mServices.valueAt(i).keySet().removeIf(service ->
+                        packageName.equals(service.getPackageName()));
+            }
+            mClientLabels.remove(packageName);
+        }
+
+        void clear() {
+            mProcessLabels.clear();
+            mServices.clear();
+            mClientLabels.clear();
+        }
+    }
+
     class ServiceProcessComparator implements Comparator<ProcessItem> {
         public int compare(ProcessItem object1, ProcessItem object2) {
             if (object1.mUserId != object2.mUserId) {
@@ -868,6 +1015,16 @@ public class RunningState {
         mRunningProcesses.clear();
         mProcessItems.clear();
         mAllProcessItems.clear();
+        mComponentCache.clear();
+        mLastServices = null;
+        mLastProcesses = null;
+    }
+
+    private void onPackageChanged(String packageName) {
+        mComponentCache.removePackage(packageName);
+        // Don't skip the next update, the package may have left the running lists unchanged.
+        mLastServices = null;
+        mLastProcesses = null;
     }
 
     private void addOtherUserItem(Context context, ArrayList<MergedItem> newMergedItems,
@@ -899,11 +1056,49 @@ public class RunningState {
         userItem.mChildren.add(newItem);
     }
 
+    private boolean isSameAsLastUpdate(List<ActivityManager.RunningServiceInfo> services,
+            List<ActivityManager.RunningAppProcessInfo> processes) {
+        if (mLastServices == null || mLastProcesses == null
+                || services == null || processes == null
+                || mLastServices.size() != services.size()
+                || mLastProcesses.size() != processes.size()) {
+            return false;
+        }
+        for (int i = 0; i < services.size(); i++) {
+            ActivityManager.RunningServiceInfo last = mLastServices.get(i);
+            ActivityManager.RunningServiceInfo si = services.get(i);
+            if (last.pid != si.pid || last.uid != si.uid
+                    || last.restarting != si.restarting
+                    || last.activeSince != si.activeSince
+                    || last.started != si.started
+                    || last.foreground != si.foreground
+                    || last.flags != si.flags
+                    || last.clientLabel != si.clientLabel
+                    || !Objects.equals(last.service, si.service)
+                    || !Objects.equals(last.process, si.process)
+                    || !Objects.equals(last.clientPackage, si.clientPackage)) {
+                return false;
+            }
+        }
+        for (int i = 0; i < processes.size(); i++) {
+            ActivityManager.RunningAppProcessInfo last = mLastProcesses.get(i);
+            ActivityManager.RunningAppProcessInfo pi = processes.get(i);
+            if (last.pid != pi.pid || last.uid != pi.uid
+                    || last.importance != pi.importance
+                    || last.lru != pi.lru
+                    || last.flags != pi.flags
+                    || last.importanceReasonPid != pi.importanceReasonPid
+                    || last.importanceReasonCode != pi.importanceReasonCode
+                    || !Objects.equals(last.processName, pi.processName)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private boolean update(Context context, ActivityManager am) {
         final PackageManager pm = context.getPackageManager();
 
-        mSequence++;
-
         boolean changed = false;
 
         // Retrieve list of services, filtering out anything that definitely
@@ -933,10 +1128,185 @@ public class RunningState {
             }
         }
 
-        // Retrieve list of running processes, organizing them into a sparse
-        // array for easy retrieval.
         List<ActivityManager.RunningAppProcessInfo> processes
                 = am.getRunningAppProcesses();
+
+        // Only rebuild the items if the services or processes changed since the
+        // last update, otherwise just refresh the memory use below.
+        if (!isSameAsLastUpdate(services, processes)) {
+            mLastServices = services;
+            mLastProcesses = processes;
+            mSequence++;
+            changed = updateItems(context, pm, services, processes);
+        }
+
+        // Count number of interesting other (non-active) processes, and
+        // build a list of all processes we will retrieve memory for.
+        mAllProcessItems.clear();
+        mAllProcessItems.addAll(mProcessItems);
+        int numBackgroundProcesses = 0;
+        int numForegroundProcesses = 0;
+        int numServiceProcesses = 0;
+        int NRP = mRunningProcesses.size();
+        for (int i = 0; i < NRP; i++) {
+            ProcessItem proc = mRunningProcesses.valueAt(i);
+            if (proc.mCurSeq != mSequence) {
+                // We didn't hit this process as a dependency on one
+                // of our active ones, so add it up if needed.
+                if (proc.mRunningProcessInfo.importance >=
+                        ActivityManager.RunningAppProcessInfo.IMPORTANCE_BACKGROUND) {
+                    numBackgroundProcesses++;
+                    mAllProcessItems.add(proc);
+                } else if (proc.mRunningProcessInfo.importance <=
+                        ActivityManager.RunningAppProcessInfo.IMPORTANCE_VISIBLE) {
+                    numForegroundProcesses++;
+                    mAllProcessItems.add(proc);
+                } else {
+                    Log.i("RunningState", "Unknown non-service process: "
+                            + proc.mProcessName + " #" + proc.mPid);
+                }
+            } else {
+                numServiceProcesses++;
+            }
+        }
+
+        long backgroundProcessMemory = 0;
+        long foregroundProcessMemory = 0;
+        long serviceProcessMemory = 0;
+        ArrayList<MergedItem> newBackgroundItems = null;
+        ArrayList<MergedItem> newUserBackgroundItems = null;
+        boolean diffUsers = false;
+        try {
+            final int numProc = mAllProcessItems.size();
+            int[] pids = new int[numProc];
+            for (int i = 0; i < numProc; i++) {
+                pids[i] = mAllProcessItems.get(i).mPid;
+            }
+            long[] pss = ActivityManager.getService()
+                    .getProcessPss(pids);
+            int bgIndex = 0;
+            for (int i = 0; i < pids.length; i++) {
+                ProcessItem proc = mAllProcessItems.get(i);
+                changed |= proc.updateSize(context, pss[i], mSequence);
+                if (proc.mCurSeq == mSequence) {
+                    serviceProcessMemory += proc.mSize;
+                } else if (proc.mRunningProcessInfo.importance >=
+                        ActivityManager.RunningAppProcessInfo.IMPORTANCE_BACKGROUND) {
+                    backgroundProcessMemory += proc.mSize;
+                    MergedItem mergedItem;
+                    if (newBackgroundItems != null) {
+                        mergedItem = obtainBackgroundItem(proc);
+                        diffUsers |= mergedItem.mUserId != mMyUserId;
+                        newBackgroundItems.add(mergedItem);
+                    } else {
+                        if (bgIndex >= mBackgroundItems.size()
+                                || mBackgroundItems.get(bgIndex).mProcess != proc) {
+                            newBackgroundItems = new ArrayList<MergedItem>(numBackgroundProcesses);
+                            for (int bgi = 0; bgi < bgIndex; bgi++) {
+                                mergedItem = mBackgroundItems.get(bgi);
+                                diffUsers |= mergedItem.mUserId != mMyUserId;
+                                newBackgroundItems.add(mergedItem);
+                            }
+                            mergedItem = obtainBackgroundItem(proc);
+                            diffUsers |= mergedItem.mUserId != mMyUserId;
+                            newBackgroundItems.add(mergedItem);
+                        } else {
+                            mergedItem = mBackgroundItems.get(bgIndex);
+                        }
+                    }
+                    mergedItem.update(context, true);
+                    mergedItem.updateSize(context);
+                    bgIndex++;
+                } else if (proc.mRunningProcessInfo.importance <=
+                        ActivityManager.RunningAppProcessInfo.IMPORTANCE_VISIBLE) {
+                    foregroundProcessMemory += proc.mSize;
+                }
+            }
+        } catch (RemoteException e) {
+            // Don't skip the next rebuild, the background items may be incomplete.
+            mLastServices = null;
+            mLastProcesses = null;
+        }
+
+        if (newBackgroundItems == null) {
+            // One or more at the bottom may no longer exist.
+            if (mBackgroundItems.size() > numBackgroundProcesses) {
+                newBackgroundItems = new ArrayList<MergedItem>(numBackgroundProcesses);
+                for (int bgi = 0; bgi < numBackgroundProcesses; bgi++) {
+                    MergedItem mergedItem = mBackgroundItems.get(bgi);
+                    diffUsers |= mergedItem.mUserId != mMyUserId;
+                    newBackgroundItems.add(mergedItem);
+                }
+            }
+        }
+
+        if (newBackgroundItems != null) {
+            // The background items have changed; we need to re-build the
+            // per-user items.
+            if (!diffUsers) {
+                // Easy: there are no other users, we can just use the same array.
+                newUserBackgroundItems = newBackgroundItems;
+            } else {
+                // We now need to re-build the per-user list so that background
+                // items for users are collapsed together.
+                newUserBackgroundItems = new ArrayList<MergedItem>();
+                final int NB = newBackgroundItems.size();
+                for (int i = 0; i < NB; i++) {
+                    MergedItem mergedItem = newBackgroundItems.get(i);
+                    if (mergedItem.mUserId != mMyUserId) {
+                        addOtherUserItem(context, newUserBackgroundItems,
+                                mOtherUserBackgroundItems, mergedItem);
+                    } else {
+                        newUserBackgroundItems.add(mergedItem);
+                    }
+                }
+                // And user aggregated merged items need to be
+                // updated now that they have all of their children.
+                final int NU = mOtherUserBackgroundItems.size();
+                for (int i = 0; i < NU; i++) {
+                    MergedItem user = mOtherUserBackgroundItems.valueAt(i);
+                    if (user.mCurSeq == mSequence) {
+                        user.update(context, true);
+                        user.updateSize(context);
+                    }
+                }
+            }
+        }
+
+        for (int i = 0; i < mMergedItems.size(); i++) {
+            mMergedItems.get(i).updateSize(context);
+        }
+
+        synchronized (mLock) {
+            mNumBackgroundProcesses = numBackgroundProcesses;
+            mNumForegroundProcesses = numForegroundProcesses;
+            mNumServiceProcesses = numServiceProcesses;
+            mBackgroundProcessMemory = backgroundProcessMemory;
+            mForegroundProcessMemory = foregroundProcessMemory;
+            mServiceProcessMemory = serviceProcessMemory;
+            if (newBackgroundItems != null) {
+                mBackgroundItems = newBackgroundItems;
+                mUserBackgroundItems = newUserBackgroundItems;
+                if (mWatchingBackgroundItems) {
+                    changed = true;
+                }
+            }
+            if (!mHaveData) {
+                mHaveData = true;
+                mLock.notifyAll();
+            }
+        }
+
+        return changed;
+    }
+
+    private boolean updateItems(Context context, PackageManager pm,
+            List<ActivityManager.RunningServiceInfo> services,
+            List<ActivityManager.RunningAppProcessInfo> processes) {
+        boolean changed = false;
+        final int NS = services != null ? services.size() : 0;
+
+        // Organize the running processes into a sparse array for easy retrieval.
         final int NP = processes != null ? processes.size() : 0;
         mTmpAppProcesses.clear();
         for (int i = 0; i < NP; i++) {
@@ -1025,7 +1395,7 @@ public class RunningState {
                 proc.mDependentProcesses.clear();
                 proc.mCurSeq = mSequence;
             }
-            changed |= proc.updateService(context, si);
+            changed |= proc.updateService(context, si, mComponentCache);
         }
 
         // Now update the map of other processes that are running (but
@@ -1054,7 +1424,7 @@ public class RunningState {
                 }
                 proc.mCurSeq = mSequence;
                 proc.mInteresting = true;
-                proc.ensureLabel(pm);
+                proc.ensureLabel(pm, mComponentCache);
             } else {
                 proc.mInteresting = false;
             }
@@ -1111,7 +1481,7 @@ public class RunningState {
         for (int i = 0; i < NAP; i++) {
             ProcessItem proc = mServiceProcessesByPid.valueAt(i);
             if (proc.mCurSeq == mSequence) {
-                changed |= proc.buildDependencyChain(context, pm, mSequence);
+                changed |= proc.buildDependencyChain(context, pm, mComponentCache, mSequence);
             }
         }
 
@@ -1123,7 +1493,7 @@ public class RunningState {
             while (pit.hasNext()) {
                 ProcessItem pi = pit.next();
                 if (pi.mCurSeq == mSequence) {
-                    pi.ensureLabel(pm);
+                    pi.ensureLabel(pm, mComponentCache);
                     if (pi.mPid == 0) {
                         // Validation: a non-process can't be dependent on anything.
                         pi.mDependentProcesses.clear();
@@ -1282,163 +1652,21 @@ public class RunningState {
             }
         }
 
-        // Count number of interesting other (non-active) processes, and
-        // build a list of all processes we will retrieve memory for.
-        mAllProcessItems.clear();
-        mAllProcessItems.addAll(mProcessItems);
-        int numBackgroundProcesses = 0;
-        int numForegroundProcesses = 0;
-        int numServiceProcesses = 0;
-        NRP = mRunningProcesses.size();
-        for (int i = 0; i < NRP; i++) {
-            ProcessItem proc = mRunningProcesses.valueAt(i);
-            if (proc.mCurSeq != mSequence) {
-                // We didn't hit this process as a dependency on one
-                // of our active ones, so add it up if needed.
-                if (proc.mRunningProcessInfo.importance >=
-                        ActivityManager.RunningAppProcessInfo.IMPORTANCE_BACKGROUND) {
-                    numBackgroundProcesses++;
-                    mAllProcessItems.add(proc);
-                } else if (proc.mRunningProcessInfo.importance <=
-                        ActivityManager.RunningAppProcessInfo.IMPORTANCE_VISIBLE) {
-                    numForegroundProcesses++;
-                    mAllProcessItems.add(proc);
-                } else {
-                    Log.i("RunningState", "Unknown non-service process: "
-                            + proc.mProcessName + " #" + proc.mPid);
-                }
-            } else {
-                numServiceProcesses++;
-            }
-        }
-
-        long backgroundProcessMemory = 0;
-        long foregroundProcessMemory = 0;
-        long serviceProcessMemory = 0;
-        ArrayList<MergedItem> newBackgroundItems = null;
-        ArrayList<MergedItem> newUserBackgroundItems = null;
-        boolean diffUsers = false;
-        try {
-            final int numProc = mAllProcessItems.size();
-            int[] pids = new int[numProc];
-            for (int i = 0; i < numProc; i++) {
-                pids[i] = mAllProcessItems.get(i).mPid;
-            }
-            long[] pss = ActivityManager.getService()
-                    .getProcessPss(pids);
-            int bgIndex = 0;
-            for (int i = 0; i < pids.length; i++) {
-                ProcessItem proc = mAllProcessItems.get(i);
-                changed |= proc.updateSize(context, pss[i], mSequence);
-                if (proc.mCurSeq == mSequence) {
-                    serviceProcessMemory += proc.mSize;
-                } else if (proc.mRunningProcessInfo.importance >=
-                        ActivityManager.RunningAppProcessInfo.IMPORTANCE_BACKGROUND) {
-                    backgroundProcessMemory += proc.mSize;
-                    MergedItem mergedItem;
-                    if (newBackgroundItems != null) {
-                        mergedItem = proc.mMergedItem = new MergedItem(proc.mUserId);
-                        proc.mMergedItem.mProcess = proc;
-                        diffUsers |= mergedItem.mUserId != mMyUserId;
-                        newBackgroundItems.add(mergedItem);
-                    } else {
-                        if (bgIndex >= mBackgroundItems.size()
-                                || mBackgroundItems.get(bgIndex).mProcess != proc) {
-                            newBackgroundItems = new ArrayList<MergedItem>(numBackgroundProcesses);
-                            for (int bgi = 0; bgi < bgIndex; bgi++) {
-                                mergedItem = mBackgroundItems.get(bgi);
-                                diffUsers |= mergedItem.mUserId != mMyUserId;
-                                newBackgroundItems.add(mergedItem);
-                            }
-                            mergedItem = proc.mMergedItem = new MergedItem(proc.mUserId);
-                            proc.mMergedItem.mProcess = proc;
-                            diffUsers |= mergedItem.mUserId != mMyUserId;
-                            newBackgroundItems.add(mergedItem);
-                        } else {
-                            mergedItem = mBackgroundItems.get(bgIndex);
-                        }
-                    }
-                    mergedItem.update(context, true);
-                    mergedItem.updateSize(context);
-                    bgIndex++;
-                } else if (proc.mRunningProcessInfo.importance <=
-                        ActivityManager.RunningAppProcessInfo.IMPORTANCE_VISIBLE) {
-                    foregroundProcessMemory += proc.mSize;
-                }
-            }
-        } catch (RemoteException e) {
-        }
-
-        if (newBackgroundItems == null) {
-            // One or more at the bottom may no longer exist.
-            if (mBackgroundItems.size() > numBackgroundProcesses) {
-                newBackgroundItems = new ArrayList<MergedItem>(numBackgroundProcesses);
-                for (int bgi = 0; bgi < numBackgroundProcesses; bgi++) {
-                    MergedItem mergedItem = mBackgroundItems.get(bgi);
-                    diffUsers |= mergedItem.mUserId != mMyUserId;
-                    newBackgroundItems.add(mergedItem);
-                }
-            }
-        }
-
-        if (newBackgroundItems != null) {
-            // The background items have changed; we need to re-build the
-            // per-user items.
-            if (!diffUsers) {
-                // Easy: there are no other users, we can just use the same array.
-                newUserBackgroundItems = newBackgroundItems;
-            } else {
-                // We now need to re-build the per-user list so that background
-                // items for users are collapsed together.
-                newUserBackgroundItems = new ArrayList<MergedItem>();
-                final int NB = newBackgroundItems.size();
-                for (int i = 0; i < NB; i++) {
-                    MergedItem mergedItem = newBackgroundItems.get(i);
-                    if (mergedItem.mUserId != mMyUserId) {
-                        addOtherUserItem(context, newUserBackgroundItems,
-                                mOtherUserBackgroundItems, mergedItem);
-                    } else {
-                        newUserBackgroundItems.add(mergedItem);
-                    }
-                }
-                // And user aggregated merged items need to be
-                // updated now that they have all of their children.
-                final int NU = mOtherUserBackgroundItems.size();
-                for (int i = 0; i < NU; i++) {
-                    MergedItem user = mOtherUserBackgroundItems.valueAt(i);
-                    if (user.mCurSeq == mSequence) {
-                        user.update(context, true);
-                        user.updateSize(context);
-                    }
-                }
-            }
-        }
-
-        for (int i = 0; i < mMergedItems.size(); i++) {
-            mMergedItems.get(i).updateSize(context);
-        }
+        return changed;
+    }
 
-        synchronized (mLock) {
-            mNumBackgroundProcesses = numBackgroundProcesses;
-            mNumForegroundProcesses = numForegroundProcesses;
-            mNumServiceProcesses = numServiceProcesses;
-            mBackgroundProcessMemory = backgroundProcessMemory;
-            mForegroundProcessMemory = foregroundProcessMemory;
-            mServiceProcessMemory = serviceProcessMemory;
-            if (newBackgroundItems != null) {
-                mBackgroundItems = newBackgroundItems;
-                mUserBackgroundItems = newUserBackgroundItems;
-                if (mWatchingBackgroundItems) {
-                    changed = true;
-                }
-            }
-            if (!mHaveData) {
-                mHaveData = true;
-                mLock.notifyAll();
-            }
+    /**
+     * Returns the merged item of a background process, reusing the one it already has
+     * when it was only ever used for that process alone.
+     */
+    private static MergedItem obtainBackgroundItem(ProcessItem proc) {
+        MergedItem mergedItem = proc.mMergedItem;
+        if (mergedItem == null || mergedItem.mProcess != proc || mergedItem.mUser != null
+                || !mergedItem.mServices.isEmpty() || !mergedItem.mOtherProcesses.isEmpty()) {
+            mergedItem = proc.mMergedItem = new MergedItem(proc.mUserId);
+            mergedItem.mProcess = proc;
         }
-
-        return changed;
+        return mergedItem;
     }
 
     void setWatchingBackgroundItems(boolean watching) {
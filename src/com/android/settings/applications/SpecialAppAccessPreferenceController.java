@@ -15,6 +15,7 @@ package com.android.settings.applications;
 
 import android.app.Application;
 import android.content.Context;
+import android.net.Uri;
 
 import androidx.annotation.VisibleForTesting;
 import androidx.preference.Preference;
@@ -33,6 +34,8 @@ import com.android.settingslib.core.lifecycle.events.OnStart;
 import com.android.settingslib.core.lifecycle.events.OnStop;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 public class SpecialAppAccessPreferenceController extends BasePreferenceController implements
         AppStateBaseBridge.Callback, ApplicationsState.Callbacks, LifecycleObserver, OnStart,
@@ -66,6 +69,11 @@ public class SpecialAppAccessPreferenceController extends BasePreferenceControll
         return AVAILABLE;
     }
 
+    @Override
+    public List<Uri> getSearchIndexDependencies() {
+        return Collections.emptyList();
+    }
+
     @Override
     public void displayPreference(PreferenceScreen screen) {
         super.displayPreference(screen);
@@ -0,0 +1,258 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.applications.manageapplications;
+
+import static com.android.settings.applications.manageapplications.ManageApplications.SIZE_EXTERNAL;
+import static com.android.settings.applications.manageapplications.ManageApplications.SIZE_INTERNAL;
+
+import android.text.TextUtils;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+
+import com.android.settings.R;
+import com.android.settings.applications.AppStateNotificationBridge.NotificationsSentState;
+import com.android.settingslib.applications.ApplicationsState.AppEntry;
+
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Immutable, indexed view of the app list shown by {@link ManageApplications}.
+ *
+ * The values the list is searched, sorted and diffed by are captured once per rebuild, so a
+ * search or sort change is an array operation instead of a new session rebuild, and the result
+ * can be applied with {@link DiffUtil} instead of rebinding every row.
+ */
+class AppEntrySnapshot {
+
+    private final Row[] mRows;
+    private final ArrayList<AppEntry> mEntries;
+
+    private AppEntrySnapshot(Row[] rows) {
+        mRows = rows;
+        mEntries = new ArrayList<>(rows.length);
+        for (Row row : rows) {
+            mEntries.add(row.mEntry);
+        }
+    }
+
+    private AppEntrySnapshot(Row[] rows, ArrayList<AppEntry> entries) {
+        mRows = rows;
+        mEntries = entries;
+    }
+
+    /**
+     * Captures {@code entries} in their current order. The returned snapshot is backed by
+     * {@code entries}, which must not be modified afterwards.
+     */
+    static AppEntrySnapshot of(@NonNull ArrayList<AppEntry> entries, int whichSize) {
+        final Row[] rows = new Row[entries.size()];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = new Row(entries.get(i), whichSize);
+        }
+        return new AppEntrySnapshot(rows, entries);
+    }
+
+    /**
+     * @return {@code true} if {@link #sort(int)} supports {@code sortOrder}.
+     */
+    static boolean canSort(int sortOrder) {
+        return sortOrder == R.id.sort_order_alpha
+                || sortOrder == R.id.sort_order_size
+                || sortOrder == R.id.sort_order_recent_notification
+                || sortOrder == R.id.sort_order_frequent_notification;
+    }
+
+    ArrayList<AppEntry> getEntries() {
+        return mEntries;
+    }
+
+    int size() {
+        return mRows.length;
+    }
+
+    /**
+     * @return the entries whose label contains {@code query}, ignoring case, in snapshot order.
+     */
+    AppEntrySnapshot search(CharSequence query) {
+        if (TextUtils.isEmpty(query)) {
+            return this;
+        }
+        final String lowerCaseQuery = query.toString().toLowerCase(Locale.getDefault());
+        final List<Row> matched = new ArrayList<>();
+        for (Row row : mRows) {
+            if (row.getSearchKey().contains(lowerCaseQuery)) {
+                matched.add(row);
+            }
+        }
+        return new AppEntrySnapshot(matched.toArray(new Row[0]));
+    }
+
+    /**
+     * @return a copy of this snapshot sorted by {@code sortOrder}, see {@link #canSort(int)}.
+     * Mirrors the alphabetical and size comparators of ApplicationsState, and the notification
+     * comparators of AppStateNotificationBridge.
+     */
+    AppEntrySnapshot sort(int sortOrder) {
+        final Row[] rows = Arrays.copyOf(mRows, mRows.length);
+        final Comparator<Row> alphaComparator = (row1, row2) -> {
+            final int result = row1.getLabelKey().compareTo(row2.getLabelKey());
+            if (result != 0) {
+                return result;
+            }
+            final int packageResult = row1.mPackageName.compareTo(row2.mPackageName);
+            return packageResult != 0 ? packageResult : Integer.compare(row1.mUid, row2.mUid);
+        };
+        if (sortOrder == R.id.sort_order_size) {
+            Arrays.sort(rows, (row1, row2) -> {
+                final int result = Long.compare(row2.mSize, row1.mSize);
+                return result != 0 ? result : alphaComparator.compare(row1, row2);
+            });
+        } else if (sortOrder == R.id.sort_order_recent_notification) {
+            Arrays.sort(rows, (row1, row2) -> {
+                final int result = compareSentStates(row1, row2, row2.mLastSent, row1.mLastSent);
+                return result != 0 ? result : alphaComparator.compare(row1, row2);
+            });
+        } else if (sortOrder == R.id.sort_order_frequent_notification) {
+            Arrays.sort(rows, (row1, row2) -> {
+                final int result = compareSentStates(row1, row2, row2.mSentCount, row1.mSentCount);
+                return result != 0 ? result : alphaComparator.compare(row1, row2);
+            });
+        } else {
+            Arrays.sort(rows, alphaComparator);
+        }
+        return new AppEntrySnapshot(rows);
+    }
+
+    /**
+     * Puts the rows without notification stats first, then compares the given values of the
+     * others.
+     */
+    private static int compareSentStates(Row row1, Row row2, long value1, long value2) {
+        if (row1.mHasSentState != row2.mHasSentState) {
+            return row1.mHasSentState ? 1 : -1;
+        }
+        return row1.mHasSentState ? Long.compare(value1, value2) : 0;
+    }
+
+    /**
+     * Computes the changes needed to go from this snapshot to {@code newSnapshot}. Rows are
+     * matched by entry id, and a matched row is rebound only if a captured value changed.
+     */
+    DiffUtil.DiffResult diff(AppEntrySnapshot newSnapshot) {
+        return DiffUtil.calculateDiff(new DiffUtil.Callback() {
+            @Override
+            public int getOldListSize() {
+                return mRows.length;
+            }
+
+            @Override
+            public int getNewListSize() {
+                return newSnapshot.mRows.length;
+            }
+
+            @Override
+            public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+                return mRows[oldItemPosition].mEntry.id
+                        == newSnapshot.mRows[newItemPosition].mEntry.id;
+            }
+
+            @Override
+            public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+                return mRows[oldItemPosition].hasSameContents(newSnapshot.mRows[newItemPosition]);
+            }
+        }, false /* detectMoves */);
+    }
+
+    private static class Row {
+        private static final Collator sCollator = Collator.getInstance();
+
+        final AppEntry mEntry;
+        final String mLabel;
+        final String mPackageName;
+        final int mUid;
+        final long mSize;
+        final Object mExtraInfo;
+        final boolean mHasSentState;
+        final long mLastSent;
+        final int mSentCount;
+        private String mSearchKey;
+        private CollationKey mLabelKey;
+
+        Row(AppEntry entry, int whichSize) {
+            mEntry = entry;
+            mLabel = entry.label == null ? "" : entry.label;
+            mPackageName = entry.info == null || entry.info.packageName == null
+                    ? "" : entry.info.packageName;
+            mUid = entry.info == null ? 0 : entry.info.uid;
+            switch (whichSize) {
+                case SIZE_INTERNAL:
+                    mSize = entry.internalSize;
+                    break;
+                case SIZE_EXTERNAL:
+                    mSize = entry.externalSize;
+                    break;
+                default:
+                    mSize = entry.size;
+                    break;
+            }
+            mExtraInfo = entry.extraInfo;
+            if (mExtraInfo instanceof NotificationsSentState) {
+                final NotificationsSentState state = (NotificationsSentState) mExtraInfo;
+                mHasSentState = true;
+                mLastSent = state.lastSent;
+                mSentCount = state.sentCount;
+            } else {
+                mHasSentState = false;
+                mLastSent = 0;
+                mSentCount = 0;
+            }
+        }
+
+        // Search runs on the filter thread while sorting runs on the main thread, keys are
+        // computed on first use.
+        synchronized String getSearchKey() {
+            if (mSearchKey == null) {
+                mSearchKey = mLabel.toLowerCase(Locale.getDefault());
+            }
+            return mSearchKey;
+        }
+
+        synchronized CollationKey getLabelKey() {
+            if (mLabelKey == null) {
+                synchronized (sCollator) {
+                    mLabelKey = sCollator.getCollationKey(mLabel);
+                }
+            }
+            return mLabelKey;
+        }
+
+        boolean hasSameContents(Row other) {
+            return mEntry == other.mEntry
+                    && mSize == other.mSize
+                    && mLabel.equals(other.mLabel)
+                    && Objects.equals(mExtraInfo, other.mExtraInfo);
+        }
+    }
+}
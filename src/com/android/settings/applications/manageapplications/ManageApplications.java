@@ -75,6 +75,7 @@ import androidx.annotation.VisibleForTesting;
 import androidx.annotation.WorkerThread;
 import androidx.coordinatorlayout.widget.CoordinatorLayout;
 import androidx.core.view.ViewCompat;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
@@ -1004,10 +1005,18 @@ public class ManageApplications extends InstrumentedFragment
         private final IconDrawableFactory mIconDrawableFactory;
 
         private AppFilterItem mAppFilter;
-        private ArrayList<ApplicationsState.AppEntry> mEntries;
+        // Written on the main thread, also read by the search filter thread.
+        private volatile ArrayList<ApplicationsState.AppEntry> mEntries;
         private ArrayList<ApplicationsState.AppEntry> mOriginalEntries;
+        // Snapshots backing mOriginalEntries and mEntries respectively, written on the main thread
+        // and also read by the search filter thread.
+        private volatile AppEntrySnapshot mSnapshot;
+        private volatile AppEntrySnapshot mDisplayedSnapshot;
         private boolean mResumed;
         private int mLastSortMode = -1;
+        // The sort order the session was last rebuilt with, which can differ from mLastSortMode
+        // when the list was sorted locally.
+        private int mSessionSortMode = -1;
         private int mWhichSize = SIZE_TOTAL;
         private AppFilter mCompositeFilter;
         private boolean mHasReceivedLoadEntries;
@@ -1157,6 +1166,15 @@ public class ManageApplications extends InstrumentedFragment
             }
             mManageApplications.mSortOrder = sort;
             mLastSortMode = sort;
+            if (mOriginalEntries != null && AppEntrySnapshot.canSort(sort)) {
+                // Re-sort what is already loaded instead of rebuilding the session, its next
+                // results are sorted the same way when they come in.
+                sortSnapshot(sort);
+                if (!reapplySearchQuery()) {
+                    applySnapshot(mSnapshot, computeDiff(mSnapshot));
+                }
+                return;
+            }
             rebuild();
         }
 
@@ -1231,6 +1249,7 @@ public class ManageApplications extends InstrumentedFragment
 
             final AppFilter finalFilterObj = new CompoundFilter(filterObj,
                     ApplicationsState.FILTER_NOT_HIDE);
+            mSessionSortMode = mLastSortMode;
             ThreadUtils.postOnBackgroundThread(() -> {
                 mSession.rebuild(finalFilterObj, comparatorObj, false);
             });
@@ -1246,9 +1265,52 @@ public class ManageApplications extends InstrumentedFragment
                 Log.w(TAG, "Apps haven't loaded completely yet, so nothing can be filtered");
                 return;
             }
+            getSnapshot();
             mSearchFilter.filter(query);
         }
 
+        private void sortSnapshot(int sort) {
+            mSnapshot = getSnapshot().sort(sort);
+            mOriginalEntries = mSnapshot.getEntries();
+        }
+
+        private AppEntrySnapshot getSnapshot() {
+            if (mSnapshot == null || mSnapshot.getEntries() != mOriginalEntries) {
+                mSnapshot = AppEntrySnapshot.of(mOriginalEntries, mWhichSize);
+            }
+            return mSnapshot;
+        }
+
+        private DiffUtil.DiffResult computeDiff(AppEntrySnapshot newSnapshot) {
+            final AppEntrySnapshot displayedSnapshot = mDisplayedSnapshot;
+            if (displayedSnapshot == null || displayedSnapshot.getEntries() != mEntries) {
+                return null;
+            }
+            return displayedSnapshot.diff(newSnapshot);
+        }
+
+        private void applySnapshot(AppEntrySnapshot snapshot, DiffUtil.DiffResult diff) {
+            mDisplayedSnapshot = snapshot;
+            mEntries = snapshot.getEntries();
+            if (diff != null) {
+                diff.dispatchUpdatesTo(this);
+            } else {
+                notifyDataSetChanged();
+            }
+        }
+
+        private boolean reapplySearchQuery() {
+            if (mManageApplications.mSearchView != null
+                    && mManageApplications.mSearchView.isVisibleToUser()) {
+                final CharSequence query = mManageApplications.mSearchView.getQuery();
+                if (!TextUtils.isEmpty(query)) {
+                    filterSearch(query.toString());
+                    return true;
+                }
+            }
+            return false;
+        }
+
         private static boolean packageNameEquals(PackageItemInfo info1, PackageItemInfo info2) {
             if (info1 == null || info2 == null) {
                 return false;
@@ -1289,21 +1351,25 @@ public class ManageApplications extends InstrumentedFragment
                     || filterType == FILTER_APPS_POWER_ALLOWLIST_ALL) {
                 entries = removeDuplicateIgnoringUser(entries);
             }
-            mEntries = entries;
             mOriginalEntries = entries;
-            notifyDataSetChanged();
+            if (entries == null) {
+                mSnapshot = null;
+                mDisplayedSnapshot = null;
+                mEntries = null;
+                notifyDataSetChanged();
+            } else {
+                if (mSessionSortMode != mLastSortMode) {
+                    // The session still sorts by the order it was last rebuilt with.
+                    sortSnapshot(mLastSortMode);
+                }
+                final AppEntrySnapshot snapshot = getSnapshot();
+                applySnapshot(snapshot, computeDiff(snapshot));
+            }
             if (getItemCount() == 0) {
                 mLoadingViewController.showEmpty(false /* animate */);
             } else {
                 mLoadingViewController.showContent(false /* animate */);
-
-                if (mManageApplications.mSearchView != null
-                        && mManageApplications.mSearchView.isVisibleToUser()) {
-                    final CharSequence query = mManageApplications.mSearchView.getQuery();
-                    if (!TextUtils.isEmpty(query)) {
-                        filterSearch(query.toString());
-                    }
-                }
+                reapplySearchQuery();
             }
             // Restore the last scroll position if the number of entries added so far is bigger than
             // it.
@@ -1556,27 +1622,46 @@ public class ManageApplications extends InstrumentedFragment
             @WorkerThread
             @Override
             protected FilterResults performFiltering(CharSequence query) {
-                final ArrayList<ApplicationsState.AppEntry> matchedEntries;
-                if (TextUtils.isEmpty(query)) {
-                    matchedEntries = mOriginalEntries;
-                } else {
-                    matchedEntries = new ArrayList<>();
-                    for (ApplicationsState.AppEntry entry : mOriginalEntries) {
-                        if (entry.label.toLowerCase().contains(query.toString().toLowerCase())) {
-                            matchedEntries.add(entry);
-                        }
-                    }
+                final AppEntrySnapshot snapshot = mSnapshot;
+                final AppEntrySnapshot displayedSnapshot = mDisplayedSnapshot;
+                if (snapshot == null) {
+                    // The list was cleared meanwhile.
+                    return new FilterResults();
                 }
+                final AppEntrySnapshot matchedSnapshot = snapshot.search(query);
+                final DiffUtil.DiffResult diff = displayedSnapshot != null
+                        && displayedSnapshot.getEntries() == mEntries
+                        ? displayedSnapshot.diff(matchedSnapshot) : null;
                 final FilterResults results = new FilterResults();
-                results.values = matchedEntries;
-                results.count = matchedEntries.size();
+                results.values = new SearchResult(matchedSnapshot, displayedSnapshot, diff);
+                results.count = matchedSnapshot.size();
                 return results;
             }
 
             @Override
             protected void publishResults(CharSequence constraint, FilterResults results) {
-                mEntries = (ArrayList<ApplicationsState.AppEntry>) results.values;
-                notifyDataSetChanged();
+                final SearchResult result = (SearchResult) results.values;
+                if (result == null) {
+                    return;
+                }
+                // The diff is only valid against the list that was displayed when it was computed.
+                final boolean diffValid = result.mDiff != null
+                        && result.mDiffBase == mDisplayedSnapshot
+                        && mDisplayedSnapshot.getEntries() == mEntries;
+                applySnapshot(result.mSnapshot, diffValid ? result.mDiff : null);
+            }
+        }
+
+        private static class SearchResult {
+            final AppEntrySnapshot mSnapshot;
+            final AppEntrySnapshot mDiffBase;
+            final DiffUtil.DiffResult mDiff;
+
+            SearchResult(AppEntrySnapshot snapshot, AppEntrySnapshot diffBase,
+                    DiffUtil.DiffResult diff) {
+                mSnapshot = snapshot;
+                mDiffBase = diffBase;
+                mDiff = diff;
             }
         }
     }
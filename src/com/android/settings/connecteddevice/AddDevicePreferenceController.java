@@ -21,6 +21,7 @@ import android.content.Context;
 import android.content.Intent;
 import android.content.IntentFilter;
 import android.content.pm.PackageManager;
+import android.net.Uri;
 
 import androidx.preference.Preference;
 import androidx.preference.PreferenceScreen;
@@ -31,6 +32,9 @@ import com.android.settingslib.core.lifecycle.LifecycleObserver;
 import com.android.settingslib.core.lifecycle.events.OnStart;
 import com.android.settingslib.core.lifecycle.events.OnStop;
 
+import java.util.Collections;
+import java.util.List;
+
 /**
  * Controller to maintain the {@link androidx.preference.Preference} for add
  * device. It monitor Bluetooth's status(on/off) and decide if need
@@ -81,6 +85,11 @@ public class AddDevicePreferenceController extends BasePreferenceController
                 : UNSUPPORTED_ON_DEVICE;
     }
 
+    @Override
+    public List<Uri> getSearchIndexDependencies() {
+        return Collections.emptyList();
+    }
+
     @Override
     public CharSequence getSummary() {
         return isBluetoothEnabled()
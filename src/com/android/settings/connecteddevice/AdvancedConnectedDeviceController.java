@@ -19,6 +19,7 @@ import static com.android.settingslib.drawer.TileUtils.IA_SETTINGS_ACTION;
 
 import android.content.Context;
 import android.content.Intent;
+import android.net.Uri;
 import android.provider.Settings;
 
 import androidx.annotation.VisibleForTesting;
@@ -27,6 +28,9 @@ import com.android.settings.R;
 import com.android.settings.core.BasePreferenceController;
 import com.android.settings.nfc.NfcPreferenceController;
 
+import java.util.Collections;
+import java.util.List;
+
 /**
  * Controller that used to show which component is available
  */
@@ -45,6 +49,11 @@ public class AdvancedConnectedDeviceController extends BasePreferenceController
         return AVAILABLE;
     }
 
+    @Override
+    public List<Uri> getSearchIndexDependencies() {
+        return Collections.emptyList();
+    }
+
     @Override
     public CharSequence getSummary() {
         return mContext.getText(getConnectedDevicesSummaryResourceId(mContext));
@@ -19,6 +19,7 @@ import static com.android.settingslib.Utils.isAudioModeOngoingCall;
 
 import android.content.Context;
 import android.content.pm.PackageManager;
+import android.net.Uri;
 import android.util.Log;
 
 import androidx.annotation.VisibleForTesting;
@@ -38,6 +39,9 @@ import com.android.settingslib.core.lifecycle.LifecycleObserver;
 import com.android.settingslib.core.lifecycle.events.OnStart;
 import com.android.settingslib.core.lifecycle.events.OnStop;
 
+import java.util.Collections;
+import java.util.List;
+
 /**
  * Controller to maintain the {@link androidx.preference.PreferenceGroup} for all
  * available media devices. It uses {@link DevicePreferenceCallback}
@@ -102,6 +106,11 @@ public class AvailableMediaDeviceGroupController extends BasePreferenceControlle
                 : UNSUPPORTED_ON_DEVICE;
     }
 
+    @Override
+    public List<Uri> getSearchIndexDependencies() {
+        return Collections.emptyList();
+    }
+
     @Override
     public String getPreferenceKey() {
         return KEY;
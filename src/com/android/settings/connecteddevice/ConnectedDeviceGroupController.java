@@ -17,6 +17,7 @@ package com.android.settings.connecteddevice;
 
 import android.content.Context;
 import android.content.pm.PackageManager;
+import android.net.Uri;
 
 import androidx.annotation.VisibleForTesting;
 import androidx.preference.Preference;
@@ -36,6 +37,9 @@ import com.android.settingslib.core.lifecycle.LifecycleObserver;
 import com.android.settingslib.core.lifecycle.events.OnStart;
 import com.android.settingslib.core.lifecycle.events.OnStop;
 
+import java.util.Collections;
+import java.util.List;
+
 /**
  * Controller to maintain the {@link androidx.preference.PreferenceGroup} for all
  * connected devices. It uses {@link DevicePreferenceCallback} to add/remove {@link Preference}
@@ -99,6 +103,12 @@ public class ConnectedDeviceGroupController extends BasePreferenceController
                 : UNSUPPORTED_ON_DEVICE;
     }
 
+    @Override
+    public List<Uri> getSearchIndexDependencies() {
+        // The dock updater is only set once the page initializes this controller.
+        return Collections.emptyList();
+    }
+
     @Override
     public String getPreferenceKey() {
         return KEY;
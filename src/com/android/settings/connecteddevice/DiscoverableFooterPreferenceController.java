@@ -22,6 +22,7 @@ import android.content.Context;
 import android.content.Intent;
 import android.content.IntentFilter;
 import android.content.pm.PackageManager;
+import android.net.Uri;
 import android.text.BidiFormatter;
 import android.text.TextUtils;
 
@@ -38,6 +39,9 @@ import com.android.settingslib.core.lifecycle.events.OnStart;
 import com.android.settingslib.core.lifecycle.events.OnStop;
 import com.android.settingslib.widget.FooterPreference;
 
+import java.util.Collections;
+import java.util.List;
+
 /**
  * Controller that shows and updates the bluetooth device name
  */
@@ -78,6 +82,11 @@ public class DiscoverableFooterPreferenceController extends BasePreferenceContro
                 : UNSUPPORTED_ON_DEVICE;
     }
 
+    @Override
+    public List<Uri> getSearchIndexDependencies() {
+        return Collections.emptyList();
+    }
+
     @Override
     public void onStart() {
         if (mLocalManager == null) {
@@ -22,6 +22,7 @@ import android.content.Context;
 import android.content.Intent;
 import android.content.IntentFilter;
 import android.content.pm.PackageManager;
+import android.net.Uri;
 import android.util.Log;
 
 import androidx.annotation.VisibleForTesting;
@@ -42,6 +43,7 @@ import com.android.settingslib.core.lifecycle.events.OnStart;
 import com.android.settingslib.core.lifecycle.events.OnStop;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public class PreviouslyConnectedDevicePreferenceController extends BasePreferenceController
@@ -92,6 +94,12 @@ public class PreviouslyConnectedDevicePreferenceController extends BasePreferenc
                 : CONDITIONALLY_UNAVAILABLE;
     }
 
+    @Override
+    public List<Uri> getSearchIndexDependencies() {
+        // The dock updater is only set once the page initializes this controller.
+        return Collections.emptyList();
+    }
+
     @Override
     public void displayPreference(PreferenceScreen screen) {
         super.displayPreference(screen);
@@ -50,6 +50,7 @@ package com.android.settings.connecteddevice;
 
 import android.content.pm.PackageManager;
 import android.content.Context;
+import android.net.Uri;
 
 import androidx.preference.Preference;
 import androidx.preference.PreferenceGroup;
@@ -68,6 +69,9 @@ import com.android.settingslib.core.lifecycle.LifecycleObserver;
 import com.android.settingslib.core.lifecycle.events.OnStart;
 import com.android.settingslib.core.lifecycle.events.OnStop;
 
+import java.util.Collections;
+import java.util.List;
+
 /**
  * Controller to maintain the {@link PreferenceGroup} for all
  * saved TWS+ devices. It uses {@link DevicePreferenceCallback} to add/remove {@link Preference}
@@ -121,6 +125,11 @@ public class SavedTwsDeviceGroupController extends BasePreferenceController
                 : UNSUPPORTED_ON_DEVICE;
     }
 
+    @Override
+    public List<Uri> getSearchIndexDependencies() {
+        return Collections.emptyList();
+    }
+
     @Override
     public String getPreferenceKey() {
         return KEY;
@@ -0,0 +1,28 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.core;
+
+/**
+ * Marks a preference controller whose {@code isAvailable()} is safe to call off the main thread.
+ *
+ * The dashboards refreshing their controllers in parallel only evaluate the availability of
+ * these controllers in the background, the other ones are still refreshed on the main thread.
+ * A controller should only implement it when its availability reads nothing but immutable fields
+ * and thread-safe system services.
+ */
+public interface BackgroundAvailabilityController {
+}
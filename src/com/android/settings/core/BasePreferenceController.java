@@ -369,6 +369,20 @@ public abstract class BasePreferenceController extends AbstractPreferenceControl
     public void updateDynamicRawDataToIndex(List<SearchIndexableRaw> rawData) {
     }
 
+    /**
+     * Returns the {@link Uri}s of the settings the availability and dynamic raw data of this
+     * controller depend on, so the search data of its page can be cached until one of them
+     * changes. Installed packages, user restrictions and the locale don't need to be listed.
+     *
+     * Called by SearchIndexProvider#getSearchIndexDependencies
+     *
+     * @return the settings, or {@code null} if the search data may also change with anything else.
+     */
+    @Nullable
+    public List<Uri> getSearchIndexDependencies() {
+        return null;
+    }
+
     /**
      * Set {@link UiBlockListener}
      *
@@ -162,7 +162,12 @@ public class CategoryMixin implements LifecycleObserver {
         @Override
         protected Set<String> doInBackground(Boolean... params) {
             mPreviousTileMap = mCategoryManager.getTileByComponentMap();
-            mCategoryManager.reloadAllCategories(mContext);
+            if (params[0]) {
+                mCategoryManager.reloadAllCategories(mContext);
+            } else {
+                // Nothing to reload unless something changed while we were paused.
+                mCategoryManager.reloadCategoriesIfChanged(mContext);
+            }
             mCategoryManager.updateCategoryFromDenylist(sTileDenylist);
             return getChangedCategories(params[0]);
         }
@@ -15,9 +15,12 @@
  */
 package com.android.settings.core;
 
+import android.net.Uri;
 import android.text.TextUtils;
 import android.util.Log;
 
+import androidx.annotation.Nullable;
+
 import com.android.settingslib.core.AbstractPreferenceController;
 import com.android.settingslib.search.SearchIndexableRaw;
 
@@ -70,4 +73,18 @@ public interface PreferenceControllerMixin {
      */
     default void updateDynamicRawDataToIndex(List<SearchIndexableRaw> rawData) {
     }
+
+    /**
+     * Returns the {@link Uri}s of the settings the availability and dynamic raw data of this
+     * controller depend on, so the search data of its page can be cached until one of them
+     * changes. Installed packages, user restrictions and the locale don't need to be listed.
+     *
+     * Called by SearchIndexProvider#getSearchIndexDependencies
+     *
+     * @return the settings, or {@code null} if the search data may also change with anything else.
+     */
+    @Nullable
+    default List<Uri> getSearchIndexDependencies() {
+        return null;
+    }
 }
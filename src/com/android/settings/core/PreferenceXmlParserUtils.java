@@ -20,12 +20,14 @@ import android.annotation.NonNull;
 import android.annotation.Nullable;
 import android.annotation.XmlRes;
 import android.content.Context;
+import android.content.pm.ActivityInfo;
 import android.content.res.TypedArray;
 import android.content.res.XmlResourceParser;
 import android.os.Bundle;
 import android.text.TextUtils;
 import android.util.AttributeSet;
 import android.util.Log;
+import android.util.LongSparseArray;
 import android.util.TypedValue;
 import android.util.Xml;
 
@@ -33,6 +35,7 @@ import androidx.annotation.IntDef;
 import androidx.annotation.VisibleForTesting;
 
 import com.android.settings.R;
+import com.android.settingslib.applications.InterestingConfigChanges;
 
 import org.xmlpull.v1.XmlPullParser;
 import org.xmlpull.v1.XmlPullParserException;
@@ -105,6 +108,16 @@ public class PreferenceXmlParserUtils {
 
     private static final String ENTRIES_SEPARATOR = "|";
 
+    // Metadata already extracted, keyed by xml res id in the upper 32 bits and flags in the lower
+    // ones. Only valid for the configuration tracked by sConfigChanges.
+    private static final LongSparseArray<List<Bundle>> sMetadataCache = new LongSparseArray<>();
+    private static final InterestingConfigChanges sConfigChanges = new InterestingConfigChanges(
+            ActivityInfo.CONFIG_LOCALE | ActivityInfo.CONFIG_MCC | ActivityInfo.CONFIG_MNC
+                    | ActivityInfo.CONFIG_ASSETS_PATHS | ActivityInfo.CONFIG_UI_MODE
+                    | ActivityInfo.CONFIG_SCREEN_LAYOUT | ActivityInfo.CONFIG_ORIENTATION
+                    | ActivityInfo.CONFIG_SMALLEST_SCREEN_SIZE);
+    private static int sCacheGeneration;
+
     /**
      * Call {@link #extractMetadata(Context, int, int)} with {@link #METADATA_KEY} instead.
      */
@@ -176,11 +189,55 @@ public class PreferenceXmlParserUtils {
     @NonNull
     public static List<Bundle> extractMetadata(Context context, @XmlRes int xmlResId, int flags)
             throws IOException, XmlPullParserException {
-        final List<Bundle> metadata = new ArrayList<>();
         if (xmlResId <= 0) {
             Log.d(TAG, xmlResId + " is invalid.");
-            return metadata;
+            return new ArrayList<>();
+        }
+        final long cacheKey = ((long) xmlResId << 32) | (flags & 0xffffffffL);
+        final int generation;
+        synchronized (sMetadataCache) {
+            if (sConfigChanges.applyNewConfig(context.getResources())) {
+                sMetadataCache.clear();
+                sCacheGeneration++;
+            }
+            final List<Bundle> cached = sMetadataCache.get(cacheKey);
+            if (cached != null) {
+                return copyMetadata(cached);
+            }
+            generation = sCacheGeneration;
         }
+        final List<Bundle> metadata = parseMetadata(context, xmlResId, flags);
+        synchronized (sMetadataCache) {
+            // Don't cache what was parsed with a configuration that is already gone.
+            if (generation == sCacheGeneration) {
+                sMetadataCache.put(cacheKey, copyMetadata(metadata));
+            }
+        }
+        return metadata;
+    }
+
+    /**
+     * Drops all metadata cached by {@link #extractMetadata(Context, int, int)}.
+     */
+    @VisibleForTesting
+    static void clearMetadataCache() {
+        synchronized (sMetadataCache) {
+            sMetadataCache.clear();
+            sCacheGeneration++;
+        }
+    }
+
+    private static List<Bundle> copyMetadata(List<Bundle> metadata) {
+        final List<Bundle> copy = new ArrayList<>(metadata.size());
+        for (Bundle bundle : metadata) {
+            copy.add(new Bundle(bundle));
+        }
+        return copy;
+    }
+
+    private static List<Bundle> parseMetadata(Context context, @XmlRes int xmlResId, int flags)
+            throws IOException, XmlPullParserException {
+        final List<Bundle> metadata = new ArrayList<>();
         final XmlResourceParser parser = context.getResources().getXml(xmlResId);
 
         int type;
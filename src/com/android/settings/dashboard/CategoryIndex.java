@@ -0,0 +1,257 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.dashboard;
+
+import android.content.Context;
+import android.content.pm.ChangedPackages;
+import android.content.pm.PackageManager;
+import android.os.Build;
+import android.os.Parcel;
+import android.os.UserHandle;
+import android.os.UserManager;
+import android.provider.Settings;
+import android.util.AtomicFile;
+import android.util.Log;
+
+import com.android.settingslib.drawer.DashboardCategory;
+import com.android.settingslib.utils.ThreadUtils;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Persists the categories built by {@link CategoryManager}, so a cold start can show the
+ * injected tiles without querying the package manager for every one of them.
+ *
+ * The index is only used on the boot, build, locale and user profiles it was written for, and
+ * only as long as no package changed since, see {@link PackageManager#getChangedPackages(int)}.
+ */
+class CategoryIndex {
+
+    private static final String TAG = "CategoryIndex";
+    private static final String FILE_NAME = "dashboard_categories";
+    private static final int VERSION = 1;
+
+    private final Context mContext;
+    private final AtomicFile mFile;
+
+    CategoryIndex(Context context) {
+        mContext = context.getApplicationContext();
+        mFile = new AtomicFile(new File(mContext.getCacheDir(), FILE_NAME));
+    }
+
+    /**
+     * Categories read back from the index.
+     */
+    static class Entry {
+        final Stamp mStamp;
+        // The categories as returned by TileUtils.
+        final List<DashboardCategory> mCategories;
+        // Categories only reachable by key, see CategoryManager#backwardCompatCleanupForCategory.
+        final List<DashboardCategory> mExtraCategories;
+
+        Entry(Stamp stamp, List<DashboardCategory> categories,
+                List<DashboardCategory> extraCategories) {
+            mStamp = stamp;
+            mCategories = categories;
+            mExtraCategories = extraCategories;
+        }
+    }
+
+    /**
+     * The state of the device the categories were loaded for.
+     */
+    static class Stamp {
+        final String mFingerprint;
+        final int mBootCount;
+        final String mLocales;
+        final int[] mProfileIds;
+        final int mSequenceNumber;
+
+        Stamp(String fingerprint, int bootCount, String locales, int[] profileIds,
+                int sequenceNumber) {
+            mFingerprint = fingerprint;
+            mBootCount = bootCount;
+            mLocales = locales;
+            mProfileIds = profileIds;
+            mSequenceNumber = sequenceNumber;
+        }
+
+        private Stamp(Parcel parcel) {
+            mFingerprint = parcel.readString();
+            mBootCount = parcel.readInt();
+            mLocales = parcel.readString();
+            mProfileIds = parcel.createIntArray();
+            mSequenceNumber = parcel.readInt();
+        }
+
+        private void writeToParcel(Parcel parcel) {
+            parcel.writeString(mFingerprint);
+            parcel.writeInt(mBootCount);
+            parcel.writeString(mLocales);
+            parcel.writeIntArray(mProfileIds);
+            parcel.writeInt(mSequenceNumber);
+        }
+
+        /**
+         * @return {@code true} if both stamps were taken on the same boot, build, locale and
+         * user profiles, regardless of package changes.
+         */
+        boolean isSameEnvironment(Stamp other) {
+            return mBootCount == other.mBootCount
+                    && Objects.equals(mFingerprint, other.mFingerprint)
+                    && Objects.equals(mLocales, other.mLocales)
+                    && Arrays.equals(mProfileIds, other.mProfileIds);
+        }
+    }
+
+    /**
+     * Captures the current state of the device. Must be taken before loading the categories, so
+     * that a package changing during the load makes the result stale.
+     *
+     * @return the stamp, or {@code null} if the state could not be read.
+     */
+    Stamp capture() {
+        try {
+            return captureOrThrow();
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Unable to capture device state", e);
+            return null;
+        }
+    }
+
+    private Stamp captureOrThrow() {
+        final List<UserHandle> profiles =
+                mContext.getSystemService(UserManager.class).getUserProfiles();
+        final int[] profileIds = new int[profiles.size()];
+        for (int i = 0; i < profileIds.length; i++) {
+            profileIds[i] = profiles.get(i).getIdentifier();
+        }
+        Arrays.sort(profileIds);
+        final ChangedPackages changedPackages =
+                mContext.getPackageManager().getChangedPackages(0 /* sequenceNumber */);
+        return new Stamp(Build.FINGERPRINT,
+                Settings.Global.getInt(mContext.getContentResolver(),
+                        Settings.Global.BOOT_COUNT, -1),
+                mContext.getResources().getConfiguration().getLocales().toLanguageTags(),
+                profileIds,
+                changedPackages == null ? 0 : changedPackages.getSequenceNumber());
+    }
+
+    /**
+     * @return {@code true} if categories loaded at {@code stamp} are still up to date.
+     */
+    boolean isCurrent(Stamp stamp) {
+        try {
+            return stamp.isSameEnvironment(captureOrThrow())
+                    && mContext.getPackageManager().getChangedPackages(
+                    stamp.mSequenceNumber) == null;
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Unable to check the index", e);
+            return false;
+        }
+    }
+
+    /**
+     * @return the stored categories, or {@code null} if there are none or they are out of date.
+     */
+    Entry read() {
+        final Parcel parcel = Parcel.obtain();
+        try {
+            final byte[] data = mFile.readFully();
+            parcel.unmarshall(data, 0, data.length);
+            parcel.setDataPosition(0);
+            if (parcel.readInt() != VERSION) {
+                return null;
+            }
+            final Stamp stamp = new Stamp(parcel);
+            if (!isCurrent(stamp)) {
+                Log.d(TAG, "Index is out of date");
+                return null;
+            }
+            final List<DashboardCategory> categories = readCategories(parcel);
+            final List<DashboardCategory> extraCategories = readCategories(parcel);
+            return new Entry(stamp, categories, extraCategories);
+        } catch (IOException e) {
+            // No index yet.
+            return null;
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Discarding unreadable index", e);
+            mFile.delete();
+            return null;
+        } finally {
+            parcel.recycle();
+        }
+    }
+
+    /**
+     * Replaces the stored categories. The categories are flattened right away, the file is
+     * written on a background thread.
+     */
+    void write(Stamp stamp, Collection<DashboardCategory> categories,
+            Collection<DashboardCategory> extraCategories) {
+        final byte[] data;
+        final Parcel parcel = Parcel.obtain();
+        try {
+            parcel.writeInt(VERSION);
+            stamp.writeToParcel(parcel);
+            writeCategories(parcel, categories);
+            writeCategories(parcel, extraCategories);
+            data = parcel.marshall();
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Unable to flatten categories", e);
+            return;
+        } finally {
+            parcel.recycle();
+        }
+        ThreadUtils.postOnBackgroundThread(() -> {
+            synchronized (mFile) {
+                FileOutputStream out = null;
+                try {
+                    out = mFile.startWrite();
+                    out.write(data);
+                    mFile.finishWrite(out);
+                } catch (IOException e) {
+                    Log.w(TAG, "Unable to write index", e);
+                    mFile.failWrite(out);
+                }
+            }
+        });
+    }
+
+    private static void writeCategories(Parcel parcel, Collection<DashboardCategory> categories) {
+        parcel.writeInt(categories.size());
+        for (DashboardCategory category : categories) {
+            category.writeToParcel(parcel, 0 /* flags */);
+        }
+    }
+
+    private static List<DashboardCategory> readCategories(Parcel parcel) {
+        final int count = parcel.readInt();
+        final List<DashboardCategory> categories = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            categories.add(DashboardCategory.CREATOR.createFromParcel(parcel));
+        }
+        return categories;
+    }
+}
@@ -32,7 +32,9 @@ import com.android.settingslib.drawer.Tile;
 import com.android.settingslib.drawer.TileUtils;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -49,10 +51,20 @@ public class CategoryManager {
     // Tile cache (key: <packageName, activityName>, value: tile)
     private final Map<Pair<String, String>, Tile> mTileByComponentCache;
 
-    // Tile cache (key: category key, value: category)
-    private final Map<String, DashboardCategory> mCategoryByKeyMap;
+    // Tile cache (key: category key, value: category), without the denied tiles. Replaced,
+    // never modified, on each load or denylist update so it can be read without holding the lock.
+    private volatile Map<String, DashboardCategory> mCategoryByKeyMap;
 
-    private List<DashboardCategory> mCategories;
+    private volatile List<DashboardCategory> mCategories;
+
+    // The categories as loaded, before removing the denied tiles.
+    private Map<String, DashboardCategory> mLoadedCategoryByKeyMap;
+    private List<DashboardCategory> mLoadedCategories;
+    private Set<ComponentName> mTileDenylist = Collections.emptySet();
+
+    private final CategoryIndex mIndex;
+    // The state of the device mCategories were loaded for, null if unknown.
+    private CategoryIndex.Stamp mStamp;
 
     public static CategoryManager get(Context context) {
         if (sInstance == null) {
@@ -66,15 +78,16 @@ public class CategoryManager {
         mCategoryByKeyMap = new ArrayMap<>();
         mInterestingConfigChanges = new InterestingConfigChanges();
         mInterestingConfigChanges.applyNewConfig(context.getResources());
+        mIndex = new CategoryIndex(context);
     }
 
-    public synchronized DashboardCategory getTilesByCategory(Context context, String categoryKey) {
+    public DashboardCategory getTilesByCategory(Context context, String categoryKey) {
         tryInitCategories(context);
 
         return mCategoryByKeyMap.get(categoryKey);
     }
 
-    public synchronized List<DashboardCategory> getCategories(Context context) {
+    public List<DashboardCategory> getCategories(Context context) {
         tryInitCategories(context);
         return mCategories;
     }
@@ -82,38 +95,51 @@ public class CategoryManager {
     public synchronized void reloadAllCategories(Context context) {
         final boolean forceClearCache = mInterestingConfigChanges.applyNewConfig(
                 context.getResources());
-        mCategories = null;
-        tryInitCategories(context, forceClearCache);
+        loadCategories(context, forceClearCache, false /* allowIndex */);
     }
 
     /**
-     * Update category from deny list
+     * Same as {@link #reloadAllCategories(Context)}, but keeps the current categories if no
+     * package, locale or user profile changed since they were loaded.
+     */
+    public synchronized void reloadCategoriesIfChanged(Context context) {
+        final boolean forceClearCache = mInterestingConfigChanges.applyNewConfig(
+                context.getResources());
+        // Provider tiles read their title and summary from the provider when loaded, which
+        // doesn't bump the package sequence, so always load them again.
+        if (!forceClearCache && mCategories != null && mStamp != null
+                && !hasProviderTiles(mLoadedCategoryByKeyMap) && mIndex.isCurrent(mStamp)) {
+            return;
+        }
+        loadCategories(context, forceClearCache, false /* allowIndex */);
+    }
+
+    /**
+     * Update category from deny list. Tiles denied by a previous list are shown again if they
+     * are no longer denied.
      * @param tileDenylist
      */
     public synchronized void updateCategoryFromDenylist(Set<ComponentName> tileDenylist) {
-        if (mCategories == null) {
+        if (mLoadedCategories == null) {
             Log.w(TAG, "Category is null, skipping denylist update");
             return;
         }
-        for (int i = 0; i < mCategories.size(); i++) {
-            DashboardCategory category = mCategories.get(i);
-            for (int j = 0; j < category.getTilesCount(); j++) {
-                Tile tile = category.getTile(j);
-                if (tileDenylist.contains(tile.getIntent().getComponent())) {
-                    category.removeTile(j--);
-                }
-            }
+        if (mTileDenylist.equals(tileDenylist)) {
+            return;
         }
+        mTileDenylist = new ArraySet<>(tileDenylist);
+        publishCategories();
     }
 
     /** Return the current tile map */
-    public synchronized Map<ComponentName, Tile> getTileByComponentMap() {
+    public Map<ComponentName, Tile> getTileByComponentMap() {
         final Map<ComponentName, Tile> result = new ArrayMap<>();
-        if (mCategories == null) {
+        final List<DashboardCategory> categories = mCategories;
+        if (categories == null) {
             Log.w(TAG, "Category is null, no tiles");
             return result;
         }
-        mCategories.forEach(category -> {
+        categories.forEach(category -> {
             for (int i = 0; i < category.getTilesCount(); i++) {
                 final Tile tile = category.getTile(i);
                 result.put(tile.getIntent().getComponent(), tile);
@@ -131,30 +157,118 @@ public class CategoryManager {
         }
     }
 
-    private synchronized void tryInitCategories(Context context) {
-        // Keep cached tiles by default. The cache is only invalidated when InterestingConfigChange
-        // happens.
-        tryInitCategories(context, false /* forceClearCache */);
+    private void tryInitCategories(Context context) {
+        if (mCategories != null) {
+            return;
+        }
+        synchronized (this) {
+            if (mCategories == null) {
+                // Keep cached tiles by default. The cache is only invalidated when
+                // InterestingConfigChange happens.
+                loadCategories(context, false /* forceClearCache */, true /* allowIndex */);
+            }
+        }
     }
 
-    private synchronized void tryInitCategories(Context context, boolean forceClearCache) {
-        if (mCategories == null) {
-            final boolean firstLoading = mCategoryByKeyMap.isEmpty();
-            if (forceClearCache) {
-                mTileByComponentCache.clear();
+    private synchronized void loadCategories(Context context, boolean forceClearCache,
+            boolean allowIndex) {
+        final boolean firstLoading = mCategories == null;
+        if (forceClearCache) {
+            mTileByComponentCache.clear();
+        }
+        final Map<String, DashboardCategory> categoryByKeyMap = new ArrayMap<>();
+        final CategoryIndex.Entry entry = allowIndex ? mIndex.read() : null;
+        final List<DashboardCategory> categories;
+        if (entry != null) {
+            categories = entry.mCategories;
+            for (DashboardCategory category : categories) {
+                categoryByKeyMap.put(category.key, category);
+            }
+            for (DashboardCategory category : entry.mExtraCategories) {
+                categoryByKeyMap.put(category.key, category);
+            }
+            // Let the next reload reuse the tiles, like it does with the ones it loads itself.
+            for (DashboardCategory category : categoryByKeyMap.values()) {
+                for (int i = 0; i < category.getTilesCount(); i++) {
+                    final ComponentName component = category.getTile(i).getIntent().getComponent();
+                    mTileByComponentCache.put(
+                            new Pair<>(component.getPackageName(), component.getClassName()),
+                            category.getTile(i));
+                }
+            }
+            mStamp = entry.mStamp;
+        } else {
+            final CategoryIndex.Stamp stamp = mIndex.capture();
+            categories = TileUtils.getCategories(context, mTileByComponentCache);
+            for (DashboardCategory category : categories) {
+                categoryByKeyMap.put(category.key, category);
             }
-            mCategoryByKeyMap.clear();
-            mCategories = TileUtils.getCategories(context, mTileByComponentCache);
-            for (DashboardCategory category : mCategories) {
-                mCategoryByKeyMap.put(category.key, category);
+            backwardCompatCleanupForCategory(mTileByComponentCache, categoryByKeyMap);
+            sortCategories(context, categoryByKeyMap);
+            filterDuplicateTiles(categoryByKeyMap);
+            if (stamp != null) {
+                final List<DashboardCategory> extraCategories =
+                        new ArrayList<>(categoryByKeyMap.values());
+                extraCategories.removeAll(categories);
+                mIndex.write(stamp, categories, extraCategories);
             }
-            backwardCompatCleanupForCategory(mTileByComponentCache, mCategoryByKeyMap);
-            sortCategories(context, mCategoryByKeyMap);
-            filterDuplicateTiles(mCategoryByKeyMap);
-            if (firstLoading) {
-                logTiles(context);
+            mStamp = stamp;
+        }
+        setLoadedCategories(categories, categoryByKeyMap);
+        if (firstLoading) {
+            logTiles(context);
+        }
+    }
+
+    @VisibleForTesting
+    synchronized void setLoadedCategories(List<DashboardCategory> categories,
+            Map<String, DashboardCategory> categoryByKeyMap) {
+        mLoadedCategoryByKeyMap = categoryByKeyMap;
+        mLoadedCategories = categories;
+        publishCategories();
+    }
+
+    // Publishes copies of the loaded categories without the denied tiles, the loaded ones are
+    // kept untouched so the tiles can come back with the next denylist.
+    private void publishCategories() {
+        final Map<DashboardCategory, DashboardCategory> copies = new IdentityHashMap<>();
+        final Map<String, DashboardCategory> categoryByKeyMap = new ArrayMap<>();
+        for (Entry<String, DashboardCategory> entry : mLoadedCategoryByKeyMap.entrySet()) {
+            categoryByKeyMap.put(entry.getKey(), copyAllowedTiles(entry.getValue(), copies));
+        }
+        final List<DashboardCategory> categories = new ArrayList<>(mLoadedCategories.size());
+        for (DashboardCategory category : mLoadedCategories) {
+            categories.add(copyAllowedTiles(category, copies));
+        }
+        mCategoryByKeyMap = categoryByKeyMap;
+        mCategories = categories;
+    }
+
+    private DashboardCategory copyAllowedTiles(DashboardCategory category,
+            Map<DashboardCategory, DashboardCategory> copies) {
+        DashboardCategory copy = copies.get(category);
+        if (copy == null) {
+            copy = new DashboardCategory(category.key);
+            for (int i = 0; i < category.getTilesCount(); i++) {
+                final Tile tile = category.getTile(i);
+                if (!mTileDenylist.contains(tile.getIntent().getComponent())) {
+                    copy.addTile(tile);
+                }
+            }
+            copies.put(category, copy);
+        }
+        return copy;
+    }
+
+    private static boolean hasProviderTiles(Map<String, DashboardCategory> categoryByKeyMap) {
+        for (DashboardCategory category : categoryByKeyMap.values()) {
+            for (int i = 0; i < category.getTilesCount(); i++) {
+                if (category.getTile(i) instanceof ProviderTile) {
+                    return true;
+                }
             }
         }
+        return false;
     }
 
     @VisibleForTesting
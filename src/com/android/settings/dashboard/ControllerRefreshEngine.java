@@ -0,0 +1,222 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.dashboard;
+
+import android.app.settings.SettingsEnums;
+import android.os.SystemClock;
+import android.text.TextUtils;
+import android.util.Log;
+
+import androidx.annotation.VisibleForTesting;
+import androidx.preference.Preference;
+import androidx.preference.PreferenceScreen;
+
+import com.android.settings.core.BackgroundAvailabilityController;
+import com.android.settingslib.core.AbstractPreferenceController;
+import com.android.settingslib.core.instrumentation.MetricsFeatureProvider;
+import com.android.settingslib.utils.ThreadUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Refreshes the preferences of a {@link DashboardFragment} in parallel.
+ *
+ * The preferences are updated on the main thread right away, as they were last shown, so the
+ * first frame is drawn with the current state. The availability of the controllers
+ * implementing {@link BackgroundAvailabilityController} is then evaluated on a bounded
+ * background pool, and once all of them have reported back, the preferences whose availability
+ * changed are shown or hidden on the main thread in a single pass. The other controllers are
+ * refreshed on the main thread only.
+ */
+public class ControllerRefreshEngine {
+    private static final String TAG = "ControllerRefreshEngine";
+    private static final int CONTROLLER_UPDATESTATE_TIME_THRESHOLD = 50;
+    private static final int MAX_POOL_SIZE = 4;
+    private static final long KEEP_ALIVE_SECONDS = 10L;
+
+    private static ThreadPoolExecutor sExecutor;
+
+    private final Executor mExecutor;
+    private final MetricsFeatureProvider mMetricsFeature;
+    private final int mMetricsCategory;
+    private int mGeneration;
+
+    public ControllerRefreshEngine(MetricsFeatureProvider metricsFeature, int metricsCategory) {
+        this(getExecutor(), metricsFeature, metricsCategory);
+    }
+
+    @VisibleForTesting
+    ControllerRefreshEngine(Executor executor, MetricsFeatureProvider metricsFeature,
+            int metricsCategory) {
+        mExecutor = executor;
+        mMetricsFeature = metricsFeature;
+        mMetricsCategory = metricsCategory;
+    }
+
+    /**
+     * Starts refreshing {@code controllers}. A refresh that is still in flight is superseded and
+     * its results are dropped. Must be called on the main thread.
+     */
+    public void refresh(PreferenceScreen screen, List<AbstractPreferenceController> controllers) {
+        final int generation = ++mGeneration;
+        if (screen == null) {
+            return;
+        }
+        final List<AbstractPreferenceController> backgroundControllers = new ArrayList<>();
+        final List<Preference> backgroundPreferences = new ArrayList<>();
+        for (AbstractPreferenceController controller : controllers) {
+            if (!(controller instanceof BackgroundAvailabilityController)) {
+                final Preference preference = findAvailablePreference(controller, screen);
+                if (preference != null) {
+                    updateState(controller, preference);
+                }
+                continue;
+            }
+            final Preference preference = findPreference(controller, screen);
+            if (preference == null) {
+                continue;
+            }
+            // Shown as available the last time, refresh it before the availability is known.
+            if (preference.isVisible()) {
+                updateState(controller, preference);
+            }
+            backgroundControllers.add(controller);
+            backgroundPreferences.add(preference);
+        }
+
+        final int count = backgroundControllers.size();
+        if (count == 0) {
+            return;
+        }
+        final long startTime = SystemClock.elapsedRealtime();
+        final boolean[] availabilities = new boolean[count];
+        final AtomicInteger pending = new AtomicInteger(count);
+        for (int i = 0; i < count; i++) {
+            final int index = i;
+            final AbstractPreferenceController controller = backgroundControllers.get(i);
+            mExecutor.execute(() -> {
+                try {
+                    availabilities[index] = controller.isAvailable();
+                } catch (RuntimeException e) {
+                    Log.w(TAG, "Failed to evaluate " + controller.getClass().getSimpleName(), e);
+                } finally {
+                    // The last task to finish hands the whole batch over to the main thread.
+                    if (pending.decrementAndGet() == 0) {
+                        ThreadUtils.postOnMainThread(() -> apply(generation,
+                                backgroundControllers, backgroundPreferences, availabilities,
+                                startTime));
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Drops any refresh in flight. The visibility applied so far is kept on the preferences, so
+     * the next refresh still hides a preference which became unavailable meanwhile.
+     */
+    public void cancel() {
+        mGeneration++;
+    }
+
+    private void apply(int generation, List<AbstractPreferenceController> controllers,
+            List<Preference> preferences, boolean[] availabilities, long startTime) {
+        if (generation != mGeneration) {
+            Log.d(TAG, "Dropping stale refresh " + generation);
+            return;
+        }
+        int changedCount = 0;
+        for (int i = 0; i < availabilities.length; i++) {
+            final Preference preference = preferences.get(i);
+            if (availabilities[i] == preference.isVisible()) {
+                continue;
+            }
+            // Availability flipped since the preference was shown, like displayPreference().
+            preference.setVisible(availabilities[i]);
+            if (availabilities[i]) {
+                updateState(controllers.get(i), preference);
+            }
+            changedCount++;
+        }
+        Log.d(TAG, "Changed " + changedCount + "/" + availabilities.length
+                + " preferences in " + (SystemClock.elapsedRealtime() - startTime) + " ms");
+    }
+
+    private void updateState(AbstractPreferenceController controller, Preference preference) {
+        final long t = SystemClock.elapsedRealtime();
+        controller.updateState(preference);
+        final int elapsedTime = (int) (SystemClock.elapsedRealtime() - t);
+        if (elapsedTime > CONTROLLER_UPDATESTATE_TIME_THRESHOLD) {
+            Log.w(TAG, "The updateState took " + elapsedTime + " ms in Controller "
+                    + controller.getClass().getSimpleName());
+            if (mMetricsFeature != null) {
+                mMetricsFeature.action(SettingsEnums.PAGE_UNKNOWN,
+                        SettingsEnums.ACTION_CONTROLLER_UPDATE_STATE, mMetricsCategory,
+                        controller.getClass().getSimpleName(), elapsedTime);
+            }
+        }
+    }
+
+    private static Preference findAvailablePreference(AbstractPreferenceController controller,
+            PreferenceScreen screen) {
+        if (!controller.isAvailable()) {
+            return null;
+        }
+        return findPreference(controller, screen);
+    }
+
+    private static Preference findPreference(AbstractPreferenceController controller,
+            PreferenceScreen screen) {
+        final String key = controller.getPreferenceKey();
+        if (TextUtils.isEmpty(key)) {
+            Log.d(TAG, String.format("Preference key is %s in Controller %s",
+                    key, controller.getClass().getSimpleName()));
+            return null;
+        }
+        final Preference preference = screen.findPreference(key);
+        if (preference == null) {
+            Log.d(TAG, String.format("Cannot find preference with key %s in Controller %s",
+                    key, controller.getClass().getSimpleName()));
+        }
+        return preference;
+    }
+
+    private static synchronized Executor getExecutor() {
+        if (sExecutor == null) {
+            final int poolSize = Math.max(1,
+                    Math.min(MAX_POOL_SIZE, Runtime.getRuntime().availableProcessors()));
+            sExecutor = new ThreadPoolExecutor(poolSize, poolSize, KEEP_ALIVE_SECONDS,
+                    TimeUnit.SECONDS, new LinkedBlockingQueue<>(), new ThreadFactory() {
+                        private final AtomicInteger mCount = new AtomicInteger();
+
+                        @Override
+                        public Thread newThread(Runnable r) {
+                            return new Thread(r, TAG + "-" + mCount.incrementAndGet());
+                        }
+                    });
+            sExecutor.allowCoreThreadTimeOut(true);
+        }
+        return sExecutor;
+    }
+}
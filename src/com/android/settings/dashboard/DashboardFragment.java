@@ -47,7 +47,6 @@ import com.android.settingslib.drawer.DashboardCategory;
 import com.android.settingslib.drawer.ProviderTile;
 import com.android.settingslib.drawer.Tile;
 import com.android.settingslib.search.Indexable;
-import com.android.settingslib.utils.ThreadUtils;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -56,7 +55,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.concurrent.ExecutionException;
 
 /**
  * Base fragment for dashboard style UI containing a list of static and dynamic setting items.
@@ -77,6 +75,7 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
     UiBlockerController mBlockerController;
     private DashboardFeatureProvider mDashboardFeatureProvider;
     private DashboardTilePlaceholderPreferenceController mPlaceholderPreferenceController;
+    private ControllerRefreshEngine mRefreshEngine;
     private boolean mListeningToCategoryChange;
     private List<String> mSuppressInjectedTileKeys;
 
@@ -216,7 +215,11 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
     @Override
     public void onResume() {
         super.onResume();
-        updatePreferenceStates();
+        if (isParalleledControllers()) {
+            updatePreferenceStatesInParallel();
+        } else {
+            updatePreferenceStates();
+        }
         writeElapsedTimeMetric(SettingsEnums.ACTION_DASHBOARD_VISIBLE_TIME,
                 "isParalleledControllers:" + isParalleledControllers());
     }
@@ -241,6 +244,9 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
     public void onStop() {
         super.onStop();
         unregisterDynamicDataObservers(new ArrayList<>(mRegisteredObservers));
+        if (mRefreshEngine != null) {
+            mRefreshEngine.cancel();
+        }
         if (mListeningToCategoryChange) {
             final Activity activity = getActivity();
             if (activity instanceof CategoryHandler) {
@@ -387,32 +393,18 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
 
     /**
      * Use parallel method to update state of each preference managed by PreferenceController.
+     * The availability of the controllers opting in is evaluated in the background and the
+     * changes are applied in one batch on the main thread, see {@link ControllerRefreshEngine}.
      */
     @VisibleForTesting
-    // To use this parallel approach will cause the side effect of the UI flicker. Such as
-    // the thumb sliding of the toggle button.
     void updatePreferenceStatesInParallel() {
-        final PreferenceScreen screen = getPreferenceScreen();
-        final Collection<List<AbstractPreferenceController>> controllerLists =
-                mPreferenceControllers.values();
-        final List<ControllerFutureTask> taskList = new ArrayList<>();
-        for (List<AbstractPreferenceController> controllerList : controllerLists) {
-            for (AbstractPreferenceController controller : controllerList) {
-                final ControllerFutureTask task = new ControllerFutureTask(
-                        new ControllerTask(controller, screen, mMetricsFeatureProvider,
-                                getMetricsCategory()), null /* result */);
-                taskList.add(task);
-                ThreadUtils.postOnBackgroundThread(task);
-            }
-        }
-
-        for (ControllerFutureTask task : taskList) {
-            try {
-                task.get();
-            } catch (InterruptedException | ExecutionException e) {
-                Log.w(TAG, task.getController().getPreferenceKey() + " " + e.getMessage());
-            }
+        if (mRefreshEngine == null) {
+            mRefreshEngine = new ControllerRefreshEngine(mMetricsFeatureProvider,
+                    getMetricsCategory());
         }
+        final List<AbstractPreferenceController> controllers = new ArrayList<>();
+        mPreferenceControllers.values().forEach(controllers::addAll);
+        mRefreshEngine.refresh(getPreferenceScreen(), controllers);
     }
 
     /**
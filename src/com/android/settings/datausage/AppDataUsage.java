@@ -219,8 +219,15 @@ public class AppDataUsage extends DataUsageBaseFragment implements OnPreferenceC
         if (mDataSaverBackend != null) {
             mDataSaverBackend.addListener(this);
         }
-        LoaderManager.getInstance(this).restartLoader(LOADER_APP_USAGE_DATA, null /* args */,
-                mUidDataCallbacks);
+        final List<NetworkCycleDataForUid> usageData = NetworkStatsQueryCache.getInstance().get(
+                NetworkStatsQueryCache.QUERY_APP_CYCLES, mTemplate, getCyclesStart(),
+                getCyclesEnd(), mAppItem.key);
+        if (usageData != null) {
+            bindUsageData(usageData);
+        } else {
+            LoaderManager.getInstance(this).restartLoader(LOADER_APP_USAGE_DATA,
+                    null /* args */, mUidDataCallbacks);
+        }
         updatePrefs();
     }
 
@@ -410,25 +417,9 @@ public class AppDataUsage extends DataUsageBaseFragment implements OnPreferenceC
             @Override
             public void onLoadFinished(Loader<List<NetworkCycleDataForUid>> loader,
                     List<NetworkCycleDataForUid> data) {
-                mUsageData = data;
-                mCycleAdapter.updateCycleList(data);
-                if (mSelectedCycle > 0L) {
-                    final int numCycles = data.size();
-                    int position = 0;
-                    for (int i = 0; i < numCycles; i++) {
-                        final NetworkCycleDataForUid cycleData = data.get(i);
-                        if (cycleData.getEndTime() == mSelectedCycle) {
-                            position = i;
-                            break;
-                        }
-                    }
-                    if (position > 0) {
-                        mCycle.setSelection(position);
-                    }
-                    bindData(position);
-                } else {
-                    bindData(0 /* position */);
-                }
+                NetworkStatsQueryCache.getInstance().put(NetworkStatsQueryCache.QUERY_APP_CYCLES,
+                        mTemplate, getCyclesStart(), getCyclesEnd(), mAppItem.key, data);
+                bindUsageData(data);
             }
 
             @Override
@@ -436,6 +427,39 @@ public class AppDataUsage extends DataUsageBaseFragment implements OnPreferenceC
             }
         };
 
+    private void bindUsageData(List<NetworkCycleDataForUid> data) {
+        mUsageData = data;
+        mCycleAdapter.updateCycleList(data);
+        if (mSelectedCycle > 0L) {
+            final int numCycles = data.size();
+            int position = 0;
+            for (int i = 0; i < numCycles; i++) {
+                final NetworkCycleDataForUid cycleData = data.get(i);
+                if (cycleData.getEndTime() == mSelectedCycle) {
+                    position = i;
+                    break;
+                }
+            }
+            if (position > 0) {
+                mCycle.setSelection(position);
+            }
+            bindData(position);
+        } else {
+            bindData(0 /* position */);
+        }
+    }
+
+    // The cycles are given as the end of the latest cycle followed by the start of each cycle.
+    private long getCyclesStart() {
+        return mCycles == null || mCycles.isEmpty()
+                ? NetworkStatsQueryCache.CYCLE_UNKNOWN : mCycles.get(mCycles.size() - 1);
+    }
+
+    private long getCyclesEnd() {
+        return mCycles == null || mCycles.isEmpty()
+                ? NetworkStatsQueryCache.CYCLE_UNKNOWN : mCycles.get(0);
+    }
+
     private final LoaderManager.LoaderCallbacks<ArraySet<Preference>> mAppPrefCallbacks =
         new LoaderManager.LoaderCallbacks<ArraySet<Preference>>() {
             @Override
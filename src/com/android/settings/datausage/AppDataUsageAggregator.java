@@ -0,0 +1,213 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.datausage;
+
+import static android.net.TrafficStats.UID_REMOVED;
+import static android.net.TrafficStats.UID_TETHERING;
+
+import android.os.Process;
+import android.os.UserHandle;
+import android.os.UserManager;
+import android.util.SparseArray;
+import android.util.SparseBooleanArray;
+import android.util.SparseIntArray;
+import android.util.SparseLongArray;
+
+import com.android.settingslib.AppItem;
+import com.android.settingslib.net.UidDetailProvider;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Aggregates the network usage of a cycle into one {@link AppItem} per app or user shown by
+ * {@link DataUsageList}.
+ *
+ * Usage is accumulated per collapse key in primitive arrays, and the {@link AppItem}s are only
+ * created once all the buckets are added. They are then handed out in pages, so only the items
+ * that are shown need to be ordered.
+ */
+class AppDataUsageAggregator {
+
+    private final int mCurrentUserId;
+    private final UserManager mUserManager;
+    // User ids of the profiles of the current user.
+    private final BitSet mProfiles = new BitSet();
+    // Whether a user which is not a profile still exists, by user id.
+    private final SparseBooleanArray mOtherUserExists = new SparseBooleanArray();
+
+    private final SparseLongArray mTotals = new SparseLongArray();
+    private final SparseIntArray mCategories = new SparseIntArray();
+    // Uids collapsed into another key, by key. Keys used by their own uid only are in mSelfUids.
+    private final SparseArray<SparseBooleanArray> mCollapsedUids = new SparseArray<>();
+    private final SparseBooleanArray mSelfUids = new SparseBooleanArray();
+    private final SparseBooleanArray mRestricted = new SparseBooleanArray();
+    private long mLargest;
+
+    private PriorityQueue<AppItem> mPending;
+
+    AppDataUsageAggregator(int currentUserId, UserManager userManager,
+            List<UserHandle> profiles) {
+        mCurrentUserId = currentUserId;
+        mUserManager = userManager;
+        for (UserHandle profile : profiles) {
+            mProfiles.set(profile.getIdentifier());
+        }
+    }
+
+    /**
+     * Adds the usage of {@code uid}, collapsing it into the key it is shown under.
+     */
+    void add(int uid, long bytes) {
+        final int userId = UserHandle.getUserId(uid);
+        if (UserHandle.isApp(uid)) {
+            if (isProfile(userId)) {
+                if (userId != mCurrentUserId) {
+                    // Add to a managed user item.
+                    accumulate(UidDetailProvider.buildKeyForUser(userId), uid, bytes,
+                            AppItem.CATEGORY_USER);
+                }
+                // Add to app item.
+                accumulate(uid, uid, bytes, AppItem.CATEGORY_APP);
+            } else if (otherUserExists(userId)) {
+                // Add to other user item.
+                accumulate(UidDetailProvider.buildKeyForUser(userId), uid, bytes,
+                        AppItem.CATEGORY_USER);
+            } else {
+                // If it is a removed user add it to the removed users' key
+                accumulate(UID_REMOVED, uid, bytes, AppItem.CATEGORY_APP);
+            }
+        } else if (uid == UID_REMOVED || uid == UID_TETHERING
+                || uid == Process.OTA_UPDATE_UID) {
+            accumulate(uid, uid, bytes, AppItem.CATEGORY_APP);
+        } else {
+            accumulate(Process.SYSTEM_UID, uid, bytes, AppItem.CATEGORY_APP);
+        }
+    }
+
+    /**
+     * Marks the apps in {@code restrictedUids} as restricted. Only apps of the current user or
+     * its profiles are kept, adding an item without usage if needed.
+     */
+    void setRestrictedUids(int[] restrictedUids) {
+        for (int uid : restrictedUids) {
+            if (isProfile(UserHandle.getUserId(uid))) {
+                mRestricted.put(uid, true);
+            }
+        }
+    }
+
+    /**
+     * @return the largest usage of an item, used to scale the usage of the others.
+     */
+    long getLargest() {
+        return mLargest;
+    }
+
+    /**
+     * @return the next {@code count} items in the list order, or fewer if there aren't as many
+     * left. No more buckets can be added once it is called.
+     */
+    List<AppItem> nextItems(int count) {
+        if (mPending == null) {
+            mPending = new PriorityQueue<>(buildItems());
+        }
+        final List<AppItem> items = new ArrayList<>(Math.min(count, mPending.size()));
+        while (items.size() < count && !mPending.isEmpty()) {
+            items.add(mPending.poll());
+        }
+        return items;
+    }
+
+    /**
+     * @return whether {@link #nextItems(int)} has more items.
+     */
+    boolean hasNextItems() {
+        return mPending == null ? mTotals.size() + mRestricted.size() > 0 : !mPending.isEmpty();
+    }
+
+    private List<AppItem> buildItems() {
+        final List<AppItem> items = new ArrayList<>(mTotals.size() + mRestricted.size());
+        for (int i = 0; i < mTotals.size(); i++) {
+            final int key = mTotals.keyAt(i);
+            final AppItem item = new AppItem(key);
+            item.category = mCategories.get(key);
+            item.total = mTotals.valueAt(i);
+            if (mSelfUids.get(key)) {
+                item.addUid(key);
+            }
+            final SparseBooleanArray uids = mCollapsedUids.get(key);
+            if (uids != null) {
+                for (int j = 0; j < uids.size(); j++) {
+                    item.addUid(uids.keyAt(j));
+                }
+            }
+            item.restricted = mRestricted.get(key);
+            items.add(item);
+        }
+        for (int i = 0; i < mRestricted.size(); i++) {
+            final int uid = mRestricted.keyAt(i);
+            if (mTotals.indexOfKey(uid) < 0) {
+                final AppItem item = new AppItem(uid);
+                item.total = -1;
+                item.restricted = true;
+                items.add(item);
+            }
+        }
+        return items;
+    }
+
+    private void accumulate(int collapseKey, int uid, long bytes, int category) {
+        final int index = mTotals.indexOfKey(collapseKey);
+        final long total;
+        if (index < 0) {
+            total = bytes;
+            mTotals.put(collapseKey, total);
+            mCategories.put(collapseKey, category);
+        } else {
+            total = mTotals.valueAt(index) + bytes;
+            mTotals.put(collapseKey, total);
+        }
+        if (uid == collapseKey) {
+            mSelfUids.put(uid, true);
+        } else {
+            SparseBooleanArray uids = mCollapsedUids.get(collapseKey);
+            if (uids == null) {
+                uids = new SparseBooleanArray();
+                mCollapsedUids.put(collapseKey, uids);
+            }
+            uids.put(uid, true);
+        }
+        mLargest = Math.max(mLargest, total);
+    }
+
+    private boolean isProfile(int userId) {
+        return userId >= 0 && mProfiles.get(userId);
+    }
+
+    private boolean otherUserExists(int userId) {
+        final int index = mOtherUserExists.indexOfKey(userId);
+        if (index >= 0) {
+            return mOtherUserExists.valueAt(index);
+        }
+        final boolean exists = mUserManager.getUserInfo(userId) != null;
+        mOtherUserExists.put(userId, exists);
+        return exists;
+    }
+}
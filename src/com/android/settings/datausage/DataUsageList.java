@@ -17,8 +17,6 @@ package com.android.settings.datausage;
 import static android.net.NetworkPolicyManager.POLICY_REJECT_METERED_BACKGROUND;
 import static android.net.NetworkStatsHistory.FIELD_RX_BYTES;
 import static android.net.NetworkStatsHistory.FIELD_TX_BYTES;
-import static android.net.TrafficStats.UID_REMOVED;
-import static android.net.TrafficStats.UID_TETHERING;
 
 import android.app.Activity;
 import android.app.ActivityManager;
@@ -27,21 +25,18 @@ import android.app.usage.NetworkStats;
 import android.app.usage.NetworkStats.Bucket;
 import android.content.Context;
 import android.content.Intent;
-import android.content.pm.UserInfo;
 import android.graphics.Color;
 import android.net.ConnectivityManager;
 import android.net.NetworkPolicy;
 import android.net.NetworkTemplate;
 import android.os.Bundle;
-import android.os.Process;
-import android.os.UserHandle;
 import android.os.UserManager;
 import android.provider.Settings;
 import android.telephony.SubscriptionInfo;
 import android.telephony.SubscriptionManager;
 import android.util.FeatureFlagUtils;
 import android.util.Log;
-import android.util.SparseArray;
+import android.util.SparseLongArray;
 import android.view.View;
 import android.view.View.AccessibilityDelegate;
 import android.view.accessibility.AccessibilityEvent;
@@ -55,6 +50,7 @@ import androidx.loader.app.LoaderManager.LoaderCallbacks;
 import androidx.loader.content.Loader;
 import androidx.preference.Preference;
 import androidx.preference.PreferenceGroup;
+import androidx.recyclerview.widget.RecyclerView;
 
 import com.android.settings.R;
 import com.android.settings.core.SubSettingLauncher;
@@ -69,7 +65,6 @@ import com.android.settingslib.net.NetworkStatsSummaryLoader;
 import com.android.settingslib.net.UidDetailProvider;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
 /**
@@ -97,6 +92,7 @@ public class DataUsageList extends DataUsageBaseFragment
     static final int LOADER_CHART_DATA = 2;
     @VisibleForTesting
     static final int LOADER_SUMMARY = 3;
+    private static final int APPS_PAGE_SIZE = 50;
 
     @VisibleForTesting
     MobileDataEnabledListener mDataStateListener;
@@ -119,6 +115,8 @@ public class DataUsageList extends DataUsageBaseFragment
     private CycleAdapter mCycleAdapter;
     private Preference mUsageAmount;
     private PreferenceGroup mApps;
+    // Apps of the bound stats whose preferences are not added yet.
+    private AppDataUsageAggregator mAppItems;
     private View mHeader;
 
     @Override
@@ -208,6 +206,18 @@ public class DataUsageList extends DataUsageBaseFragment
         mLoadingViewController = new LoadingViewController(
                 getView().findViewById(R.id.loading_container), getListView());
         mLoadingViewController.showLoadingViewDelayed();
+
+        final RecyclerView listView = getListView();
+        if (listView != null) {
+            listView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+                @Override
+                public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+                    if (mAppItems != null && !recyclerView.canScrollVertically(1 /* down */)) {
+                        recyclerView.post(() -> addNextAppPreferences());
+                    }
+                }
+            });
+        }
     }
 
     @Override
@@ -341,9 +351,18 @@ public class DataUsageList extends DataUsageBaseFragment
     private void updateDetailData() {
         if (LOGD) Log.d(TAG, "updateDetailData()");
 
-        // kick off loader for detailed stats
-        getLoaderManager().restartLoader(LOADER_SUMMARY, null /* args */,
-                mNetworkStatsDetailCallbacks);
+        // kick off loader for detailed stats, unless they are already known
+        final SparseLongArray appsUsage = NetworkStatsQueryCache.getInstance().get(
+                NetworkStatsQueryCache.QUERY_APPS_USAGE, mTemplate, mChart.getInspectStart(),
+                mChart.getInspectEnd(), Bucket.UID_ALL);
+        if (appsUsage != null) {
+            getLoaderManager().destroyLoader(LOADER_SUMMARY);
+            bindStats(appsUsage, getRestrictedUids());
+            updateEmptyVisible();
+        } else {
+            getLoaderManager().restartLoader(LOADER_SUMMARY, null /* args */,
+                    mNetworkStatsDetailCallbacks);
+        }
 
         final long totalBytes = mCycleData != null && !mCycleData.isEmpty()
             ? mCycleData.get(mCycleSpinner.getSelectedItemPosition()).getTotalUsage() : 0;
@@ -352,90 +371,42 @@ public class DataUsageList extends DataUsageBaseFragment
     }
 
     /**
-     * Bind the given {@link NetworkStats}, or {@code null} to clear list.
+     * Bind the given usage by uid, or {@code null} to clear list.
      */
-    private void bindStats(NetworkStats stats, int[] restrictedUids) {
+    private void bindStats(SparseLongArray appsUsage, int[] restrictedUids) {
         mApps.removeAll();
-        if (stats == null) {
+        mAppItems = null;
+        if (appsUsage == null) {
             if (LOGD) {
                 Log.d(TAG, "No network stats data. App list cleared.");
             }
             return;
         }
 
-        final ArrayList<AppItem> items = new ArrayList<>();
-        long largest = 0;
-
-        final int currentUserId = ActivityManager.getCurrentUser();
         final UserManager userManager = UserManager.get(getContext());
-        final List<UserHandle> profiles = userManager.getUserProfiles();
-        final SparseArray<AppItem> knownItems = new SparseArray<AppItem>();
-
-        final Bucket bucket = new Bucket();
-        while (stats.hasNextBucket() && stats.getNextBucket(bucket)) {
-            // Decide how to collapse items together
-            final int uid = bucket.getUid();
-            final int collapseKey;
-            final int category;
-            final int userId = UserHandle.getUserId(uid);
-            if (UserHandle.isApp(uid)) {
-                if (profiles.contains(new UserHandle(userId))) {
-                    if (userId != currentUserId) {
-                        // Add to a managed user item.
-                        final int managedKey = UidDetailProvider.buildKeyForUser(userId);
-                        largest = accumulate(managedKey, knownItems, bucket,
-                            AppItem.CATEGORY_USER, items, largest);
-                    }
-                    // Add to app item.
-                    collapseKey = uid;
-                    category = AppItem.CATEGORY_APP;
-                } else {
-                    // If it is a removed user add it to the removed users' key
-                    final UserInfo info = userManager.getUserInfo(userId);
-                    if (info == null) {
-                        collapseKey = UID_REMOVED;
-                        category = AppItem.CATEGORY_APP;
-                    } else {
-                        // Add to other user item.
-                        collapseKey = UidDetailProvider.buildKeyForUser(userId);
-                        category = AppItem.CATEGORY_USER;
-                    }
-                }
-            } else if (uid == UID_REMOVED || uid == UID_TETHERING
-                    || uid == Process.OTA_UPDATE_UID) {
-                collapseKey = uid;
-                category = AppItem.CATEGORY_APP;
-            } else {
-                collapseKey = android.os.Process.SYSTEM_UID;
-                category = AppItem.CATEGORY_APP;
-            }
-            largest = accumulate(collapseKey, knownItems, bucket, category, items, largest);
+        final AppDataUsageAggregator aggregator = new AppDataUsageAggregator(
+                ActivityManager.getCurrentUser(), userManager, userManager.getUserProfiles());
+        for (int i = 0; i < appsUsage.size(); i++) {
+            aggregator.add(appsUsage.keyAt(i), appsUsage.valueAt(i));
         }
-        stats.close();
+        aggregator.setRestrictedUids(restrictedUids);
 
-        final int restrictedUidsMax = restrictedUids.length;
-        for (int i = 0; i < restrictedUidsMax; ++i) {
-            final int uid = restrictedUids[i];
-            // Only splice in restricted state for current user or managed users
-            if (!profiles.contains(new UserHandle(UserHandle.getUserId(uid)))) {
-                continue;
-            }
+        mAppItems = aggregator;
+        addNextAppPreferences();
+    }
 
-            AppItem item = knownItems.get(uid);
-            if (item == null) {
-                item = new AppItem(uid);
-                item.total = -1;
-                items.add(item);
-                knownItems.put(item.key, item);
-            }
-            item.restricted = true;
+    /**
+     * Adds the preferences of the next page of apps, the rest are added as the list scrolls.
+     */
+    private void addNextAppPreferences() {
+        if (mAppItems == null) {
+            return;
         }
-
-        Collections.sort(items);
-        for (int i = 0; i < items.size(); i++) {
-            final int percentTotal = largest != 0 ? (int) (items.get(i).total * 100 / largest) : 0;
+        final long largest = mAppItems.getLargest();
+        for (AppItem item : mAppItems.nextItems(APPS_PAGE_SIZE)) {
+            final int percentTotal = largest != 0 ? (int) (item.total * 100 / largest) : 0;
             final AppDataUsagePreference preference = new AppDataUsagePreference(getContext(),
-                    items.get(i), percentTotal, mUidDetailProvider);
+                    item, percentTotal, mUidDetailProvider);
             preference.setOnPreferenceClickListener(new Preference.OnPreferenceClickListener() {
                 @Override
                 public boolean onPreferenceClick(Preference preference) {
@@ -447,6 +418,9 @@ public class DataUsageList extends DataUsageBaseFragment
             });
             mApps.addPreference(preference);
         }
+        if (!mAppItems.hasNextItems()) {
+            mAppItems = null;
+        }
     }
 
     @VisibleForTesting
@@ -475,30 +449,6 @@ public class DataUsageList extends DataUsageBaseFragment
                 .launch();
     }
 
-    /**
-     * Accumulate data usage of a network stats entry for the item mapped by the collapse key.
-     * Creates the item if needed.
-     *
-     * @param collapseKey  the collapse key used to map the item.
-     * @param knownItems   collection of known (already existing) items.
-     * @param bucket       the network stats bucket to extract data usage from.
-     * @param itemCategory the item is categorized on the list view by this category. Must be
-     */
-    private static long accumulate(int collapseKey, final SparseArray<AppItem> knownItems,
-            Bucket bucket, int itemCategory, ArrayList<AppItem> items, long largest) {
-        final int uid = bucket.getUid();
-        AppItem item = knownItems.get(collapseKey);
-        if (item == null) {
-            item = new AppItem(collapseKey);
-            item.category = itemCategory;
-            items.add(item);
-            knownItems.put(item.key, item);
-        }
-        item.addUid(uid);
-        item.total += bucket.getRxBytes() + bucket.getTxBytes();
-        return Math.max(largest, item.total);
-    }
-
     private OnItemSelectedListener mCycleListener = new OnItemSelectedListener() {
         @Override
         public void onItemSelected(AdapterView<?> parent, View view, int position, long id) {
@@ -562,9 +512,11 @@ public class DataUsageList extends DataUsageBaseFragment
 
         @Override
         public void onLoadFinished(Loader<NetworkStats> loader, NetworkStats data) {
-            final int[] restrictedUids = services.mPolicyManager.getUidsWithPolicy(
-                    POLICY_REJECT_METERED_BACKGROUND);
-            bindStats(data, restrictedUids);
+            final SparseLongArray appsUsage = getAppsUsage(data);
+            NetworkStatsQueryCache.getInstance().put(NetworkStatsQueryCache.QUERY_APPS_USAGE,
+                    mTemplate, mChart.getInspectStart(), mChart.getInspectEnd(),
+                    Bucket.UID_ALL, appsUsage);
+            bindStats(appsUsage, getRestrictedUids());
             updateEmptyVisible();
         }
 
@@ -573,17 +525,39 @@ public class DataUsageList extends DataUsageBaseFragment
             bindStats(null, new int[0]);
             updateEmptyVisible();
         }
+    };
 
-        private void updateEmptyVisible() {
-            if ((mApps.getPreferenceCount() != 0) !=
-                    (getPreferenceScreen().getPreferenceCount() != 0)) {
-                if (mApps.getPreferenceCount() != 0) {
-                    getPreferenceScreen().addPreference(mUsageAmount);
-                    getPreferenceScreen().addPreference(mApps);
-                } else {
-                    getPreferenceScreen().removeAll();
-                }
+    private int[] getRestrictedUids() {
+        return services.mPolicyManager.getUidsWithPolicy(POLICY_REJECT_METERED_BACKGROUND);
+    }
+
+    private void updateEmptyVisible() {
+        if ((mApps.getPreferenceCount() != 0) !=
+                (getPreferenceScreen().getPreferenceCount() != 0)) {
+            if (mApps.getPreferenceCount() != 0) {
+                getPreferenceScreen().addPreference(mUsageAmount);
+                getPreferenceScreen().addPreference(mApps);
+            } else {
+                getPreferenceScreen().removeAll();
             }
         }
-    };
+    }
+
+    /**
+     * Sums the usage of the given {@link NetworkStats} by uid, or returns {@code null} if there
+     * is no stats.
+     */
+    private static SparseLongArray getAppsUsage(NetworkStats stats) {
+        if (stats == null) {
+            return null;
+        }
+        final SparseLongArray appsUsage = new SparseLongArray();
+        final Bucket bucket = new Bucket();
+        while (stats.hasNextBucket() && stats.getNextBucket(bucket)) {
+            final int uid = bucket.getUid();
+            appsUsage.put(uid, appsUsage.get(uid) + bucket.getRxBytes() + bucket.getTxBytes());
+        }
+        stats.close();
+        return appsUsage;
+    }
 }
@@ -17,6 +17,7 @@
 package com.android.settings.datausage;
 
 import android.app.Activity;
+import android.app.usage.NetworkStats.Bucket;
 import android.content.Context;
 import android.content.Intent;
 import android.content.pm.PackageManager;
@@ -211,8 +212,10 @@ public class DataUsageSummaryPreferenceController extends TelephonyBasePreferenc
             updateConfiguration(mContext, mSubId, subInfo);
         }
 
+        final DataUsageController dataUsageController = mDataUsageController;
+        final NetworkTemplate template = mDefaultTemplate;
         mHistoricalUsageLevel = ThreadUtils.postOnBackgroundThread(() ->
-                mDataUsageController.getHistoricalUsageLevel(mDefaultTemplate));
+                getHistoricalUsageLevel(dataUsageController, template));
 
         final DataUsageController.DataUsageInfo info =
                 mDataUsageController.getDataUsageInfo(mDefaultTemplate);
@@ -278,6 +281,21 @@ public class DataUsageSummaryPreferenceController extends TelephonyBasePreferenc
                 mDataplanCount, mManageSubscriptionIntent);
     }
 
+    private static long getHistoricalUsageLevel(DataUsageController dataUsageController,
+            NetworkTemplate template) {
+        final NetworkStatsQueryCache cache = NetworkStatsQueryCache.getInstance();
+        Long usageLevel = cache.get(NetworkStatsQueryCache.QUERY_HISTORICAL_USAGE, template,
+                NetworkStatsQueryCache.CYCLE_UNKNOWN, NetworkStatsQueryCache.CYCLE_UNKNOWN,
+                Bucket.UID_ALL);
+        if (usageLevel == null) {
+            usageLevel = dataUsageController.getHistoricalUsageLevel(template);
+            cache.put(NetworkStatsQueryCache.QUERY_HISTORICAL_USAGE, template,
+                    NetworkStatsQueryCache.CYCLE_UNKNOWN, NetworkStatsQueryCache.CYCLE_UNKNOWN,
+                    Bucket.UID_ALL, usageLevel);
+        }
+        return usageLevel;
+    }
+
     private long displayUsageLevel(long usageLevel) {
         if (usageLevel > 0) {
             return usageLevel;
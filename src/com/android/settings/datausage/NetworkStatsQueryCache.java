@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.datausage;
+
+import android.net.NetworkTemplate;
+import android.os.SystemClock;
+import android.util.LruCache;
+
+import androidx.annotation.VisibleForTesting;
+
+import java.util.Objects;
+
+/**
+ * Process wide cache of the network stats queries of the data usage screens, keyed by the query,
+ * the {@link NetworkTemplate}, the cycle and the uid.
+ *
+ * The usage of a cycle which already ended never changes, so it is kept until evicted. The
+ * usage of the current cycle is kept for {@link #MIN_REFRESH_INTERVAL_MS}, so going back and
+ * forth between the data usage screens doesn't query the same stats again.
+ */
+public class NetworkStatsQueryCache {
+
+    /** Per app usage of a cycle, as a {@code SparseLongArray} of bytes by uid. */
+    static final String QUERY_APPS_USAGE = "apps_usage";
+    /** Usage of an app by cycle, as a {@code List<NetworkCycleDataForUid>}. */
+    static final String QUERY_APP_CYCLES = "app_cycles";
+    /** Usage of the last cycles of the template, as a {@code Long}. */
+    static final String QUERY_HISTORICAL_USAGE = "historical_usage";
+
+    /** The cycle bound to use when the query doesn't have a known cycle. */
+    static final long CYCLE_UNKNOWN = -1;
+
+    @VisibleForTesting
+    static final long MIN_REFRESH_INTERVAL_MS = 30 * 1000;
+    private static final int MAX_ENTRIES = 32;
+
+    private static NetworkStatsQueryCache sInstance;
+
+    private final LruCache<Key, Entry> mEntries = new LruCache<>(MAX_ENTRIES);
+
+    public static synchronized NetworkStatsQueryCache getInstance() {
+        if (sInstance == null) {
+            sInstance = new NetworkStatsQueryCache();
+        }
+        return sInstance;
+    }
+
+    @VisibleForTesting
+    NetworkStatsQueryCache() {
+    }
+
+    /**
+     * @return the cached result of {@code query}, or {@code null} if it isn't cached or needs to
+     * be refreshed.
+     */
+    @SuppressWarnings("unchecked")
+    <T> T get(String query, NetworkTemplate template, long start, long end, int uid) {
+        final Key key = new Key(query, template, start, end, uid);
+        final Entry entry = mEntries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (!entry.mClosed
+                && SystemClock.elapsedRealtime() - entry.mQueryTime >= MIN_REFRESH_INTERVAL_MS) {
+            mEntries.remove(key);
+            return null;
+        }
+        return (T) entry.mResult;
+    }
+
+    /**
+     * Caches the result of {@code query}. The caller must not modify {@code result} afterwards.
+     */
+    void put(String query, NetworkTemplate template, long start, long end, int uid,
+            Object result) {
+        if (result == null) {
+            return;
+        }
+        final boolean closed = end != CYCLE_UNKNOWN && end <= System.currentTimeMillis();
+        mEntries.put(new Key(query, template, start, end, uid),
+                new Entry(result, SystemClock.elapsedRealtime(), closed));
+    }
+
+    /** Drops all the cached results. */
+    void clear() {
+        mEntries.evictAll();
+    }
+
+    private static final class Key {
+        private final String mQuery;
+        private final NetworkTemplate mTemplate;
+        private final long mStart;
+        private final long mEnd;
+        private final int mUid;
+
+        Key(String query, NetworkTemplate template, long start, long end, int uid) {
+            mQuery = query;
+            mTemplate = template;
+            mStart = start;
+            mEnd = end;
+            mUid = uid;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) o;
+            return mStart == other.mStart
+                    && mEnd == other.mEnd
+                    && mUid == other.mUid
+                    && mQuery.equals(other.mQuery)
+                    && Objects.equals(mTemplate, other.mTemplate);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(mQuery, mTemplate, mStart, mEnd, mUid);
+        }
+    }
+
+    private static final class Entry {
+        private final Object mResult;
+        private final long mQueryTime;
+        private final boolean mClosed;
+
+        Entry(Object result, long queryTime, boolean closed) {
+            mResult = result;
+            mQueryTime = queryTime;
+            mClosed = closed;
+        }
+    }
+}
@@ -57,6 +57,15 @@ public class StorageItemPreference extends Preference {
         updateProgressBar();
     }
 
+    /**
+     * Shows the size as being calculated. A size already set is kept until the new one is known.
+     */
+    public void setCalculating() {
+        if (mProgressPercent == UNINITIALIZED) {
+            setSummary(R.string.memory_calculating_size);
+        }
+    }
+
     public long getStorageSize() {
         return mStorageSize;
     }
@@ -60,6 +60,7 @@ import androidx.lifecycle.LifecycleObserver;
 import androidx.lifecycle.OnLifecycleEvent;
 
 import com.android.settings.R;
+import com.android.settings.network.CarrierConfigCache;
 import com.android.settingslib.DeviceInfoUtils;
 import com.android.settingslib.Utils;
 import com.android.settingslib.core.lifecycle.Lifecycle;
@@ -151,7 +152,6 @@ public class SimStatusDialogController implements LifecycleObserver {
 
     private final SimStatusDialogFragment mDialog;
     private final SubscriptionManager mSubscriptionManager;
-    private final CarrierConfigManager mCarrierConfigManager;
     private final EuiccManager mEuiccManager;
     private final Resources mRes;
     private final Context mContext;
@@ -217,7 +217,6 @@ public class SimStatusDialogController implements LifecycleObserver {
         mSubscriptionInfo = getPhoneSubscriptionInfo(slotId);
 
         mTelephonyManager = mContext.getSystemService(TelephonyManager.class);
-        mCarrierConfigManager = mContext.getSystemService(CarrierConfigManager.class);
         mEuiccManager = mContext.getSystemService(EuiccManager.class);
         mSubscriptionManager = mContext.getSystemService(SubscriptionManager.class);
 
@@ -486,7 +485,7 @@ public class SimStatusDialogController implements LifecycleObserver {
         if (mSubscriptionInfo != null) {
             final int subscriptionId = mSubscriptionInfo.getSubscriptionId();
             final PersistableBundle carrierConfig =
-                    mCarrierConfigManager.getConfigForSubId(subscriptionId);
+                    CarrierConfigCache.getConfigForSubId(mContext, subscriptionId);
             if (carrierConfig != null) {
                 showSignalStrength = carrierConfig.getBoolean(
                         CarrierConfigManager.KEY_SHOW_SIGNAL_STRENGTH_IN_SIM_STATUS_BOOL);
@@ -558,7 +557,8 @@ public class SimStatusDialogController implements LifecycleObserver {
         }
 
         boolean show4GForLTE = false;
-        final PersistableBundle carrierConfig = mCarrierConfigManager.getConfigForSubId(subId);
+        final PersistableBundle carrierConfig =
+                CarrierConfigCache.getConfigForSubId(mContext, subId);
         if (carrierConfig != null) {
             show4GForLTE = carrierConfig.getBoolean(
                     CarrierConfigManager.KEY_SHOW_4G_FOR_LTE_DATA_ICON_BOOL);
@@ -594,7 +594,7 @@ public class SimStatusDialogController implements LifecycleObserver {
         if (mSubscriptionInfo != null) {
             final int subscriptionId = mSubscriptionInfo.getSubscriptionId();
             final PersistableBundle carrierConfig =
-                    mCarrierConfigManager.getConfigForSubId(subscriptionId);
+                    CarrierConfigCache.getConfigForSubId(mContext, subscriptionId);
             if (carrierConfig != null) {
                 showIccId = carrierConfig.getBoolean(
                         CarrierConfigManager.KEY_SHOW_ICCID_IN_SIM_STATUS_BOOL);
@@ -670,7 +670,7 @@ public class SimStatusDialogController implements LifecycleObserver {
         }
         final int subscriptionId = mSubscriptionInfo.getSubscriptionId();
         final PersistableBundle carrierConfig =
-                mCarrierConfigManager.getConfigForSubId(subscriptionId);
+                CarrierConfigCache.getConfigForSubId(mContext, subscriptionId);
         return carrierConfig == null ? false :
                 carrierConfig.getBoolean(
                         CarrierConfigManager.KEY_SHOW_IMS_REGISTRATION_STATUS_BOOL);
@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.deviceinfo.storage;
+
+import android.content.pm.ApplicationInfo;
+import android.os.SystemClock;
+import android.util.ArrayMap;
+
+import androidx.annotation.VisibleForTesting;
+
+import com.android.settingslib.applications.StorageStatsSource;
+
+import java.util.Objects;
+
+/**
+ * Process wide cache of the {@link StorageStatsSource.AppStorageStats} of each package, so
+ * going back and forth between the storage screens doesn't query the stats of every package
+ * again.
+ *
+ * The stats of a package are reused until the package is updated, which changes its version
+ * code or code path, or until they are {@link #STATS_MAX_AGE_MS} old, since the data and cache
+ * of an app change while it runs.
+ */
+public class AppStorageStatsCache {
+
+    @VisibleForTesting
+    static final long STATS_MAX_AGE_MS = 30 * 1000;
+
+    private static final ArrayMap<String, Entry> sEntries = new ArrayMap<>();
+
+    private AppStorageStatsCache() {
+    }
+
+    /**
+     * @return the cached stats of {@code app} for {@code userId}, or {@code null} if they need
+     * to be queried.
+     */
+    static StorageStatsSource.AppStorageStats get(String uuid, int userId, ApplicationInfo app) {
+        final String key = getKey(uuid, userId, app.packageName);
+        synchronized (sEntries) {
+            final Entry entry = sEntries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.mVersionCode != app.longVersionCode
+                    || !Objects.equals(entry.mSourceDir, app.sourceDir)
+                    || SystemClock.elapsedRealtime() - entry.mQueryTime >= STATS_MAX_AGE_MS) {
+                sEntries.remove(key);
+                return null;
+            }
+            return entry.mStats;
+        }
+    }
+
+    static void put(String uuid, int userId, ApplicationInfo app,
+            StorageStatsSource.AppStorageStats stats) {
+        final Entry entry = new Entry(app.longVersionCode, app.sourceDir,
+                SystemClock.elapsedRealtime(), stats);
+        synchronized (sEntries) {
+            sEntries.put(getKey(uuid, userId, app.packageName), entry);
+        }
+    }
+
+    /**
+     * Drops the cached stats of {@code packageName} for all users, to be called when its data
+     * or cache is cleared.
+     */
+    public static void invalidate(String packageName) {
+        final String suffix = "/" + packageName;
+        synchronized (sEntries) {
+            for (int i = sEntries.size() - 1; i >= 0; i--) {
+                if (sEntries.keyAt(i).endsWith(suffix)) {
+                    sEntries.removeAt(i);
+                }
+            }
+        }
+    }
+
+    @VisibleForTesting
+    static void clear() {
+        synchronized (sEntries) {
+            sEntries.clear();
+        }
+    }
+
+    private static String getKey(String uuid, int userId, String packageName) {
+        return uuid + "/" + userId + "/" + packageName;
+    }
+
+    private static final class Entry {
+        private final long mVersionCode;
+        private final String mSourceDir;
+        private final long mQueryTime;
+        private final StorageStatsSource.AppStorageStats mStats;
+
+        Entry(long versionCode, String sourceDir, long queryTime,
+                StorageStatsSource.AppStorageStats stats) {
+            mVersionCode = versionCode;
+            mSourceDir = sourceDir;
+            mQueryTime = queryTime;
+            mStats = stats;
+        }
+    }
+}
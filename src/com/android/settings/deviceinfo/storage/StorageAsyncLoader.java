@@ -30,35 +30,55 @@ import android.content.pm.UserInfo;
 import android.database.Cursor;
 import android.net.Uri;
 import android.os.Bundle;
+import android.os.SystemClock;
 import android.os.UserHandle;
 import android.os.UserManager;
 import android.provider.MediaStore;
 import android.provider.MediaStore.Files.FileColumns;
 import android.provider.MediaStore.MediaColumns;
+import android.util.ArrayMap;
 import android.util.ArraySet;
 import android.util.Log;
 import android.util.SparseArray;
 
+import androidx.annotation.VisibleForTesting;
+
+import com.android.settings.utils.DeadlineExecutor;
 import com.android.settingslib.applications.StorageStatsSource;
 import com.android.settingslib.utils.AsyncLoaderCompat;
+import com.android.settingslib.utils.ThreadUtils;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 /**
  * StorageAsyncLoader is a Loader which loads categorized app information and external stats for all
  * users
+ *
+ * The users and the categories are measured in parallel, on a bounded pool. Partial results are delivered while they
+ * are measured, with the sizes not measured yet left at {@link StorageResult#SIZE_UNKNOWN}, before
+ * the final result. See {@link StorageResult#isComplete()}.
  */
 public class StorageAsyncLoader
         extends AsyncLoaderCompat<SparseArray<StorageAsyncLoader.StorageResult>> {
     private UserManager mUserManager;
     private static final String TAG = "StorageAsyncLoader";
 
+    // Minimum time between two partial results.
+    private static final long PARTIAL_RESULT_INTERVAL_MS = 250;
+    // Each user submits up to six queries, they queue for these threads.
+    private static final int THREADS = 4;
+
+    private static final ExecutorService sExecutor = DeadlineExecutor.newExecutor(TAG, THREADS);
+
     private String mUuid;
     private StorageStatsSource mStatsManager;
     private PackageManager mPackageManager;
-    private ArraySet<String> mSeenPackages;
+    private long mLastPartialResultTime;
 
     public StorageAsyncLoader(Context context, UserManager userManager,
             String uuid, StorageStatsSource source, PackageManager pm) {
@@ -75,7 +95,6 @@ public class StorageAsyncLoader
     }
 
     private SparseArray<StorageResult> getStorageResultsForUsers() {
-        mSeenPackages = new ArraySet<>();
         final SparseArray<StorageResult> results = new SparseArray<>();
         final List<UserInfo> infos = mUserManager.getUsers();
 
@@ -83,15 +102,36 @@ public class StorageAsyncLoader
         Collections.sort(infos,
                 (userInfo, otherUser) -> Integer.compare(userInfo.id, otherUser.id));
 
+        // Every query of every user runs on the pool, the results are filled in as they come.
+        final List<Future<?>> futures = new ArrayList<>();
+        final SparseArray<Future<AppsResult>> appsFutures = new SparseArray<>();
         for (UserInfo info : infos) {
-            final StorageResult result = getAppsAndGamesSize(info.id);
+            final int userId = info.id;
+            final StorageResult result = StorageResult.createUnknown();
+            results.put(userId, result);
 
-            result.imagesSize = getFilesSize(info.id, MediaStore.Images.Media.EXTERNAL_CONTENT_URI,
-                    null /* queryArgs */);
-            result.videosSize = getFilesSize(info.id, MediaStore.Video.Media.EXTERNAL_CONTENT_URI,
-                    null /* queryArgs */);
-            result.audioSize = getFilesSize(info.id, MediaStore.Audio.Media.EXTERNAL_CONTENT_URI,
-                    null /* queryArgs */);
+            final Future<AppsResult> appsFuture = sExecutor.submit(() -> {
+                final AppsResult appsResult = getAppsAndGamesSize(userId);
+                synchronized (results) {
+                    result.gamesSize = appsResult.gamesSize;
+                    result.allAppsExceptGamesSize = appsResult.allAppsExceptGamesSize;
+                    result.externalStats = appsResult.externalStats;
+                }
+                deliverPartialResult(results);
+                return appsResult;
+            });
+            appsFutures.put(userId, appsFuture);
+            futures.add(appsFuture);
+
+            futures.add(submitFilesSize(results, userId,
+                    MediaStore.Images.Media.EXTERNAL_CONTENT_URI, null /* queryArgs */,
+                    (r, size) -> r.imagesSize = size));
+            futures.add(submitFilesSize(results, userId,
+                    MediaStore.Video.Media.EXTERNAL_CONTENT_URI, null /* queryArgs */,
+                    (r, size) -> r.videosSize = size));
+            futures.add(submitFilesSize(results, userId,
+                    MediaStore.Audio.Media.EXTERNAL_CONTENT_URI, null /* queryArgs */,
+                    (r, size) -> r.audioSize = size));
 
             final Bundle documentsAndOtherQueryArgs = new Bundle();
             documentsAndOtherQueryArgs.putString(ContentResolver.QUERY_ARG_SQL_SELECTION,
@@ -99,20 +139,77 @@ public class StorageAsyncLoader
                     + " AND " + FileColumns.MEDIA_TYPE + "!=" + FileColumns.MEDIA_TYPE_VIDEO
                     + " AND " + FileColumns.MEDIA_TYPE + "!=" + FileColumns.MEDIA_TYPE_AUDIO
                     + " AND " + FileColumns.MIME_TYPE + " IS NOT NULL");
-            result.documentsAndOtherSize = getFilesSize(info.id,
+            futures.add(submitFilesSize(results, userId,
                     MediaStore.Files.getContentUri(MediaStore.VOLUME_EXTERNAL),
-                    documentsAndOtherQueryArgs);
+                    documentsAndOtherQueryArgs, (r, size) -> r.documentsAndOtherSize = size));
 
             final Bundle trashQueryArgs = new Bundle();
             trashQueryArgs.putInt(MediaStore.QUERY_ARG_MATCH_TRASHED, MediaStore.MATCH_ONLY);
-            result.trashSize = getFilesSize(info.id,
-                    MediaStore.Files.getContentUri(MediaStore.VOLUME_EXTERNAL), trashQueryArgs);
+            futures.add(submitFilesSize(results, userId,
+                    MediaStore.Files.getContentUri(MediaStore.VOLUME_EXTERNAL), trashQueryArgs,
+                    (r, size) -> r.trashSize = size));
+        }
+        for (Future<?> future : futures) {
+            DeadlineExecutor.awaitResult(future, TAG);
+        }
 
-            results.put(info.id, result);
+        // Code bytes may share between different profiles. To know all the duplicate code size
+        // and we can get a reasonable system size in StorageItemPreferenceController. The code is
+        // blamed on the user with the lowest id, whichever user was measured first.
+        final ArraySet<String> seenPackages = new ArraySet<>();
+        for (int i = 0; i < appsFutures.size(); i++) {
+            final AppsResult appsResult = DeadlineExecutor.awaitResult(appsFutures.valueAt(i), TAG);
+            final StorageResult result = results.get(appsFutures.keyAt(i));
+            result.duplicateCodeSize = 0;
+            for (int j = 0; j < appsResult.codeBytes.size(); j++) {
+                if (!seenPackages.add(appsResult.codeBytes.keyAt(j))) {
+                    result.duplicateCodeSize += appsResult.codeBytes.valueAt(j);
+                }
+            }
         }
         return results;
     }
 
+    private Future<?> submitFilesSize(SparseArray<StorageResult> results, int userId, Uri uri,
+            Bundle queryArgs, SizeSetter setter) {
+        return sExecutor.submit(() -> {
+            final long size = getFilesSize(userId, uri, queryArgs);
+            synchronized (results) {
+                setter.set(results.get(userId), size);
+            }
+            deliverPartialResult(results);
+        });
+    }
+
+    /**
+     * Delivers a copy of the results measured so far, so the categories fill in while the others
+     * are still being measured.
+     */
+    private void deliverPartialResult(SparseArray<StorageResult> results) {
+        final long now = SystemClock.elapsedRealtime();
+        final SparseArray<StorageResult> partialResults;
+        synchronized (results) {
+            if (now - mLastPartialResultTime < PARTIAL_RESULT_INTERVAL_MS) {
+                return;
+            }
+            mLastPartialResultTime = now;
+            partialResults = new SparseArray<>(results.size());
+            for (int i = 0; i < results.size(); i++) {
+                partialResults.put(results.keyAt(i), results.valueAt(i).copy());
+            }
+        }
+        postPartialResult(partialResults);
+    }
+
+    @VisibleForTesting
+    void postPartialResult(SparseArray<StorageResult> partialResults) {
+        ThreadUtils.postOnMainThread(() -> {
+            if (isStarted() && !isAbandoned()) {
+                deliverResult(partialResults);
+            }
+        });
+    }
+
     private long getFilesSize(int userId, Uri uri, Bundle queryArgs) {
         final Context perUserContext;
         try {
@@ -137,22 +234,26 @@ public class StorageAsyncLoader
         }
     }
 
-    private StorageResult getAppsAndGamesSize(int userId) {
+    private AppsResult getAppsAndGamesSize(int userId) {
         Log.d(TAG, "Loading apps");
         final List<ApplicationInfo> applicationInfos =
                 mPackageManager.getInstalledApplicationsAsUser(0, userId);
-        final StorageResult result = new StorageResult();
+        final AppsResult result = new AppsResult();
         final UserHandle myUser = UserHandle.of(userId);
         for (int i = 0, size = applicationInfos.size(); i < size; i++) {
             final ApplicationInfo app = applicationInfos.get(i);
 
-            StorageStatsSource.AppStorageStats stats;
-            try {
-                stats = mStatsManager.getStatsForPackage(mUuid, app.packageName, myUser);
-            } catch (NameNotFoundException | IOException e) {
-                // This may happen if the package was removed during our calculation.
-                Log.w(TAG, "App unexpectedly not found", e);
-                continue;
+            StorageStatsSource.AppStorageStats stats =
+                    AppStorageStatsCache.get(mUuid, userId, app);
+            if (stats == null) {
+                try {
+                    stats = mStatsManager.getStatsForPackage(mUuid, app.packageName, myUser);
+                } catch (NameNotFoundException | IOException e) {
+                    // This may happen if the package was removed during our calculation.
+                    Log.w(TAG, "App unexpectedly not found", e);
+                    continue;
+                }
+                AppStorageStatsCache.put(mUuid, userId, app, stats);
             }
 
             final long dataSize = stats.getDataBytes();
@@ -167,12 +268,10 @@ public class StorageAsyncLoader
                 blamedSize = blamedSize - cacheBytes + cacheQuota;
             }
 
-            // Code bytes may share between different profiles. To know all the duplicate code size
-            // and we can get a reasonable system size in StorageItemPreferenceController.
-            if (mSeenPackages.contains(app.packageName)) {
-                result.duplicateCodeSize += stats.getCodeBytes();
-            } else {
-                mSeenPackages.add(app.packageName);
+            // Remember the code bytes, the duplicates across users are found once all the users
+            // are measured.
+            if (result.codeBytes.indexOfKey(app.packageName) < 0) {
+                result.codeBytes.put(app.packageName, stats.getCodeBytes());
             }
 
             switch (app.category) {
@@ -212,6 +311,9 @@ public class StorageAsyncLoader
 
     /** Storage result for displaying file categories size in Storage Settings. */
     public static class StorageResult {
+        /** The size of a partial result which is not measured yet. */
+        public static final long SIZE_UNKNOWN = -1;
+
         // APP based sizes.
         public long gamesSize;
         public long allAppsExceptGamesSize;
@@ -226,6 +328,61 @@ public class StorageAsyncLoader
         public long cacheSize;
         public long duplicateCodeSize;
         public StorageStatsSource.ExternalStorageStats externalStats;
+
+        /**
+         * @return whether all the sizes are measured, as opposed to a partial result.
+         */
+        public boolean isComplete() {
+            return gamesSize != SIZE_UNKNOWN
+                    && allAppsExceptGamesSize != SIZE_UNKNOWN
+                    && audioSize != SIZE_UNKNOWN
+                    && imagesSize != SIZE_UNKNOWN
+                    && videosSize != SIZE_UNKNOWN
+                    && documentsAndOtherSize != SIZE_UNKNOWN
+                    && trashSize != SIZE_UNKNOWN
+                    && duplicateCodeSize != SIZE_UNKNOWN;
+        }
+
+        static StorageResult createUnknown() {
+            final StorageResult result = new StorageResult();
+            result.gamesSize = SIZE_UNKNOWN;
+            result.allAppsExceptGamesSize = SIZE_UNKNOWN;
+            result.audioSize = SIZE_UNKNOWN;
+            result.imagesSize = SIZE_UNKNOWN;
+            result.videosSize = SIZE_UNKNOWN;
+            result.documentsAndOtherSize = SIZE_UNKNOWN;
+            result.trashSize = SIZE_UNKNOWN;
+            result.duplicateCodeSize = SIZE_UNKNOWN;
+            return result;
+        }
+
+        StorageResult copy() {
+            final StorageResult result = new StorageResult();
+            result.gamesSize = gamesSize;
+            result.allAppsExceptGamesSize = allAppsExceptGamesSize;
+            result.audioSize = audioSize;
+            result.imagesSize = imagesSize;
+            result.videosSize = videosSize;
+            result.documentsAndOtherSize = documentsAndOtherSize;
+            result.trashSize = trashSize;
+            result.cacheSize = cacheSize;
+            result.duplicateCodeSize = duplicateCodeSize;
+            result.externalStats = externalStats;
+            return result;
+        }
+    }
+
+    /** Apps based sizes of a user. */
+    private static class AppsResult {
+        long gamesSize;
+        long allAppsExceptGamesSize;
+        // Code bytes by package name.
+        final ArrayMap<String, Long> codeBytes = new ArrayMap<>();
+        StorageStatsSource.ExternalStorageStats externalStats;
+    }
+
+    private interface SizeSetter {
+        void set(StorageResult result, long size);
     }
 
     /**
@@ -360,17 +360,34 @@ public class StorageItemPreferenceController extends AbstractPreferenceControlle
         mTrashPreference = screen.findPreference(TRASH_KEY);
     }
 
-    /** Fragments use it to set storage result and update UI of this controller. */
+    /**
+     * Fragments use it to set storage result and update UI of this controller. The sizes of a
+     * partial result which are not measured yet are shown as calculating, and the system size and
+     * the order of the preferences are only updated once the result is complete.
+     */
     public void onLoadFinished(SparseArray<StorageAsyncLoader.StorageResult> result, int userId) {
         final StorageAsyncLoader.StorageResult data = result.get(userId);
 
-        mImagesPreference.setStorageSize(data.imagesSize, mTotalSize);
-        mVideosPreference.setStorageSize(data.videosSize, mTotalSize);
-        mAudioPreference.setStorageSize(data.audioSize, mTotalSize);
-        mAppsPreference.setStorageSize(data.allAppsExceptGamesSize, mTotalSize);
-        mGamesPreference.setStorageSize(data.gamesSize, mTotalSize);
-        mDocumentsAndOtherPreference.setStorageSize(data.documentsAndOtherSize, mTotalSize);
-        mTrashPreference.setStorageSize(data.trashSize, mTotalSize);
+        setStorageSize(mImagesPreference, data.imagesSize);
+        setStorageSize(mVideosPreference, data.videosSize);
+        setStorageSize(mAudioPreference, data.audioSize);
+        setStorageSize(mAppsPreference, data.allAppsExceptGamesSize);
+        setStorageSize(mGamesPreference, data.gamesSize);
+        setStorageSize(mDocumentsAndOtherPreference, data.documentsAndOtherSize);
+        setStorageSize(mTrashPreference, data.trashSize);
+
+        // The system size is what the other categories of all the users leave unattributed.
+        boolean complete = true;
+        for (int i = 0; i < result.size(); i++) {
+            complete &= result.valueAt(i).isComplete();
+        }
+        if (!complete) {
+            if (mSystemPreference != null) {
+                mSystemPreference.setCalculating();
+            }
+            setPrivateStorageCategoryPreferencesVisibility(true);
+            return;
+        }
 
         if (mSystemPreference != null) {
             // Everything else that hasn't already been attributed is tracked as
@@ -397,6 +414,14 @@ public class StorageItemPreferenceController extends AbstractPreferenceControlle
         setPrivateStorageCategoryPreferencesVisibility(true);
     }
 
+    private void setStorageSize(StorageItemPreference preference, long size) {
+        if (size == StorageAsyncLoader.StorageResult.SIZE_UNKNOWN) {
+            preference.setCalculating();
+        } else {
+            preference.setStorageSize(size, mTotalSize);
+        }
+    }
+
     public void setUsedSize(long usedSizeBytes) {
         mUsedBytes = usedSizeBytes;
     }
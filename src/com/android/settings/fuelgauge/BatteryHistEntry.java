@@ -70,6 +70,8 @@ public class BatteryHistEntry {
     public final int mBatteryLevel;
     public final int mBatteryStatus;
     public final int mBatteryHealth;
+    // Whether the data is interpolated between two snapshots instead of recorded.
+    public final boolean mIsInterpolated;
 
     private String mKey = null;
     private boolean mIsValidEntry = true;
@@ -93,6 +95,7 @@ public class BatteryHistEntry {
         mBatteryLevel = getInteger(values, KEY_BATTERY_LEVEL);
         mBatteryStatus = getInteger(values, KEY_BATTERY_STATUS);
         mBatteryHealth = getInteger(values, KEY_BATTERY_HEALTH);
+        mIsInterpolated = false;
     }
 
     public BatteryHistEntry(Cursor cursor) {
@@ -114,6 +117,7 @@ public class BatteryHistEntry {
         mBatteryLevel = getInteger(cursor, KEY_BATTERY_LEVEL);
         mBatteryStatus = getInteger(cursor, KEY_BATTERY_STATUS);
         mBatteryHealth = getInteger(cursor, KEY_BATTERY_HEALTH);
+        mIsInterpolated = false;
     }
 
     private BatteryHistEntry(
@@ -143,6 +147,7 @@ public class BatteryHistEntry {
         mBatteryLevel = batteryLevel;
         mBatteryStatus = fromEntry.mBatteryStatus;
         mBatteryHealth = fromEntry.mBatteryHealth;
+        mIsInterpolated = true;
     }
 
     /** Whether this {@link BatteryHistEntry} is valid or not? */
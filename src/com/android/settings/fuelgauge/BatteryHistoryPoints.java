@@ -0,0 +1,274 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.fuelgauge;
+
+import android.os.BatteryStats.HistoryItem;
+import android.os.BatteryUsageStats;
+
+import com.android.internal.os.BatteryStatsHistoryIterator;
+import com.android.settings.fuelgauge.BatteryInfo.BatteryDataParser;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * The battery history of a {@link BatteryUsageStats}, decoded once into the points and gaps
+ * given to {@link BatteryDataParser}s.
+ *
+ * Decoding the history is the most expensive part of the battery screens, and several of them
+ * parse the same stats, so the decoded points are shared for as long as the stats are alive.
+ * The records given to {@link BatteryDataParser#onDataPoint(long, HistoryItem)} only carry the
+ * time, current time, battery and state fields.
+ */
+final class BatteryHistoryPoints {
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private static final Map<BatteryUsageStats, BatteryHistoryPoints> sCache =
+            new WeakHashMap<>();
+
+    private final long mStartWalltime;
+    private final long mEndWalltime;
+    private final int mSize;
+    // The time of the point relative to mStartWalltime, or -1 for a gap.
+    private final long[] mTimes;
+    private final Records mRecords;
+
+    private BatteryHistoryPoints(long startWalltime, long endWalltime, int size, long[] times,
+            Records records) {
+        mStartWalltime = startWalltime;
+        mEndWalltime = endWalltime;
+        mSize = size;
+        mTimes = times;
+        mRecords = records;
+    }
+
+    /**
+     * @return the decoded history of {@code stats}, decoding it if it is the first request.
+     */
+    static BatteryHistoryPoints get(BatteryUsageStats stats) {
+        synchronized (sCache) {
+            BatteryHistoryPoints points = sCache.get(stats);
+            if (points == null) {
+                points = decode(stats);
+                sCache.put(stats, points);
+            }
+            return points;
+        }
+    }
+
+    /**
+     * Replays the decoded history to {@code parsers}, the same way
+     * {@link BatteryInfo#parseBatteryHistory(BatteryDataParser...)} used to iterate it.
+     */
+    void replay(BatteryDataParser... parsers) {
+        for (int j = 0; j < parsers.length; j++) {
+            parsers[j].onParsingStarted(mStartWalltime, mEndWalltime);
+        }
+        final HistoryItem rec = new HistoryItem();
+        for (int i = 0; i < mSize; i++) {
+            if (mTimes[i] < 0) {
+                for (int j = 0; j < parsers.length; j++) {
+                    parsers[j].onDataGap();
+                }
+            } else {
+                mRecords.restore(i, rec);
+                for (int j = 0; j < parsers.length; j++) {
+                    parsers[j].onDataPoint(mTimes[i], rec);
+                }
+            }
+        }
+        for (int j = 0; j < parsers.length; j++) {
+            parsers[j].onParsingDone();
+        }
+    }
+
+    private static BatteryHistoryPoints decode(BatteryUsageStats stats) {
+        // Reads the whole history once, the walltime of the points can only be computed after
+        // the last time change is known.
+        final Records records = new Records();
+        final BatteryStatsHistoryIterator iterator = stats.iterateBatteryStatsHistory();
+        final HistoryItem rec = new HistoryItem();
+        while (iterator.next(rec)) {
+            records.add(rec);
+        }
+
+        long startWalltime = 0;
+        long historyStart = 0;
+        long historyEnd = 0;
+        long lastWallTime = 0;
+        long lastRealtime = 0;
+        int lastInteresting = 0;
+        for (int pos = 0; pos < records.mSize; pos++) {
+            final long time = records.mTimes[pos];
+            final byte cmd = records.mCmds[pos];
+            if (pos == 0) {
+                historyStart = time;
+            }
+            if (cmd == HistoryItem.CMD_CURRENT_TIME || cmd == HistoryItem.CMD_RESET) {
+                // If there is a ridiculously large jump in time, then we won't be
+                // able to create a good chart with that data, so just ignore the
+                // times we got before and pretend like our data extends back from
+                // the time we have now.
+                // Also, if we are getting a time change and we are less than 5 minutes
+                // since the start of the history real time, then also use this new
+                // time to compute the base time, since whatever time we had before is
+                // pretty much just noise.
+                final long currentTime = records.mCurrentTimes[pos];
+                if (currentTime > (lastWallTime + (180 * 24 * 60 * 60 * 1000L))
+                        || time < (historyStart + (5 * 60 * 1000L))) {
+                    startWalltime = 0;
+                }
+                lastWallTime = currentTime;
+                lastRealtime = time;
+                if (startWalltime == 0) {
+                    startWalltime = lastWallTime - (lastRealtime - historyStart);
+                }
+            }
+            if (cmd == HistoryItem.CMD_UPDATE) {
+                lastInteresting = pos + 1;
+                historyEnd = time;
+            }
+        }
+        final long endWalltime = lastWallTime + historyEnd - lastRealtime;
+        if (endWalltime <= startWalltime) {
+            records.trimToSize(0);
+            return new BatteryHistoryPoints(startWalltime, endWalltime, 0, new long[0],
+                    records);
+        }
+
+        final long[] times = new long[lastInteresting];
+        long curWalltime = 0;
+        int size = 0;
+        for (int i = 0; i < lastInteresting; i++) {
+            final long time = records.mTimes[i];
+            final byte cmd = records.mCmds[i];
+            if (cmd == HistoryItem.CMD_UPDATE) {
+                curWalltime += time - lastRealtime;
+                lastRealtime = time;
+                // Points are stored over the records they come from.
+                records.move(i, size);
+                times[size++] = Math.max(curWalltime - startWalltime, 0);
+            } else {
+                final long lastWalltime = curWalltime;
+                if (cmd == HistoryItem.CMD_CURRENT_TIME || cmd == HistoryItem.CMD_RESET) {
+                    final long currentTime = records.mCurrentTimes[i];
+                    if (currentTime >= startWalltime) {
+                        curWalltime = currentTime;
+                    } else {
+                        curWalltime = startWalltime + (time - historyStart);
+                    }
+                    lastRealtime = time;
+                }
+
+                if (cmd != HistoryItem.CMD_OVERFLOW
+                        && (cmd != HistoryItem.CMD_CURRENT_TIME
+                        || Math.abs(lastWalltime - curWalltime) > (60 * 60 * 1000))) {
+                    times[size++] = -1;
+                }
+            }
+        }
+        records.trimToSize(size);
+        return new BatteryHistoryPoints(startWalltime, endWalltime, size,
+                Arrays.copyOf(times, size), records);
+    }
+
+    /** The fields of the history records read by the parsers, in columns. */
+    private static final class Records {
+        int mSize;
+        byte[] mCmds = new byte[INITIAL_CAPACITY];
+        long[] mTimes = new long[INITIAL_CAPACITY];
+        long[] mCurrentTimes = new long[INITIAL_CAPACITY];
+        byte[] mBatteryLevels = new byte[INITIAL_CAPACITY];
+        byte[] mBatteryStatuses = new byte[INITIAL_CAPACITY];
+        byte[] mBatteryHealths = new byte[INITIAL_CAPACITY];
+        byte[] mBatteryPlugTypes = new byte[INITIAL_CAPACITY];
+        short[] mBatteryTemperatures = new short[INITIAL_CAPACITY];
+        char[] mBatteryVoltages = new char[INITIAL_CAPACITY];
+        int[] mStates = new int[INITIAL_CAPACITY];
+        int[] mStates2 = new int[INITIAL_CAPACITY];
+
+        void add(HistoryItem rec) {
+            if (mSize == mCmds.length) {
+                resize(mSize * 2);
+            }
+            mCmds[mSize] = rec.cmd;
+            mTimes[mSize] = rec.time;
+            mCurrentTimes[mSize] = rec.currentTime;
+            mBatteryLevels[mSize] = rec.batteryLevel;
+            mBatteryStatuses[mSize] = rec.batteryStatus;
+            mBatteryHealths[mSize] = rec.batteryHealth;
+            mBatteryPlugTypes[mSize] = rec.batteryPlugType;
+            mBatteryTemperatures[mSize] = rec.batteryTemperature;
+            mBatteryVoltages[mSize] = rec.batteryVoltage;
+            mStates[mSize] = rec.states;
+            mStates2[mSize] = rec.states2;
+            mSize++;
+        }
+
+        void move(int from, int to) {
+            if (from == to) {
+                return;
+            }
+            mCmds[to] = mCmds[from];
+            mTimes[to] = mTimes[from];
+            mCurrentTimes[to] = mCurrentTimes[from];
+            mBatteryLevels[to] = mBatteryLevels[from];
+            mBatteryStatuses[to] = mBatteryStatuses[from];
+            mBatteryHealths[to] = mBatteryHealths[from];
+            mBatteryPlugTypes[to] = mBatteryPlugTypes[from];
+            mBatteryTemperatures[to] = mBatteryTemperatures[from];
+            mBatteryVoltages[to] = mBatteryVoltages[from];
+            mStates[to] = mStates[from];
+            mStates2[to] = mStates2[from];
+        }
+
+        void restore(int index, HistoryItem rec) {
+            rec.cmd = mCmds[index];
+            rec.time = mTimes[index];
+            rec.currentTime = mCurrentTimes[index];
+            rec.batteryLevel = mBatteryLevels[index];
+            rec.batteryStatus = mBatteryStatuses[index];
+            rec.batteryHealth = mBatteryHealths[index];
+            rec.batteryPlugType = mBatteryPlugTypes[index];
+            rec.batteryTemperature = mBatteryTemperatures[index];
+            rec.batteryVoltage = mBatteryVoltages[index];
+            rec.states = mStates[index];
+            rec.states2 = mStates2[index];
+        }
+
+        void trimToSize(int size) {
+            mSize = size;
+            resize(size);
+        }
+
+        private void resize(int capacity) {
+            mCmds = Arrays.copyOf(mCmds, capacity);
+            mTimes = Arrays.copyOf(mTimes, capacity);
+            mCurrentTimes = Arrays.copyOf(mCurrentTimes, capacity);
+            mBatteryLevels = Arrays.copyOf(mBatteryLevels, capacity);
+            mBatteryStatuses = Arrays.copyOf(mBatteryStatuses, capacity);
+            mBatteryHealths = Arrays.copyOf(mBatteryHealths, capacity);
+            mBatteryPlugTypes = Arrays.copyOf(mBatteryPlugTypes, capacity);
+            mBatteryTemperatures = Arrays.copyOf(mBatteryTemperatures, capacity);
+            mBatteryVoltages = Arrays.copyOf(mBatteryVoltages, capacity);
+            mStates = Arrays.copyOf(mStates, capacity);
+            mStates2 = Arrays.copyOf(mStates2, capacity);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.android.settings.fuelgauge;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A columnar copy of the {@link BatteryUsageStep}s used by the battery usage chart.
+ *
+ * Every app key is interned to a row id once, and the usage of each row in each step is kept in
+ * primitive arrays indexed by {@code column * rowCount + row}, so the usage of a time slot can
+ * be computed without any per-slot set or map.
+ */
+final class BatteryHistoryTable {
+
+    private final int mRowCount;
+    private final int mColumnCount;
+    private final String[] mKeys;
+    private final long[] mForegroundUsageTimeInMs;
+    private final long[] mBackgroundUsageTimeInMs;
+    private final double[] mConsumePower;
+
+    private BatteryHistoryTable(String[] keys, int columnCount) {
+        mKeys = keys;
+        mRowCount = keys.length;
+        mColumnCount = columnCount;
+        final int size = mRowCount * columnCount;
+        mForegroundUsageTimeInMs = new long[size];
+        mBackgroundUsageTimeInMs = new long[size];
+        mConsumePower = new double[size];
+    }
+
+    /**
+     * Builds the table with one column per step, a {@code null} step is an empty column. Rows
+     * are numbered in the order their keys are first seen.
+     */
+    static BatteryHistoryTable of(BatteryUsageStep[] steps) {
+        final List<String> keys = new ArrayList<>();
+        final Map<String, Integer> rowIds = new HashMap<>();
+        for (BatteryUsageStep step : steps) {
+            if (step == null) {
+                continue;
+            }
+            for (String key : step.mKeys) {
+                if (!rowIds.containsKey(key)) {
+                    rowIds.put(key, keys.size());
+                    keys.add(key);
+                }
+            }
+        }
+
+        final BatteryHistoryTable table =
+            new BatteryHistoryTable(keys.toArray(new String[0]), steps.length);
+        for (int column = 0; column < steps.length; column++) {
+            final BatteryUsageStep step = steps[column];
+            if (step == null) {
+                continue;
+            }
+            final int offset = column * table.mRowCount;
+            for (int i = 0; i < step.size(); i++) {
+                final int index = offset + rowIds.get(step.mKeys[i]);
+                table.mForegroundUsageTimeInMs[index] = step.mForegroundUsageTimeInMs[i];
+                table.mBackgroundUsageTimeInMs[index] = step.mBackgroundUsageTimeInMs[i];
+                table.mConsumePower[index] = step.mConsumePower[i];
+            }
+        }
+        return table;
+    }
+
+    int getRowCount() {
+        return mRowCount;
+    }
+
+    int getColumnCount() {
+        return mColumnCount;
+    }
+
+    /** Returns the app key of {@code row}, see {@link BatteryHistEntry#getKey()}. */
+    String getKey(int row) {
+        return mKeys[row];
+    }
+
+    /** Returns the foreground usage time, or 0 if the row has no usage in the step. */
+    long getForegroundUsageTimeInMs(int column, int row) {
+        return mForegroundUsageTimeInMs[column * mRowCount + row];
+    }
+
+    /** Returns the background usage time, or 0 if the row has no usage in the step. */
+    long getBackgroundUsageTimeInMs(int column, int row) {
+        return mBackgroundUsageTimeInMs[column * mRowCount + row];
+    }
+
+    /** Returns the consumed power, or 0 if the row has no usage in the step. */
+    double getConsumePower(int column, int row) {
+        return mConsumePower[column * mRowCount + row];
+    }
+}
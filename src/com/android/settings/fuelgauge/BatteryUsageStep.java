@@ -0,0 +1,179 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.android.settings.fuelgauge;
+
+import android.text.format.DateUtils;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * The usage of each app between two consecutive battery history timestamps. Only apps with
+ * some usage in the step are kept.
+ *
+ * A time slot of the battery usage chart is made of two steps. A step of one boot never changes
+ * once its end is final: a recorded snapshot is final once it's in the past, while the
+ * {@link BatteryHistEntry#interpolate} data of an hourly timestamp is final once the snapshot
+ * after it is recorded, see {@link #isFinal}. Final steps are kept by
+ * {@link BatteryUsageStepDatabaseHelper}.
+ */
+final class BatteryUsageStep {
+
+    /** Boot time of a step which can't be stored, see {@link #mBootTime}. */
+    static final long UNKNOWN_BOOT_TIME = -1;
+    // The snapshots are recorded every hour, so the interpolated data of a timestamp is final
+    // once a snapshot is known to be recorded after it.
+    private static final long INTERPOLATED_FINAL_DELAY = 2 * DateUtils.HOUR_IN_MILLIS;
+    // The snapshots of a boot disagree by a few milliseconds on the time it started at.
+    private static final long BOOT_TIME_TOLERANCE = DateUtils.MINUTE_IN_MILLIS;
+
+    final long mStartTimestamp;
+    final long mEndTimestamp;
+    final String[] mKeys;
+    final long[] mForegroundUsageTimeInMs;
+    final long[] mBackgroundUsageTimeInMs;
+    final double[] mConsumePower;
+    // The wall clock time of the boot both ends were recorded or interpolated in, or
+    // UNKNOWN_BOOT_TIME if they come from different boots or the battery stats were reset.
+    final long mBootTime;
+
+    BatteryUsageStep(
+            long startTimestamp, long endTimestamp, long bootTime, String[] keys,
+            long[] foregroundUsageTimeInMs, long[] backgroundUsageTimeInMs,
+            double[] consumePower) {
+        mStartTimestamp = startTimestamp;
+        mEndTimestamp = endTimestamp;
+        mBootTime = bootTime;
+        mKeys = keys;
+        mForegroundUsageTimeInMs = foregroundUsageTimeInMs;
+        mBackgroundUsageTimeInMs = backgroundUsageTimeInMs;
+        mConsumePower = consumePower;
+    }
+
+    int size() {
+        return mKeys.length;
+    }
+
+    /**
+     * @return the wall clock time of the boot {@code startEntries} and {@code endEntries} were
+     * both recorded or interpolated in, or {@link #UNKNOWN_BOOT_TIME} if there is none.
+     */
+    static long getBootTime(
+            Map<String, BatteryHistEntry> startEntries,
+            Map<String, BatteryHistEntry> endEntries) {
+        final long startBootTime = getBootTime(startEntries);
+        final long endBootTime = getBootTime(endEntries);
+        return isSameBoot(startBootTime, endBootTime) ? endBootTime : UNKNOWN_BOOT_TIME;
+    }
+
+    /** Whether both boot times are known and belong to the same boot. */
+    static boolean isSameBoot(long bootTime1, long bootTime2) {
+        return bootTime1 != UNKNOWN_BOOT_TIME && bootTime2 != UNKNOWN_BOOT_TIME
+            && Math.abs(bootTime1 - bootTime2) <= BOOT_TIME_TOLERANCE;
+    }
+
+    private static long getBootTime(Map<String, BatteryHistEntry> entries) {
+        if (entries == null || entries.isEmpty()) {
+            return UNKNOWN_BOOT_TIME;
+        }
+        // The boot timestamp of interpolated data is shifted with its timestamp, so it gives the
+        // boot of the snapshot it was interpolated to.
+        final BatteryHistEntry entry = entries.values().iterator().next();
+        return entry.mTimestamp - entry.mBootTimestamp;
+    }
+
+    /**
+     * Whether the data at the end of a step is final, so the step can be stored.
+     *
+     * @param endEntries the data at the end of the step
+     * @param isLastStep whether the step ends at the latest data, which is still updated
+     * @param latestTimestamp the timestamp of the latest data
+     */
+    static boolean isFinal(
+            Map<String, BatteryHistEntry> endEntries, boolean isLastStep, long latestTimestamp) {
+        if (isLastStep || endEntries == null || endEntries.isEmpty()) {
+            return false;
+        }
+        final BatteryHistEntry entry = endEntries.values().iterator().next();
+        return !entry.mIsInterpolated
+            || entry.mTimestamp + INTERPOLATED_FINAL_DELAY <= latestTimestamp;
+    }
+
+    /**
+     * Computes the usage between the cumulative data of {@code startEntries} and
+     * {@code endEntries}.
+     *
+     * @return the step, or {@code null} if there is no data at one of the timestamps.
+     */
+    static BatteryUsageStep compute(
+            long startTimestamp, long endTimestamp,
+            Map<String, BatteryHistEntry> startEntries,
+            Map<String, BatteryHistEntry> endEntries) {
+        if (startEntries == null || startEntries.isEmpty()
+                || endEntries == null || endEntries.isEmpty()) {
+            return null;
+        }
+        // Cumulative data never decreases, so an app missing at the end of the step has no
+        // usage in it.
+        final int capacity = endEntries.size();
+        final String[] keys = new String[capacity];
+        final long[] foregroundUsageTimeInMs = new long[capacity];
+        final long[] backgroundUsageTimeInMs = new long[capacity];
+        final double[] consumePower = new double[capacity];
+        long bootTime = getBootTime(startEntries, endEntries);
+        int size = 0;
+        for (Map.Entry<String, BatteryHistEntry> entry : endEntries.entrySet()) {
+            final BatteryHistEntry endEntry = entry.getValue();
+            final BatteryHistEntry startEntry = startEntries.get(entry.getKey());
+            if (startEntry != null
+                    && (startEntry.mForegroundUsageTimeInMs > endEntry.mForegroundUsageTimeInMs
+                    || startEntry.mBackgroundUsageTimeInMs > endEntry.mBackgroundUsageTimeInMs
+                    || startEntry.mConsumePower > endEntry.mConsumePower)) {
+                // The battery stats were reset in between.
+                bootTime = UNKNOWN_BOOT_TIME;
+            }
+            final long foregroundDiff = getDiffValue(
+                startEntry == null ? 0 : startEntry.mForegroundUsageTimeInMs,
+                endEntry.mForegroundUsageTimeInMs);
+            final long backgroundDiff = getDiffValue(
+                startEntry == null ? 0 : startEntry.mBackgroundUsageTimeInMs,
+                endEntry.mBackgroundUsageTimeInMs);
+            final double consumePowerDiff = getDiffValue(
+                startEntry == null ? 0 : startEntry.mConsumePower,
+                endEntry.mConsumePower);
+            if (foregroundDiff == 0 && backgroundDiff == 0 && consumePowerDiff == 0) {
+                continue;
+            }
+            keys[size] = entry.getKey();
+            foregroundUsageTimeInMs[size] = foregroundDiff;
+            backgroundUsageTimeInMs[size] = backgroundDiff;
+            consumePower[size] = consumePowerDiff;
+            size++;
+        }
+        return new BatteryUsageStep(
+            startTimestamp, endTimestamp, bootTime,
+            Arrays.copyOf(keys, size),
+            Arrays.copyOf(foregroundUsageTimeInMs, size),
+            Arrays.copyOf(backgroundUsageTimeInMs, size),
+            Arrays.copyOf(consumePower, size));
+    }
+
+    private static long getDiffValue(long v1, long v2) {
+        return v2 > v1 ? v2 - v1 : 0;
+    }
+
+    private static double getDiffValue(double v1, double v2) {
+        return v2 > v1 ? v2 - v1 : 0;
+    }
+}
@@ -0,0 +1,258 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.android.settings.fuelgauge;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+import android.util.Log;
+
+/**
+ * Keeps the {@link BatteryUsageStep}s which are already final, so the battery usage chart only
+ * needs to compute the steps of the last hour on each load.
+ *
+ * Steps are only kept between two final timestamps of the same boot, see
+ * {@link BatteryUsageStep#isFinal}, and are dropped when the wall clock changes, see
+ * {@link BatteryUsageStepResetReceiver}. Must not be used on the main thread.
+ */
+public class BatteryUsageStepDatabaseHelper extends SQLiteOpenHelper {
+    private static final String TAG = "BatteryUsageStepDb";
+
+    private static final String DATABASE_NAME = "battery_usage_steps.db";
+    private static final int DATABASE_VERSION = 2;
+
+    public interface Tables {
+        String TABLE_STEP = "step";
+        String TABLE_STEP_USAGE = "step_usage";
+    }
+
+    public interface StepColumns {
+        /**
+         * The battery history timestamp the step starts at
+         */
+        String START_TIMESTAMP = "start_timestamp";
+        /**
+         * The battery history timestamp the step ends at
+         */
+        String END_TIMESTAMP = "end_timestamp";
+        /**
+         * The wall clock time of the boot both ends of the step were recorded or interpolated in
+         */
+        String BOOT_TIME = "boot_time";
+    }
+
+    public interface StepUsageColumns {
+        /**
+         * The battery history timestamp the step starts at
+         */
+        String START_TIMESTAMP = "start_timestamp";
+        /**
+         * The key of the app, see {@link BatteryHistEntry#getKey()}
+         */
+        String ENTRY_KEY = "entry_key";
+        /**
+         * Foreground usage time of the app in the step
+         */
+        String FOREGROUND_USAGE_TIME = "foreground_usage_time";
+        /**
+         * Background usage time of the app in the step
+         */
+        String BACKGROUND_USAGE_TIME = "background_usage_time";
+        /**
+         * Power consumed by the app in the step
+         */
+        String CONSUME_POWER = "consume_power";
+    }
+
+    private static final String CREATE_STEP_TABLE =
+            "CREATE TABLE " + Tables.TABLE_STEP +
+                    "(" +
+                    StepColumns.START_TIMESTAMP +
+                    " INTEGER PRIMARY KEY, " +
+                    StepColumns.END_TIMESTAMP +
+                    " INTEGER NOT NULL, " +
+                    StepColumns.BOOT_TIME +
+                    " INTEGER NOT NULL)";
+
+    private static final String CREATE_STEP_USAGE_TABLE =
+            "CREATE TABLE " + Tables.TABLE_STEP_USAGE +
+                    "(" +
+                    StepUsageColumns.START_TIMESTAMP +
+                    " INTEGER NOT NULL, " +
+                    StepUsageColumns.ENTRY_KEY +
+                    " TEXT NOT NULL, " +
+                    StepUsageColumns.FOREGROUND_USAGE_TIME +
+                    " INTEGER NOT NULL, " +
+                    StepUsageColumns.BACKGROUND_USAGE_TIME +
+                    " INTEGER NOT NULL, " +
+                    StepUsageColumns.CONSUME_POWER +
+                    " REAL NOT NULL, " +
+                    "PRIMARY KEY (" +
+                    StepUsageColumns.START_TIMESTAMP + "," +
+                    StepUsageColumns.ENTRY_KEY + "))";
+
+    private static final String INSERT_STEP_USAGE =
+            "INSERT OR REPLACE INTO " + Tables.TABLE_STEP_USAGE + " (" +
+                    StepUsageColumns.START_TIMESTAMP + "," +
+                    StepUsageColumns.ENTRY_KEY + "," +
+                    StepUsageColumns.FOREGROUND_USAGE_TIME + "," +
+                    StepUsageColumns.BACKGROUND_USAGE_TIME + "," +
+                    StepUsageColumns.CONSUME_POWER + ") VALUES (?,?,?,?,?)";
+
+    private static BatteryUsageStepDatabaseHelper sSingleton;
+
+    public static synchronized BatteryUsageStepDatabaseHelper getInstance(Context context) {
+        if (sSingleton == null) {
+            sSingleton = new BatteryUsageStepDatabaseHelper(context.getApplicationContext());
+        }
+        return sSingleton;
+    }
+
+    private BatteryUsageStepDatabaseHelper(Context context) {
+        super(context, DATABASE_NAME, null /* CursorFactory */, DATABASE_VERSION);
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL(CREATE_STEP_TABLE);
+        db.execSQL(CREATE_STEP_USAGE_TABLE);
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        if (oldVersion < DATABASE_VERSION) {
+            Log.w(TAG, "Reconstructing DB from " + oldVersion + " to " + newVersion);
+            reconstruct(db);
+        }
+    }
+
+    @Override
+    public void onDowngrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        Log.w(TAG, "Reconstructing DB from " + oldVersion + " to " + newVersion);
+        reconstruct(db);
+    }
+
+    /**
+     * @return the stored step from {@code startTimestamp} to {@code endTimestamp} recorded in
+     * the boot started at {@code bootTime}, or {@code null} if there is none.
+     */
+    BatteryUsageStep getStep(long startTimestamp, long endTimestamp, long bootTime) {
+        final SQLiteDatabase db = getReadableDatabase();
+        final String[] args = new String[]{String.valueOf(startTimestamp)};
+        final long storedBootTime;
+        try (Cursor cursor = db.query(Tables.TABLE_STEP,
+                new String[]{StepColumns.END_TIMESTAMP, StepColumns.BOOT_TIME},
+                StepColumns.START_TIMESTAMP + "=?", args,
+                null /* groupBy */, null /* having */, null /* orderBy */)) {
+            if (!cursor.moveToFirst() || cursor.getLong(0) != endTimestamp
+                    || !BatteryUsageStep.isSameBoot(cursor.getLong(1), bootTime)) {
+                return null;
+            }
+            storedBootTime = cursor.getLong(1);
+        }
+        try (Cursor cursor = db.query(Tables.TABLE_STEP_USAGE,
+                new String[]{
+                        StepUsageColumns.ENTRY_KEY,
+                        StepUsageColumns.FOREGROUND_USAGE_TIME,
+                        StepUsageColumns.BACKGROUND_USAGE_TIME,
+                        StepUsageColumns.CONSUME_POWER},
+                StepUsageColumns.START_TIMESTAMP + "=?", args,
+                null /* groupBy */, null /* having */, null /* orderBy */)) {
+            final int size = cursor.getCount();
+            final String[] keys = new String[size];
+            final long[] foregroundUsageTimeInMs = new long[size];
+            final long[] backgroundUsageTimeInMs = new long[size];
+            final double[] consumePower = new double[size];
+            for (int i = 0; i < size && cursor.moveToNext(); i++) {
+                keys[i] = cursor.getString(0);
+                foregroundUsageTimeInMs[i] = cursor.getLong(1);
+                backgroundUsageTimeInMs[i] = cursor.getLong(2);
+                consumePower[i] = cursor.getDouble(3);
+            }
+            return new BatteryUsageStep(startTimestamp, endTimestamp, storedBootTime, keys,
+                    foregroundUsageTimeInMs, backgroundUsageTimeInMs, consumePower);
+        }
+    }
+
+    /**
+     * Stores {@code step}, replacing any step starting at the same time.
+     */
+    void putStep(BatteryUsageStep step) {
+        final SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            db.delete(Tables.TABLE_STEP_USAGE, StepUsageColumns.START_TIMESTAMP + "=?",
+                    new String[]{String.valueOf(step.mStartTimestamp)});
+            final SQLiteStatement insert = db.compileStatement(INSERT_STEP_USAGE);
+            for (int i = 0; i < step.size(); i++) {
+                insert.bindLong(1, step.mStartTimestamp);
+                insert.bindString(2, step.mKeys[i]);
+                insert.bindLong(3, step.mForegroundUsageTimeInMs[i]);
+                insert.bindLong(4, step.mBackgroundUsageTimeInMs[i]);
+                insert.bindDouble(5, step.mConsumePower[i]);
+                insert.executeInsert();
+            }
+            insert.close();
+            final ContentValues values = new ContentValues();
+            values.put(StepColumns.START_TIMESTAMP, step.mStartTimestamp);
+            values.put(StepColumns.END_TIMESTAMP, step.mEndTimestamp);
+            values.put(StepColumns.BOOT_TIME, step.mBootTime);
+            db.insertWithOnConflict(Tables.TABLE_STEP, null /* nullColumnHack */, values,
+                    SQLiteDatabase.CONFLICT_REPLACE);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Drops the steps starting before {@code timestamp}.
+     */
+    void removeStepsBefore(long timestamp) {
+        final SQLiteDatabase db = getWritableDatabase();
+        final String[] args = new String[]{String.valueOf(timestamp)};
+        db.beginTransaction();
+        try {
+            db.delete(Tables.TABLE_STEP_USAGE, StepUsageColumns.START_TIMESTAMP + "<?", args);
+            db.delete(Tables.TABLE_STEP, StepColumns.START_TIMESTAMP + "<?", args);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Drops all the steps.
+     */
+    void clear() {
+        final SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            db.delete(Tables.TABLE_STEP_USAGE, null /* whereClause */, null /* whereArgs */);
+            db.delete(Tables.TABLE_STEP, null /* whereClause */, null /* whereArgs */);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    private void reconstruct(SQLiteDatabase db) {
+        db.execSQL("DROP TABLE IF EXISTS " + Tables.TABLE_STEP);
+        db.execSQL("DROP TABLE IF EXISTS " + Tables.TABLE_STEP_USAGE);
+        onCreate(db);
+    }
+}
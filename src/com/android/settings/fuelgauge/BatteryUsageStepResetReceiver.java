@@ -0,0 +1,46 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.android.settings.fuelgauge;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+
+import com.android.settingslib.utils.ThreadUtils;
+
+/**
+ * Drops the stored {@link BatteryUsageStep}s when the wall clock is changed, since they are
+ * keyed by the timestamps of the battery history.
+ *
+ * Not exported, it only receives the {@link Intent#ACTION_TIME_CHANGED} broadcast of the system,
+ * which shares the uid of Settings.
+ */
+public class BatteryUsageStepResetReceiver extends BroadcastReceiver {
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        if (!Intent.ACTION_TIME_CHANGED.equals(intent.getAction())) {
+            return;
+        }
+        final PendingResult result = goAsync();
+        final Context appContext = context.getApplicationContext();
+        ThreadUtils.postOnBackgroundThread(() -> {
+            try {
+                BatteryUsageStepDatabaseHelper.getInstance(appContext).clear();
+            } finally {
+                result.finish();
+            }
+        });
+    }
+}
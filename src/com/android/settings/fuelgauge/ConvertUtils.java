@@ -26,27 +26,22 @@ import android.util.Log;
 import androidx.annotation.VisibleForTesting;
 
 import com.android.settings.overlay.FeatureFactory;
+import com.android.settingslib.utils.ThreadUtils;
 
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-import java.util.Set;
 import java.util.TimeZone;
 
 /** A utility class to convert data into another types. */
 public final class ConvertUtils {
     private static final boolean DEBUG = false;
     private static final String TAG = "ConvertUtils";
-    private static final Map<String, BatteryHistEntry> EMPTY_BATTERY_MAP = new HashMap<>();
-    private static final BatteryHistEntry EMPTY_BATTERY_HIST_ENTRY =
-        new BatteryHistEntry(new ContentValues());
     // Maximum total time value for each slot cumulative data at most 2 hours.
     private static final float TOTAL_TIME_THRESHOLD = DateUtils.HOUR_IN_MILLIS * 2;
 
@@ -151,199 +146,218 @@ public final class ConvertUtils {
         if (batteryHistoryMap == null || batteryHistoryMap.isEmpty()) {
             return new HashMap<>();
         }
-        final Map<Integer, List<BatteryDiffEntry>> resultMap = new HashMap<>();
         // Each time slot usage diff data =
         //     Math.abs(timestamp[i+2] data - timestamp[i+1] data) +
         //     Math.abs(timestamp[i+1] data - timestamp[i] data);
         // since we want to aggregate every two hours data into a single time slot.
         final int timestampStride = 2;
+        final BatteryHistoryTable table = BatteryHistoryTable.of(loadBatteryUsageSteps(
+            context, batteryHistoryKeys, timeSlotSize * timestampStride, batteryHistoryMap));
+        final int rowCount = table.getRowCount();
+        // Diff usage data of each app in each time slot, indexed by slot * rowCount + row,
+        // with the last rowCount items for the last 24 hours aggregation.
+        final int allSlotsOffset = timeSlotSize * rowCount;
+        final long[] foregroundUsageTimeInMs = new long[allSlotsOffset + rowCount];
+        final long[] backgroundUsageTimeInMs = new long[allSlotsOffset + rowCount];
+        final double[] consumePower = new double[allSlotsOffset + rowCount];
+        final BatteryHistEntry[] selectedEntries =
+            new BatteryHistEntry[allSlotsOffset + rowCount];
+        final double[] totalConsumePower = new double[timeSlotSize + 1];
+
         for (int index = 0; index < timeSlotSize; index++) {
-            final Long currentTimestamp =
-                Long.valueOf(batteryHistoryKeys[index * timestampStride]);
-            final Long nextTimestamp =
-                Long.valueOf(batteryHistoryKeys[index * timestampStride + 1]);
-            final Long nextTwoTimestamp =
-                Long.valueOf(batteryHistoryKeys[index * timestampStride + 2]);
+            final int currentColumn = index * timestampStride;
             // Fetches BatteryHistEntry data from corresponding time slot.
             final Map<String, BatteryHistEntry> currentBatteryHistMap =
-                batteryHistoryMap.getOrDefault(currentTimestamp, EMPTY_BATTERY_MAP);
+                batteryHistoryMap.get(batteryHistoryKeys[currentColumn]);
             final Map<String, BatteryHistEntry> nextBatteryHistMap =
-                batteryHistoryMap.getOrDefault(nextTimestamp, EMPTY_BATTERY_MAP);
+                batteryHistoryMap.get(batteryHistoryKeys[currentColumn + 1]);
             final Map<String, BatteryHistEntry> nextTwoBatteryHistMap =
-                batteryHistoryMap.getOrDefault(nextTwoTimestamp, EMPTY_BATTERY_MAP);
+                batteryHistoryMap.get(batteryHistoryKeys[currentColumn + 2]);
             // We should not get the empty list since we have at least one fake data to record
             // the battery level and status in each time slot, the empty list is used to
             // represent there is no enough data to apply interpolation arithmetic.
-            if (currentBatteryHistMap.isEmpty()
-                    || nextBatteryHistMap.isEmpty()
-                    || nextTwoBatteryHistMap.isEmpty()) {
-                resultMap.put(Integer.valueOf(index), new ArrayList<BatteryDiffEntry>());
+            if (currentBatteryHistMap == null || currentBatteryHistMap.isEmpty()
+                    || nextBatteryHistMap == null || nextBatteryHistMap.isEmpty()
+                    || nextTwoBatteryHistMap == null || nextTwoBatteryHistMap.isEmpty()) {
                 continue;
             }
-
-            // Collects all keys in these three time slot records as all populations.
-            final Set<String> allBatteryHistEntryKeys = new HashSet<>();
-            allBatteryHistEntryKeys.addAll(currentBatteryHistMap.keySet());
-            allBatteryHistEntryKeys.addAll(nextBatteryHistMap.keySet());
-            allBatteryHistEntryKeys.addAll(nextTwoBatteryHistMap.keySet());
-
-            double totalConsumePower = 0.0;
-            final List<BatteryDiffEntry> batteryDiffEntryList = new ArrayList<>();
-            // Adds a specific time slot BatteryDiffEntry list into result map.
-            resultMap.put(Integer.valueOf(index), batteryDiffEntryList);
-
             // Calculates all packages diff usage data in a specific time slot.
-            for (String key : allBatteryHistEntryKeys) {
-                final BatteryHistEntry currentEntry =
-                    currentBatteryHistMap.getOrDefault(key, EMPTY_BATTERY_HIST_ENTRY);
-                final BatteryHistEntry nextEntry =
-                    nextBatteryHistMap.getOrDefault(key, EMPTY_BATTERY_HIST_ENTRY);
-                final BatteryHistEntry nextTwoEntry =
-                    nextTwoBatteryHistMap.getOrDefault(key, EMPTY_BATTERY_HIST_ENTRY);
+            for (int row = 0; row < rowCount; row++) {
                 // Cumulative values is a specific time slot for a specific app.
-                long foregroundUsageTimeInMs =
-                    getDiffValue(
-                        currentEntry.mForegroundUsageTimeInMs,
-                        nextEntry.mForegroundUsageTimeInMs,
-                        nextTwoEntry.mForegroundUsageTimeInMs);
-                long backgroundUsageTimeInMs =
-                    getDiffValue(
-                        currentEntry.mBackgroundUsageTimeInMs,
-                        nextEntry.mBackgroundUsageTimeInMs,
-                        nextTwoEntry.mBackgroundUsageTimeInMs);
-                double consumePower =
-                    getDiffValue(
-                        currentEntry.mConsumePower,
-                        nextEntry.mConsumePower,
-                        nextTwoEntry.mConsumePower);
+                long slotForegroundUsageTimeInMs =
+                    table.getForegroundUsageTimeInMs(currentColumn, row)
+                        + table.getForegroundUsageTimeInMs(currentColumn + 1, row);
+                long slotBackgroundUsageTimeInMs =
+                    table.getBackgroundUsageTimeInMs(currentColumn, row)
+                        + table.getBackgroundUsageTimeInMs(currentColumn + 1, row);
+                double slotConsumePower =
+                    table.getConsumePower(currentColumn, row)
+                        + table.getConsumePower(currentColumn + 1, row);
                 // Excludes entry since we don't have enough data to calculate.
-                if (foregroundUsageTimeInMs == 0
-                        && backgroundUsageTimeInMs == 0
-                        && consumePower == 0) {
+                if (slotForegroundUsageTimeInMs == 0
+                        && slotBackgroundUsageTimeInMs == 0
+                        && slotConsumePower == 0) {
                     continue;
                 }
-                final BatteryHistEntry selectedBatteryEntry =
-                    selectBatteryHistEntry(currentEntry, nextEntry, nextTwoEntry);
+                final BatteryHistEntry selectedBatteryEntry = selectBatteryHistEntry(
+                    table.getKey(row), currentBatteryHistMap, nextBatteryHistMap,
+                    nextTwoBatteryHistMap);
                 if (selectedBatteryEntry == null) {
                     continue;
                 }
                 // Forces refine the cumulative value since it may introduce deviation
                 // error since we will apply the interpolation arithmetic.
                 final float totalUsageTimeInMs =
-                    foregroundUsageTimeInMs + backgroundUsageTimeInMs;
+                    slotForegroundUsageTimeInMs + slotBackgroundUsageTimeInMs;
                 if (totalUsageTimeInMs > TOTAL_TIME_THRESHOLD) {
                     final float ratio = TOTAL_TIME_THRESHOLD / totalUsageTimeInMs;
                     if (DEBUG) {
                         Log.w(TAG, String.format("abnormal usage time %d|%d for:\n%s",
-                                Duration.ofMillis(foregroundUsageTimeInMs).getSeconds(),
-                                Duration.ofMillis(backgroundUsageTimeInMs).getSeconds(),
-                                currentEntry));
+                                Duration.ofMillis(slotForegroundUsageTimeInMs).getSeconds(),
+                                Duration.ofMillis(slotBackgroundUsageTimeInMs).getSeconds(),
+                                selectedBatteryEntry));
                     }
-                    foregroundUsageTimeInMs =
-                        Math.round(foregroundUsageTimeInMs * ratio);
-                    backgroundUsageTimeInMs =
-                        Math.round(backgroundUsageTimeInMs * ratio);
-                    consumePower = consumePower * ratio;
+                    slotForegroundUsageTimeInMs =
+                        Math.round(slotForegroundUsageTimeInMs * ratio);
+                    slotBackgroundUsageTimeInMs =
+                        Math.round(slotBackgroundUsageTimeInMs * ratio);
+                    slotConsumePower = slotConsumePower * ratio;
                 }
-                totalConsumePower += consumePower;
-                batteryDiffEntryList.add(
-                    new BatteryDiffEntry(
-                        context,
-                        foregroundUsageTimeInMs,
-                        backgroundUsageTimeInMs,
-                        consumePower,
-                        selectedBatteryEntry));
-            }
-            // Sets total consume power data into all BatteryDiffEntry in the same slot.
-            for (BatteryDiffEntry diffEntry : batteryDiffEntryList) {
-                diffEntry.setTotalConsumePower(totalConsumePower);
+                final int slotIndex = index * rowCount + row;
+                foregroundUsageTimeInMs[slotIndex] = slotForegroundUsageTimeInMs;
+                backgroundUsageTimeInMs[slotIndex] = slotBackgroundUsageTimeInMs;
+                consumePower[slotIndex] = slotConsumePower;
+                selectedEntries[slotIndex] = selectedBatteryEntry;
+                totalConsumePower[index] += slotConsumePower;
+
+                // Sums up the last 24 hours data, keeping the first selected entry.
+                final int allSlotsIndex = allSlotsOffset + row;
+                foregroundUsageTimeInMs[allSlotsIndex] += slotForegroundUsageTimeInMs;
+                backgroundUsageTimeInMs[allSlotsIndex] += slotBackgroundUsageTimeInMs;
+                consumePower[allSlotsIndex] += slotConsumePower;
+                if (selectedEntries[allSlotsIndex] == null) {
+                    selectedEntries[allSlotsIndex] = selectedBatteryEntry;
+                }
+                totalConsumePower[timeSlotSize] += slotConsumePower;
             }
         }
-        insert24HoursData(BatteryChartView.SELECTED_INDEX_ALL, resultMap);
-        if (purgeLowPercentageAndFakeData) {
-            purgeLowPercentageAndFakeData(context, resultMap);
+
+        // Only creates BatteryDiffEntry for the items which will be kept in the result.
+        final List<CharSequence> backgroundUsageTimeHideList = purgeLowPercentageAndFakeData
+            ? FeatureFactory.getFactory(context)
+                .getPowerUsageFeatureProvider(context)
+                .getHideBackgroundUsageTimeList(context)
+            : null;
+        final Map<Integer, List<BatteryDiffEntry>> resultMap = new HashMap<>();
+        for (int index = 0; index <= timeSlotSize; index++) {
+            final List<BatteryDiffEntry> batteryDiffEntryList = new ArrayList<>();
+            final double slotTotalConsumePower = totalConsumePower[index];
+            for (int row = 0; row < rowCount; row++) {
+                final int slotIndex = index * rowCount + row;
+                if (selectedEntries[slotIndex] == null) {
+                    continue;
+                }
+                final BatteryDiffEntry entry = new BatteryDiffEntry(
+                    context,
+                    foregroundUsageTimeInMs[slotIndex],
+                    backgroundUsageTimeInMs[slotIndex],
+                    consumePower[slotIndex],
+                    selectedEntries[slotIndex]);
+                entry.setTotalConsumePower(slotTotalConsumePower);
+                if (purgeLowPercentageAndFakeData
+                        && isPurgedEntry(entry, backgroundUsageTimeHideList)) {
+                    continue;
+                }
+                batteryDiffEntryList.add(entry);
+            }
+            resultMap.put(
+                Integer.valueOf(index == timeSlotSize
+                    ? BatteryChartView.SELECTED_INDEX_ALL : index),
+                batteryDiffEntryList);
         }
         return resultMap;
     }
 
-    private static void insert24HoursData(
-            final int desiredIndex,
-            final Map<Integer, List<BatteryDiffEntry>> indexedUsageMap) {
-        final Map<String, BatteryDiffEntry> resultMap = new HashMap<>();
-        double totalConsumePower = 0.0;
-        // Loops for all BatteryDiffEntry and aggregate them together.
-        for (List<BatteryDiffEntry> entryList : indexedUsageMap.values()) {
-            for (BatteryDiffEntry entry : entryList) {
-                final String key = entry.mBatteryHistEntry.getKey();
-                final BatteryDiffEntry oldBatteryDiffEntry = resultMap.get(key);
-                // Creates new BatteryDiffEntry if we don't have it.
-                if (oldBatteryDiffEntry == null) {
-                    resultMap.put(key, entry.clone());
-                } else {
-                    // Sums up some fields data into the existing one.
-                    oldBatteryDiffEntry.mForegroundUsageTimeInMs +=
-                        entry.mForegroundUsageTimeInMs;
-                    oldBatteryDiffEntry.mBackgroundUsageTimeInMs +=
-                        entry.mBackgroundUsageTimeInMs;
-                    oldBatteryDiffEntry.mConsumePower += entry.mConsumePower;
-                }
-                totalConsumePower += entry.mConsumePower;
-            }
+    // Whether the entry is low percentage data or fake usage data, which will be zero value.
+    // Also clears the background usage time of entries which should not show it.
+    private static boolean isPurgedEntry(
+            final BatteryDiffEntry entry,
+            final List<CharSequence> backgroundUsageTimeHideList) {
+        final String packageName = entry.getPackageName();
+        if (entry.getPercentOfTotal() < PERCENTAGE_OF_TOTAL_THRESHOLD
+                || FAKE_PACKAGE_NAME.equals(packageName)) {
+            return true;
         }
-        final List<BatteryDiffEntry> resultList = new ArrayList<>(resultMap.values());
-        // Sets total 24 hours consume power data into all BatteryDiffEntry.
-        for (BatteryDiffEntry entry : resultList) {
-            entry.setTotalConsumePower(totalConsumePower);
+        if (packageName != null
+                && !backgroundUsageTimeHideList.isEmpty()
+                && backgroundUsageTimeHideList.contains(packageName)) {
+            entry.mBackgroundUsageTimeInMs = 0;
         }
-        indexedUsageMap.put(Integer.valueOf(desiredIndex), resultList);
+        return false;
     }
 
-    // Removes low percentage data and fake usage data, which will be zero value.
-    private static void purgeLowPercentageAndFakeData(
+    // Loads the usage of each step between two consecutive timestamps. The final steps of one
+    // boot, see BatteryUsageStep#isFinal, are kept in a local store for the last 24 hours so the
+    // next loads don't need to compute them again. The store is skipped on the main thread, and
+    // written to in the background.
+    private static BatteryUsageStep[] loadBatteryUsageSteps(
             final Context context,
-            final Map<Integer, List<BatteryDiffEntry>> indexedUsageMap) {
-        final List<CharSequence> backgroundUsageTimeHideList =
-                FeatureFactory.getFactory(context)
-                        .getPowerUsageFeatureProvider(context)
-                        .getHideBackgroundUsageTimeList(context);
-        for (List<BatteryDiffEntry> entries : indexedUsageMap.values()) {
-            final Iterator<BatteryDiffEntry> iterator = entries.iterator();
-            while (iterator.hasNext()) {
-                final BatteryDiffEntry entry = iterator.next();
-                if (entry.getPercentOfTotal() < PERCENTAGE_OF_TOTAL_THRESHOLD
-                        || FAKE_PACKAGE_NAME.equals(entry.getPackageName())) {
-                    iterator.remove();
-                }
-                final String packageName = entry.getPackageName();
-                if (packageName != null
-                        && !backgroundUsageTimeHideList.isEmpty()
-                        && backgroundUsageTimeHideList.contains(packageName)) {
-                  entry.mBackgroundUsageTimeInMs = 0;
+            final long[] batteryHistoryKeys,
+            final int stepCount,
+            final Map<Long, Map<String, BatteryHistEntry>> batteryHistoryMap) {
+        final BatteryUsageStep[] steps = new BatteryUsageStep[stepCount];
+        final long storeStartTimestamp =
+            System.currentTimeMillis() - DateUtils.DAY_IN_MILLIS;
+        final long latestTimestamp = batteryHistoryKeys[stepCount];
+        final BatteryUsageStepDatabaseHelper stepStore = ThreadUtils.isMainThread()
+            ? null : BatteryUsageStepDatabaseHelper.getInstance(context);
+        final List<BatteryUsageStep> newSteps = new ArrayList<>();
+        for (int index = 0; index < stepCount; index++) {
+            final long startTimestamp = batteryHistoryKeys[index];
+            final long endTimestamp = batteryHistoryKeys[index + 1];
+            final Map<String, BatteryHistEntry> startEntries =
+                batteryHistoryMap.get(startTimestamp);
+            final Map<String, BatteryHistEntry> endEntries =
+                batteryHistoryMap.get(endTimestamp);
+            final long bootTime = BatteryUsageStep.getBootTime(startEntries, endEntries);
+            final boolean isFinal = stepStore != null
+                && startTimestamp >= storeStartTimestamp
+                && bootTime != BatteryUsageStep.UNKNOWN_BOOT_TIME
+                && BatteryUsageStep.isFinal(
+                    endEntries, index == stepCount - 1, latestTimestamp);
+            if (isFinal) {
+                steps[index] = stepStore.getStep(startTimestamp, endTimestamp, bootTime);
+                if (steps[index] != null) {
+                    continue;
                 }
             }
+            steps[index] = BatteryUsageStep.compute(
+                startTimestamp, endTimestamp, startEntries, endEntries);
+            if (isFinal && steps[index] != null
+                    && steps[index].mBootTime != BatteryUsageStep.UNKNOWN_BOOT_TIME) {
+                newSteps.add(steps[index]);
+            }
         }
-    }
-
-    private static long getDiffValue(long v1, long v2, long v3) {
-        return (v2 > v1 ? v2 - v1 : 0) + (v3 > v2 ? v3 - v2 : 0);
-    }
-
-    private static double getDiffValue(double v1, double v2, double v3) {
-        return (v2 > v1 ? v2 - v1 : 0) + (v3 > v2 ? v3 - v2 : 0);
+        if (stepStore != null) {
+            ThreadUtils.postOnBackgroundThread(() -> {
+                stepStore.removeStepsBefore(storeStartTimestamp);
+                newSteps.forEach(stepStore::putStep);
+            });
+        }
+        return steps;
     }
 
     private static BatteryHistEntry selectBatteryHistEntry(
-            BatteryHistEntry entry1,
-            BatteryHistEntry entry2,
-            BatteryHistEntry entry3) {
-        if (entry1 != null && entry1 != EMPTY_BATTERY_HIST_ENTRY) {
+            String key,
+            Map<String, BatteryHistEntry> entryMap1,
+            Map<String, BatteryHistEntry> entryMap2,
+            Map<String, BatteryHistEntry> entryMap3) {
+        final BatteryHistEntry entry1 = entryMap1.get(key);
+        if (entry1 != null) {
             return entry1;
-        } else if (entry2 != null && entry2 != EMPTY_BATTERY_HIST_ENTRY) {
-            return entry2;
-        } else {
-            return entry3 != null && entry3 != EMPTY_BATTERY_HIST_ENTRY
-                ? entry3 : null;
         }
+        final BatteryHistEntry entry2 = entryMap2.get(key);
+        return entry2 != null ? entry2 : entryMap3.get(key);
     }
 
     @VisibleForTesting
@@ -67,6 +67,7 @@ public class AnomalyCleanupJobService extends JobService {
             batteryDatabaseManager.deleteAllAnomaliesBeforeTimeStamp(
                     System.currentTimeMillis() - TimeUnit.DAYS.toMillis(
                             policy.dataHistoryRetainDay));
+            batteryDatabaseManager.flush();
             jobFinished(params, false /* wantsReschedule */);
         });
 
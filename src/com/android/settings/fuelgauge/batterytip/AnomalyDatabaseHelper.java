@@ -145,6 +145,8 @@ public class AnomalyDatabaseHelper extends SQLiteOpenHelper {
 
     private AnomalyDatabaseHelper(Context context) {
         super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        // Lets the battery tip readers run while BatteryDatabaseManager applies queued writes.
+        setWriteAheadLoggingEnabled(true);
     }
 
     @Override
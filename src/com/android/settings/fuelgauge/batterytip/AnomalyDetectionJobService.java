@@ -109,6 +109,8 @@ public class AnomalyDetectionJobService extends JobService {
                         contentResolver, powerUsageFeatureProvider, metricsFeatureProvider,
                         item.getIntent().getExtras());
 
+                // The job may be stopped once the last item is completed.
+                batteryDatabaseManager.flush();
                 completeWork(params, item);
             }
         });
@@ -31,8 +31,11 @@ import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteException;
 import android.text.TextUtils;
 import android.util.ArrayMap;
+import android.util.Log;
+import android.util.SparseArray;
 import android.util.SparseLongArray;
 
 import androidx.annotation.VisibleForTesting;
@@ -43,18 +46,41 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 
 /**
  * Database manager for battery data. Now it only contains anomaly data stored in {@link AppInfo}.
  *
- * This manager may be accessed by multi-threads. All the database related methods are synchronized
- * so each operation won't be interfered by other threads.
+ * This manager may be accessed by multi-threads. Writes are queued and applied by a single
+ * writer thread, grouping the writes queued meanwhile in one transaction. Reads never wait for
+ * the writer: they read the committed state, concurrently with the writer transaction thanks to
+ * write-ahead logging, and see a write once its batch is committed. They are served from an
+ * in-memory copy of the tables when nothing was written since it was read. Components which need
+ * their writes in the database, like jobs which may be stopped right after writing, must
+ * {@link #flush()} first.
  */
 public class BatteryDatabaseManager {
+    private static final String TAG = "BatteryDatabaseManager";
+
     private static BatteryDatabaseManager sSingleton;
+    private static Executor sWriteExecutor;
 
     private AnomalyDatabaseHelper mDatabaseHelper;
 
+    // Guards the queued writes and the cached rows, never held while accessing the database.
+    private final Object mLock = new Object();
+    // Held while applying writes, so the batches are applied in order. Never held by readers.
+    private final Object mDatabaseLock = new Object();
+    private final List<Consumer<SQLiteDatabase>> mPendingWrites = new ArrayList<>();
+    // All the anomaly rows, ordered by time stamp descending, or null if not loaded.
+    private List<AnomalyRow> mAnomalies;
+    private int mAnomalyGeneration;
+    // Action time stamps by action type, see queryActionTime(int).
+    private final SparseArray<SparseLongArray> mActionTimes = new SparseArray<>();
+    private int mActionGeneration;
+
     private BatteryDatabaseManager(Context context) {
         mDatabaseHelper = AnomalyDatabaseHelper.getInstance(context);
     }
@@ -71,6 +97,21 @@ public class BatteryDatabaseManager {
         sSingleton = batteryDatabaseManager;
     }
 
+    @VisibleForTesting(otherwise = VisibleForTesting.NONE)
+    public static synchronized void setWriteExecutorForTest(Executor executor) {
+        sWriteExecutor = executor;
+    }
+
+    /**
+     * Blocks until all the writes queued so far are in the database. Must not be called on the
+     * main thread.
+     */
+    public void flush() {
+        synchronized (mDatabaseLock) {
+            applyPendingWrites();
+        }
+    }
+
     /**
      * Insert an anomaly log to database.
      *
@@ -79,51 +120,40 @@ public class BatteryDatabaseManager {
      * @param type         the type of the anomaly
      * @param anomalyState the state of the anomaly
      * @param timestampMs  the time when it is happened
-     * @return {@code true} if insert operation succeed
      */
-    public synchronized boolean insertAnomaly(int uid, String packageName, int type,
+    public void insertAnomaly(int uid, String packageName, int type,
             int anomalyState,
             long timestampMs) {
-        final SQLiteDatabase db = mDatabaseHelper.getWritableDatabase();
-        ContentValues values = new ContentValues();
+        final ContentValues values = new ContentValues();
         values.put(UID, uid);
         values.put(PACKAGE_NAME, packageName);
         values.put(ANOMALY_TYPE, type);
         values.put(ANOMALY_STATE, anomalyState);
         values.put(TIME_STAMP_MS, timestampMs);
 
-        return db.insertWithOnConflict(TABLE_ANOMALY, null, values, CONFLICT_IGNORE) != -1;
+        queueAnomalyWrite(
+                db -> db.insertWithOnConflict(TABLE_ANOMALY, null, values, CONFLICT_IGNORE));
     }
 
     /**
      * Query all the anomalies that happened after {@code timestampMsAfter} and with {@code state}.
      */
-    public synchronized List<AppInfo> queryAllAnomalies(long timestampMsAfter, int state) {
-        final List<AppInfo> appInfos = new ArrayList<>();
-        final SQLiteDatabase db = mDatabaseHelper.getReadableDatabase();
-        final String[] projection = {PACKAGE_NAME, ANOMALY_TYPE, UID};
-        final String orderBy = AnomalyDatabaseHelper.AnomalyColumns.TIME_STAMP_MS + " DESC";
+    public List<AppInfo> queryAllAnomalies(long timestampMsAfter, int state) {
         final Map<Integer, AppInfo.Builder> mAppInfoBuilders = new ArrayMap<>();
-        final String selection = TIME_STAMP_MS + " > ? AND " + ANOMALY_STATE + " = ? ";
-        final String[] selectionArgs = new String[]{String.valueOf(timestampMsAfter),
-                String.valueOf(state)};
-
-        try (Cursor cursor = db.query(TABLE_ANOMALY, projection, selection, selectionArgs,
-                null /* groupBy */, null /* having */, orderBy)) {
-            while (cursor.moveToNext()) {
-                final int uid = cursor.getInt(cursor.getColumnIndex(UID));
-                if (!mAppInfoBuilders.containsKey(uid)) {
-                    final AppInfo.Builder builder = new AppInfo.Builder()
-                            .setUid(uid)
-                            .setPackageName(
-                                    cursor.getString(cursor.getColumnIndex(PACKAGE_NAME)));
-                    mAppInfoBuilders.put(uid, builder);
-                }
-                mAppInfoBuilders.get(uid).addAnomalyType(
-                        cursor.getInt(cursor.getColumnIndex(ANOMALY_TYPE)));
+        for (AnomalyRow row : getAnomalies()) {
+            if (row.mTimestampMs <= timestampMsAfter || row.mState != state) {
+                continue;
             }
+            if (!mAppInfoBuilders.containsKey(row.mUid)) {
+                final AppInfo.Builder builder = new AppInfo.Builder()
+                        .setUid(row.mUid)
+                        .setPackageName(row.mPackageName);
+                mAppInfoBuilders.put(row.mUid, builder);
+            }
+            mAppInfoBuilders.get(row.mUid).addAnomalyType(row.mType);
         }
 
+        final List<AppInfo> appInfos = new ArrayList<>();
         for (Integer uid : mAppInfoBuilders.keySet()) {
             appInfos.add(mAppInfoBuilders.get(uid).build());
         }
@@ -131,10 +161,9 @@ public class BatteryDatabaseManager {
         return appInfos;
     }
 
-    public synchronized void deleteAllAnomaliesBeforeTimeStamp(long timestampMs) {
-        final SQLiteDatabase db = mDatabaseHelper.getWritableDatabase();
-        db.delete(TABLE_ANOMALY, TIME_STAMP_MS + " < ?",
-                new String[]{String.valueOf(timestampMs)});
+    public void deleteAllAnomaliesBeforeTimeStamp(long timestampMs) {
+        queueAnomalyWrite(db -> db.delete(TABLE_ANOMALY, TIME_STAMP_MS + " < ?",
+                new String[]{String.valueOf(timestampMs)}));
     }
 
     /**
@@ -143,7 +172,7 @@ public class BatteryDatabaseManager {
      * @param appInfos represents the anomalies
      * @param state    which state to update to
      */
-    public synchronized void updateAnomalies(List<AppInfo> appInfos, int state) {
+    public void updateAnomalies(List<AppInfo> appInfos, int state) {
         if (!appInfos.isEmpty()) {
             final int size = appInfos.size();
             final String[] whereArgs = new String[size];
@@ -151,11 +180,11 @@ public class BatteryDatabaseManager {
                 whereArgs[i] = appInfos.get(i).packageName;
             }
 
-            final SQLiteDatabase db = mDatabaseHelper.getWritableDatabase();
             final ContentValues values = new ContentValues();
             values.put(ANOMALY_STATE, state);
-            db.update(TABLE_ANOMALY, values, PACKAGE_NAME + " IN (" + TextUtils.join(",",
-                    Collections.nCopies(appInfos.size(), "?")) + ")", whereArgs);
+            queueAnomalyWrite(db -> db.update(TABLE_ANOMALY, values,
+                    PACKAGE_NAME + " IN (" + TextUtils.join(",",
+                            Collections.nCopies(size, "?")) + ")", whereArgs));
         }
     }
 
@@ -165,56 +194,220 @@ public class BatteryDatabaseManager {
      * @param type of action been performed
      * @return {@link SparseLongArray} where key is uid and value is timestamp
      */
-    public synchronized SparseLongArray queryActionTime(
+    public SparseLongArray queryActionTime(
             @AnomalyDatabaseHelper.ActionType int type) {
-        final SparseLongArray timeStamps = new SparseLongArray();
-        final SQLiteDatabase db = mDatabaseHelper.getReadableDatabase();
-        final String[] projection = {ActionColumns.UID, ActionColumns.TIME_STAMP_MS};
-        final String selection = ActionColumns.ACTION_TYPE + " = ? ";
-        final String[] selectionArgs = new String[]{String.valueOf(type)};
-
-        try (Cursor cursor = db.query(TABLE_ACTION, projection, selection, selectionArgs,
-                null /* groupBy */, null /* having */, null /* orderBy */)) {
-            final int uidIndex = cursor.getColumnIndex(ActionColumns.UID);
-            final int timestampIndex = cursor.getColumnIndex(ActionColumns.TIME_STAMP_MS);
-
-            while (cursor.moveToNext()) {
-                final int uid = cursor.getInt(uidIndex);
-                final long timeStamp = cursor.getLong(timestampIndex);
-                timeStamps.append(uid, timeStamp);
+        final int generation;
+        synchronized (mLock) {
+            final SparseLongArray cached = mActionTimes.get(type);
+            if (cached != null) {
+                return cached.clone();
+            }
+            generation = mActionGeneration;
+        }
+        final SparseLongArray timeStamps = loadActionTime(type);
+        synchronized (mLock) {
+            // Only cache the committed state if no write was queued or committed meanwhile.
+            if (generation == mActionGeneration && mPendingWrites.isEmpty()) {
+                mActionTimes.put(type, timeStamps.clone());
             }
         }
-
         return timeStamps;
     }
 
     /**
      * Insert an action, or update it if already existed
      */
-    public synchronized boolean insertAction(@AnomalyDatabaseHelper.ActionType int type,
+    public void insertAction(@AnomalyDatabaseHelper.ActionType int type,
             int uid, String packageName, long timestampMs) {
-        final SQLiteDatabase db = mDatabaseHelper.getWritableDatabase();
         final ContentValues values = new ContentValues();
         values.put(ActionColumns.UID, uid);
         values.put(ActionColumns.PACKAGE_NAME, packageName);
         values.put(ActionColumns.ACTION_TYPE, type);
         values.put(ActionColumns.TIME_STAMP_MS, timestampMs);
 
-        return db.insertWithOnConflict(TABLE_ACTION, null, values, CONFLICT_REPLACE) != -1;
+        queueActionWrite(
+                db -> db.insertWithOnConflict(TABLE_ACTION, null, values, CONFLICT_REPLACE));
     }
 
     /**
      * Remove an action
      */
-    public synchronized boolean deleteAction(@AnomalyDatabaseHelper.ActionType int type,
+    public void deleteAction(@AnomalyDatabaseHelper.ActionType int type,
             int uid, String packageName) {
-        SQLiteDatabase db = mDatabaseHelper.getWritableDatabase();
         final String where =
                 ActionColumns.ACTION_TYPE + " = ? AND " + ActionColumns.UID + " = ? AND "
                         + ActionColumns.PACKAGE_NAME + " = ? ";
         final String[] whereArgs = new String[]{String.valueOf(type), String.valueOf(uid),
                 String.valueOf(packageName)};
 
-        return db.delete(TABLE_ACTION, where, whereArgs) != 0;
+        queueActionWrite(db -> db.delete(TABLE_ACTION, where, whereArgs));
+    }
+
+    private void queueAnomalyWrite(Consumer<SQLiteDatabase> write) {
+        final boolean wakeWriter;
+        synchronized (mLock) {
+            invalidateAnomaliesLocked();
+            wakeWriter = queueWriteLocked(write);
+        }
+        if (wakeWriter) {
+            wakeWriter();
+        }
+    }
+
+    private void queueActionWrite(Consumer<SQLiteDatabase> write) {
+        final boolean wakeWriter;
+        synchronized (mLock) {
+            invalidateActionTimesLocked();
+            wakeWriter = queueWriteLocked(write);
+        }
+        if (wakeWriter) {
+            wakeWriter();
+        }
+    }
+
+    /**
+     * @return whether the writer must be woken up. Only the first write of a batch needs to wake
+     * it, it applies all the writes queued by the time it runs.
+     */
+    private boolean queueWriteLocked(Consumer<SQLiteDatabase> write) {
+        mPendingWrites.add(write);
+        return mPendingWrites.size() == 1;
+    }
+
+    private void wakeWriter() {
+        getWriteExecutor().execute(() -> {
+            synchronized (mDatabaseLock) {
+                applyPendingWrites();
+            }
+        });
+    }
+
+    private void invalidateAnomaliesLocked() {
+        mAnomalies = null;
+        mAnomalyGeneration++;
+    }
+
+    private void invalidateActionTimesLocked() {
+        mActionTimes.clear();
+        mActionGeneration++;
+    }
+
+    private static synchronized Executor getWriteExecutor() {
+        if (sWriteExecutor == null) {
+            sWriteExecutor = Executors.newSingleThreadExecutor(
+                    r -> new Thread(r, "BatteryDatabaseWriter"));
+        }
+        return sWriteExecutor;
+    }
+
+    // Must be called with mDatabaseLock held.
+    private void applyPendingWrites() {
+        final List<Consumer<SQLiteDatabase>> writes;
+        synchronized (mLock) {
+            if (mPendingWrites.isEmpty()) {
+                return;
+            }
+            writes = new ArrayList<>(mPendingWrites);
+            mPendingWrites.clear();
+        }
+        try {
+            final SQLiteDatabase db = mDatabaseHelper.getWritableDatabase();
+            db.beginTransaction();
+            try {
+                for (Consumer<SQLiteDatabase> write : writes) {
+                    // A failing write is skipped, it must not drop the rest of the batch.
+                    try {
+                        write.accept(db);
+                    } catch (SQLiteException e) {
+                        Log.e(TAG, "Failed to write, skipping it", e);
+                    }
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+        } catch (SQLiteException e) {
+            Log.e(TAG, "Failed to write " + writes.size() + " operations", e);
+        } finally {
+            // The readers may have cached the state before the batch was committed.
+            synchronized (mLock) {
+                invalidateAnomaliesLocked();
+                invalidateActionTimesLocked();
+            }
+        }
+    }
+
+    private List<AnomalyRow> getAnomalies() {
+        final int generation;
+        synchronized (mLock) {
+            if (mAnomalies != null) {
+                return mAnomalies;
+            }
+            generation = mAnomalyGeneration;
+        }
+        final List<AnomalyRow> anomalies = loadAnomalies();
+        synchronized (mLock) {
+            // Only cache the committed state if no write was queued or committed meanwhile.
+            if (generation == mAnomalyGeneration && mPendingWrites.isEmpty()) {
+                mAnomalies = anomalies;
+            }
+        }
+        return anomalies;
+    }
+
+    private List<AnomalyRow> loadAnomalies() {
+        final List<AnomalyRow> anomalies = new ArrayList<>();
+        final SQLiteDatabase db = mDatabaseHelper.getReadableDatabase();
+        final String[] projection = {UID, PACKAGE_NAME, ANOMALY_TYPE, ANOMALY_STATE,
+                TIME_STAMP_MS};
+        final String orderBy = TIME_STAMP_MS + " DESC";
+
+        try (Cursor cursor = db.query(TABLE_ANOMALY, projection, null /* selection */,
+                null /* selectionArgs */, null /* groupBy */, null /* having */, orderBy)) {
+            while (cursor.moveToNext()) {
+                anomalies.add(new AnomalyRow(cursor.getInt(0), cursor.getString(1),
+                        cursor.getInt(2), cursor.getInt(3), cursor.getLong(4)));
+            }
+        }
+
+        return Collections.unmodifiableList(anomalies);
+    }
+
+    private SparseLongArray loadActionTime(@AnomalyDatabaseHelper.ActionType int type) {
+        final SparseLongArray timeStamps = new SparseLongArray();
+        final SQLiteDatabase db = mDatabaseHelper.getReadableDatabase();
+        final String[] projection = {ActionColumns.UID, ActionColumns.TIME_STAMP_MS};
+        final String selection = ActionColumns.ACTION_TYPE + " = ? ";
+        final String[] selectionArgs = new String[]{String.valueOf(type)};
+
+        try (Cursor cursor = db.query(TABLE_ACTION, projection, selection, selectionArgs,
+                null /* groupBy */, null /* having */, null /* orderBy */)) {
+            final int uidIndex = cursor.getColumnIndex(ActionColumns.UID);
+            final int timestampIndex = cursor.getColumnIndex(ActionColumns.TIME_STAMP_MS);
+
+            while (cursor.moveToNext()) {
+                final int uid = cursor.getInt(uidIndex);
+                final long timeStamp = cursor.getLong(timestampIndex);
+                timeStamps.append(uid, timeStamp);
+            }
+        }
+
+        return timeStamps;
+    }
+
+    private static final class AnomalyRow {
+        final int mUid;
+        final String mPackageName;
+        final int mType;
+        final int mState;
+        final long mTimestampMs;
+
+        AnomalyRow(int uid, String packageName, int type, int state, long timestampMs) {
+            mUid = uid;
+            mPackageName = packageName;
+            mType = type;
+            mState = state;
+            mTimestampMs = timestampMs;
+        }
     }
 }
@@ -0,0 +1,232 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.settings.fuelgauge.batterytip;
+
+import android.os.Parcel;
+import android.os.SystemClock;
+import android.util.ArrayMap;
+import android.util.Log;
+
+import androidx.annotation.VisibleForTesting;
+
+import com.android.settings.fuelgauge.batterytip.detectors.BatteryTipDetector;
+import com.android.settings.fuelgauge.batterytip.tips.BatteryTip;
+import com.android.settings.utils.DeadlineExecutor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs {@link BatteryTipDetector}s concurrently, so a slow detector such as the
+ * {@code HighUsageDetector} history parse doesn't delay the other tips.
+ *
+ * Each detector has a deadline. The list of tips must keep one tip per detector, so a detector
+ * missing its deadline gives a copy of the tip it detected in a previous run of this pipeline,
+ * and keeps running in the background to refresh it. A detector without a last tip, or whose
+ * last tip is older than {@link #MAX_LAST_TIP_AGE_MS}, is always waited for.
+ *
+ * The last tips are kept per pipeline, so a {@link BatteryTipLoader} only falls back to the tips
+ * it loaded itself. A detector still running from a previous run isn't started again, the run
+ * waits for the pending one instead, so a hung detector holds at most one of the
+ * {@link #THREADS} threads.
+ *
+ * The latency of each detector is recorded in a histogram, dumped by
+ * {@link com.android.settings.SettingsDumpService}.
+ */
+public class BatteryTipDetectorPipeline {
+    private static final String TAG = "BatteryTipPipeline";
+
+    @VisibleForTesting
+    static final long DEFAULT_DEADLINE_MS = 500;
+    @VisibleForTesting
+    static final long MAX_LAST_TIP_AGE_MS = 60_000;
+    @VisibleForTesting
+    static final int THREADS = 4;
+    /** Upper bounds of the latency histogram buckets, the last bucket has no bound. */
+    public static final long[] LATENCY_BUCKETS_MS = {10, 25, 50, 100, 250, 500, 1000, 2500};
+
+    private static final ExecutorService sExecutor =
+            DeadlineExecutor.newExecutor(TAG, THREADS);
+    // Latency histogram of each detector, by name.
+    private static final Map<String, long[]> sLatencyHistograms = new ArrayMap<>();
+
+    private final long mDeadlineMs;
+    private final long mMaxLastTipAgeMs;
+    // Copy of the last tip of each detector and when it was detected, by name.
+    private final Map<String, BatteryTip> mLastTips = new ArrayMap<>();
+    private final Map<String, Long> mLastTipTimesMs = new ArrayMap<>();
+    // Last run of each detector, by name.
+    private final Map<String, Future<BatteryTip>> mPendingDetections = new ArrayMap<>();
+
+    BatteryTipDetectorPipeline() {
+        this(DEFAULT_DEADLINE_MS, MAX_LAST_TIP_AGE_MS);
+    }
+
+    @VisibleForTesting
+    BatteryTipDetectorPipeline(long deadlineMs, long maxLastTipAgeMs) {
+        mDeadlineMs = deadlineMs;
+        mMaxLastTipAgeMs = maxLastTipAgeMs;
+    }
+
+    /**
+     * Runs all the {@code detectors} and returns their tips, in the iteration order of
+     * {@code detectors}.
+     *
+     * @param detectors the detectors by stable name, used for their last tip
+     */
+    List<BatteryTip> run(Map<String, BatteryTipDetector> detectors) {
+        final long startMs = SystemClock.elapsedRealtime();
+        final List<String> names = new ArrayList<>(detectors.size());
+        final List<Future<BatteryTip>> futures = new ArrayList<>(detectors.size());
+        for (Map.Entry<String, BatteryTipDetector> entry : detectors.entrySet()) {
+            final String name = entry.getKey();
+            final BatteryTipDetector detector = entry.getValue();
+            names.add(name);
+            futures.add(submit(name, detector));
+        }
+
+        final List<BatteryTip> tips = new ArrayList<>(names.size());
+        for (int i = 0; i < names.size(); i++) {
+            final String name = names.get(i);
+            final Future<BatteryTip> future = futures.get(i);
+            final BatteryTip lastTip = getLastTip(name, startMs);
+            if (lastTip == null) {
+                tips.add(DeadlineExecutor.awaitResult(future, name));
+                continue;
+            }
+            try {
+                tips.add(DeadlineExecutor.await(future, startMs + mDeadlineMs,
+                        false /* cancelOnTimeout */));
+            } catch (TimeoutException e) {
+                Log.w(TAG, name + " missed its deadline, using its last tip");
+                tips.add(lastTip);
+            } catch (ExecutionException e) {
+                final Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw new IllegalStateException(name + " failed", cause);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                tips.add(lastTip);
+            }
+        }
+        return tips;
+    }
+
+    /**
+     * @return a copy of the latency histogram of each detector by name, with one count per bucket
+     * of {@link #LATENCY_BUCKETS_MS} plus one for the slower runs.
+     */
+    public static Map<String, long[]> getLatencyHistograms() {
+        final Map<String, long[]> histograms = new ArrayMap<>();
+        synchronized (sLatencyHistograms) {
+            for (Map.Entry<String, long[]> entry : sLatencyHistograms.entrySet()) {
+                final long[] histogram = entry.getValue();
+                histograms.put(entry.getKey(), Arrays.copyOf(histogram, histogram.length));
+            }
+        }
+        return histograms;
+    }
+
+    @VisibleForTesting
+    static void clearLatencyHistogramsForTest() {
+        synchronized (sLatencyHistograms) {
+            sLatencyHistograms.clear();
+        }
+    }
+
+    private Future<BatteryTip> submit(String name, BatteryTipDetector detector) {
+        synchronized (mPendingDetections) {
+            final Future<BatteryTip> pending = mPendingDetections.get(name);
+            if (pending != null && !pending.isDone()) {
+                Log.w(TAG, name + " is still running, waiting for it");
+                return pending;
+            }
+            final Future<BatteryTip> future = sExecutor.submit(() -> detect(name, detector));
+            mPendingDetections.put(name, future);
+            return future;
+        }
+    }
+
+    private BatteryTip detect(String name, BatteryTipDetector detector) {
+        final long startMs = SystemClock.elapsedRealtime();
+        final BatteryTip tip = detector.detect();
+        final long endMs = SystemClock.elapsedRealtime();
+        recordLatency(name, endMs - startMs);
+        // The tip handed out is updated by its preference, keep a copy of it.
+        final BatteryTip lastTip = copyOf(tip);
+        synchronized (mLastTips) {
+            mLastTips.put(name, lastTip);
+            mLastTipTimesMs.put(name, endMs);
+        }
+        return tip;
+    }
+
+    /**
+     * @return a copy of the last tip of {@code name}, or {@code null} if there is none detected
+     * within the max age of {@code nowMs}.
+     */
+    private BatteryTip getLastTip(String name, long nowMs) {
+        final BatteryTip lastTip;
+        synchronized (mLastTips) {
+            final Long timeMs = mLastTipTimesMs.get(name);
+            if (timeMs == null || nowMs - timeMs > mMaxLastTipAgeMs) {
+                return null;
+            }
+            lastTip = mLastTips.get(name);
+        }
+        return copyOf(lastTip);
+    }
+
+    private static void recordLatency(String name, long latencyMs) {
+        int bucket = 0;
+        while (bucket < LATENCY_BUCKETS_MS.length && latencyMs > LATENCY_BUCKETS_MS[bucket]) {
+            bucket++;
+        }
+        synchronized (sLatencyHistograms) {
+            long[] histogram = sLatencyHistograms.get(name);
+            if (histogram == null) {
+                histogram = new long[LATENCY_BUCKETS_MS.length + 1];
+                sLatencyHistograms.put(name, histogram);
+            }
+            histogram[bucket]++;
+        }
+        if (Log.isLoggable(TAG, Log.DEBUG)) {
+            Log.d(TAG, name + " took " + latencyMs + "ms");
+        }
+    }
+
+    private static BatteryTip copyOf(BatteryTip tip) {
+        if (tip == null) {
+            return null;
+        }
+        final Parcel parcel = Parcel.obtain();
+        try {
+            parcel.writeParcelable(tip, 0 /* parcelableFlags */);
+            parcel.setDataPosition(0);
+            return parcel.readParcelable(BatteryTip.class.getClassLoader());
+        } finally {
+            parcel.recycle();
+        }
+    }
+}
@@ -24,6 +24,7 @@ import androidx.annotation.VisibleForTesting;
 import com.android.settings.fuelgauge.BatteryInfo;
 import com.android.settings.fuelgauge.BatteryUtils;
 import com.android.settings.fuelgauge.batterytip.detectors.BatteryDefenderDetector;
+import com.android.settings.fuelgauge.batterytip.detectors.BatteryTipDetector;
 import com.android.settings.fuelgauge.batterytip.detectors.EarlyWarningDetector;
 import com.android.settings.fuelgauge.batterytip.detectors.HighUsageDetector;
 import com.android.settings.fuelgauge.batterytip.detectors.LowBatteryDetector;
@@ -36,7 +37,9 @@ import com.android.settingslib.utils.AsyncLoaderCompat;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Loader to compute and return a battery tip list. It will always return a full length list even
@@ -47,6 +50,7 @@ public class BatteryTipLoader extends AsyncLoaderCompat<List<BatteryTip>> {
 
     private static final boolean USE_FAKE_DATA = false;
 
+    private final BatteryTipDetectorPipeline mPipeline = new BatteryTipDetectorPipeline();
     private BatteryUsageStats mBatteryUsageStats;
     @VisibleForTesting
     BatteryUtils mBatteryUtils;
@@ -62,20 +66,23 @@ public class BatteryTipLoader extends AsyncLoaderCompat<List<BatteryTip>> {
         if (USE_FAKE_DATA) {
             return getFakeData();
         }
-        final List<BatteryTip> tips = new ArrayList<>();
         final BatteryTipPolicy policy = new BatteryTipPolicy(getContext());
         final BatteryInfo batteryInfo = mBatteryUtils.getBatteryInfo(TAG);
         final Context context = getContext();
 
-        tips.add(new LowBatteryDetector(context, policy, batteryInfo).detect());
-        tips.add(new HighUsageDetector(context, policy, mBatteryUsageStats, batteryInfo).detect());
-        tips.add(new SmartBatteryDetector(
-                context, policy, batteryInfo, context.getContentResolver()).detect());
-        tips.add(new EarlyWarningDetector(policy, context).detect());
-        tips.add(new BatteryDefenderDetector(batteryInfo).detect());
+        // Detectors run concurrently, see BatteryTipDetectorPipeline for the deadlines.
+        final Map<String, BatteryTipDetector> detectors = new LinkedHashMap<>();
+        detectors.put("LowBatteryDetector", new LowBatteryDetector(context, policy, batteryInfo));
+        detectors.put("HighUsageDetector",
+                new HighUsageDetector(context, policy, mBatteryUsageStats, batteryInfo));
+        detectors.put("SmartBatteryDetector", new SmartBatteryDetector(
+                context, policy, batteryInfo, context.getContentResolver()));
+        detectors.put("EarlyWarningDetector", new EarlyWarningDetector(policy, context));
+        detectors.put("BatteryDefenderDetector", new BatteryDefenderDetector(batteryInfo));
         // Disable this feature now since it introduces false positive cases. We will try to improve
         // it in the future.
-        // tips.add(new RestrictAppDetector(context, policy).detect());
+        // detectors.put("RestrictAppDetector", new RestrictAppDetector(context, policy));
+        final List<BatteryTip> tips = mPipeline.run(detectors);
 
         Collections.sort(tips);
         return tips;
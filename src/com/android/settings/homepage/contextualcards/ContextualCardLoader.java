@@ -36,13 +36,13 @@ import androidx.annotation.VisibleForTesting;
 import com.android.settings.R;
 import com.android.settings.homepage.contextualcards.logging.ContextualCardLogUtils;
 import com.android.settings.overlay.FeatureFactory;
+import com.android.settings.utils.DeadlineExecutor;
 import com.android.settingslib.core.instrumentation.MetricsFeatureProvider;
 import com.android.settingslib.utils.AsyncLoaderCompat;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
@@ -57,6 +57,14 @@ public class ContextualCardLoader extends AsyncLoaderCompat<List<ContextualCard>
 
     private static final String TAG = "ContextualCardLoader";
     private static final long ELIGIBILITY_CHECKER_TIMEOUT_MS = 400;
+    private static final int ELIGIBILITY_CHECKER_THREADS = 4;
+
+    // Shared by all loaders, so bouncing in and out of the homepage does not spawn a thread per
+    // card every time. The checkers of a load beyond the threads are queued, and the ones still
+    // queued at the timeout are cancelled. The eligibility is cached by EligibleCardChecker, so
+    // only the first load binds every card.
+    private static final ExecutorService sEligibilityExecutor =
+            DeadlineExecutor.newExecutor("EligibleCardChecker", ELIGIBILITY_CHECKER_THREADS);
 
     private final ContentObserver mObserver = new ContentObserver(
             new Handler(Looper.getMainLooper())) {
@@ -188,7 +196,6 @@ public class ContextualCardLoader extends AsyncLoaderCompat<List<ContextualCard>
             return candidates;
         }
 
-        final ExecutorService executor = Executors.newFixedThreadPool(candidates.size());
         final List<ContextualCard> cards = new ArrayList<>();
         List<Future<ContextualCard>> eligibleCards = new ArrayList<>();
 
@@ -196,12 +203,11 @@ public class ContextualCardLoader extends AsyncLoaderCompat<List<ContextualCard>
                 .map(card -> new EligibleCardChecker(mContext, card))
                 .collect(Collectors.toList());
         try {
-            eligibleCards = executor.invokeAll(checkers, ELIGIBILITY_CHECKER_TIMEOUT_MS,
-                    TimeUnit.MILLISECONDS);
+            eligibleCards = sEligibilityExecutor.invokeAll(checkers,
+                    ELIGIBILITY_CHECKER_TIMEOUT_MS, TimeUnit.MILLISECONDS);
         } catch (InterruptedException e) {
             Log.w(TAG, "Failed to get eligible states for all cards", e);
         }
-        executor.shutdown();
 
         // Collect future and eligible cards
         for (int i = 0; i < eligibleCards.size(); i++) {
@@ -23,7 +23,9 @@ import android.content.ContentResolver;
 import android.content.Context;
 import android.net.Uri;
 import android.os.AsyncTask;
+import android.os.SystemClock;
 import android.util.Log;
+import android.util.LruCache;
 
 import androidx.annotation.VisibleForTesting;
 import androidx.slice.Slice;
@@ -41,6 +43,14 @@ import java.util.concurrent.Callable;
 public class EligibleCardChecker implements Callable<ContextualCard> {
 
     private static final String TAG = "EligibleCardChecker";
+    private static final int ELIGIBILITY_CACHE_SIZE = 16;
+    private static final long ELIGIBILITY_CACHE_TTL_MS = 10000L;
+
+    // Eligible cards keyed by slice uri, so re-entering the homepage within a few seconds does not
+    // bind every card slice again. Only the verdict is kept, the slice itself is bound by the
+    // card renderer. Failed binds are not cached, so they are retried next time.
+    private static final LruCache<Uri, CachedEligibility> sEligibilityCache =
+            new LruCache<>(ELIGIBILITY_CACHE_SIZE);
 
     private final Context mContext;
 
@@ -93,22 +103,39 @@ public class EligibleCardChecker implements Callable<ContextualCard> {
             return false;
         }
 
+        final long now = SystemClock.elapsedRealtime();
+        final CachedEligibility cached = sEligibilityCache.get(uri);
+        if (cached != null && now - cached.mCheckTime < ELIGIBILITY_CACHE_TTL_MS) {
+            mCard = cached.mHasInlineAction
+                    ? card.mutate().setHasInlineAction(true).build()
+                    : card;
+            return true;
+        }
+
         final Slice slice = bindSlice(uri);
 
         if (slice == null || slice.hasHint(HINT_ERROR)) {
             Log.w(TAG, "Failed to bind slice, not eligible for display " + uri);
+            sEligibilityCache.remove(uri);
             return false;
         }
 
         mCard = card.mutate().setSlice(slice).build();
 
-        if (isSliceToggleable(slice)) {
+        final boolean hasInlineAction = isSliceToggleable(slice);
+        if (hasInlineAction) {
             mCard = card.mutate().setHasInlineAction(true).build();
         }
+        sEligibilityCache.put(uri, new CachedEligibility(hasInlineAction, now));
 
         return true;
     }
 
+    @VisibleForTesting
+    static void clearCache() {
+        sEligibilityCache.evictAll();
+    }
+
     @VisibleForTesting
     Slice bindSlice(Uri uri) {
         final SliceViewManager manager = SliceViewManager.getInstance(mContext);
@@ -138,4 +165,14 @@ public class EligibleCardChecker implements Callable<ContextualCard> {
 
         return !toggles.isEmpty();
     }
+
+    private static class CachedEligibility {
+        final boolean mHasInlineAction;
+        final long mCheckTime;
+
+        CachedEligibility(boolean hasInlineAction, long checkTime) {
+            mHasInlineAction = hasInlineAction;
+            mCheckTime = checkTime;
+        }
+    }
 }
@@ -100,6 +100,8 @@ public abstract class ActiveSubscriptionsListener
                 TelephonyIntents.ACTION_RADIO_TECHNOLOGY_CHANGED);
         mSubscriptionChangeIntentFilter.addAction(
                 TelephonyManager.ACTION_MULTI_SIM_CONFIG_CHANGED);
+        mSubscriptionChangeIntentFilter.addAction(
+                TelephonyManager.ACTION_SIM_SLOT_STATUS_CHANGED);
     }
 
     @VisibleForTesting
@@ -118,6 +120,8 @@ public abstract class ActiveSubscriptionsListener
                     final int subId = intent.getIntExtra(
                             CarrierConfigManager.EXTRA_SUBSCRIPTION_INDEX,
                             SubscriptionManager.INVALID_SUBSCRIPTION_ID);
+                    // Drop the cached config before any client may read it again.
+                    SubscriptionCacheInvalidator.invalidate(subId);
                     if (!clearCachedSubId(subId)) {
                         return;
                     }
@@ -127,6 +131,8 @@ public abstract class ActiveSubscriptionsListener
                             return;
                         }
                     }
+                    listenerNotify();
+                    return;
                 }
                 onSubscriptionsChanged();
             }
@@ -141,6 +147,7 @@ public abstract class ActiveSubscriptionsListener
     @Override
     public void onSubscriptionsChanged() {
         // clear value in cache
+        SubscriptionCacheInvalidator.invalidate(SubscriptionManager.INVALID_SUBSCRIPTION_ID);
         clearCache();
         listenerNotify();
     }
@@ -305,6 +312,7 @@ public abstract class ActiveSubscriptionsListener
                     mSubscriptionChangeIntentFilter, null, new Handler(mLooper));
             registerForSubscriptionsChange();
             mCacheState.compareAndSet(STATE_PREPARING, STATE_LISTENING);
+            SubscriptionCacheInvalidator.onListeningStarted();
             return;
         }
 
@@ -317,6 +325,7 @@ public abstract class ActiveSubscriptionsListener
             mContext.unregisterReceiver(mSubscriptionChangeReceiver);
         }
         getSubscriptionManager().removeOnSubscriptionsChangedListener(this);
+        SubscriptionCacheInvalidator.onListeningStopped();
         clearCache();
         mCacheState.compareAndSet(STATE_STOPPING, STATE_NOT_LISTENING);
     }
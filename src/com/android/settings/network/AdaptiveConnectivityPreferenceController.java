@@ -17,6 +17,7 @@
 package com.android.settings.network;
 
 import android.content.Context;
+import android.net.Uri;
 import android.provider.Settings;
 
 import androidx.preference.PreferenceScreen;
@@ -24,6 +25,9 @@ import androidx.preference.PreferenceScreen;
 import com.android.settings.R;
 import com.android.settings.core.BasePreferenceController;
 
+import java.util.Collections;
+import java.util.List;
+
 /**
  * {@link BasePreferenceController} that shows Adaptive connectivity on/off state.
  */
@@ -44,6 +48,11 @@ public class AdaptiveConnectivityPreferenceController extends BasePreferenceCont
                 ? AVAILABLE : UNSUPPORTED_ON_DEVICE;
     }
 
+    @Override
+    public List<Uri> getSearchIndexDependencies() {
+        return Collections.emptyList();
+    }
+
     @Override
     public CharSequence getSummary() {
         return Settings.Secure.getInt(mContext.getContentResolver(),
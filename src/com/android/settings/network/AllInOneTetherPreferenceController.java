@@ -28,7 +28,9 @@ import android.bluetooth.BluetoothAdapter;
 import android.bluetooth.BluetoothPan;
 import android.bluetooth.BluetoothProfile;
 import android.content.Context;
+import android.net.Uri;
 import android.os.UserHandle;
+import android.provider.Settings;
 import android.util.FeatureFlagUtils;
 import android.util.Log;
 
@@ -40,12 +42,15 @@ import androidx.lifecycle.OnLifecycleEvent;
 import androidx.preference.PreferenceScreen;
 
 import com.android.settings.R;
+import com.android.settings.core.BackgroundAvailabilityController;
 import com.android.settings.core.BasePreferenceController;
 import com.android.settings.core.FeatureFlags;
 import com.android.settings.widget.GenericSwitchController;
 import com.android.settings.widget.PrimarySwitchPreference;
 import com.android.settingslib.TetherUtil;
 
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -53,7 +58,8 @@ import java.util.concurrent.atomic.AtomicReference;
  * preference. It updates the preference summary text based on tethering state.
  */
 public class AllInOneTetherPreferenceController extends BasePreferenceController implements
-        LifecycleObserver, TetherEnabler.OnTetherStateUpdateListener {
+        BackgroundAvailabilityController, LifecycleObserver,
+        TetherEnabler.OnTetherStateUpdateListener {
     private static final String TAG = "AllInOneTetherPreferenceController";
 
     private int mTetheringState;
@@ -110,6 +116,13 @@ public class AllInOneTetherPreferenceController extends BasePreferenceController
         }
     }
 
+    @Override
+    public List<Uri> getSearchIndexDependencies() {
+        // The feature flag can also be overridden by a global setting.
+        return Arrays.asList(Settings.Global.getUriFor(Settings.Global.TETHER_SUPPORTED),
+                Settings.Global.getUriFor(FeatureFlags.TETHER_ALL_IN_ONE));
+    }
+
     @Override
     public CharSequence getSummary() {
         switch (mTetheringState) {
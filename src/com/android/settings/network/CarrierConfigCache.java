@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.network;
+
+import android.content.Context;
+import android.os.PersistableBundle;
+import android.telephony.CarrierConfigManager;
+import android.telephony.SubscriptionManager;
+import android.util.SparseArray;
+
+import androidx.annotation.Nullable;
+
+/**
+ * A cache of the carrier config of each subscription, shared by the controllers reading it.
+ *
+ * {@link CarrierConfigManager#getConfigForSubId(int)} is a binder call returning a new
+ * {@link PersistableBundle} every time, while most controllers of a mobile network screen read
+ * the config of the same subscription. The configs are cached by subscription id while an
+ * {@link ActiveSubscriptionsListener} is listening, and are dropped through
+ * {@link SubscriptionCacheInvalidator} when the carrier config of the subscription changes or the
+ * subscriptions change, before the listeners are notified.
+ *
+ * Each caller gets its own copy of the config, so it may modify it.
+ */
+public class CarrierConfigCache {
+
+    // Configs by subscription id.
+    private static final SparseArray<PersistableBundle> sConfigs = new SparseArray<>();
+    // Incremented on each invalidation, so a config read meanwhile isn't cached.
+    private static int sGeneration;
+
+    private CarrierConfigCache() {
+    }
+
+    /**
+     * Returns a copy of the carrier config of {@code subId}, from the cache if it was read since
+     * it last changed.
+     *
+     * @return the config, or {@code null} if there is no {@link CarrierConfigManager} or the
+     * config isn't available
+     */
+    @Nullable
+    public static PersistableBundle getConfigForSubId(Context context, int subId) {
+        final CarrierConfigManager carrierConfigManager =
+                context.getSystemService(CarrierConfigManager.class);
+        if (carrierConfigManager == null) {
+            return null;
+        }
+        if (!SubscriptionManager.isValidSubscriptionId(subId)
+                || !SubscriptionCacheInvalidator.isCachingEnabled()) {
+            return carrierConfigManager.getConfigForSubId(subId);
+        }
+
+        final int generation;
+        synchronized (sConfigs) {
+            final PersistableBundle config = sConfigs.get(subId);
+            if (config != null) {
+                return new PersistableBundle(config);
+            }
+            generation = sGeneration;
+        }
+
+        final PersistableBundle config = carrierConfigManager.getConfigForSubId(subId);
+        if (config == null) {
+            return null;
+        }
+        synchronized (sConfigs) {
+            if (generation == sGeneration) {
+                sConfigs.put(subId, config);
+            }
+        }
+        return new PersistableBundle(config);
+    }
+
+    /**
+     * Drops the cached config of {@code subId}, or of all the subscriptions if it isn't valid.
+     * Use {@link SubscriptionCacheInvalidator#invalidate(int)} to drop all the data cached for a
+     * subscription.
+     */
+    static void invalidate(int subId) {
+        synchronized (sConfigs) {
+            sGeneration++;
+            if (!SubscriptionManager.isValidSubscriptionId(subId)) {
+                sConfigs.clear();
+                return;
+            }
+            sConfigs.remove(subId);
+        }
+    }
+}
@@ -21,6 +21,7 @@ import static androidx.lifecycle.Lifecycle.Event.ON_RESUME;
 
 import android.content.Context;
 import android.content.Intent;
+import android.net.Uri;
 import android.os.UserManager;
 import android.provider.Settings;
 import android.telephony.SubscriptionManager;
@@ -44,6 +45,7 @@ import com.android.settingslib.Utils;
 import com.android.settingslib.core.AbstractPreferenceController;
 import com.android.settingslib.core.instrumentation.MetricsFeatureProvider;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -220,6 +222,11 @@ public class MobileNetworkSummaryController extends AbstractPreferenceController
         return !Utils.isWifiOnly(mContext) && mUserManager.isAdminUser();
     }
 
+    @Override
+    public List<Uri> getSearchIndexDependencies() {
+        return Collections.emptyList();
+    }
+
     @Override
     public String getPreferenceKey() {
         return KEY;
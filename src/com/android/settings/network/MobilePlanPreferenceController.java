@@ -38,6 +38,7 @@ import android.util.Log;
 import androidx.preference.Preference;
 
 import com.android.settings.R;
+import com.android.settings.core.BackgroundAvailabilityController;
 import com.android.settings.core.PreferenceControllerMixin;
 import com.android.settingslib.Utils;
 import com.android.settingslib.core.AbstractPreferenceController;
@@ -45,10 +46,12 @@ import com.android.settingslib.core.lifecycle.LifecycleObserver;
 import com.android.settingslib.core.lifecycle.events.OnCreate;
 import com.android.settingslib.core.lifecycle.events.OnSaveInstanceState;
 
+import java.util.Collections;
 import java.util.List;
 
 public class MobilePlanPreferenceController extends AbstractPreferenceController
-        implements PreferenceControllerMixin, LifecycleObserver, OnCreate, OnSaveInstanceState {
+        implements PreferenceControllerMixin, BackgroundAvailabilityController, LifecycleObserver,
+        OnCreate, OnSaveInstanceState {
 
     public interface MobilePlanPreferenceHost {
         void showMobilePlanMessageDialog();
@@ -121,6 +124,12 @@ public class MobilePlanPreferenceController extends AbstractPreferenceController
                 && !hasBaseUserRestriction(mContext, DISALLOW_CONFIG_MOBILE_NETWORKS, myUserId());
         return isPrefAllowedForUser && isPrefAllowedOnDevice;
     }
+
+    @Override
+    public List<Uri> getSearchIndexDependencies() {
+        return Collections.emptyList();
+    }
+
     @Override
     public String getPreferenceKey() {
         return KEY_MANAGE_MOBILE_PLAN;
@@ -18,6 +18,7 @@ package com.android.settings.network;
 
 import android.app.settings.SettingsEnums;
 import android.content.Context;
+import android.net.Uri;
 
 import androidx.annotation.VisibleForTesting;
 import androidx.preference.PreferenceCategory;
@@ -27,6 +28,9 @@ import com.android.settings.core.BasePreferenceController;
 import com.android.settings.wifi.WifiConnectionPreferenceController;
 import com.android.settingslib.core.lifecycle.Lifecycle;
 
+import java.util.Collections;
+import java.util.List;
+
 /**
  * This controls a header at the top of the Network & internet page that only appears when there
  * are two or more active mobile subscriptions. It shows an overview of available network
@@ -89,6 +93,12 @@ public class MultiNetworkHeaderController extends BasePreferenceController imple
         }
     }
 
+    @Override
+    public List<Uri> getSearchIndexDependencies() {
+        // The subscriptions are only listed once the page initializes this controller.
+        return Collections.emptyList();
+    }
+
     @Override
     public void onChildrenUpdated() {
         final boolean available = isAvailable();
@@ -17,6 +17,7 @@
 package com.android.settings.network;
 
 import android.content.Context;
+import android.net.Uri;
 import android.util.Log;
 
 import androidx.annotation.VisibleForTesting;
@@ -27,6 +28,9 @@ import com.android.settings.core.BasePreferenceController;
 import com.android.settings.wifi.WifiPickerTrackerHelper;
 import com.android.settingslib.core.lifecycle.Lifecycle;
 
+import java.util.Collections;
+import java.util.List;
+
 /**
  * This controls mobile network display of the internet page that only appears when there
  * are active mobile subscriptions. It shows an overview of available mobile network
@@ -101,6 +105,12 @@ public class NetworkMobileProviderController extends BasePreferenceController im
         return mSubscriptionsController.isAvailable() ? AVAILABLE : CONDITIONALLY_UNAVAILABLE;
     }
 
+    @Override
+    public List<Uri> getSearchIndexDependencies() {
+        // The subscriptions are only listed once the page initializes this controller.
+        return Collections.emptyList();
+    }
+
     @Override
     public void onChildrenUpdated() {
         final boolean available = isAvailable();
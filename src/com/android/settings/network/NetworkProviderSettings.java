@@ -29,10 +29,10 @@ import android.content.DialogInterface;
 import android.content.Intent;
 import android.location.LocationManager;
 import android.net.NetworkTemplate;
+import android.net.Uri;
 import android.net.wifi.WifiConfiguration;
 import android.net.wifi.WifiManager;
 import android.os.Bundle;
-import android.os.Handler;
 import android.os.PowerManager;
 import android.provider.Settings;
 import android.telephony.TelephonyManager;
@@ -90,6 +90,9 @@ import com.android.wifitrackerlib.WifiEntry;
 import com.android.wifitrackerlib.WifiEntry.ConnectCallback;
 import com.android.wifitrackerlib.WifiPickerTracker;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
@@ -181,8 +184,10 @@ public class NetworkProviderSettings extends RestrictedSettingsFragment
     };
 
     private boolean mIsWifiEntryListStale = true;
+    private boolean mIsWifiEntryUpdatePending;
     @VisibleForTesting
     final Runnable mUpdateWifiEntryPreferencesRunnable = () -> {
+        mIsWifiEntryUpdatePending = false;
         updateWifiEntryPreferences();
         getView().postDelayed(mRemoveLoadingRunnable, 10);
     };
@@ -456,6 +461,7 @@ public class NetworkProviderSettings extends RestrictedSettingsFragment
     @Override
     public void onStop() {
         mIsWifiEntryListStale = true;
+        mIsWifiEntryUpdatePending = false;
         getView().removeCallbacks(mRemoveLoadingRunnable);
         getView().removeCallbacks(mUpdateWifiEntryPreferencesRunnable);
         getView().removeCallbacks(mHideProgressBarRunnable);
@@ -825,20 +831,20 @@ public class NetworkProviderSettings extends RestrictedSettingsFragment
     }
 
     /**
-     * Updates WifiEntries from {@link WifiPickerTracker#getWifiEntries()}. Adds a delay to have
-     * progress bar displayed before starting to modify entries.
+     * Updates WifiEntries from {@link WifiPickerTracker#getWifiEntries()} on the next frame, with
+     * the progress bar displayed. The changes received until then are applied at once, so the
+     * list is updated at most once per frame.
      */
     private void updateWifiEntryPreferencesDelayed() {
         // Safeguard from some delayed event handling
         if (getActivity() != null && !mIsRestricted
                 && mWifiPickerTracker.getWifiState() == WifiManager.WIFI_STATE_ENABLED) {
-            final View view = getView();
-            final Handler handler = view.getHandler();
-            if (handler != null && handler.hasCallbacks(mUpdateWifiEntryPreferencesRunnable)) {
+            if (mIsWifiEntryUpdatePending) {
                 return;
             }
+            mIsWifiEntryUpdatePending = true;
             setProgressBarVisible(true);
-            view.postDelayed(mUpdateWifiEntryPreferencesRunnable, 300);
+            getView().postOnAnimation(mUpdateWifiEntryPreferencesRunnable);
         }
     }
 
@@ -852,7 +858,6 @@ public class NetworkProviderSettings extends RestrictedSettingsFragment
             return;
         }
 
-        boolean hasAvailableWifiEntries = false;
         mWifiEntryPreferenceCategory.setVisible(true);
 
         final WifiEntry connectedEntry = mWifiPickerTracker.getConnectedWifiEntry();
@@ -889,28 +894,27 @@ public class NetworkProviderSettings extends RestrictedSettingsFragment
             connectedWifiPreferenceCategory.removeAll();
         }
 
-        int index = 0;
-        cacheRemoveAllPrefs(mWifiEntryPreferenceCategory);
-        List<WifiEntry> wifiEntries = mWifiPickerTracker.getWifiEntries();
-        for (WifiEntry wifiEntry : wifiEntries) {
-            hasAvailableWifiEntries = true;
-
-            String key = wifiEntry.getKey();
-            LongPressWifiEntryPreference pref =
-                    (LongPressWifiEntryPreference) getCachedPreference(key);
-            if (pref != null) {
-                if (pref.getWifiEntry() == wifiEntry) {
-                    pref.setOrder(index++);
-                    continue;
-                } else {
-                    // Create a new preference if the underlying WifiEntry object has changed
-                    removePreference(key);
-                }
+        final List<WifiEntry> wifiEntries = mWifiPickerTracker.getWifiEntries();
+        final boolean hasAvailableWifiEntries = !wifiEntries.isEmpty();
+        final WifiEntryListReconciler.Patch patch = WifiEntryListReconciler.reconcile(
+                getWifiEntryItems(), wifiEntries);
+        for (String key : patch.mRemovedKeys) {
+            mWifiEntryPreferenceCategory.removePreference(
+                    mWifiEntryPreferenceCategory.findPreference(key));
+        }
+        for (int i = 0; i < wifiEntries.size(); i++) {
+            final WifiEntry wifiEntry = wifiEntries.get(i);
+            if (!patch.mInserted[i]) {
+                final LongPressWifiEntryPreference pref =
+                        mWifiEntryPreferenceCategory.findPreference(wifiEntry.getKey());
+                pref.setOrder(patch.mOrders[i]);
+                continue;
             }
 
-            pref = createLongPressWifiEntryPreference(wifiEntry);
+            final LongPressWifiEntryPreference pref =
+                    createLongPressWifiEntryPreference(wifiEntry);
             pref.setKey(wifiEntry.getKey());
-            pref.setOrder(index++);
+            pref.setOrder(patch.mOrders[i]);
             pref.refresh();
 
             if (wifiEntry.getHelpUriString() != null) {
@@ -920,26 +924,69 @@ public class NetworkProviderSettings extends RestrictedSettingsFragment
             }
             mWifiEntryPreferenceCategory.addPreference(pref);
         }
-        removeCachedPrefs(mWifiEntryPreferenceCategory);
+        setWifiEntryListeners(connectedWifiPreferenceCategory);
 
+        final Preference emptyPref = mWifiEntryPreferenceCategory.findPreference(
+                PREF_KEY_EMPTY_WIFI_LIST);
         if (!hasAvailableWifiEntries) {
             setProgressBarVisible(true);
-            Preference pref = new Preference(getPrefContext());
-            pref.setSelectable(false);
-            pref.setSummary(R.string.wifi_empty_list_wifi_on);
-            pref.setOrder(index++);
-            pref.setKey(PREF_KEY_EMPTY_WIFI_LIST);
-            mWifiEntryPreferenceCategory.addPreference(pref);
+            if (emptyPref == null) {
+                Preference pref = new Preference(getPrefContext());
+                pref.setSelectable(false);
+                pref.setSummary(R.string.wifi_empty_list_wifi_on);
+                pref.setOrder(0);
+                pref.setKey(PREF_KEY_EMPTY_WIFI_LIST);
+                mWifiEntryPreferenceCategory.addPreference(pref);
+            }
         } else {
+            if (emptyPref != null) {
+                mWifiEntryPreferenceCategory.removePreference(emptyPref);
+            }
             // Continuing showing progress bar for an additional delay to overlap with animation
             getView().postDelayed(mHideProgressBarRunnable, 1700 /* delay millis */);
         }
 
-        mAddWifiNetworkPreference.setOrder(index++);
+        mAddWifiNetworkPreference.setOrder(patch.getNextOrder());
         mWifiEntryPreferenceCategory.addPreference(mAddWifiNetworkPreference);
         setAdditionalSettingsSummaries();
     }
 
+    /**
+     * Listens to the entries of the shown preferences through {@link WifiPickerTrackerHelper}, as
+     * the entries are shared with the other Wi-Fi screens and a new preference sets itself as the
+     * only listener of its entry.
+     */
+    private void setWifiEntryListeners(PreferenceCategory connectedCategory) {
+        mWifiPickerTrackerHelper.clearWifiEntryListeners();
+        for (PreferenceCategory category
+                : Arrays.asList(connectedCategory, mWifiEntryPreferenceCategory)) {
+            for (int i = 0; i < category.getPreferenceCount(); i++) {
+                final Preference pref = category.getPreference(i);
+                if (pref instanceof LongPressWifiEntryPreference) {
+                    mWifiPickerTrackerHelper.setWifiEntryListener(
+                            ((LongPressWifiEntryPreference) pref).getWifiEntry(),
+                            (LongPressWifiEntryPreference) pref);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the shown {@link LongPressWifiEntryPreference}s of the Wi-Fi list.
+     */
+    private List<WifiEntryListReconciler.Item> getWifiEntryItems() {
+        final int count = mWifiEntryPreferenceCategory.getPreferenceCount();
+        final List<WifiEntryListReconciler.Item> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final Preference pref = mWifiEntryPreferenceCategory.getPreference(i);
+            if (pref instanceof LongPressWifiEntryPreference && pref.getKey() != null) {
+                items.add(new WifiEntryListReconciler.Item(pref.getKey(),
+                        ((LongPressWifiEntryPreference) pref).getWifiEntry(), pref.getOrder()));
+            }
+        }
+        return items;
+    }
+
     @VisibleForTesting
     PreferenceCategory getConnectedWifiPreferenceCategory() {
         if (mInternetUpdater.getInternetType() == InternetUpdater.INTERNET_WIFI) {
@@ -1187,6 +1234,13 @@ public class NetworkProviderSettings extends RestrictedSettingsFragment
                     }
                     return keys;
                 }
+
+                @Override
+                public List<Uri> getSearchIndexDependencies(Context context) {
+                    // The saved networks are followed by the search index cache itself, and the
+                    // mobile networks are only listed once the page initializes their controller.
+                    return Collections.emptyList();
+                }
             };
 
     private class WifiEntryConnectCallback implements ConnectCallback {
@@ -53,6 +53,7 @@ import com.android.settingslib.core.lifecycle.events.OnStart;
 import com.android.settingslib.core.lifecycle.events.OnStop;
 
 import java.net.InetAddress;
+import java.util.Collections;
 import java.util.List;
 
 public class PrivateDnsPreferenceController extends BasePreferenceController
@@ -90,6 +91,11 @@ public class PrivateDnsPreferenceController extends BasePreferenceController
                 : UNSUPPORTED_ON_DEVICE;
     }
 
+    @Override
+    public List<Uri> getSearchIndexDependencies() {
+        return Collections.emptyList();
+    }
+
     @Override
     public void displayPreference(PreferenceScreen screen) {
         super.displayPreference(screen);
@@ -17,6 +17,7 @@ package com.android.settings.network;
 
 import android.app.admin.DevicePolicyManager;
 import android.content.Context;
+import android.net.Uri;
 
 import androidx.preference.Preference;
 import androidx.preference.PreferenceScreen;
@@ -24,6 +25,9 @@ import androidx.preference.PreferenceScreen;
 import com.android.settings.core.PreferenceControllerMixin;
 import com.android.settingslib.core.AbstractPreferenceController;
 
+import java.util.Collections;
+import java.util.List;
+
 public class ProxyPreferenceController extends AbstractPreferenceController
         implements PreferenceControllerMixin {
 
@@ -39,6 +43,11 @@ public class ProxyPreferenceController extends AbstractPreferenceController
         return false;
     }
 
+    @Override
+    public List<Uri> getSearchIndexDependencies() {
+        return Collections.emptyList();
+    }
+
     @Override
     public void displayPreference(PreferenceScreen screen) {
         super.displayPreference(screen);
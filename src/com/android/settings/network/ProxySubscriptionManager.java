@@ -94,6 +94,8 @@ public class ProxySubscriptionManager implements LifecycleObserver {
         GlobalSettingsChangeListener airplaneModeMonitor = new GlobalSettingsChangeListener(
                 looper, context, Settings.Global.AIRPLANE_MODE_ON) {
             public void onChanged(String field) {
+                SubscriptionCacheInvalidator.invalidate(
+                        SubscriptionManager.INVALID_SUBSCRIPTION_ID);
                 subscriptionMonitor.clearCache();
                 notifySubscriptionInfoMightChanged();
             }
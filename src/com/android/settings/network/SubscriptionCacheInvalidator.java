@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.network;
+
+import android.telephony.SubscriptionManager;
+
+import androidx.annotation.VisibleForTesting;
+
+import com.android.settings.network.helper.SubscriptionAnnotationCache;
+
+/**
+ * The single invalidation point of the subscription data cached across screens, the carrier
+ * configs of {@link CarrierConfigCache} and the subscription annotations of
+ * {@link SubscriptionAnnotationCache}.
+ *
+ * The caches don't listen to the changes themselves. {@link ActiveSubscriptionsListener} and
+ * {@link SubscriptionsChangeListener} invalidate them synchronously when they receive a change,
+ * before notifying their client, so the client reads fresh data from its callback. As only
+ * {@link ActiveSubscriptionsListener} follows all the changes, including the carrier config
+ * ones, the caches are only used while at least one of them is listening.
+ */
+public final class SubscriptionCacheInvalidator {
+
+    private static int sListeningCount;
+    private static Boolean sCachingEnabledForTest;
+
+    private SubscriptionCacheInvalidator() {
+    }
+
+    /**
+     * @return whether the caches may keep what they read, as their invalidation is listened to.
+     */
+    public static synchronized boolean isCachingEnabled() {
+        if (sCachingEnabledForTest != null) {
+            return sCachingEnabledForTest;
+        }
+        return sListeningCount > 0;
+    }
+
+    /**
+     * Drops the cached data of {@code subId}, or of all the subscriptions if it isn't valid.
+     */
+    public static void invalidate(int subId) {
+        CarrierConfigCache.invalidate(subId);
+        // The annotations of all the subscriptions are queried together.
+        SubscriptionAnnotationCache.invalidate();
+    }
+
+    /** Overrides whether the caches are used, or restores the default with {@code null}. */
+    @VisibleForTesting
+    public static void setCachingEnabledForTest(Boolean enabled) {
+        synchronized (SubscriptionCacheInvalidator.class) {
+            sCachingEnabledForTest = enabled;
+        }
+        invalidate(SubscriptionManager.INVALID_SUBSCRIPTION_ID);
+    }
+
+    static synchronized void onListeningStarted() {
+        sListeningCount++;
+    }
+
+    static void onListeningStopped() {
+        synchronized (SubscriptionCacheInvalidator.class) {
+            if (sListeningCount > 0) {
+                sListeningCount--;
+            }
+            if (sListeningCount > 0) {
+                return;
+            }
+        }
+        // Nothing invalidates the caches from now on.
+        invalidate(SubscriptionManager.INVALID_SUBSCRIPTION_ID);
+    }
+}
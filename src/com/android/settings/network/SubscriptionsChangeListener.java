@@ -31,7 +31,12 @@ import android.util.Log;
 
 import com.android.internal.telephony.TelephonyIntents;
 
-/** Helper class for listening to changes in availability of telephony subscriptions */
+/**
+ * Helper class for listening to changes in availability of telephony subscriptions
+ *
+ * The subscription caches are invalidated through {@link SubscriptionCacheInvalidator} before the
+ * client is notified, so the client reads fresh data from its callback.
+ */
 public class SubscriptionsChangeListener extends ContentObserver {
 
     private static final String TAG = "SubscriptionsChangeListener";
@@ -100,12 +105,14 @@ public class SubscriptionsChangeListener extends ContentObserver {
     }
 
     private void subscriptionsChangedCallback() {
+        SubscriptionCacheInvalidator.invalidate(SubscriptionManager.INVALID_SUBSCRIPTION_ID);
         mClient.onSubscriptionsChanged();
     }
 
     @Override
     public void onChange(boolean selfChange, Uri uri) {
         if (uri.equals(mAirplaneModeSettingUri)) {
+            SubscriptionCacheInvalidator.invalidate(SubscriptionManager.INVALID_SUBSCRIPTION_ID);
             mClient.onAirplaneModeChanged(isAirplaneModeOn());
         }
     }
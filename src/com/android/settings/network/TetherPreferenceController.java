@@ -40,6 +40,7 @@ import androidx.preference.Preference;
 import androidx.preference.PreferenceScreen;
 
 import com.android.settings.R;
+import com.android.settings.core.BackgroundAvailabilityController;
 import com.android.settings.core.FeatureFlags;
 import com.android.settings.core.PreferenceControllerMixin;
 import com.android.settingslib.TetherUtil;
@@ -51,10 +52,13 @@ import com.android.settingslib.core.lifecycle.events.OnDestroy;
 import com.android.settingslib.core.lifecycle.events.OnPause;
 import com.android.settingslib.core.lifecycle.events.OnResume;
 
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicReference;
 
 public class TetherPreferenceController extends AbstractPreferenceController implements
-        PreferenceControllerMixin, LifecycleObserver, OnCreate, OnResume, OnPause, OnDestroy {
+        PreferenceControllerMixin, BackgroundAvailabilityController, LifecycleObserver, OnCreate,
+        OnResume, OnPause, OnDestroy {
 
     private static final String KEY_TETHER_SETTINGS = "tether_settings";
 
@@ -115,6 +119,13 @@ public class TetherPreferenceController extends AbstractPreferenceController imp
                 && !FeatureFlagUtils.isEnabled(mContext, FeatureFlags.TETHER_ALL_IN_ONE);
     }
 
+    @Override
+    public List<Uri> getSearchIndexDependencies() {
+        // The feature flag can also be overridden by a global setting.
+        return Arrays.asList(Settings.Global.getUriFor(Settings.Global.TETHER_SUPPORTED),
+                Settings.Global.getUriFor(FeatureFlags.TETHER_ALL_IN_ONE));
+    }
+
     @Override
     public void updateState(Preference preference) {
         updateSummary();
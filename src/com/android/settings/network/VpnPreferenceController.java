@@ -22,6 +22,7 @@ import android.net.ConnectivityManager;
 import android.net.Network;
 import android.net.NetworkCapabilities;
 import android.net.NetworkRequest;
+import android.net.Uri;
 import android.net.VpnManager;
 import android.os.UserHandle;
 import android.os.UserManager;
@@ -41,6 +42,7 @@ import com.android.internal.net.VpnConfig;
 import com.android.internal.net.VpnProfile;
 import com.android.settings.R;
 import com.android.settings.Utils;
+import com.android.settings.core.BackgroundAvailabilityController;
 import com.android.settings.core.PreferenceControllerMixin;
 import com.android.settings.vpn2.VpnInfoPreference;
 import com.android.settingslib.RestrictedLockUtilsInternal;
@@ -50,10 +52,12 @@ import com.android.settingslib.core.lifecycle.events.OnPause;
 import com.android.settingslib.core.lifecycle.events.OnResume;
 import com.android.settingslib.utils.ThreadUtils;
 
+import java.util.Collections;
 import java.util.List;
 
 public class VpnPreferenceController extends AbstractPreferenceController
-        implements PreferenceControllerMixin, LifecycleObserver, OnResume, OnPause {
+        implements PreferenceControllerMixin, BackgroundAvailabilityController, LifecycleObserver,
+        OnResume, OnPause {
 
     private static final String KEY_VPN_SETTINGS = "vpn_settings";
     private static final NetworkRequest REQUEST = new NetworkRequest.Builder()
@@ -97,6 +101,11 @@ public class VpnPreferenceController extends AbstractPreferenceController
                 UserManager.DISALLOW_CONFIG_VPN, UserHandle.myUserId());
     }
 
+    @Override
+    public List<Uri> getSearchIndexDependencies() {
+        return Collections.emptyList();
+    }
+
     @Override
     public String getPreferenceKey() {
         return KEY_VPN_SETTINGS;
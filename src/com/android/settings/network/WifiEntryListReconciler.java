@@ -0,0 +1,210 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.network;
+
+import android.util.ArrayMap;
+import android.util.ArraySet;
+
+import androidx.annotation.VisibleForTesting;
+
+import com.android.wifitrackerlib.WifiEntry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Computes the changes turning the shown Wi-Fi entry preferences into the preferences of a new
+ * {@link WifiEntry} list, matching them by key.
+ *
+ * The preferences kept in the same relative order keep their order value, so a scan result
+ * only removes, inserts and moves the preferences whose position actually changed. The order
+ * values are spread by {@link #ORDER_GAP} to leave room for the inserted and moved preferences,
+ * and are only all renumbered once there is no room left.
+ */
+class WifiEntryListReconciler {
+
+    @VisibleForTesting
+    static final int ORDER_GAP = 1024;
+    // Renumber before the order values get close to the order of the preferences below the list.
+    private static final long MAX_ORDER = Integer.MAX_VALUE / 2;
+
+    /** A shown Wi-Fi entry preference. */
+    static class Item {
+        final String mKey;
+        final WifiEntry mWifiEntry;
+        final int mOrder;
+
+        Item(String key, WifiEntry wifiEntry, int order) {
+            mKey = key;
+            mWifiEntry = wifiEntry;
+            mOrder = order;
+        }
+    }
+
+    /** The changes to apply to the shown preferences, by position in the new list. */
+    static class Patch {
+        /** The keys of the preferences to remove, before inserting the new ones. */
+        final List<String> mRemovedKeys;
+        /** Whether a new preference is needed for the entry at each position. */
+        final boolean[] mInserted;
+        /** The order of the preference at each position. */
+        final int[] mOrders;
+        /** The number of kept preferences whose order changes. */
+        final int mMoveCount;
+
+        Patch(List<String> removedKeys, boolean[] inserted, int[] orders, int moveCount) {
+            mRemovedKeys = removedKeys;
+            mInserted = inserted;
+            mOrders = orders;
+            mMoveCount = moveCount;
+        }
+
+        /** @return the order to give to a preference shown below the list. */
+        int getNextOrder() {
+            return mOrders.length == 0 ? ORDER_GAP : mOrders[mOrders.length - 1] + ORDER_GAP;
+        }
+    }
+
+    private WifiEntryListReconciler() {
+    }
+
+    /**
+     * @param items the shown preferences
+     * @param wifiEntries the entries to show, in order
+     * @return the changes to show {@code wifiEntries}. A preference whose {@link WifiEntry}
+     * object changed is removed and inserted again, as it can't be bound to another entry.
+     */
+    static Patch reconcile(List<Item> items, List<WifiEntry> wifiEntries) {
+        final Map<String, Item> itemsByKey = new ArrayMap<>(items.size());
+        for (Item item : items) {
+            itemsByKey.put(item.mKey, item);
+        }
+
+        final int size = wifiEntries.size();
+        final boolean[] inserted = new boolean[size];
+        final int[] oldOrders = new int[size];
+        final Set<String> keptKeys = new ArraySet<>(size);
+        for (int i = 0; i < size; i++) {
+            final WifiEntry wifiEntry = wifiEntries.get(i);
+            final Item item = itemsByKey.get(wifiEntry.getKey());
+            if (item != null && item.mWifiEntry == wifiEntry && keptKeys.add(item.mKey)) {
+                oldOrders[i] = item.mOrder;
+            } else {
+                inserted[i] = true;
+            }
+        }
+        final List<String> removedKeys = new ArrayList<>();
+        for (Item item : items) {
+            if (!keptKeys.contains(item.mKey)) {
+                removedKeys.add(item.mKey);
+            }
+        }
+
+        final boolean[] stable = findLongestIncreasingOrders(inserted, oldOrders);
+        int[] orders = assignOrders(stable, oldOrders);
+        if (orders == null) {
+            orders = new int[size];
+            for (int i = 0; i < size; i++) {
+                orders[i] = (i + 1) * ORDER_GAP;
+            }
+        }
+
+        int moveCount = 0;
+        for (int i = 0; i < size; i++) {
+            if (!inserted[i] && orders[i] != oldOrders[i]) {
+                moveCount++;
+            }
+        }
+        return new Patch(removedKeys, inserted, orders, moveCount);
+    }
+
+    /**
+     * @return the kept positions in the longest run of increasing orders, which don't need to
+     * move.
+     */
+    private static boolean[] findLongestIncreasingOrders(boolean[] inserted, int[] oldOrders) {
+        final int size = oldOrders.length;
+        // The position ending the best run of each length, and the previous position of each.
+        final int[] tails = new int[size];
+        final int[] previous = new int[size];
+        int length = 0;
+        for (int i = 0; i < size; i++) {
+            if (inserted[i]) {
+                continue;
+            }
+            int low = 0;
+            int high = length;
+            while (low < high) {
+                final int mid = (low + high) >>> 1;
+                if (oldOrders[tails[mid]] < oldOrders[i]) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            previous[i] = low > 0 ? tails[low - 1] : -1;
+            tails[low] = i;
+            if (low == length) {
+                length++;
+            }
+        }
+
+        final boolean[] stable = new boolean[size];
+        for (int i = length > 0 ? tails[length - 1] : -1; i >= 0; i = previous[i]) {
+            stable[i] = true;
+        }
+        return stable;
+    }
+
+    /**
+     * @return the orders keeping the stable positions in place and spreading the others between
+     * them, or {@code null} if there is no room left.
+     */
+    private static int[] assignOrders(boolean[] stable, int[] oldOrders) {
+        final int size = oldOrders.length;
+        final int[] orders = Arrays.copyOf(oldOrders, size);
+        long previousOrder = 0;
+        int i = 0;
+        while (i < size) {
+            if (stable[i]) {
+                previousOrder = oldOrders[i];
+                i++;
+                continue;
+            }
+            int end = i;
+            while (end < size && !stable[end]) {
+                end++;
+            }
+            final int count = end - i;
+            final long nextOrder = end < size
+                    ? oldOrders[end] : previousOrder + (long) (count + 1) * ORDER_GAP;
+            if (nextOrder > MAX_ORDER || nextOrder - previousOrder <= count) {
+                return null;
+            }
+            final long step = (nextOrder - previousOrder) / (count + 1);
+            for (int j = 0; j < count; j++) {
+                orders[i + j] = (int) (previousOrder + (j + 1) * step);
+            }
+            previousOrder = orders[end - 1];
+            i = end;
+        }
+        return orders;
+    }
+}
@@ -57,6 +57,7 @@ public class SelectableSubscriptions implements Callable<List<SubscriptionAnnota
     private static final String TAG = "SelectableSubscriptions";
 
     private Context mContext;
+    private boolean mDisabledSlotsIncluded;
     private Supplier<List<SubscriptionInfo>> mSubscriptions;
     private Predicate<SubscriptionAnnotation> mFilter;
     private Function<List<SubscriptionAnnotation>, List<SubscriptionAnnotation>> mFinisher;
@@ -69,6 +70,7 @@ public class SelectableSubscriptions implements Callable<List<SubscriptionAnnota
      */
     public SelectableSubscriptions(Context context, boolean disabledSlotsIncluded) {
         mContext = context;
+        mDisabledSlotsIncluded = disabledSlotsIncluded;
         mSubscriptions = disabledSlotsIncluded ? (() -> getAvailableSubInfoList(context)) :
                 (() -> getActiveSubInfoList(context));
         if (disabledSlotsIncluded) {
@@ -100,36 +102,11 @@ public class SelectableSubscriptions implements Callable<List<SubscriptionAnnota
      * @return a list of SubscriptionAnnotation which is user selectable
      */
     public List<SubscriptionAnnotation> call() {
-        TelephonyManager telMgr = mContext.getSystemService(TelephonyManager.class);
-
         try {
-            // query in background thread
-            Future<AtomicIntegerArray> eSimCardId =
-                    ThreadUtils.postOnBackgroundThread(new QueryEsimCardId(telMgr));
-
-            // query in background thread
-            Future<AtomicIntegerArray> simSlotIndex =
-                    ThreadUtils.postOnBackgroundThread(
-                    new QuerySimSlotIndex(telMgr, true, true));
-
-            // query in background thread
-            Future<AtomicIntegerArray> activeSimSlotIndex =
-                    ThreadUtils.postOnBackgroundThread(
-                    new QuerySimSlotIndex(telMgr, false, true));
-
-            List<SubscriptionInfo> subInfoList = mSubscriptions.get();
-
-            // wait for result from background thread
-            List<Integer> eSimCardIdList = atomicToList(eSimCardId.get());
-            List<Integer> simSlotIndexList = atomicToList(simSlotIndex.get());
-            List<Integer> activeSimSlotIndexList = atomicToList(activeSimSlotIndex.get());
-
-            // build a list of SubscriptionAnnotation
-            return IntStream.range(0, subInfoList.size())
-                    .mapToObj(subInfoIndex ->
-                            new SubscriptionAnnotation.Builder(subInfoList, subInfoIndex))
-                    .map(annoBdr -> annoBdr.build(mContext,
-                            eSimCardIdList, simSlotIndexList, activeSimSlotIndexList))
+            // share the snapshot until subscriptions or slots change
+            return SubscriptionAnnotationCache.get(mDisabledSlotsIncluded,
+                    this::queryAnnotations)
+                    .stream()
                     .filter(mFilter)
                     .collect(Collectors.collectingAndThen(Collectors.toList(), mFinisher));
         } catch (Exception exception) {
@@ -138,6 +115,44 @@ public class SelectableSubscriptions implements Callable<List<SubscriptionAnnota
         return Collections.emptyList();
     }
 
+    /**
+     * Query the SubscriptionAnnotation of all subscriptions, before filtering.
+     * @return an unmodifiable list of SubscriptionAnnotation
+     */
+    private List<SubscriptionAnnotation> queryAnnotations() throws Exception {
+        TelephonyManager telMgr = mContext.getSystemService(TelephonyManager.class);
+
+        // query in background thread
+        Future<AtomicIntegerArray> eSimCardId =
+                ThreadUtils.postOnBackgroundThread(new QueryEsimCardId(telMgr));
+
+        // query in background thread
+        Future<AtomicIntegerArray> simSlotIndex =
+                ThreadUtils.postOnBackgroundThread(
+                new QuerySimSlotIndex(telMgr, true, true));
+
+        // query in background thread
+        Future<AtomicIntegerArray> activeSimSlotIndex =
+                ThreadUtils.postOnBackgroundThread(
+                new QuerySimSlotIndex(telMgr, false, true));
+
+        List<SubscriptionInfo> subInfoList = mSubscriptions.get();
+
+        // wait for result from background thread
+        List<Integer> eSimCardIdList = atomicToList(eSimCardId.get());
+        List<Integer> simSlotIndexList = atomicToList(simSlotIndex.get());
+        List<Integer> activeSimSlotIndexList = atomicToList(activeSimSlotIndex.get());
+
+        // build a list of SubscriptionAnnotation
+        return IntStream.range(0, subInfoList.size())
+                .mapToObj(subInfoIndex ->
+                        new SubscriptionAnnotation.Builder(subInfoList, subInfoIndex))
+                .map(annoBdr -> annoBdr.build(mContext,
+                        eSimCardIdList, simSlotIndexList, activeSimSlotIndexList))
+                .collect(Collectors.collectingAndThen(Collectors.toList(),
+                        Collections::unmodifiableList));
+    }
+
     protected List<SubscriptionInfo> getSubInfoList(Context context,
             Function<SubscriptionManager, List<SubscriptionInfo>> convertor) {
         SubscriptionManager subManager = getSubscriptionManager(context);
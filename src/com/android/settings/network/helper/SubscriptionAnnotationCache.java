@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.settings.network.helper;
+
+import android.util.ArrayMap;
+
+import com.android.settings.network.ActiveSubscriptionsListener;
+import com.android.settings.network.SubscriptionCacheInvalidator;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Process wide holder of the {@link SubscriptionAnnotation} snapshots queried by
+ * {@link SelectableSubscriptions}.
+ *
+ * A snapshot is kept for each query while an {@link ActiveSubscriptionsListener} is listening, and
+ * is dropped through {@link SubscriptionCacheInvalidator} when the subscriptions, the UICC slots,
+ * the carrier config or the airplane mode change, before the listeners are notified. Both
+ * {@link ActiveSubscriptionsListener} and
+ * {@link com.android.settings.network.SubscriptionsChangeListener} invalidate it before notifying
+ * their clients, so a client reading from its callback never gets the snapshot of before the
+ * change. Callers
+ * asking for a snapshot while it is being queried wait for that query instead of starting another
+ * one.
+ *
+ * The snapshots are unmodifiable lists.
+ */
+public class SubscriptionAnnotationCache {
+
+    // Snapshots by query.
+    private static final Map<Boolean, FutureTask<List<SubscriptionAnnotation>>> sSnapshots =
+            new ArrayMap<>();
+
+    private SubscriptionAnnotationCache() {
+    }
+
+    /**
+     * Gets the snapshot of a query, running {@code query} on the calling thread if there is
+     * neither a snapshot nor a query in flight.
+     *
+     * @param disabledSlotsIncluded the kind of query
+     * @param query returns an unmodifiable list of all the annotations
+     * @return the snapshot
+     * @throws Exception thrown by {@code query}, in which case the snapshot isn't kept
+     */
+    static List<SubscriptionAnnotation> get(boolean disabledSlotsIncluded,
+            Callable<List<SubscriptionAnnotation>> query) throws Exception {
+        if (!SubscriptionCacheInvalidator.isCachingEnabled()) {
+            return query.call();
+        }
+
+        FutureTask<List<SubscriptionAnnotation>> snapshot;
+        boolean isOwner = false;
+        synchronized (sSnapshots) {
+            snapshot = sSnapshots.get(disabledSlotsIncluded);
+            if (snapshot == null) {
+                snapshot = new FutureTask<>(query);
+                sSnapshots.put(disabledSlotsIncluded, snapshot);
+                isOwner = true;
+            }
+        }
+        if (isOwner) {
+            snapshot.run();
+        }
+
+        try {
+            return snapshot.get();
+        } catch (ExecutionException exception) {
+            // Drop the failed query, so the next caller tries again.
+            remove(disabledSlotsIncluded, snapshot);
+            final Throwable cause = exception.getCause();
+            throw (cause instanceof Exception) ? (Exception) cause : exception;
+        }
+    }
+
+    /**
+     * Drops all the snapshots. Queries in flight still complete for the callers waiting on
+     * them, but aren't kept. Called through {@link SubscriptionCacheInvalidator}.
+     */
+    public static void invalidate() {
+        synchronized (sSnapshots) {
+            sSnapshots.clear();
+        }
+    }
+
+    private static void remove(boolean disabledSlotsIncluded,
+            FutureTask<List<SubscriptionAnnotation>> snapshot) {
+        synchronized (sSnapshots) {
+            if (sSnapshots.get(disabledSlotsIncluded) == snapshot) {
+                sSnapshots.remove(disabledSlotsIncluded);
+            }
+        }
+    }
+}
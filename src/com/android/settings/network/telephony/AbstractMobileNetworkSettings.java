@@ -17,6 +17,7 @@
 package com.android.settings.network.telephony;
 
 import android.os.SystemClock;
+import android.telephony.SubscriptionManager;
 import android.text.TextUtils;
 import android.util.Log;
 
@@ -67,9 +68,19 @@ abstract class AbstractMobileNetworkSettings extends RestrictedDashboardFragment
     TelephonyStatusControlSession setTelephonyAvailabilityStatus(
             Collection<AbstractPreferenceController> listOfPrefControllers) {
         return (new TelephonyStatusControlSession.Builder(listOfPrefControllers))
+                .setSubscriptionId(getContext(), getSubscriptionId())
+                .setMetrics(mMetricsFeatureProvider, getMetricsCategory())
                 .build();
     }
 
+    /**
+     * @return the subscription id shown by this page, or
+     * {@link SubscriptionManager#INVALID_SUBSCRIPTION_ID} if there is none.
+     */
+    int getSubscriptionId() {
+        return SubscriptionManager.INVALID_SUBSCRIPTION_ID;
+    }
+
     @Override
     public void onExpandButtonClick() {
         final PreferenceScreen screen = getPreferenceScreen();
@@ -23,15 +23,14 @@ import android.telephony.SubscriptionManager;
 import android.text.TextUtils;
 
 import com.android.settings.core.BasePreferenceController;
+import com.android.settings.network.CarrierConfigCache;
 
 public class CarrierSettingsVersionPreferenceController extends BasePreferenceController {
 
     private int mSubscriptionId;
-    private CarrierConfigManager mManager;
 
     public CarrierSettingsVersionPreferenceController(Context context, String preferenceKey) {
         super(context, preferenceKey);
-        mManager = context.getSystemService(CarrierConfigManager.class);
         mSubscriptionId = SubscriptionManager.INVALID_SUBSCRIPTION_ID;
     }
 
@@ -41,7 +40,8 @@ public class CarrierSettingsVersionPreferenceController extends BasePreferenceCo
 
     @Override
     public CharSequence getSummary() {
-        final PersistableBundle config = mManager.getConfigForSubId(mSubscriptionId);
+        final PersistableBundle config =
+                CarrierConfigCache.getConfigForSubId(mContext, mSubscriptionId);
         if (config == null) {
             return null;
         }
@@ -23,6 +23,7 @@ import android.telephony.SubscriptionManager;
 import android.telephony.TelephonyManager;
 import android.util.Log;
 
+import com.android.settings.network.CarrierConfigCache;
 import com.android.settings.overlay.FeatureFactory;
 import com.android.settingslib.core.instrumentation.MetricsFeatureProvider;
 
@@ -40,7 +41,6 @@ public class Enable2gPreferenceController extends TelephonyTogglePreferenceContr
 
     private final MetricsFeatureProvider mMetricsFeatureProvider;
 
-    private CarrierConfigManager mCarrierConfigManager;
     private TelephonyManager mTelephonyManager;
 
     /**
@@ -51,7 +51,6 @@ public class Enable2gPreferenceController extends TelephonyTogglePreferenceContr
      */
     public Enable2gPreferenceController(Context context, String key) {
         super(context, key);
-        mCarrierConfigManager = context.getSystemService(CarrierConfigManager.class);
         mMetricsFeatureProvider = FeatureFactory.getFactory(context).getMetricsFeatureProvider();
     }
 
@@ -70,7 +69,8 @@ public class Enable2gPreferenceController extends TelephonyTogglePreferenceContr
 
     @Override
     public int getAvailabilityStatus(int subId) {
-        final PersistableBundle carrierConfig = mCarrierConfigManager.getConfigForSubId(subId);
+        final PersistableBundle carrierConfig =
+                CarrierConfigCache.getConfigForSubId(mContext, subId);
         if (mTelephonyManager == null) {
             Log.w(LOG_TAG, "Telephony manager not yet initialized");
             mTelephonyManager = mContext.getSystemService(TelephonyManager.class);
@@ -87,6 +87,11 @@ public class MobileNetworkSettings extends AbstractMobileNetworkSettings {
         return SettingsEnums.MOBILE_NETWORK;
     }
 
+    @Override
+    int getSubscriptionId() {
+        return mSubId;
+    }
+
     /**
      * Invoked on each preference click in this hierarchy, overrides
      * PreferenceActivity's implementation.  Used to make sure we track the
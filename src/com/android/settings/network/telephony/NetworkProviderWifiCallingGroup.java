@@ -41,6 +41,7 @@ import androidx.preference.PreferenceGroup;
 import androidx.preference.PreferenceScreen;
 
 import com.android.settings.R;
+import com.android.settings.network.CarrierConfigCache;
 import com.android.settings.network.SubscriptionUtil;
 import com.android.settings.network.SubscriptionsChangeListener;
 import com.android.settings.network.ims.WifiCallingQueryImsState;
@@ -63,8 +64,6 @@ public class NetworkProviderWifiCallingGroup extends
     private static final int PREF_START_ORDER = 10;
     private static final String KEY_PREFERENCE_WIFICALLING_GROUP = "provider_model_wfc_group";
 
-    @VisibleForTesting
-    protected CarrierConfigManager mCarrierConfigManager;
     private SubscriptionManager mSubscriptionManager;
 
     private String mPreferenceGroupKey;
@@ -77,7 +76,6 @@ public class NetworkProviderWifiCallingGroup extends
     public NetworkProviderWifiCallingGroup(Context context, Lifecycle lifecycle,
             String preferenceGroupKey) {
         super(context);
-        mCarrierConfigManager = context.getSystemService(CarrierConfigManager.class);
         mSubscriptionManager = context.getSystemService(SubscriptionManager.class);
 
         mPreferenceGroupKey = preferenceGroupKey;
@@ -272,13 +270,11 @@ public class NetworkProviderWifiCallingGroup extends
 
     private boolean isWifiCallingAvailableForCarrier(int subId) {
         boolean isWifiCallingAvailableForCarrier = false;
-        if (mCarrierConfigManager != null) {
-            final PersistableBundle carrierConfig =
-                    mCarrierConfigManager.getConfigForSubId(subId);
-            if (carrierConfig != null) {
-                isWifiCallingAvailableForCarrier = carrierConfig.getBoolean(
-                        CarrierConfigManager.KEY_CARRIER_WFC_IMS_AVAILABLE_BOOL);
-            }
+        final PersistableBundle carrierConfig =
+                CarrierConfigCache.getConfigForSubId(mContext, subId);
+        if (carrierConfig != null) {
+            isWifiCallingAvailableForCarrier = carrierConfig.getBoolean(
+                    CarrierConfigManager.KEY_CARRIER_WFC_IMS_AVAILABLE_BOOL);
         }
         return isWifiCallingAvailableForCarrier;
     }
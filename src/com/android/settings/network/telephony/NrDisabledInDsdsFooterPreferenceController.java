@@ -28,11 +28,16 @@ import com.android.settings.core.BasePreferenceController;
 import com.android.settings.utils.AnnotationSpan;
 import com.android.settingslib.HelpUtils;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * Class to show the footer that can't connect to 5G when device is in DSDS mode.
  */
-public class NrDisabledInDsdsFooterPreferenceController extends BasePreferenceController {
+public class NrDisabledInDsdsFooterPreferenceController extends BasePreferenceController
+        implements TelephonyAvailabilityHandler {
     private int mSubId;
+    private AtomicInteger mAvailabilityStatus = new AtomicInteger(0);
+    private AtomicInteger mSetSessionCount = new AtomicInteger(0);
 
     /**
      * Constructor.
@@ -81,6 +86,24 @@ public class NrDisabledInDsdsFooterPreferenceController extends BasePreferenceCo
 
     @Override
     public int getAvailabilityStatus() {
+        if (mSetSessionCount.get() <= 0) {
+            mAvailabilityStatus.set(getFooterAvailabilityStatus());
+        }
+        return mAvailabilityStatus.get();
+    }
+
+    @Override
+    public void setAvailabilityStatus(int status) {
+        mAvailabilityStatus.set(status);
+        mSetSessionCount.getAndIncrement();
+    }
+
+    @Override
+    public void unsetAvailabilityStatus() {
+        mSetSessionCount.getAndDecrement();
+    }
+
+    private int getFooterAvailabilityStatus() {
         if (mSubId == SubscriptionManager.INVALID_SUBSCRIPTION_ID) {
             return CONDITIONALLY_UNAVAILABLE;
         }
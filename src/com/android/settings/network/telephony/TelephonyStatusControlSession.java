@@ -16,35 +16,70 @@
 
 package com.android.settings.network.telephony;
 
+import android.app.settings.SettingsEnums;
+import android.content.Context;
+import android.os.SystemClock;
+import android.telephony.SubscriptionManager;
 import android.util.Log;
 
+import androidx.annotation.VisibleForTesting;
+
 import com.android.settings.core.BasePreferenceController;
+import com.android.settings.network.CarrierConfigCache;
+import com.android.settings.utils.DeadlineExecutor;
 import com.android.settingslib.core.AbstractPreferenceController;
-import com.android.settingslib.utils.ThreadUtils;
+import com.android.settingslib.core.instrumentation.MetricsFeatureProvider;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Session for controlling the status of TelephonyPreferenceController(s).
  *
  * Within this session, result of {@link BasePreferenceController#availabilityStatus()}
  * would be under control.
+ *
+ * The availability of the {@link TelephonyAvailabilityHandler} controllers is evaluated
+ * concurrently on a pool of {@link #THREADS} threads, after the carrier config they share has been
+ * read once, and applied to all of them at once when the session is built. A controller missing
+ * the timeout is cancelled, or skipped if it's still queued, and isn't under control, so it
+ * evaluates its availability itself.
  */
 public class TelephonyStatusControlSession implements AutoCloseable {
 
     private static final String LOG_TAG = "TelephonyStatusControlSS";
 
-    private Collection<AbstractPreferenceController> mControllers;
-    private Collection<Future<Boolean>> mResult = new ArrayList<>();
+    @VisibleForTesting
+    static final long TIMEOUT_MS = 1000;
+    @VisibleForTesting
+    static final int AVAILABILITY_TIME_THRESHOLD_MS = 50;
+    @VisibleForTesting
+    static final int THREADS = 4;
+
+    // The carrier config prefetch is submitted first, so it runs before the controllers waiting
+    // for it.
+    private static final ExecutorService sExecutor =
+            DeadlineExecutor.newExecutor(LOG_TAG, THREADS);
+
+    // Controllers whose availability status is set by this session.
+    private final List<TelephonyAvailabilityHandler> mHandledControllers = new ArrayList<>();
+    private final MetricsFeatureProvider mMetricsFeature;
+    private final int mMetricsCategory;
 
     /**
      * Buider of session
      */
     public static class Builder {
         private Collection<AbstractPreferenceController> mControllers;
+        private Context mContext;
+        private int mSubId = SubscriptionManager.INVALID_SUBSCRIPTION_ID;
+        private MetricsFeatureProvider mMetricsFeature;
+        private int mMetricsCategory;
 
         /**
          * Constructor
@@ -57,20 +92,88 @@ public class TelephonyStatusControlSession implements AutoCloseable {
             mControllers = controllers;
         }
 
+        /**
+         * Reads the carrier config of the subscription before evaluating the controllers, so
+         * they share it instead of each reading it.
+         *
+         * @param context for reading the carrier config
+         * @param subId is the subscription id of the controllers
+         * @return this builder
+         */
+        public Builder setSubscriptionId(Context context, int subId) {
+            mContext = context;
+            mSubId = subId;
+            return this;
+        }
+
+        /**
+         * Reports the controllers slow to evaluate their availability, like the slow
+         * {@link BasePreferenceController#updateState} of a dashboard page.
+         *
+         * @param metricsFeature the provider to report to
+         * @param metricsCategory the category of the page
+         * @return this builder
+         */
+        public Builder setMetrics(MetricsFeatureProvider metricsFeature, int metricsCategory) {
+            mMetricsFeature = metricsFeature;
+            mMetricsCategory = metricsCategory;
+            return this;
+        }
+
         /**
          * Method to build this session.
          * @return {@link TelephonyStatusControlSession} session been setup.
          */
         public TelephonyStatusControlSession build() {
-            return new TelephonyStatusControlSession(mControllers);
+            return new TelephonyStatusControlSession(mControllers, mContext, mSubId,
+                    mMetricsFeature, mMetricsCategory);
         }
     }
 
-    private TelephonyStatusControlSession(Collection<AbstractPreferenceController> controllers) {
-        mControllers = controllers;
-        controllers.forEach(prefCtrl -> mResult
-                .add(ThreadUtils.postOnBackgroundThread(() -> setupAvailabilityStatus(prefCtrl))));
+    private TelephonyStatusControlSession(Collection<AbstractPreferenceController> controllers,
+            Context context, int subId, MetricsFeatureProvider metricsFeature,
+            int metricsCategory) {
+        mMetricsFeature = metricsFeature;
+        mMetricsCategory = metricsCategory;
+        final long startTime = SystemClock.elapsedRealtime();
+
+        final Future<?> prefetch = (context != null
+                && SubscriptionManager.isValidSubscriptionId(subId))
+                ? sExecutor.submit(() -> CarrierConfigCache.getConfigForSubId(context, subId))
+                : null;
+        final List<TelephonyAvailabilityHandler> handlers = new ArrayList<>();
+        final List<Future<Integer>> results = new ArrayList<>();
+        controllers.stream()
+                .filter(controller -> controller instanceof TelephonyAvailabilityHandler)
+                .forEach(controller -> {
+                    handlers.add((TelephonyAvailabilityHandler) controller);
+                    results.add(sExecutor.submit(
+                            () -> getAvailabilityStatus(prefetch, controller)));
+                });
 
+        // Apply the status of all the controllers at once.
+        for (int i = 0; i < results.size(); i++) {
+            try {
+                // Cancel a controller missing the timeout, so a hung call doesn't hold a thread.
+                final Integer status = DeadlineExecutor.await(results.get(i),
+                        startTime + TIMEOUT_MS, true /* cancelOnTimeout */);
+                if (status != null) {
+                    handlers.get(i).setAvailabilityStatus(status);
+                    mHandledControllers.add(handlers.get(i));
+                }
+            } catch (TimeoutException exception) {
+                Log.w(LOG_TAG, "Setup availability status timed out: "
+                        + handlers.get(i).getClass().getSimpleName());
+            } catch (ExecutionException | InterruptedException exception) {
+                Log.e(LOG_TAG, "setup availability status failed!", exception);
+            }
+        }
+        if (prefetch != null) {
+            prefetch.cancel(true /* mayInterruptIfRunning */);
+        }
+        Log.d(LOG_TAG, "setup availability status of " + mHandledControllers.size() + "/"
+                + handlers.size() + " controllers: +"
+                + (SystemClock.elapsedRealtime() - startTime) + "ms");
     }
 
     /**
@@ -79,39 +182,41 @@ public class TelephonyStatusControlSession implements AutoCloseable {
      * No longer control the status.
      */
     public void close() {
-        //check the background thread is finished then unset the status of availability.
-
-        for (Future<Boolean> result : mResult) {
-            try {
-                result.get();
-            } catch (ExecutionException | InterruptedException exception) {
-                Log.e(LOG_TAG, "setup availability status failed!", exception);
-            }
-        }
-        unsetAvailabilityStatus(mControllers);
+        mHandledControllers.forEach(TelephonyAvailabilityHandler::unsetAvailabilityStatus);
+        mHandledControllers.clear();
     }
 
-    private Boolean setupAvailabilityStatus(AbstractPreferenceController controller) {
+    private Integer getAvailabilityStatus(Future<?> prefetch,
+            AbstractPreferenceController controller) {
         try {
-            if (controller instanceof TelephonyAvailabilityHandler) {
-                int status = ((BasePreferenceController) controller)
-                        .getAvailabilityStatus();
-                ((TelephonyAvailabilityHandler) controller).setAvailabilityStatus(status);
+            if (prefetch != null) {
+                prefetch.get();
             }
-            return true;
+        } catch (ExecutionException exception) {
+            // Each controller reads the carrier config itself then.
+            Log.w(LOG_TAG, "Prefetch carrier config failed", exception);
+        } catch (InterruptedException exception) {
+            // Cancelled for missing the timeout.
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        final String name = controller.getClass().getSimpleName();
+        final long startTime = SystemClock.elapsedRealtime();
+        try {
+            return ((BasePreferenceController) controller).getAvailabilityStatus();
         } catch (Exception exception) {
             Log.e(LOG_TAG, "Setup availability status failed!", exception);
-            return false;
+            return null;
+        } finally {
+            final int time = (int) (SystemClock.elapsedRealtime() - startTime);
+            if (time > AVAILABILITY_TIME_THRESHOLD_MS) {
+                Log.w(LOG_TAG, "The availability took " + time + " ms in Controller " + name);
+                if (mMetricsFeature != null) {
+                    mMetricsFeature.action(SettingsEnums.PAGE_UNKNOWN,
+                            SettingsEnums.ACTION_CONTROLLER_UPDATE_STATE, mMetricsCategory,
+                            name, time);
+                }
+            }
         }
     }
-
-    private void unsetAvailabilityStatus(
-            Collection<AbstractPreferenceController> controllerLists) {
-        controllerLists.stream()
-                .filter(controller -> controller instanceof TelephonyAvailabilityHandler)
-                .map(TelephonyAvailabilityHandler.class::cast)
-                .forEach(controller -> {
-                    controller.unsetAvailabilityStatus();
-                });
-    }
 }
@@ -30,6 +30,7 @@ import androidx.preference.Preference;
 import androidx.preference.PreferenceScreen;
 import androidx.preference.SwitchPreference;
 
+import com.android.settings.network.CarrierConfigCache;
 import com.android.settings.network.MobileDataEnabledListener;
 import com.android.settings.network.ims.VolteQueryImsState;
 import com.android.settings.network.ims.VtQueryImsState;
@@ -48,7 +49,6 @@ public class VideoCallingPreferenceController extends TelephonyTogglePreferenceC
     private static final String TAG = "VideoCallingPreference";
 
     private Preference mPreference;
-    private CarrierConfigManager mCarrierConfigManager;
     private PhoneTelephonyCallback mTelephonyCallback;
     @VisibleForTesting
     Integer mCallState;
@@ -56,7 +56,6 @@ public class VideoCallingPreferenceController extends TelephonyTogglePreferenceC
 
     public VideoCallingPreferenceController(Context context, String key) {
         super(context, key);
-        mCarrierConfigManager = context.getSystemService(CarrierConfigManager.class);
         mDataContentObserver = new MobileDataEnabledListener(context, this);
         mTelephonyCallback = new PhoneTelephonyCallback();
     }
@@ -142,17 +141,8 @@ public class VideoCallingPreferenceController extends TelephonyTogglePreferenceC
             return false;
         }
 
-        // When called within Settings Search, this variable may still be null.
-        if (mCarrierConfigManager == null) {
-            Log.e(TAG, "CarrierConfigManager set to null.");
-            mCarrierConfigManager = mContext.getSystemService(CarrierConfigManager.class);
-            if (mCarrierConfigManager == null) {
-                Log.e(TAG, "Unable to reinitialize CarrierConfigManager.");
-                return false;
-            }
-        }
-
-        final PersistableBundle carrierConfig = mCarrierConfigManager.getConfigForSubId(subId);
+        final PersistableBundle carrierConfig =
+                CarrierConfigCache.getConfigForSubId(mContext, subId);
         if (carrierConfig == null) {
             return false;
         }
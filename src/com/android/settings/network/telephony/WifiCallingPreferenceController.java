@@ -37,6 +37,7 @@ import androidx.preference.Preference;
 import androidx.preference.PreferenceScreen;
 
 import com.android.settings.R;
+import com.android.settings.network.CarrierConfigCache;
 import com.android.settings.network.ims.WifiCallingQueryImsState;
 import com.android.settingslib.core.lifecycle.LifecycleObserver;
 import com.android.settingslib.core.lifecycle.events.OnStart;
@@ -55,8 +56,6 @@ public class WifiCallingPreferenceController extends TelephonyBasePreferenceCont
 
     @VisibleForTesting
     Integer mCallState;
-    @VisibleForTesting
-    CarrierConfigManager mCarrierConfigManager;
     private ImsMmTelManager mImsMmTelManager;
     @VisibleForTesting
     PhoneAccountHandle mSimCallManager;
@@ -65,7 +64,6 @@ public class WifiCallingPreferenceController extends TelephonyBasePreferenceCont
 
     public WifiCallingPreferenceController(Context context, String key) {
         super(context, key);
-        mCarrierConfigManager = context.getSystemService(CarrierConfigManager.class);
         mTelephonyCallback = new PhoneTelephonyCallback();
     }
 
@@ -130,14 +128,12 @@ public class WifiCallingPreferenceController extends TelephonyBasePreferenceCont
         int resId = com.android.internal.R.string.wifi_calling_off_summary;
         if (queryImsState(subId).isEnabledByUser()) {
             boolean useWfcHomeModeForRoaming = false;
-            if (mCarrierConfigManager != null) {
-                final PersistableBundle carrierConfig =
-                        mCarrierConfigManager.getConfigForSubId(subId);
-                if (carrierConfig != null) {
-                    useWfcHomeModeForRoaming = carrierConfig.getBoolean(
-                            CarrierConfigManager
-                                    .KEY_USE_WFC_HOME_NETWORK_MODE_IN_ROAMING_NETWORK_BOOL);
-                }
+            final PersistableBundle carrierConfig =
+                    CarrierConfigCache.getConfigForSubId(mContext, subId);
+            if (carrierConfig != null) {
+                useWfcHomeModeForRoaming = carrierConfig.getBoolean(
+                        CarrierConfigManager
+                                .KEY_USE_WFC_HOME_NETWORK_MODE_IN_ROAMING_NETWORK_BOOL);
             }
             final boolean isRoaming = getTelephonyManager(mContext, subId)
                     .isNetworkRoaming();
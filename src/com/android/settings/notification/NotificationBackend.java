@@ -46,12 +46,12 @@ import android.os.ServiceManager;
 import android.os.UserHandle;
 import android.service.notification.ConversationChannelWrapper;
 import android.service.notification.NotificationListenerFilter;
-import android.text.format.DateUtils;
 import android.util.IconDrawableFactory;
 import android.util.Log;
 
 import androidx.annotation.VisibleForTesting;
 
+import com.android.settings.applications.NotificationsSentDatabaseHelper;
 import com.android.settingslib.R;
 import com.android.settingslib.Utils;
 import com.android.settingslib.bluetooth.CachedBluetoothDevice;
@@ -72,7 +72,7 @@ public class NotificationBackend {
 
     static IUsageStatsManager sUsageStatsManager = IUsageStatsManager.Stub.asInterface(
             ServiceManager.getService(Context.USAGE_STATS_SERVICE));
-    private static final int DAYS_TO_CHECK = 7;
+    private static final int DAYS_TO_CHECK = NotificationsSentDatabaseHelper.DAYS_TO_CHECK;
     static INotificationManager sINM = INotificationManager.Stub.asInterface(
             ServiceManager.getService(Context.NOTIFICATION_SERVICE));
 
@@ -480,7 +480,8 @@ public class NotificationBackend {
 
     protected void recordAggregatedUsageEvents(Context context, AppRow appRow) {
         long now = System.currentTimeMillis();
-        long startTime = now - (DateUtils.DAY_IN_MILLIS * DAYS_TO_CHECK);
+        // Same window as the app list, so both show the same averages.
+        long startTime = NotificationsSentDatabaseHelper.getWindowStart(now);
         UsageEvents events = null;
         try {
             events = sUsageStatsManager.queryEventsForPackageForUser(
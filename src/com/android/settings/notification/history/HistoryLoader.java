@@ -21,23 +21,43 @@ import android.app.NotificationHistory.HistoricalNotification;
 import android.content.Context;
 import android.content.pm.ApplicationInfo;
 import android.content.pm.PackageManager;
+import android.graphics.drawable.Drawable;
 import android.os.UserHandle;
+import android.util.ArrayMap;
+import android.util.LruCache;
 import android.util.Slog;
+import android.util.SparseArray;
+
+import androidx.annotation.VisibleForTesting;
 
 import com.android.settings.notification.NotificationBackend;
 import com.android.settingslib.utils.ThreadUtils;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Loads the notification history grouped by package, most recent package first.
+ *
+ * Packages are handed to the listener in pages, and labels and icons are only resolved for the
+ * page about to be delivered, so the top of the list shows up without waiting for every package.
+ * Resolved labels and icons are kept in a bounded cache for the lifetime of the loader, until
+ * their package changes, see {@link #invalidate(String)}. Icons are cached as their constant
+ * state, so every package row gets its own drawable.
+ */
 public class HistoryLoader {
     private static final String TAG = "HistoryLoader";
+    @VisibleForTesting
+    static final int PAGE_SIZE = 8;
+    private static final int APP_INFO_CACHE_SIZE = 64;
     private final Context mContext;
     private final NotificationBackend mBackend;
     private final PackageManager mPm;
+    // Resolved label and icon, keyed by user id then package name.
+    private final SparseArray<LruCache<String, AppInfo>> mAppInfoCache = new SparseArray<>();
+    private final AtomicInteger mGeneration = new AtomicInteger();
 
     public HistoryLoader(Context context, NotificationBackend backend, PackageManager pm) {
         mContext = context;
@@ -45,55 +65,152 @@ public class HistoryLoader {
         mPm = pm;
     }
 
+    /**
+     * Starts loading the history. A load still in flight is cancelled, see {@link #cancel()}.
+     */
     public void load(OnHistoryLoaderListener listener) {
+        final int generation = mGeneration.incrementAndGet();
         ThreadUtils.postOnBackgroundThread(() -> {
             try {
-                Map<String, NotificationHistoryPackage> historicalNotifications = new HashMap<>();
                 NotificationHistory history =
                         mBackend.getNotificationHistory(mContext.getPackageName(),
                                 mContext.getAttributionTag());
-                while (history.hasNextNotification()) {
-                    HistoricalNotification hn = history.getNextNotification();
-
-                    String key = hn.getPackage() + "|" + hn.getUid();
-                    NotificationHistoryPackage hnsForPackage = historicalNotifications.getOrDefault(
-                            key,
-                            new NotificationHistoryPackage(hn.getPackage(), hn.getUid()));
-                    hnsForPackage.notifications.add(hn);
-                    historicalNotifications.put(key, hnsForPackage);
-                }
-                List<NotificationHistoryPackage> packages =
-                        new ArrayList<>(historicalNotifications.values());
+                List<NotificationHistoryPackage> packages = groupByPackage(history);
                 Collections.sort(packages,
                         (o1, o2) -> -1 * Long.compare(o1.getMostRecent(), o2.getMostRecent()));
-                for (NotificationHistoryPackage nhp : packages) {
-                    ApplicationInfo info;
-                    try {
-                        info = mPm.getApplicationInfoAsUser(
-                                nhp.pkgName,
-                                PackageManager.MATCH_UNINSTALLED_PACKAGES
-                                        | PackageManager.MATCH_DISABLED_COMPONENTS
-                                        | PackageManager.MATCH_DIRECT_BOOT_UNAWARE
-                                        | PackageManager.MATCH_DIRECT_BOOT_AWARE,
-                                UserHandle.getUserId(nhp.uid));
-                        if (info != null) {
-                            nhp.label = String.valueOf(mPm.getApplicationLabel(info));
-                            nhp.icon = mPm.getUserBadgedIcon(mPm.getApplicationIcon(info),
-                                    UserHandle.of(UserHandle.getUserId(nhp.uid)));
-                        }
-                    } catch (PackageManager.NameNotFoundException e) {
-                        // app is gone, just show package name and generic icon
-                        nhp.icon = mPm.getDefaultActivityIcon();
+                int start = 0;
+                do {
+                    if (generation != mGeneration.get()) {
+                        return;
                     }
-                }
-                ThreadUtils.postOnMainThread(() -> listener.onHistoryLoaded(packages));
+                    final int pageStart = start;
+                    final int pageEnd = Math.min(packages.size(), start + PAGE_SIZE);
+                    final List<NotificationHistoryPackage> page =
+                            new ArrayList<>(packages.subList(pageStart, pageEnd));
+                    for (NotificationHistoryPackage nhp : page) {
+                        bindAppInfo(nhp);
+                    }
+                    ThreadUtils.postOnMainThread(() -> {
+                        if (generation == mGeneration.get()) {
+                            listener.onHistoryLoaded(page, pageStart);
+                        }
+                    });
+                    start = pageEnd;
+                } while (start < packages.size());
             } catch (Exception e) {
                 Slog.e(TAG, "Error loading history", e);
             }
         });
     }
 
+    /**
+     * Forgets the label and icon of {@code pkgName}, for all users, once it is updated or removed.
+     */
+    public void invalidate(String pkgName) {
+        synchronized (mAppInfoCache) {
+            for (int i = 0; i < mAppInfoCache.size(); i++) {
+                mAppInfoCache.valueAt(i).remove(pkgName);
+            }
+        }
+    }
+
+    /**
+     * Stops delivering pages of the load in flight, if any.
+     */
+    public void cancel() {
+        mGeneration.incrementAndGet();
+    }
+
+    private static List<NotificationHistoryPackage> groupByPackage(NotificationHistory history) {
+        final List<NotificationHistoryPackage> packages = new ArrayList<>();
+        // Keyed by uid, then package name, since several packages can share a uid.
+        final SparseArray<ArrayMap<String, NotificationHistoryPackage>> index =
+                new SparseArray<>();
+        while (history.hasNextNotification()) {
+            HistoricalNotification hn = history.getNextNotification();
+
+            ArrayMap<String, NotificationHistoryPackage> packagesForUid = index.get(hn.getUid());
+            if (packagesForUid == null) {
+                packagesForUid = new ArrayMap<>(1);
+                index.put(hn.getUid(), packagesForUid);
+            }
+            NotificationHistoryPackage hnsForPackage = packagesForUid.get(hn.getPackage());
+            if (hnsForPackage == null) {
+                hnsForPackage = new NotificationHistoryPackage(hn.getPackage(), hn.getUid());
+                packagesForUid.put(hn.getPackage(), hnsForPackage);
+                packages.add(hnsForPackage);
+            }
+            hnsForPackage.notifications.add(hn);
+        }
+        return packages;
+    }
+
+    private void bindAppInfo(NotificationHistoryPackage nhp) {
+        final int userId = UserHandle.getUserId(nhp.uid);
+        LruCache<String, AppInfo> cache;
+        synchronized (mAppInfoCache) {
+            cache = mAppInfoCache.get(userId);
+            if (cache == null) {
+                cache = new LruCache<>(APP_INFO_CACHE_SIZE);
+                mAppInfoCache.put(userId, cache);
+            }
+        }
+        final AppInfo cached = cache.get(nhp.pkgName);
+        if (cached != null) {
+            nhp.label = cached.mLabel;
+            nhp.icon = cached.mIconState != null ? cached.mIconState.newDrawable() : null;
+            return;
+        }
+        final CharSequence[] label = new CharSequence[1];
+        final Drawable icon = loadAppInfo(nhp.pkgName, userId, label);
+        final Drawable.ConstantState iconState = icon != null ? icon.getConstantState() : null;
+        if (icon == null || iconState != null) {
+            cache.put(nhp.pkgName, new AppInfo(label[0], iconState));
+        }
+        nhp.label = label[0];
+        nhp.icon = icon;
+    }
+
+    // Returns the icon, and the label in outLabel.
+    private Drawable loadAppInfo(String pkgName, int userId, CharSequence[] outLabel) {
+        ApplicationInfo info;
+        try {
+            info = mPm.getApplicationInfoAsUser(
+                    pkgName,
+                    PackageManager.MATCH_UNINSTALLED_PACKAGES
+                            | PackageManager.MATCH_DISABLED_COMPONENTS
+                            | PackageManager.MATCH_DIRECT_BOOT_UNAWARE
+                            | PackageManager.MATCH_DIRECT_BOOT_AWARE,
+                    userId);
+            if (info != null) {
+                outLabel[0] = String.valueOf(mPm.getApplicationLabel(info));
+                return mPm.getUserBadgedIcon(mPm.getApplicationIcon(info),
+                        UserHandle.of(userId));
+            }
+        } catch (PackageManager.NameNotFoundException e) {
+            // app is gone, just show package name and generic icon
+            return mPm.getDefaultActivityIcon();
+        }
+        return null;
+    }
+
+    private static class AppInfo {
+        final CharSequence mLabel;
+        final Drawable.ConstantState mIconState;
+
+        AppInfo(CharSequence label, Drawable.ConstantState iconState) {
+            mLabel = label;
+            mIconState = iconState;
+        }
+    }
+
     interface OnHistoryLoaderListener {
-        void onHistoryLoaded(List<NotificationHistoryPackage> notificationsByPackage);
+        /**
+         * Called on the main thread for each page of packages, most recent first. An empty
+         * history is delivered as a single empty page.
+         *
+         * @param start position of the first package of the page in the whole list
+         */
+        void onHistoryLoaded(List<NotificationHistoryPackage> notificationsByPackage, int start);
     }
 }
@@ -25,8 +25,11 @@ import android.annotation.ColorInt;
 import android.app.ActionBar;
 import android.app.ActivityManager;
 import android.app.INotificationManager;
+import android.content.BroadcastReceiver;
 import android.content.ComponentName;
 import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
 import android.content.pm.PackageManager;
 import android.content.res.Resources;
 import android.content.res.TypedArray;
@@ -106,6 +109,16 @@ public class NotificationHistoryActivity extends CollapsingToolbarBaseActivity {
     };
     private UiEventLogger mUiEventLogger = new UiEventLoggerImpl();
 
+    // Drops the cached label and icon of an updated app, picked up by the next load.
+    private final BroadcastReceiver mPackageReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            if (mHistoryLoader != null && intent.getData() != null) {
+                mHistoryLoader.invalidate(intent.getData().getSchemeSpecificPart());
+            }
+        }
+    };
+
     enum NotificationHistoryEvent implements UiEventLogger.UiEventEnum {
         @UiEvent(doc = "User turned on notification history")
         NOTIFICATION_HISTORY_ON(504),
@@ -149,14 +162,17 @@ public class NotificationHistoryActivity extends CollapsingToolbarBaseActivity {
         }
     }
 
-    private HistoryLoader.OnHistoryLoaderListener mOnHistoryLoaderListener = notifications -> {
-        findViewById(R.id.today_list).setVisibility(
-                notifications.isEmpty() ? View.GONE : View.VISIBLE);
-        mCountdownLatch.countDown();
-        View recyclerView = mTodayView.findViewById(R.id.apps);
-        recyclerView.setClipToOutline(true);
-        mTodayView.setOutlineProvider(mOutlineProvider);
-        mSnoozeView.setOutlineProvider(mOutlineProvider);
+    private HistoryLoader.OnHistoryLoaderListener mOnHistoryLoaderListener =
+            (notifications, start) -> {
+        if (start == 0) {
+            findViewById(R.id.today_list).setVisibility(
+                    notifications.isEmpty() ? View.GONE : View.VISIBLE);
+            mCountdownLatch.countDown();
+            View recyclerView = mTodayView.findViewById(R.id.apps);
+            recyclerView.setClipToOutline(true);
+            mTodayView.setOutlineProvider(mOutlineProvider);
+            mSnoozeView.setOutlineProvider(mOutlineProvider);
+        }
         // for each package, new header and recycler view
         for (int i = 0, notificationsSize = notifications.size(); i < notificationsSize; i++) {
             NotificationHistoryPackage nhp = notifications.get(i);
@@ -176,7 +192,7 @@ public class NotificationHistoryActivity extends CollapsingToolbarBaseActivity {
             header.setStateDescription(container.getVisibility() == View.VISIBLE
                     ? getString(R.string.condition_expand_hide)
                     : getString(R.string.condition_expand_show));
-            int finalI = i;
+            int finalI = start + i;
             header.setOnClickListener(v -> {
                 container.setVisibility(container.getVisibility() == View.VISIBLE
                         ? View.GONE : View.VISIBLE);
@@ -246,6 +262,14 @@ public class NotificationHistoryActivity extends CollapsingToolbarBaseActivity {
             actionBar.setHomeButtonEnabled(true);
             actionBar.setDisplayShowTitleEnabled(true);
         }
+
+        final IntentFilter packageFilter = new IntentFilter();
+        packageFilter.addAction(Intent.ACTION_PACKAGE_ADDED);
+        packageFilter.addAction(Intent.ACTION_PACKAGE_CHANGED);
+        packageFilter.addAction(Intent.ACTION_PACKAGE_REMOVED);
+        packageFilter.addAction(Intent.ACTION_PACKAGE_REPLACED);
+        packageFilter.addDataScheme("package");
+        registerReceiver(mPackageReceiver, packageFilter);
     }
 
     @Override
@@ -258,7 +282,9 @@ public class NotificationHistoryActivity extends CollapsingToolbarBaseActivity {
         mCountdownLatch = new CountDownLatch(2);
 
         mTodayView.removeAllViews();
-        mHistoryLoader = new HistoryLoader(this, new NotificationBackend(), mPm);
+        if (mHistoryLoader == null) {
+            mHistoryLoader = new HistoryLoader(this, new NotificationBackend(), mPm);
+        }
         mHistoryLoader.load(mOnHistoryLoaderListener);
 
         mNm = INotificationManager.Stub.asInterface(
@@ -294,6 +320,7 @@ public class NotificationHistoryActivity extends CollapsingToolbarBaseActivity {
 
     @Override
     public void onPause() {
+        mHistoryLoader.cancel();
         try {
             mListener.unregisterAsSystemService();
         } catch (RemoteException e) {
@@ -308,6 +335,7 @@ public class NotificationHistoryActivity extends CollapsingToolbarBaseActivity {
         if (mCountdownFuture != null) {
             mCountdownFuture.cancel(true);
         }
+        unregisterReceiver(mPackageReceiver);
         super.onDestroy();
     }
 
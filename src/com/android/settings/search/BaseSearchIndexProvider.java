@@ -24,11 +24,13 @@ import static com.android.settings.core.PreferenceXmlParserUtils.MetadataFlag.FL
 
 import android.annotation.XmlRes;
 import android.content.Context;
+import android.net.Uri;
 import android.os.Bundle;
 import android.provider.SearchIndexableResource;
 import android.util.Log;
 
 import androidx.annotation.CallSuper;
+import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 
 import com.android.settings.core.BasePreferenceController;
@@ -84,7 +86,15 @@ public class BaseSearchIndexProvider implements Indexable.SearchIndexProvider {
             // Entire page should be suppressed, do not add dynamic raw data.
             return dynamicRaws;
         }
-        final List<AbstractPreferenceController> controllers = getPreferenceControllers(context);
+        return getDynamicRawDataToIndex(context, getPreferenceControllers(context));
+    }
+
+    /**
+     * Returns the dynamic raw data of {@code controllers}, for a page whose search is enabled.
+     */
+    List<SearchIndexableRaw> getDynamicRawDataToIndex(Context context,
+            List<AbstractPreferenceController> controllers) {
+        final List<SearchIndexableRaw> dynamicRaws = new ArrayList<>();
         if (controllers == null || controllers.isEmpty()) {
             return dynamicRaws;
         }
@@ -109,9 +119,17 @@ public class BaseSearchIndexProvider implements Indexable.SearchIndexProvider {
             // Entire page should be suppressed, mark all keys from this page as non-indexable.
             return getNonIndexableKeysFromXml(context, true /* suppressAllPage */);
         }
+        return getNonIndexableKeys(context, getPreferenceControllers(context));
+    }
+
+    /**
+     * Returns the non-indexable keys of the page and {@code controllers}, for a page whose search
+     * is enabled.
+     */
+    List<String> getNonIndexableKeys(Context context,
+            List<AbstractPreferenceController> controllers) {
         final List<String> nonIndexableKeys = new ArrayList<>();
         nonIndexableKeys.addAll(getNonIndexableKeysFromXml(context, false /* suppressAllPage */));
-        final List<AbstractPreferenceController> controllers = getPreferenceControllers(context);
         if (controllers != null && !controllers.isEmpty()) {
             for (AbstractPreferenceController controller : controllers) {
                 if (controller instanceof PreferenceControllerMixin) {
@@ -167,6 +185,62 @@ public class BaseSearchIndexProvider implements Indexable.SearchIndexProvider {
         return null;
     }
 
+    /**
+     * Returns the {@link Uri}s of the settings the non-indexable keys and dynamic raw data of the
+     * page depend on, so they can be cached until one of them changes. Installed packages, user
+     * restrictions, the locale and the saved Wi-Fi networks don't need to be listed.
+     * {@link #isPageSearchEnabled} is still checked on every query.
+     *
+     * A page computing its search data from its controllers only doesn't need to override this,
+     * it's cached once all its controllers declare their own dependencies.
+     *
+     * @return the settings, or {@code null} if the search data of the page may also change with
+     * anything else than the dependencies of its controllers.
+     */
+    @Nullable
+    public List<Uri> getSearchIndexDependencies(Context context) {
+        return null;
+    }
+
+    /**
+     * Returns the dependencies of the page, or if it doesn't declare them, those of
+     * {@code controllers} when all of them declare theirs.
+     *
+     * @param controllers the controllers of the page, or {@code null} if the page doesn't
+     * compute its search data from its controllers only
+     */
+    @Nullable
+    List<Uri> getSearchIndexDependencies(Context context,
+            @Nullable List<AbstractPreferenceController> controllers) {
+        final List<Uri> pageDependencies = getSearchIndexDependencies(context);
+        if (pageDependencies != null || controllers == null) {
+            return pageDependencies;
+        }
+        final List<Uri> dependencies = new ArrayList<>();
+        for (AbstractPreferenceController controller : controllers) {
+            final List<Uri> controllerDependencies;
+            if (controller instanceof PreferenceControllerMixin) {
+                controllerDependencies =
+                        ((PreferenceControllerMixin) controller).getSearchIndexDependencies();
+            } else if (controller instanceof BasePreferenceController) {
+                controllerDependencies =
+                        ((BasePreferenceController) controller).getSearchIndexDependencies();
+            } else {
+                // Its key is always non-indexable.
+                continue;
+            }
+            if (controllerDependencies == null) {
+                return null;
+            }
+            for (Uri uri : controllerDependencies) {
+                if (!dependencies.contains(uri)) {
+                    dependencies.add(uri);
+                }
+            }
+        }
+        return dependencies;
+    }
+
     /**
      * Returns true if the page should be considered in search query. If return false, entire page
      * will be suppressed during search query.
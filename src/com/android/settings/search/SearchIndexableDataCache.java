@@ -0,0 +1,229 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.search;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.database.ContentObserver;
+import android.net.Uri;
+import android.net.wifi.WifiManager;
+import android.os.UserManager;
+import android.util.ArrayMap;
+import android.util.ArraySet;
+import android.util.Log;
+
+import androidx.annotation.VisibleForTesting;
+
+import com.android.settingslib.core.AbstractPreferenceController;
+import com.android.settingslib.search.SearchIndexableRaw;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Memoizes the non-indexable keys and dynamic raw data of the pages indexed by
+ * {@link SettingsSearchIndexablesProvider}, so a search index refresh doesn't create the
+ * controllers of every page and check their availability again.
+ *
+ * A page is only cached when its provider declares the settings its search data depends on
+ * through {@link BaseSearchIndexProvider#getSearchIndexDependencies(Context)}, or when the page
+ * computes its search data from its controllers only and all of them declare theirs. The page is
+ * computed again once one of these settings changes, and all the pages are computed again when a
+ * package, the user restrictions, the locale or the saved Wi-Fi networks change.
+ */
+class SearchIndexableDataCache {
+
+    private static final String TAG = "SearchIndexableCache";
+
+    private final Context mContext;
+    private final Map<BaseSearchIndexProvider, Entry> mEntries = new ArrayMap<>();
+    // Providers which must be computed on every query.
+    private final Set<BaseSearchIndexProvider> mUncacheable = new ArraySet<>();
+    // Cached providers depending on a setting, by setting.
+    private final Map<Uri, Set<BaseSearchIndexProvider>> mDependents = new ArrayMap<>();
+    private final Set<Uri> mObservedUris = new ArraySet<>();
+    // Incremented on every invalidation, so a result computed meanwhile isn't cached.
+    private int mGeneration;
+
+    private final BroadcastReceiver mReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            clear();
+        }
+    };
+
+    private final ContentObserver mObserver = new ContentObserver(null /* handler */) {
+        @Override
+        public void onChange(boolean selfChange, Uri uri) {
+            if (uri == null) {
+                clear();
+            } else {
+                invalidate(uri);
+            }
+        }
+    };
+
+    SearchIndexableDataCache(Context context) {
+        mContext = context.getApplicationContext();
+    }
+
+    /**
+     * Starts listening to the changes invalidating all the pages.
+     */
+    void register() {
+        final IntentFilter packageFilter = new IntentFilter();
+        packageFilter.addAction(Intent.ACTION_PACKAGE_ADDED);
+        packageFilter.addAction(Intent.ACTION_PACKAGE_REMOVED);
+        packageFilter.addAction(Intent.ACTION_PACKAGE_CHANGED);
+        packageFilter.addAction(Intent.ACTION_PACKAGE_REPLACED);
+        packageFilter.addDataScheme("package");
+        mContext.registerReceiver(mReceiver, packageFilter);
+
+        final IntentFilter filter = new IntentFilter();
+        filter.addAction(UserManager.ACTION_USER_RESTRICTIONS_CHANGED);
+        filter.addAction(Intent.ACTION_LOCALE_CHANGED);
+        // The saved networks aren't stored in a setting.
+        filter.addAction(WifiManager.CONFIGURED_NETWORKS_CHANGED_ACTION);
+        mContext.registerReceiver(mReceiver, filter);
+    }
+
+    /**
+     * @return the non-indexable keys of the page of {@code provider}, or {@code null} if the page
+     * can't be cached and must be queried from the provider.
+     */
+    List<String> getNonIndexableKeys(BaseSearchIndexProvider provider) {
+        final Entry entry = getEntry(provider);
+        return entry == null ? null : new ArrayList<>(entry.mNonIndexableKeys);
+    }
+
+    /**
+     * @return the dynamic raw data of the page of {@code provider}, or {@code null} if the page
+     * can't be cached and must be queried from the provider.
+     */
+    List<SearchIndexableRaw> getDynamicRawData(BaseSearchIndexProvider provider) {
+        final Entry entry = getEntry(provider);
+        return entry == null ? null : new ArrayList<>(entry.mDynamicRaws);
+    }
+
+    /** Drops the cached data of all the pages. */
+    synchronized void clear() {
+        mGeneration++;
+        mEntries.clear();
+        mDependents.clear();
+    }
+
+    @VisibleForTesting
+    synchronized void invalidate(Uri uri) {
+        final Set<BaseSearchIndexProvider> providers = mDependents.remove(uri);
+        if (providers == null) {
+            return;
+        }
+        mGeneration++;
+        for (BaseSearchIndexProvider provider : providers) {
+            mEntries.remove(provider);
+        }
+    }
+
+    private Entry getEntry(BaseSearchIndexProvider provider) {
+        if (!provider.isPageSearchEnabled(mContext)) {
+            // The page is suppressed without creating its controllers.
+            return null;
+        }
+        final int generation;
+        synchronized (this) {
+            final Entry entry = mEntries.get(provider);
+            if (entry != null) {
+                return entry;
+            }
+            if (mUncacheable.contains(provider)) {
+                return null;
+            }
+            generation = mGeneration;
+        }
+
+        // Create the controllers once for the dependencies, the keys and the raw data.
+        final List<AbstractPreferenceController> controllers = isDefaultSearchData(provider)
+                ? provider.getPreferenceControllers(mContext) : null;
+        final List<Uri> dependencies = provider.getSearchIndexDependencies(mContext, controllers);
+        if (dependencies == null) {
+            synchronized (this) {
+                mUncacheable.add(provider);
+            }
+            return null;
+        }
+        final Entry entry;
+        if (controllers != null) {
+            entry = new Entry(provider.getNonIndexableKeys(mContext, controllers),
+                    provider.getDynamicRawDataToIndex(mContext, controllers));
+        } else {
+            entry = new Entry(provider.getNonIndexableKeys(mContext),
+                    provider.getDynamicRawDataToIndex(mContext, true /* enabled */));
+        }
+
+        synchronized (this) {
+            if (generation != mGeneration) {
+                // Invalidated while computing, the result may already be stale.
+                return entry;
+            }
+            mEntries.put(provider, entry);
+            for (Uri uri : dependencies) {
+                Set<BaseSearchIndexProvider> providers = mDependents.get(uri);
+                if (providers == null) {
+                    providers = new ArraySet<>();
+                    mDependents.put(uri, providers);
+                }
+                providers.add(provider);
+                if (mObservedUris.add(uri)) {
+                    mContext.getContentResolver().registerContentObserver(uri,
+                            false /* notifyForDescendants */, mObserver);
+                }
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * @return whether {@code provider} computes its search data from its controllers only, so
+     * they can be created once for both the non-indexable keys and the dynamic raw data.
+     */
+    private static boolean isDefaultSearchData(BaseSearchIndexProvider provider) {
+        try {
+            final Class<?> clazz = provider.getClass();
+            return clazz.getMethod("getNonIndexableKeys", Context.class).getDeclaringClass()
+                    == BaseSearchIndexProvider.class
+                    && clazz.getMethod("getDynamicRawDataToIndex", Context.class, boolean.class)
+                    .getDeclaringClass() == BaseSearchIndexProvider.class;
+        } catch (NoSuchMethodException e) {
+            Log.w(TAG, "Can't find the search data methods of " + provider, e);
+            return false;
+        }
+    }
+
+    private static final class Entry {
+        private final List<String> mNonIndexableKeys;
+        private final List<SearchIndexableRaw> mDynamicRaws;
+
+        Entry(List<String> nonIndexableKeys, List<SearchIndexableRaw> dynamicRaws) {
+            mNonIndexableKeys = nonIndexableKeys;
+            mDynamicRaws = dynamicRaws;
+        }
+    }
+}
@@ -0,0 +1,258 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.settings.search;
+
+import android.os.SystemClock;
+import android.util.ArrayMap;
+import android.util.Log;
+
+import androidx.annotation.VisibleForTesting;
+
+import com.android.settings.utils.DeadlineExecutor;
+import com.android.settingslib.search.SearchIndexableData;
+import com.android.settingslib.search.SearchIndexableRaw;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Collects the raw data of the search index providers concurrently, so a slow provider such as a
+ * device list doesn't hold up the raw data of the other pages.
+ *
+ * The raw data of the providers is merged in registry order. A provider missing the timeout
+ * gives the raw data it returned in the previous query of this collector and keeps running in
+ * the background to refresh it, as dropping its raw data would remove its entries from the
+ * index. The first query of a provider always waits for its raw data.
+ *
+ * The providers run on a pool of {@link #THREADS} threads, the others are queued. The timeout of
+ * each provider counts from the start of the query, so a provider queued behind slow ones falls
+ * back to its last raw data as well. The latency of each provider is kept for
+ * {@link com.android.settings.SettingsDumpService}.
+ *
+ * The providers were already queried concurrently from the binder threads of
+ * {@link SettingsSearchIndexablesProvider}, but the queries of one provider are serialized here,
+ * so its raw and dynamic raw data are never built at the same time.
+ */
+public class SearchIndexableRawCollector {
+    private static final String TAG = "SearchRawCollector";
+
+    /** Raw data which is indexed once, from {@code getRawDataToIndex}. */
+    static final String QUERY_RAW = "raw";
+    /** Raw data which is refreshed on every search, from {@code getDynamicRawDataToIndex}. */
+    static final String QUERY_DYNAMIC_RAW = "dynamic_raw";
+
+    @VisibleForTesting
+    static final long DEFAULT_TIMEOUT_MS = 1000;
+    @VisibleForTesting
+    static final int THREADS = 4;
+
+    private static final ExecutorService sExecutor = DeadlineExecutor.newExecutor(TAG, THREADS);
+    // Latency of each provider and query in this process, by name.
+    private static final Map<String, ProviderLatency> sLatencies = new ArrayMap<>();
+
+    private final long mTimeoutMs;
+    // Last raw data of each provider and query, by name.
+    private final Map<String, List<SearchIndexableRaw>> mLastRawData = new ArrayMap<>();
+    // Queries still running, by name, so a provider which keeps timing out isn't queued again.
+    private final Map<String, Future<List<SearchIndexableRaw>>> mRunning = new ArrayMap<>();
+    // Lock of each provider, by target class, held while the provider builds its raw data.
+    private final Map<Class<?>, Object> mProviderLocks = new ArrayMap<>();
+
+    /** Gets the raw data of one provider. */
+    interface RawDataSource {
+        List<SearchIndexableRaw> getRawData(SearchIndexableData bundle);
+    }
+
+    /** The latency of the queries of a provider. */
+    public static class ProviderLatency {
+        /** The name of the provider class, followed by the query. */
+        public final String name;
+        public int count;
+        public int timeouts;
+        public long totalMs;
+        public long maxMs;
+
+        ProviderLatency(String name) {
+            this.name = name;
+        }
+
+        ProviderLatency(ProviderLatency other) {
+            name = other.name;
+            count = other.count;
+            timeouts = other.timeouts;
+            totalMs = other.totalMs;
+            maxMs = other.maxMs;
+        }
+    }
+
+    SearchIndexableRawCollector() {
+        this(DEFAULT_TIMEOUT_MS);
+    }
+
+    @VisibleForTesting
+    SearchIndexableRawCollector(long timeoutMs) {
+        mTimeoutMs = timeoutMs;
+    }
+
+    /**
+     * Gets the raw data of all {@code bundles} from {@code source} concurrently, waiting up to
+     * the timeout for each of them.
+     *
+     * @return the raw data of the providers, in the order of {@code bundles}
+     */
+    List<SearchIndexableRaw> collect(String query, Collection<SearchIndexableData> bundles,
+            RawDataSource source) {
+        final long startMs = SystemClock.elapsedRealtime();
+        final List<String> names = new ArrayList<>(bundles.size());
+        final List<Future<List<SearchIndexableRaw>>> futures = new ArrayList<>(bundles.size());
+        for (SearchIndexableData bundle : bundles) {
+            final String name = bundle.getTargetClass().getName() + "/" + query;
+            names.add(name);
+            futures.add(submit(name, bundle, source));
+        }
+
+        final List<SearchIndexableRaw> rawList = new ArrayList<>();
+        for (int i = 0; i < futures.size(); i++) {
+            final String name = names.get(i);
+            final List<SearchIndexableRaw> lastRawData = getLastRawData(name);
+            List<SearchIndexableRaw> providerRaws;
+            if (lastRawData == null) {
+                providerRaws = DeadlineExecutor.awaitResult(futures.get(i), name);
+            } else {
+                try {
+                    providerRaws = DeadlineExecutor.await(futures.get(i), startMs + mTimeoutMs,
+                            false /* cancelOnTimeout */);
+                } catch (TimeoutException e) {
+                    Log.w(TAG, name + " timed out, using its last raw data");
+                    recordTimeout(name);
+                    providerRaws = lastRawData;
+                } catch (ExecutionException e) {
+                    final Throwable cause = e.getCause();
+                    if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    }
+                    throw new IllegalStateException(name + " failed", cause);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    providerRaws = lastRawData;
+                }
+            }
+            if (providerRaws != null) {
+                rawList.addAll(providerRaws);
+            }
+        }
+        return rawList;
+    }
+
+    /**
+     * @return a copy of the latency of all the providers queried so far in this process.
+     */
+    public static List<ProviderLatency> getProviderLatencies() {
+        synchronized (sLatencies) {
+            final List<ProviderLatency> latencies = new ArrayList<>(sLatencies.size());
+            for (ProviderLatency latency : sLatencies.values()) {
+                latencies.add(new ProviderLatency(latency));
+            }
+            return latencies;
+        }
+    }
+
+    @VisibleForTesting
+    static void clearProviderLatenciesForTest() {
+        synchronized (sLatencies) {
+            sLatencies.clear();
+        }
+    }
+
+    private Future<List<SearchIndexableRaw>> submit(String name, SearchIndexableData bundle,
+            RawDataSource source) {
+        synchronized (mRunning) {
+            Future<List<SearchIndexableRaw>> future = mRunning.get(name);
+            if (future == null || future.isDone()) {
+                future = sExecutor.submit(() -> getRawData(name, bundle, source));
+                mRunning.put(name, future);
+            }
+            return future;
+        }
+    }
+
+    private List<SearchIndexableRaw> getRawData(String name, SearchIndexableData bundle,
+            RawDataSource source) {
+        final long startMs = SystemClock.elapsedRealtime();
+        final List<SearchIndexableRaw> rawData;
+        synchronized (getProviderLock(bundle.getTargetClass())) {
+            rawData = source.getRawData(bundle);
+        }
+        recordLatency(name, SystemClock.elapsedRealtime() - startMs);
+        synchronized (mLastRawData) {
+            mLastRawData.put(name, rawData == null
+                    ? Collections.emptyList()
+                    : Collections.unmodifiableList(new ArrayList<>(rawData)));
+        }
+        return rawData;
+    }
+
+    private Object getProviderLock(Class<?> targetClass) {
+        synchronized (mProviderLocks) {
+            Object lock = mProviderLocks.get(targetClass);
+            if (lock == null) {
+                lock = new Object();
+                mProviderLocks.put(targetClass, lock);
+            }
+            return lock;
+        }
+    }
+
+    private List<SearchIndexableRaw> getLastRawData(String name) {
+        synchronized (mLastRawData) {
+            return mLastRawData.get(name);
+        }
+    }
+
+    private static void recordLatency(String name, long latencyMs) {
+        synchronized (sLatencies) {
+            final ProviderLatency latency = getLatencyLocked(name);
+            latency.count++;
+            latency.totalMs += latencyMs;
+            latency.maxMs = Math.max(latency.maxMs, latencyMs);
+        }
+        if (Log.isLoggable(TAG, Log.DEBUG)) {
+            Log.d(TAG, name + " took " + latencyMs + "ms");
+        }
+    }
+
+    private static void recordTimeout(String name) {
+        synchronized (sLatencies) {
+            getLatencyLocked(name).timeouts++;
+        }
+    }
+
+    private static ProviderLatency getLatencyLocked(String name) {
+        ProviderLatency latency = sLatencies.get(name);
+        if (latency == null) {
+            latency = new ProviderLatency(name);
+            sLatencies.put(name, latency);
+        }
+        return latency;
+    }
+}
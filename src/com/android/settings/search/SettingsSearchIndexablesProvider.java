@@ -100,6 +100,10 @@ public class SettingsSearchIndexablesProvider extends SearchIndexablesProvider {
     // Search enabled states for injection (key: category key, value: search enabled)
     private Map<String, Boolean> mSearchEnabledByCategoryKeyMap;
 
+    private SearchIndexableDataCache mSearchIndexableDataCache;
+
+    private final SearchIndexableRawCollector mRawCollector = new SearchIndexableRawCollector();
+
     static {
         INVALID_KEYS = new ArraySet<>();
         INVALID_KEYS.add(null);
@@ -109,6 +113,8 @@ public class SettingsSearchIndexablesProvider extends SearchIndexablesProvider {
     @Override
     public boolean onCreate() {
         mSearchEnabledByCategoryKeyMap = new ArrayMap<>();
+        mSearchIndexableDataCache = new SearchIndexableDataCache(getContext());
+        mSearchIndexableDataCache.register();
         return true;
     }
 
@@ -172,13 +178,13 @@ public class SettingsSearchIndexablesProvider extends SearchIndexablesProvider {
     @Override
     public Cursor queryDynamicRawData(String[] projection) {
         final Context context = getContext();
-        final List<SearchIndexableRaw> rawList = new ArrayList<>();
         final Collection<SearchIndexableData> bundles = FeatureFactory.getFactory(context)
                 .getSearchFeatureProvider().getSearchIndexableResources().getProviderValues();
+        final List<SearchIndexableRaw> rawList = mRawCollector.collect(
+                SearchIndexableRawCollector.QUERY_DYNAMIC_RAW, bundles,
+                bundle -> getDynamicSearchIndexableRawData(context, bundle));
 
         for (SearchIndexableData bundle : bundles) {
-            rawList.addAll(getDynamicSearchIndexableRawData(context, bundle));
-
             // Refresh the search enabled state for indexing injection raw data
             final Indexable.SearchIndexProvider provider = bundle.getSearchIndexProvider();
             if (provider instanceof BaseSearchIndexProvider) {
@@ -281,7 +287,7 @@ public class SettingsSearchIndexablesProvider extends SearchIndexablesProvider {
             Indexable.SearchIndexProvider provider = bundle.getSearchIndexProvider();
             List<String> providerNonIndexableKeys;
             try {
-                providerNonIndexableKeys = provider.getNonIndexableKeys(context);
+                providerNonIndexableKeys = getNonIndexableKeys(context, provider);
             } catch (Exception e) {
                 // Catch a generic crash. In the absence of the catch, the background thread will
                 // silently fail anyway, so we aren't losing information by catching the exception.
@@ -321,6 +327,18 @@ public class SettingsSearchIndexablesProvider extends SearchIndexablesProvider {
         return nonIndexableKeys;
     }
 
+    private List<String> getNonIndexableKeys(Context context,
+            Indexable.SearchIndexProvider provider) {
+        if (provider instanceof BaseSearchIndexProvider) {
+            final List<String> keys = mSearchIndexableDataCache.getNonIndexableKeys(
+                    (BaseSearchIndexProvider) provider);
+            if (keys != null) {
+                return keys;
+            }
+        }
+        return provider.getNonIndexableKeys(context);
+    }
+
     private List<SearchIndexableResource> getSearchIndexableResourcesFromProvider(Context context) {
         final Collection<SearchIndexableData> bundles = FeatureFactory.getFactory(context)
                 .getSearchFeatureProvider().getSearchIndexableResources().getProviderValues();
@@ -350,34 +368,38 @@ public class SettingsSearchIndexablesProvider extends SearchIndexablesProvider {
     private List<SearchIndexableRaw> getSearchIndexableRawFromProvider(Context context) {
         final Collection<SearchIndexableData> bundles = FeatureFactory.getFactory(context)
                 .getSearchFeatureProvider().getSearchIndexableResources().getProviderValues();
-        final List<SearchIndexableRaw> rawList = new ArrayList<>();
-
-        for (SearchIndexableData bundle : bundles) {
-            Indexable.SearchIndexProvider provider = bundle.getSearchIndexProvider();
-            final List<SearchIndexableRaw> providerRaws = provider.getRawDataToIndex(context,
-                    true /* enabled */);
-
-            if (providerRaws == null) {
-                continue;
-            }
-
-            for (SearchIndexableRaw raw : providerRaws) {
-                // The classname and intent information comes from the PreIndexData
-                // This will be more clear when provider conversion is done at PreIndex time.
-                raw.className = bundle.getTargetClass().getName();
+        return mRawCollector.collect(SearchIndexableRawCollector.QUERY_RAW, bundles,
+                bundle -> getSearchIndexableRawData(context, bundle));
+    }
 
-            }
-            rawList.addAll(providerRaws);
+    private List<SearchIndexableRaw> getSearchIndexableRawData(Context context,
+            SearchIndexableData bundle) {
+        final Indexable.SearchIndexProvider provider = bundle.getSearchIndexProvider();
+        final List<SearchIndexableRaw> providerRaws = provider.getRawDataToIndex(context,
+                true /* enabled */);
+        if (providerRaws == null) {
+            return null;
         }
 
-        return rawList;
+        for (SearchIndexableRaw raw : providerRaws) {
+            // The classname and intent information comes from the PreIndexData
+            // This will be more clear when provider conversion is done at PreIndex time.
+            raw.className = bundle.getTargetClass().getName();
+        }
+        return providerRaws;
     }
 
     private List<SearchIndexableRaw> getDynamicSearchIndexableRawData(Context context,
             SearchIndexableData bundle) {
         final Indexable.SearchIndexProvider provider = bundle.getSearchIndexProvider();
-        final List<SearchIndexableRaw> providerRaws =
-                provider.getDynamicRawDataToIndex(context, true /* enabled */);
+        List<SearchIndexableRaw> providerRaws = null;
+        if (provider instanceof BaseSearchIndexProvider) {
+            providerRaws = mSearchIndexableDataCache.getDynamicRawData(
+                    (BaseSearchIndexProvider) provider);
+        }
+        if (providerRaws == null) {
+            providerRaws = provider.getDynamicRawDataToIndex(context, true /* enabled */);
+        }
         if (providerRaws == null) {
             return new ArrayList<>();
         }
@@ -123,6 +123,27 @@ public class SliceData {
         return mIsPublicSlice;
     }
 
+    /**
+     * @return a SHA-256 fingerprint of every indexed field, used by {@link SlicesIndexer} to
+     * detect changed rows. Unlike {@link #hashCode()}, it is not limited to {@link #mKey}.
+     */
+    public String getFingerprint() {
+        return new SliceFingerprint()
+                .add(mKey)
+                .add(mTitle)
+                .add(mSummary)
+                .add(mScreenTitle)
+                .add(mKeywords)
+                .add(mIconResource)
+                .add(mFragmentClassName)
+                .add(mUri == null ? null : mUri.toString())
+                .add(mPreferenceController)
+                .add(mSliceType)
+                .add(mUnavailableSliceSubtitle)
+                .add(mIsPublicSlice)
+                .build();
+    }
+
     private SliceData(Builder builder) {
         mKey = builder.mKey;
         mTitle = builder.mTitle;
@@ -38,6 +38,8 @@ import android.os.Bundle;
 import android.provider.SearchIndexableResource;
 import android.provider.SettingsSlicesContract;
 import android.text.TextUtils;
+import android.util.ArrayMap;
+import android.util.ArraySet;
 import android.util.AttributeSet;
 import android.util.Log;
 import android.util.Xml;
@@ -66,6 +68,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -99,10 +102,28 @@ class SliceDataConverter {
      * {@link com.android.settings.core.BasePreferenceController}.
      */
     public List<SliceData> getSliceData() {
-        List<SliceData> sliceData = new ArrayList<>();
+        return getSliceData(Collections.emptyMap()).getSliceData();
+    }
+
+    /**
+     * Same as {@link #getSliceData()}, but skips the pages whose fingerprint didn't change since
+     * they were indexed, before their controllers are created.
+     *
+     * The fingerprint of a page covers its XML resources, with the controllers, keys and strings
+     * they declare in the current locale, and the version of Settings. What the controllers
+     * return is only checked again when one of them changes.
+     *
+     * @param indexedPageFingerprints fingerprints of the indexed pages, by fragment class name.
+     */
+    ConvertedSliceData getSliceData(Map<String, String> indexedPageFingerprints) {
+        final List<SliceData> sliceData = new ArrayList<>();
+        final Map<String, String> pageFingerprints = new ArrayMap<>();
+        final Set<String> skippedPages = new ArraySet<>();
+        int convertedPageCount = 0;
 
         final Collection<SearchIndexableData> bundles = FeatureFactory.getFactory(mContext)
                 .getSearchFeatureProvider().getSearchIndexableResources().getProviderValues();
+        final long versionCode = getVersionCode();
 
         for (SearchIndexableData bundle : bundles) {
             final String fragmentName = bundle.getTargetClass().getName();
@@ -115,29 +136,49 @@ class SliceDataConverter {
                 continue;
             }
 
-            final List<SliceData> providerSliceData = getSliceDataFromProvider(provider,
-                    fragmentName);
-            sliceData.addAll(providerSliceData);
+            final List<XmlPage> xmlPages = new ArrayList<>();
+            final boolean parsed = parseXmlFromProvider(provider, fragmentName, xmlPages);
+            // The accessibility services are indexed with this page and always converted, so its
+            // rows can't be kept.
+            if (parsed && !AccessibilitySettings.class.getName().equals(fragmentName)) {
+                final String fingerprint = getPageFingerprint(versionCode, fragmentName,
+                        xmlPages);
+                pageFingerprints.put(fragmentName, fingerprint);
+                if (fingerprint.equals(indexedPageFingerprints.get(fragmentName))) {
+                    skippedPages.add(fragmentName);
+                    continue;
+                }
+            }
+
+            for (XmlPage xmlPage : xmlPages) {
+                sliceData.addAll(getSliceDataFromXML(xmlPage, fragmentName));
+            }
+            convertedPageCount++;
         }
 
         final List<SliceData> a11ySliceData = getAccessibilitySliceData();
         sliceData.addAll(a11ySliceData);
-        return sliceData;
+        return new ConvertedSliceData(sliceData, pageFingerprints, skippedPages,
+                convertedPageCount);
     }
 
-    private List<SliceData> getSliceDataFromProvider(SearchIndexProvider provider,
-            String fragmentName) {
-        final List<SliceData> sliceData = new ArrayList<>();
-
+    /**
+     * Parses the XML resources of {@code provider} into {@code xmlPages}.
+     *
+     * @return {@code false} if one of them couldn't be parsed.
+     */
+    private boolean parseXmlFromProvider(SearchIndexProvider provider, String fragmentName,
+            List<XmlPage> xmlPages) {
         final List<SearchIndexableResource> resList =
                 provider.getXmlResourcesToIndex(mContext, true /* enabled */);
 
         if (resList == null) {
-            return sliceData;
+            return true;
         }
 
         // TODO (b/67996923) get a list of permanent NIKs and skip the invalid keys.
 
+        boolean parsed = true;
         for (SearchIndexableResource resource : resList) {
             int xmlResId = resource.xmlResId;
             if (xmlResId == 0) {
@@ -145,19 +186,20 @@ class SliceDataConverter {
                 continue;
             }
 
-            List<SliceData> xmlSliceData = getSliceDataFromXML(xmlResId, fragmentName);
-            sliceData.addAll(xmlSliceData);
+            final XmlPage xmlPage = parseXml(xmlResId, fragmentName);
+            if (xmlPage == null) {
+                parsed = false;
+                continue;
+            }
+            xmlPages.add(xmlPage);
         }
 
-        return sliceData;
+        return parsed;
     }
 
-    private List<SliceData> getSliceDataFromXML(int xmlResId, String fragmentName) {
+    private XmlPage parseXml(int xmlResId, String fragmentName) {
         XmlResourceParser parser = null;
 
-        final List<SliceData> xmlSliceData = new ArrayList<>();
-        String controllerClassName = "";
-
         try {
             parser = mContext.getResources().getXml(xmlResId);
 
@@ -190,7 +232,55 @@ class SliceDataConverter {
                             | MetadataFlag.FLAG_NEED_PREF_SUMMARY
                             | MetadataFlag.FLAG_UNAVAILABLE_SLICE_SUBTITLE);
 
-            for (Bundle bundle : metadata) {
+            return new XmlPage(xmlResId, screenTitle, metadata);
+        } catch (XmlPullParserException | IOException | Resources.NotFoundException e) {
+            Log.w(TAG, "Error parsing PreferenceScreen: ", e);
+            mMetricsFeatureProvider.action(SettingsEnums.PAGE_UNKNOWN,
+                    SettingsEnums.ACTION_VERIFY_SLICE_PARSING_ERROR,
+                    SettingsEnums.PAGE_UNKNOWN,
+                    fragmentName,
+                    1);
+        } catch (Exception e) {
+            Log.w(TAG, "Get slice data from XML failed ", e);
+            mMetricsFeatureProvider.action(SettingsEnums.PAGE_UNKNOWN,
+                    SettingsEnums.ACTION_VERIFY_SLICE_OTHER_EXCEPTION,
+                    SettingsEnums.PAGE_UNKNOWN,
+                    fragmentName + "_",
+                    1);
+        } finally {
+            if (parser != null) parser.close();
+        }
+        return null;
+    }
+
+    private String getPageFingerprint(long versionCode, String fragmentName,
+            List<XmlPage> xmlPages) {
+        final SliceFingerprint fingerprint = new SliceFingerprint()
+                .add(versionCode)
+                .add(fragmentName)
+                .add(xmlPages.size());
+        for (XmlPage xmlPage : xmlPages) {
+            fingerprint.add(xmlPage.mXmlResId)
+                    .add(xmlPage.mScreenTitle)
+                    .add(xmlPage.mMetadata.size());
+            for (Bundle bundle : xmlPage.mMetadata) {
+                fingerprint.add(bundle.getString(METADATA_KEY))
+                        .add(bundle.getString(METADATA_CONTROLLER))
+                        .add(bundle.getString(METADATA_TITLE))
+                        .add(bundle.getString(METADATA_SUMMARY))
+                        .add(bundle.getInt(METADATA_ICON))
+                        .add(bundle.getString(METADATA_UNAVAILABLE_SLICE_SUBTITLE));
+            }
+        }
+        return fingerprint.build();
+    }
+
+    private List<SliceData> getSliceDataFromXML(XmlPage xmlPage, String fragmentName) {
+        final List<SliceData> xmlSliceData = new ArrayList<>();
+        String controllerClassName = "";
+
+        try {
+            for (Bundle bundle : xmlPage.mMetadata) {
                 // TODO (b/67996923) Non-controller Slices should become intent-only slices.
                 // Note that without a controller, dynamic summaries are impossible.
                 controllerClassName = bundle.getString(METADATA_CONTROLLER);
@@ -220,7 +310,7 @@ class SliceDataConverter {
                         .setTitle(title)
                         .setSummary(summary)
                         .setIcon(iconResId)
-                        .setScreenTitle(screenTitle)
+                        .setScreenTitle(xmlPage.mScreenTitle)
                         .setPreferenceControllerClassName(controllerClassName)
                         .setFragmentName(fragmentName)
                         .setSliceType(sliceType)
@@ -237,13 +327,6 @@ class SliceDataConverter {
                     SettingsEnums.PAGE_UNKNOWN,
                     controllerClassName,
                     1);
-        } catch (XmlPullParserException | IOException | Resources.NotFoundException e) {
-            Log.w(TAG, "Error parsing PreferenceScreen: ", e);
-            mMetricsFeatureProvider.action(SettingsEnums.PAGE_UNKNOWN,
-                    SettingsEnums.ACTION_VERIFY_SLICE_PARSING_ERROR,
-                    SettingsEnums.PAGE_UNKNOWN,
-                    fragmentName,
-                    1);
         } catch (Exception e) {
             Log.w(TAG, "Get slice data from XML failed ", e);
             mMetricsFeatureProvider.action(SettingsEnums.PAGE_UNKNOWN,
@@ -251,8 +334,6 @@ class SliceDataConverter {
                     SettingsEnums.PAGE_UNKNOWN,
                     fragmentName + "_" + controllerClassName,
                     1);
-        } finally {
-            if (parser != null) parser.close();
         }
         return xmlSliceData;
     }
@@ -319,4 +400,76 @@ class SliceDataConverter {
                 mContext);
         return accessibilityManager.getInstalledAccessibilityServiceList();
     }
+
+    @VisibleForTesting
+    long getVersionCode() {
+        try {
+            return mContext.getPackageManager()
+                    .getPackageInfo(mContext.getPackageName(), 0 /* flags */)
+                    .getLongVersionCode();
+        } catch (PackageManager.NameNotFoundException e) {
+            Log.w(TAG, "Settings package not found", e);
+            return 0;
+        }
+    }
+
+    /**
+     * The result of {@link #getSliceData(Map)}.
+     */
+    static class ConvertedSliceData {
+        private final List<SliceData> mSliceData;
+        private final Map<String, String> mPageFingerprints;
+        private final Set<String> mSkippedPages;
+        private final int mConvertedPageCount;
+
+        ConvertedSliceData(List<SliceData> sliceData, Map<String, String> pageFingerprints,
+                Set<String> skippedPages, int convertedPageCount) {
+            mSliceData = sliceData;
+            mPageFingerprints = pageFingerprints;
+            mSkippedPages = skippedPages;
+            mConvertedPageCount = convertedPageCount;
+        }
+
+        /**
+         * @return the slice data of the converted pages and of the accessibility services.
+         */
+        List<SliceData> getSliceData() {
+            return mSliceData;
+        }
+
+        /**
+         * @return the fingerprints of the pages, by fragment class name. The pages that must be
+         * converted every time aren't included.
+         */
+        Map<String, String> getPageFingerprints() {
+            return mPageFingerprints;
+        }
+
+        /**
+         * @return the fragment class names of the skipped pages, whose indexed rows are still
+         * valid.
+         */
+        Set<String> getSkippedPages() {
+            return mSkippedPages;
+        }
+
+        int getConvertedPageCount() {
+            return mConvertedPageCount;
+        }
+    }
+
+    /**
+     * A parsed XML resource of a page.
+     */
+    private static class XmlPage {
+        private final int mXmlResId;
+        private final String mScreenTitle;
+        private final List<Bundle> mMetadata;
+
+        private XmlPage(int xmlResId, String screenTitle, List<Bundle> metadata) {
+            mXmlResId = xmlResId;
+            mScreenTitle = screenTitle;
+            mMetadata = metadata;
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.slices;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Builds the SHA-256 fingerprints {@link SlicesIndexer} compares with the indexed ones, to skip
+ * the pages and rows that didn't change.
+ *
+ * Values are added in order, strings are length-prefixed, so two different sequences of values
+ * don't produce the same input.
+ */
+class SliceFingerprint {
+
+    private final MessageDigest mDigest;
+
+    SliceFingerprint() {
+        try {
+            mDigest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform implements SHA-256.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    SliceFingerprint add(CharSequence value) {
+        if (value == null) {
+            mDigest.update((byte) 0);
+            return this;
+        }
+        final byte[] bytes = value.toString().getBytes(StandardCharsets.UTF_8);
+        mDigest.update((byte) 1);
+        add(bytes.length);
+        mDigest.update(bytes);
+        return this;
+    }
+
+    SliceFingerprint add(long value) {
+        for (int shift = Long.SIZE - Byte.SIZE; shift >= 0; shift -= Byte.SIZE) {
+            mDigest.update((byte) (value >>> shift));
+        }
+        return this;
+    }
+
+    SliceFingerprint add(boolean value) {
+        mDigest.update((byte) (value ? 1 : 0));
+        return this;
+    }
+
+    /**
+     * @return the fingerprint of the added values as a hex string. The builder can't be used
+     * afterwards.
+     */
+    String build() {
+        final byte[] digest = mDigest.digest();
+        final StringBuilder builder = new StringBuilder(digest.length * 2);
+        for (byte b : digest) {
+            builder.append(Character.forDigit((b >> 4) & 0xF, 16))
+                    .append(Character.forDigit(b & 0xF, 16));
+        }
+        return builder.toString();
+    }
+}
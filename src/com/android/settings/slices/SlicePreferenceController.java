@@ -33,6 +33,9 @@ import com.android.settingslib.core.lifecycle.LifecycleObserver;
 import com.android.settingslib.core.lifecycle.events.OnStart;
 import com.android.settingslib.core.lifecycle.events.OnStop;
 
+import java.util.Collections;
+import java.util.List;
+
 /**
  * Default {@link BasePreferenceController} for {@link SliceView}. It will take {@link Uri} for
  * Slice and display what's inside this {@link Uri}
@@ -61,6 +64,12 @@ public class SlicePreferenceController extends BasePreferenceController implemen
         return mUri != null ? AVAILABLE : UNSUPPORTED_ON_DEVICE;
     }
 
+    @Override
+    public List<Uri> getSearchIndexDependencies() {
+        // The slice is only set by the page.
+        return Collections.emptyList();
+    }
+
     public void setSliceUri(Uri uri) {
         mUri = uri;
         mLiveData = SliceLiveData.fromUri(mContext, mUri, (int type, Throwable source) -> {
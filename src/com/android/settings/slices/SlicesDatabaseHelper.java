@@ -17,14 +17,17 @@
 package com.android.settings.slices;
 
 import android.content.Context;
+import android.content.SharedPreferences;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
 import android.os.Build;
+import android.util.ArrayMap;
 import android.util.Log;
 
 import androidx.annotation.VisibleForTesting;
 
 import java.util.Locale;
+import java.util.Map;
 
 /**
  * Defines the schema for the Slices database.
@@ -35,11 +38,13 @@ public class SlicesDatabaseHelper extends SQLiteOpenHelper {
 
     private static final String DATABASE_NAME = "slices_index.db";
     private static final String SHARED_PREFS_TAG = "slices_shared_prefs";
+    private static final String STATS_SHARED_PREFS_TAG = "slices_index_stats";
 
-    private static final int DATABASE_VERSION = 8;
+    private static final int DATABASE_VERSION = 10;
 
     public interface Tables {
         String TABLE_SLICES_INDEX = "slices_index";
+        String TABLE_SLICES_PAGES = "slices_pages";
     }
 
     public interface IndexColumns {
@@ -103,6 +108,39 @@ public class SlicesDatabaseHelper extends SQLiteOpenHelper {
          * Whether the slice should be exposed publicly.
          */
         String PUBLIC_SLICE = "public_slice";
+
+        /**
+         * SHA-256 fingerprint of the indexed fields of the row, see
+         * {@link SliceData#getFingerprint()}.
+         */
+        String FINGERPRINT = "fingerprint";
+    }
+
+    public interface PageColumns {
+        /**
+         * Primary key of the table. Class name of the fragment of the page, the
+         * {@link IndexColumns#FRAGMENT} of its rows.
+         */
+        String FRAGMENT = "fragment";
+
+        /**
+         * SHA-256 fingerprint of what the rows of the page were converted from.
+         */
+        String FINGERPRINT = "fingerprint";
+    }
+
+    /**
+     * Stats of the last indexing of the slices, see {@link #getIndexingStats()}.
+     */
+    public interface IndexingStats {
+        String DURATION_MS = "duration_ms";
+        String CONVERSION_MS = "conversion_ms";
+        String PAGES_CONVERTED = "pages_converted";
+        String PAGES_SKIPPED = "pages_skipped";
+        String ROWS_INSERTED = "rows_inserted";
+        String ROWS_UPDATED = "rows_updated";
+        String ROWS_DELETED = "rows_deleted";
+        String ROWS_UNCHANGED = "rows_unchanged";
     }
 
     private static final String CREATE_SLICES_TABLE =
@@ -133,8 +171,21 @@ public class SlicesDatabaseHelper extends SQLiteOpenHelper {
                     +
                     IndexColumns.PUBLIC_SLICE
                     +
-                    " INTEGER DEFAULT 0 "
+                    " INTEGER DEFAULT 0, "
                     +
+                    IndexColumns.FINGERPRINT
+                    +
+                    " TEXT"
+                    +
+                    ");";
+
+    private static final String CREATE_PAGES_TABLE =
+            "CREATE TABLE " + Tables.TABLE_SLICES_PAGES +
+                    "(" +
+                    PageColumns.FRAGMENT +
+                    " TEXT PRIMARY KEY, " +
+                    PageColumns.FINGERPRINT +
+                    " TEXT NOT NULL" +
                     ");";
 
     private final Context mContext;
@@ -182,11 +233,16 @@ public class SlicesDatabaseHelper extends SQLiteOpenHelper {
 
     /**
      * Marks the current state of the device for the validity of the data. Should be called after
-     * a full index of the TABLE_SLICES_INDEX.
+     * the TABLE_SLICES_INDEX is brought up to date. Any previously indexed build or locale is
+     * forgotten.
      */
     public void setIndexedState() {
-        setBuildIndexed();
-        setLocaleIndexed();
+        mContext.getSharedPreferences(SHARED_PREFS_TAG, Context.MODE_PRIVATE)
+                .edit()
+                .clear()
+                .putBoolean(getBuildTag(), true /* value */)
+                .putBoolean(Locale.getDefault().toString(), true /* value */)
+                .apply();
     }
 
     /**
@@ -198,27 +254,42 @@ public class SlicesDatabaseHelper extends SQLiteOpenHelper {
         return isBuildIndexed() && isLocaleIndexed();
     }
 
+    /**
+     * Records the stats of the indexing that just brought the data up to date.
+     */
+    void setIndexingStats(Map<String, Long> stats) {
+        final SharedPreferences.Editor editor = mContext.getSharedPreferences(
+                STATS_SHARED_PREFS_TAG, Context.MODE_PRIVATE).edit().clear();
+        for (Map.Entry<String, Long> entry : stats.entrySet()) {
+            editor.putLong(entry.getKey(), entry.getValue());
+        }
+        editor.apply();
+    }
+
+    /**
+     * @return the stats of the last indexing, by {@link IndexingStats} key. Empty if the slices
+     * were never indexed.
+     */
+    public Map<String, Long> getIndexingStats() {
+        final Map<String, Long> stats = new ArrayMap<>();
+        for (Map.Entry<String, ?> entry : mContext.getSharedPreferences(STATS_SHARED_PREFS_TAG,
+                Context.MODE_PRIVATE).getAll().entrySet()) {
+            if (entry.getValue() instanceof Long) {
+                stats.put(entry.getKey(), (Long) entry.getValue());
+            }
+        }
+        return stats;
+    }
+
     private void createDatabases(SQLiteDatabase db) {
         db.execSQL(CREATE_SLICES_TABLE);
+        db.execSQL(CREATE_PAGES_TABLE);
         Log.d(TAG, "Created databases");
     }
 
     private void dropTables(SQLiteDatabase db) {
         db.execSQL("DROP TABLE IF EXISTS " + Tables.TABLE_SLICES_INDEX);
-    }
-
-    private void setBuildIndexed() {
-        mContext.getSharedPreferences(SHARED_PREFS_TAG, 0 /* mode */)
-                .edit()
-                .putBoolean(getBuildTag(), true /* value */)
-                .apply();
-    }
-
-    private void setLocaleIndexed() {
-        mContext.getSharedPreferences(SHARED_PREFS_TAG, Context.MODE_PRIVATE)
-                .edit()
-                .putBoolean(Locale.getDefault().toString(), true /* value */)
-                .apply();
+        db.execSQL("DROP TABLE IF EXISTS " + Tables.TABLE_SLICES_PAGES);
     }
 
     private boolean isBuildIndexed() {
@@ -18,7 +18,10 @@ package com.android.settings.slices;
 
 import android.content.ContentValues;
 import android.content.Context;
+import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
+import android.os.SystemClock;
+import android.util.ArrayMap;
 import android.util.Log;
 
 import androidx.annotation.VisibleForTesting;
@@ -26,10 +29,14 @@ import androidx.annotation.VisibleForTesting;
 import com.android.settings.core.BasePreferenceController;
 import com.android.settings.dashboard.DashboardFragment;
 import com.android.settings.overlay.FeatureFactory;
+import com.android.settings.slices.SliceDataConverter.ConvertedSliceData;
 import com.android.settings.slices.SlicesDatabaseHelper.IndexColumns;
+import com.android.settings.slices.SlicesDatabaseHelper.IndexingStats;
+import com.android.settings.slices.SlicesDatabaseHelper.PageColumns;
 import com.android.settings.slices.SlicesDatabaseHelper.Tables;
 
-import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Manages the conversion of {@link DashboardFragment} and {@link BasePreferenceController} to
@@ -58,7 +65,8 @@ class SlicesIndexer implements Runnable {
 
     /**
      * Synchronously takes data obtained from {@link SliceDataConverter} and indexes it into a
-     * SQLite database
+     * SQLite database. Pages whose fingerprint didn't change are not converted again, and only
+     * rows whose content changed since the last index are rewritten.
      */
     protected void indexSliceData() {
         if (mHelper.isSliceDataIndexed()) {
@@ -68,57 +76,154 @@ class SlicesIndexer implements Runnable {
 
         final SQLiteDatabase database = mHelper.getWritableDatabase();
 
-        long startTime = System.currentTimeMillis();
+        final Map<String, Long> stats = new ArrayMap<>();
+        final long startTime = SystemClock.elapsedRealtime();
         database.beginTransaction();
         try {
-            mHelper.reconstruct(database);
-            List<SliceData> indexData = getSliceData();
-            insertSliceData(database, indexData);
+            final ConvertedSliceData indexData =
+                    getSliceData(getIndexedPageFingerprints(database));
+            stats.put(IndexingStats.CONVERSION_MS, SystemClock.elapsedRealtime() - startTime);
+            updateSliceData(database, indexData, stats);
+            updatePageFingerprints(database, indexData.getPageFingerprints());
 
             mHelper.setIndexedState();
-
-            // TODO (b/71503044) Log indexing time.
-            Log.d(TAG,
-                    "Indexing slices database took: " + (System.currentTimeMillis() - startTime));
             database.setTransactionSuccessful();
         } finally {
             database.endTransaction();
         }
+        stats.put(IndexingStats.DURATION_MS, SystemClock.elapsedRealtime() - startTime);
+        mHelper.setIndexingStats(stats);
+        Log.d(TAG, "Indexing slices database: " + stats);
     }
 
     @VisibleForTesting
-    List<SliceData> getSliceData() {
+    ConvertedSliceData getSliceData(Map<String, String> indexedPageFingerprints) {
         return FeatureFactory.getFactory(mContext)
                 .getSlicesFeatureProvider()
                 .getSliceDataConverter(mContext)
-                .getSliceData();
+                .getSliceData(indexedPageFingerprints);
     }
 
+    /**
+     * Writes the difference between {@code indexData} and the stored rows: new and changed rows
+     * are (re)inserted, rows whose key no longer exists are deleted and identical rows are kept.
+     * The rows of the skipped pages are kept as they are.
+     */
     @VisibleForTesting
-    void insertSliceData(SQLiteDatabase database, List<SliceData> indexData) {
-        ContentValues values;
-
-        for (SliceData dataRow : indexData) {
-            values = new ContentValues();
-            values.put(IndexColumns.KEY, dataRow.getKey());
-            values.put(IndexColumns.SLICE_URI, dataRow.getUri().toSafeString());
-            values.put(IndexColumns.TITLE, dataRow.getTitle());
-            values.put(IndexColumns.SUMMARY, dataRow.getSummary());
-            final CharSequence screenTitle = dataRow.getScreenTitle();
-            if (screenTitle != null) {
-                values.put(IndexColumns.SCREENTITLE, screenTitle.toString());
+    void updateSliceData(SQLiteDatabase database, ConvertedSliceData indexData,
+            Map<String, Long> stats) {
+        final Map<String, String> storedFingerprints =
+                getStoredFingerprints(database, indexData.getSkippedPages());
+        long inserted = 0;
+        long updated = 0;
+        long unchanged = 0;
+
+        for (SliceData dataRow : indexData.getSliceData()) {
+            final String fingerprint = dataRow.getFingerprint();
+            if (storedFingerprints.containsKey(dataRow.getKey())) {
+                final String storedFingerprint = storedFingerprints.remove(dataRow.getKey());
+                if (fingerprint.equals(storedFingerprint)) {
+                    unchanged++;
+                    continue;
+                }
+                deleteSliceData(database, dataRow.getKey());
+                updated++;
+            } else {
+                inserted++;
             }
-            values.put(IndexColumns.KEYWORDS, dataRow.getKeywords());
-            values.put(IndexColumns.ICON_RESOURCE, dataRow.getIconResource());
-            values.put(IndexColumns.FRAGMENT, dataRow.getFragmentClassName());
-            values.put(IndexColumns.CONTROLLER, dataRow.getPreferenceController());
-            values.put(IndexColumns.SLICE_TYPE, dataRow.getSliceType());
-            values.put(IndexColumns.UNAVAILABLE_SLICE_SUBTITLE,
-                    dataRow.getUnavailableSliceSubtitle());
-            values.put(IndexColumns.PUBLIC_SLICE, dataRow.isPublicSlice());
-
             database.replaceOrThrow(Tables.TABLE_SLICES_INDEX, null /* nullColumnHack */,
+                    getContentValues(dataRow, fingerprint));
+        }
+
+        for (String staleKey : storedFingerprints.keySet()) {
+            deleteSliceData(database, staleKey);
+        }
+
+        stats.put(IndexingStats.PAGES_CONVERTED, (long) indexData.getConvertedPageCount());
+        stats.put(IndexingStats.PAGES_SKIPPED, (long) indexData.getSkippedPages().size());
+        stats.put(IndexingStats.ROWS_INSERTED, inserted);
+        stats.put(IndexingStats.ROWS_UPDATED, updated);
+        stats.put(IndexingStats.ROWS_DELETED, (long) storedFingerprints.size());
+        stats.put(IndexingStats.ROWS_UNCHANGED, unchanged);
+    }
+
+    private Map<String, String> getIndexedPageFingerprints(SQLiteDatabase database) {
+        final Map<String, String> fingerprints = new ArrayMap<>();
+        try (Cursor cursor = database.query(Tables.TABLE_SLICES_PAGES,
+                new String[]{PageColumns.FRAGMENT, PageColumns.FINGERPRINT},
+                null /* selection */, null /* selectionArgs */, null /* groupBy */,
+                null /* having */, null /* orderBy */)) {
+            while (cursor.moveToNext()) {
+                fingerprints.put(cursor.getString(0), cursor.getString(1));
+            }
+        }
+        return fingerprints;
+    }
+
+    private void updatePageFingerprints(SQLiteDatabase database,
+            Map<String, String> pageFingerprints) {
+        final Map<String, String> indexedFingerprints = getIndexedPageFingerprints(database);
+        for (Map.Entry<String, String> entry : pageFingerprints.entrySet()) {
+            if (entry.getValue().equals(indexedFingerprints.remove(entry.getKey()))) {
+                continue;
+            }
+            final ContentValues values = new ContentValues();
+            values.put(PageColumns.FRAGMENT, entry.getKey());
+            values.put(PageColumns.FINGERPRINT, entry.getValue());
+            database.replaceOrThrow(Tables.TABLE_SLICES_PAGES, null /* nullColumnHack */,
                     values);
         }
+
+        // Removed pages, and pages that can't be skipped anymore.
+        for (String fragment : indexedFingerprints.keySet()) {
+            database.delete(Tables.TABLE_SLICES_PAGES, PageColumns.FRAGMENT + " = ?",
+                    new String[]{fragment});
+        }
+    }
+
+    private Map<String, String> getStoredFingerprints(SQLiteDatabase database,
+            Set<String> skippedPages) {
+        final Map<String, String> fingerprints = new ArrayMap<>();
+        try (Cursor cursor = database.query(Tables.TABLE_SLICES_INDEX,
+                new String[]{IndexColumns.KEY, IndexColumns.FINGERPRINT, IndexColumns.FRAGMENT},
+                null /* selection */, null /* selectionArgs */, null /* groupBy */,
+                null /* having */, null /* orderBy */)) {
+            while (cursor.moveToNext()) {
+                final String key = cursor.getString(0);
+                if (key == null || skippedPages.contains(cursor.getString(2))) {
+                    continue;
+                }
+                // Rows without a fingerprint never match, so they are rewritten.
+                fingerprints.put(key, cursor.getString(1));
+            }
+        }
+        return fingerprints;
+    }
+
+    private void deleteSliceData(SQLiteDatabase database, String key) {
+        database.delete(Tables.TABLE_SLICES_INDEX, IndexColumns.KEY + " = ?",
+                new String[]{key});
+    }
+
+    private ContentValues getContentValues(SliceData dataRow, String fingerprint) {
+        final ContentValues values = new ContentValues();
+        values.put(IndexColumns.KEY, dataRow.getKey());
+        values.put(IndexColumns.SLICE_URI, dataRow.getUri().toSafeString());
+        values.put(IndexColumns.TITLE, dataRow.getTitle());
+        values.put(IndexColumns.SUMMARY, dataRow.getSummary());
+        final CharSequence screenTitle = dataRow.getScreenTitle();
+        if (screenTitle != null) {
+            values.put(IndexColumns.SCREENTITLE, screenTitle.toString());
+        }
+        values.put(IndexColumns.KEYWORDS, dataRow.getKeywords());
+        values.put(IndexColumns.ICON_RESOURCE, dataRow.getIconResource());
+        values.put(IndexColumns.FRAGMENT, dataRow.getFragmentClassName());
+        values.put(IndexColumns.CONTROLLER, dataRow.getPreferenceController());
+        values.put(IndexColumns.SLICE_TYPE, dataRow.getSliceType());
+        values.put(IndexColumns.UNAVAILABLE_SLICE_SUBTITLE,
+                dataRow.getUnavailableSliceSubtitle());
+        values.put(IndexColumns.PUBLIC_SLICE, dataRow.isPublicSlice());
+        values.put(IndexColumns.FINGERPRINT, fingerprint);
+        return values;
     }
-}
\ No newline at end of file
+}
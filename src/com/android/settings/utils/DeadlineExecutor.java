@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.utils;
+
+import android.os.SystemClock;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the background work a page waits for with a deadline, such as the battery tip detectors,
+ * the search index providers or the storage size queries.
+ *
+ * Each caller owns a bounded pool of named threads from {@link #newExecutor(String, int)}, so a
+ * call stuck in a system service of one page can't take the threads of another. The tasks
+ * submitted while all the threads are busy are queued. A task that misses its deadline is
+ * cancelled by {@link #await(Future, long, boolean)}, which interrupts it if it's running and
+ * skips it if it's still queued, so hung tasks don't pile up in the pool.
+ */
+public final class DeadlineExecutor {
+    private static final long KEEP_ALIVE_SECONDS = 10L;
+
+    private DeadlineExecutor() {
+    }
+
+    /**
+     * Creates a pool of at most {@code threads} threads named after {@code name}, queueing the
+     * tasks submitted while they are all busy. Idle threads are released after
+     * {@link #KEEP_ALIVE_SECONDS}, so the pool costs nothing while the page isn't used.
+     */
+    public static ExecutorService newExecutor(String name, int threads) {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads,
+                KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                new ThreadFactory() {
+                    private final AtomicInteger mCount = new AtomicInteger();
+
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        return new Thread(r, name + "-" + mCount.incrementAndGet());
+                    }
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Waits for {@code future} until {@code deadlineMs}.
+     *
+     * @param deadlineMs the deadline, in the {@link SystemClock#elapsedRealtime()} time base
+     * @param cancelOnTimeout whether to cancel and interrupt the task when it misses the deadline,
+     *                        otherwise it keeps running for the next caller
+     * @throws TimeoutException when the task missed the deadline
+     */
+    public static <T> T await(Future<T> future, long deadlineMs, boolean cancelOnTimeout)
+            throws TimeoutException, ExecutionException, InterruptedException {
+        final long remainingMs = deadlineMs - SystemClock.elapsedRealtime();
+        try {
+            return future.get(Math.max(remainingMs, 0), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            if (cancelOnTimeout) {
+                future.cancel(true /* mayInterruptIfRunning */);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Waits for {@code future} with no deadline, rethrowing the failure of the task unchecked.
+     *
+     * @param name the name of the task, for the error message
+     */
+    public static <T> T awaitResult(Future<T> future, String name) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(name + " failed", cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for " + name, e);
+        }
+    }
+}
@@ -18,13 +18,7 @@ package com.android.settings.wifi;
 
 import android.content.Context;
 import android.net.wifi.WifiManager;
-import android.os.Handler;
-import android.os.HandlerThread;
-import android.os.Looper;
 import android.os.PersistableBundle;
-import android.os.Process;
-import android.os.SimpleClock;
-import android.os.SystemClock;
 import android.telephony.CarrierConfigManager;
 import android.util.Log;
 
@@ -35,33 +29,18 @@ import androidx.lifecycle.LifecycleObserver;
 import androidx.lifecycle.OnLifecycleEvent;
 
 import com.android.internal.annotations.VisibleForTesting;
-import com.android.settings.overlay.FeatureFactory;
 import com.android.wifitrackerlib.MergedCarrierEntry;
 import com.android.wifitrackerlib.WifiEntry;
 import com.android.wifitrackerlib.WifiPickerTracker;
 
-import java.time.Clock;
-import java.time.ZoneOffset;
-
 public class WifiPickerTrackerHelper implements LifecycleObserver {
 
     private static final String TAG = "WifiPickerTrackerHelper";
 
-    // Max age of tracked WifiEntries
-    private static final long MAX_SCAN_AGE_MILLIS = 15_000;
-    // Interval between initiating WifiPickerTracker scans
-    private static final long SCAN_INTERVAL_MILLIS = 10_000;
-    // Clock used for evaluating the age of scans
-    private static final Clock ELAPSED_REALTIME_CLOCK = new SimpleClock(ZoneOffset.UTC) {
-        @Override
-        public long millis() {
-            return SystemClock.elapsedRealtime();
-        }
-    };
-
     protected WifiPickerTracker mWifiPickerTracker;
-    // Worker thread used for WifiPickerTracker work
-    protected HandlerThread mWorkerThread;
+    // Subscription to the WifiPickerTracker shared with the other helpers
+    private final WifiPickerTrackerHub mHub;
+    private final WifiPickerTrackerHub.Subscriber mSubscriber;
 
     protected final WifiManager mWifiManager;
     protected final CarrierConfigManager mCarrierConfigManager;
@@ -71,30 +50,31 @@ public class WifiPickerTrackerHelper implements LifecycleObserver {
         if (lifecycle == null) {
             throw new IllegalArgumentException("lifecycle must be non-null.");
         }
+        mHub = WifiPickerTrackerHub.getInstance(context);
+        mSubscriber = mHub.acquire(listener);
+        mWifiPickerTracker = mHub.getWifiPickerTracker();
         lifecycle.addObserver(this);
-        mWorkerThread = new HandlerThread(TAG
-                + "{" + Integer.toHexString(System.identityHashCode(this)) + "}",
-                Process.THREAD_PRIORITY_BACKGROUND);
-        mWorkerThread.start();
-
-        mWifiPickerTracker = FeatureFactory.getFactory(context)
-                .getWifiTrackerLibProvider()
-                .createWifiPickerTracker(lifecycle, context,
-                new Handler(Looper.getMainLooper()),
-                mWorkerThread.getThreadHandler(),
-                ELAPSED_REALTIME_CLOCK,
-                MAX_SCAN_AGE_MILLIS,
-                SCAN_INTERVAL_MILLIS,
-                listener);
 
         mWifiManager = context.getSystemService(WifiManager.class);
         mCarrierConfigManager = context.getSystemService(CarrierConfigManager.class);
     }
 
+    /** @OnLifecycleEvent(ON_START) */
+    @OnLifecycleEvent(Lifecycle.Event.ON_START)
+    public void onStart() {
+        mHub.start(mSubscriber);
+    }
+
+    /** @OnLifecycleEvent(ON_STOP) */
+    @OnLifecycleEvent(Lifecycle.Event.ON_STOP)
+    public void onStop() {
+        mHub.stop(mSubscriber);
+    }
+
     /** @OnLifecycleEvent(ON_DESTROY) */
     @OnLifecycleEvent(Lifecycle.Event.ON_DESTROY)
     public void onDestroy() {
-        mWorkerThread.quit();
+        mHub.release(mSubscriber);
     }
 
     /** Return the WifiPickerTracker class */
@@ -102,6 +82,22 @@ public class WifiPickerTrackerHelper implements LifecycleObserver {
         return mWifiPickerTracker;
     }
 
+    /**
+     * Listens to the updates of {@code wifiEntry}. The WifiEntries are shared with the other
+     * helpers while a WifiEntry has a single listener, so use this instead of
+     * {@link WifiEntry#setListener}, including after creating a preference which sets itself as
+     * the listener of its entry.
+     */
+    public void setWifiEntryListener(@NonNull WifiEntry wifiEntry,
+            @NonNull WifiEntry.WifiEntryCallback listener) {
+        mHub.setWifiEntryListener(mSubscriber, wifiEntry, listener);
+    }
+
+    /** Stops listening to the updates of the WifiEntries, before listening to a new list. */
+    public void clearWifiEntryListeners() {
+        mHub.removeWifiEntryListeners(mSubscriber);
+    }
+
     /** Return the enabled/disabled state of the carrier network provision */
     public boolean isCarrierNetworkProvisionEnabled(int subId) {
         final PersistableBundle config = mCarrierConfigManager.getConfigForSubId(subId);
@@ -158,9 +154,4 @@ public class WifiPickerTrackerHelper implements LifecycleObserver {
     void setWifiPickerTracker(@NonNull WifiPickerTracker wifiPickerTracker) {
         mWifiPickerTracker = wifiPickerTracker;
     }
-
-    @VisibleForTesting
-    void setWorkerThread(@NonNull HandlerThread workerThread) {
-        mWorkerThread = workerThread;
-    }
 }
@@ -0,0 +1,305 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.wifi;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Process;
+import android.os.SimpleClock;
+import android.os.SystemClock;
+import android.util.ArrayMap;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleOwner;
+import androidx.lifecycle.LifecycleRegistry;
+
+import com.android.settings.overlay.FeatureFactory;
+import com.android.wifitrackerlib.WifiEntry;
+import com.android.wifitrackerlib.WifiPickerTracker;
+
+import java.time.Clock;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Process wide {@link WifiPickerTracker} shared by the {@link WifiPickerTrackerHelper}s, so the
+ * screens and slices tracking Wi-Fi at the same time share one worker thread and one scan
+ * schedule.
+ *
+ * The tracker follows the lifecycle of the hub, which is started while at least one subscriber
+ * is started, and destroyed with its worker thread once the last subscriber is released. The
+ * tracker callbacks are forwarded to the started subscribers.
+ *
+ * The {@link WifiEntry}s are shared by the subscribers too, while a WifiEntry has a single
+ * listener. The hub sets itself as the listener of the entries the subscribers listen to, and
+ * forwards their updates to all of these subscribers.
+ */
+class WifiPickerTrackerHub implements LifecycleOwner,
+        WifiPickerTracker.WifiPickerTrackerCallback {
+
+    private static final String TAG = "WifiPickerTrackerHub";
+
+    // Max age of tracked WifiEntries
+    private static final long MAX_SCAN_AGE_MILLIS = 15_000;
+    // Interval between initiating WifiPickerTracker scans
+    private static final long SCAN_INTERVAL_MILLIS = 10_000;
+    // Clock used for evaluating the age of scans
+    private static final Clock ELAPSED_REALTIME_CLOCK = new SimpleClock(ZoneOffset.UTC) {
+        @Override
+        public long millis() {
+            return SystemClock.elapsedRealtime();
+        }
+    };
+
+    private static WifiPickerTrackerHub sInstance;
+
+    private final Context mContext;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private final List<Subscriber> mSubscribers = new ArrayList<>();
+    // Listeners of the shared WifiEntries, by WifiEntry key.
+    private final ArrayMap<String, EntryListeners> mEntryListeners = new ArrayMap<>();
+    private LifecycleRegistry mLifecycleRegistry;
+    // Worker thread used for WifiPickerTracker work
+    private HandlerThread mWorkerThread;
+    private WifiPickerTracker mWifiPickerTracker;
+    private int mStartedCount;
+
+    /** A user of the shared tracker, receiving its callbacks while started. */
+    static class Subscriber {
+        private final WifiPickerTracker.WifiPickerTrackerCallback mCallback;
+        private boolean mStarted;
+
+        private Subscriber(@Nullable WifiPickerTracker.WifiPickerTrackerCallback callback) {
+            mCallback = callback;
+        }
+    }
+
+    /** Forwards the updates of a shared {@link WifiEntry} to the listeners of the subscribers. */
+    private static class EntryListeners implements WifiEntry.WifiEntryCallback {
+        private final WifiEntry mWifiEntry;
+        private final Map<Subscriber, WifiEntry.WifiEntryCallback> mListeners = new ArrayMap<>();
+
+        private EntryListeners(WifiEntry wifiEntry) {
+            mWifiEntry = wifiEntry;
+        }
+
+        @Override
+        public void onUpdated() {
+            // A copy, as a listener may change the listeners.
+            for (WifiEntry.WifiEntryCallback listener : new ArrayList<>(mListeners.values())) {
+                listener.onUpdated();
+            }
+        }
+    }
+
+    static synchronized WifiPickerTrackerHub getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new WifiPickerTrackerHub(context.getApplicationContext());
+        }
+        return sInstance;
+    }
+
+    @VisibleForTesting
+    static synchronized void resetForTest() {
+        sInstance = null;
+    }
+
+    private WifiPickerTrackerHub(Context context) {
+        mContext = context;
+    }
+
+    @Override
+    public Lifecycle getLifecycle() {
+        return mLifecycleRegistry;
+    }
+
+    /**
+     * Subscribes to the shared tracker, creating it for the first subscriber.
+     */
+    @MainThread
+    Subscriber acquire(@Nullable WifiPickerTracker.WifiPickerTrackerCallback callback) {
+        if (mWorkerThread == null) {
+            mWorkerThread = new HandlerThread(TAG, Process.THREAD_PRIORITY_BACKGROUND);
+            mWorkerThread.start();
+            mLifecycleRegistry = new LifecycleRegistry(this);
+            mLifecycleRegistry.markState(Lifecycle.State.CREATED);
+        }
+        if (mWifiPickerTracker == null) {
+            mWifiPickerTracker = FeatureFactory.getFactory(mContext)
+                    .getWifiTrackerLibProvider()
+                    .createWifiPickerTracker(mLifecycleRegistry, mContext,
+                            mMainHandler,
+                            mWorkerThread.getThreadHandler(),
+                            ELAPSED_REALTIME_CLOCK,
+                            MAX_SCAN_AGE_MILLIS,
+                            SCAN_INTERVAL_MILLIS,
+                            this);
+        }
+        final Subscriber subscriber = new Subscriber(callback);
+        mSubscribers.add(subscriber);
+        return subscriber;
+    }
+
+    /** @return the shared tracker, while there is at least one subscriber. */
+    @NonNull
+    WifiPickerTracker getWifiPickerTracker() {
+        return mWifiPickerTracker;
+    }
+
+    /**
+     * Starts forwarding the callbacks to {@code subscriber}, starting the tracker if it is the
+     * first one started. A subscriber started while the tracker already runs gets the current
+     * state right away, as the tracker only reports it when it starts.
+     */
+    @MainThread
+    void start(Subscriber subscriber) {
+        if (subscriber.mStarted || !mSubscribers.contains(subscriber)) {
+            return;
+        }
+        subscriber.mStarted = true;
+        mStartedCount++;
+        if (mStartedCount == 1) {
+            mLifecycleRegistry.markState(Lifecycle.State.STARTED);
+        } else if (subscriber.mCallback != null) {
+            mMainHandler.post(() -> {
+                if (subscriber.mStarted) {
+                    subscriber.mCallback.onWifiStateChanged();
+                    subscriber.mCallback.onWifiEntriesChanged();
+                    subscriber.mCallback.onNumSavedNetworksChanged();
+                    subscriber.mCallback.onNumSavedSubscriptionsChanged();
+                }
+            });
+        }
+    }
+
+    /**
+     * Stops forwarding the callbacks to {@code subscriber}, stopping the tracker once no
+     * subscriber is started.
+     */
+    @MainThread
+    void stop(Subscriber subscriber) {
+        if (!subscriber.mStarted) {
+            return;
+        }
+        subscriber.mStarted = false;
+        mStartedCount--;
+        if (mStartedCount == 0) {
+            mLifecycleRegistry.markState(Lifecycle.State.CREATED);
+        }
+    }
+
+    /**
+     * Unsubscribes {@code subscriber}, destroying the tracker and its worker thread once no
+     * subscriber is left.
+     */
+    @MainThread
+    void release(Subscriber subscriber) {
+        stop(subscriber);
+        removeWifiEntryListeners(subscriber);
+        if (!mSubscribers.remove(subscriber) || !mSubscribers.isEmpty()) {
+            return;
+        }
+        mLifecycleRegistry.markState(Lifecycle.State.DESTROYED);
+        mWorkerThread.quit();
+        mWorkerThread = null;
+        mLifecycleRegistry = null;
+        mWifiPickerTracker = null;
+    }
+
+    /**
+     * Adds {@code listener} to the listeners of {@code wifiEntry}, replacing the one
+     * {@code subscriber} added before, and takes the listener of the entry back from whoever set
+     * it directly, like a new preference showing the entry.
+     */
+    @MainThread
+    void setWifiEntryListener(Subscriber subscriber, @NonNull WifiEntry wifiEntry,
+            @NonNull WifiEntry.WifiEntryCallback listener) {
+        if (!mSubscribers.contains(subscriber)) {
+            return;
+        }
+        final String key = wifiEntry.getKey();
+        EntryListeners entryListeners = mEntryListeners.get(key);
+        if (entryListeners == null || entryListeners.mWifiEntry != wifiEntry) {
+            // The tracker replaced the entry, the listeners of the old one are dropped.
+            entryListeners = new EntryListeners(wifiEntry);
+            mEntryListeners.put(key, entryListeners);
+        }
+        entryListeners.mListeners.put(subscriber, listener);
+        wifiEntry.setListener(entryListeners);
+    }
+
+    /** Removes the listeners {@code subscriber} added to the WifiEntries. */
+    @MainThread
+    void removeWifiEntryListeners(Subscriber subscriber) {
+        for (int i = mEntryListeners.size() - 1; i >= 0; i--) {
+            final EntryListeners entryListeners = mEntryListeners.valueAt(i);
+            entryListeners.mListeners.remove(subscriber);
+            if (entryListeners.mListeners.isEmpty()) {
+                entryListeners.mWifiEntry.setListener(null);
+                mEntryListeners.removeAt(i);
+            }
+        }
+    }
+
+    @Override
+    public void onWifiStateChanged() {
+        for (WifiPickerTracker.WifiPickerTrackerCallback callback : getStartedCallbacks()) {
+            callback.onWifiStateChanged();
+        }
+    }
+
+    @Override
+    public void onWifiEntriesChanged() {
+        for (WifiPickerTracker.WifiPickerTrackerCallback callback : getStartedCallbacks()) {
+            callback.onWifiEntriesChanged();
+        }
+    }
+
+    @Override
+    public void onNumSavedNetworksChanged() {
+        for (WifiPickerTracker.WifiPickerTrackerCallback callback : getStartedCallbacks()) {
+            callback.onNumSavedNetworksChanged();
+        }
+    }
+
+    @Override
+    public void onNumSavedSubscriptionsChanged() {
+        for (WifiPickerTracker.WifiPickerTrackerCallback callback : getStartedCallbacks()) {
+            callback.onNumSavedSubscriptionsChanged();
+        }
+    }
+
+    // A copy, as a callback may start or stop a subscriber.
+    private List<WifiPickerTracker.WifiPickerTrackerCallback> getStartedCallbacks() {
+        final List<WifiPickerTracker.WifiPickerTrackerCallback> callbacks =
+                new ArrayList<>(mStartedCount);
+        for (Subscriber subscriber : mSubscribers) {
+            if (subscriber.mStarted && subscriber.mCallback != null) {
+                callbacks.add(subscriber.mCallback);
+            }
+        }
+        return callbacks;
+    }
+}
@@ -16,6 +16,7 @@
 package com.android.settings.wifi;
 
 import android.content.Context;
+import android.net.Uri;
 
 import androidx.preference.PreferenceScreen;
 
@@ -32,6 +33,9 @@ import com.android.settingslib.core.lifecycle.events.OnResume;
 import com.android.settingslib.core.lifecycle.events.OnStart;
 import com.android.settingslib.core.lifecycle.events.OnStop;
 
+import java.util.Collections;
+import java.util.List;
+
 /**
  * PreferenceController to update the wifi state.
  */
@@ -66,6 +70,11 @@ public class WifiPrimarySwitchPreferenceController extends AbstractPreferenceCon
         return mContext.getResources().getBoolean(R.bool.config_show_wifi_settings);
     }
 
+    @Override
+    public List<Uri> getSearchIndexDependencies() {
+        return Collections.emptyList();
+    }
+
     @Override
     public String getPreferenceKey() {
         return KEY_TOGGLE_WIFI;
@@ -28,16 +28,12 @@ import android.content.Context;
 import android.content.DialogInterface;
 import android.content.Intent;
 import android.net.NetworkTemplate;
+import android.net.Uri;
 import android.net.wifi.WifiConfiguration;
 import android.net.wifi.WifiManager;
 import android.os.Bundle;
 import android.os.Handler;
-import android.os.HandlerThread;
-import android.os.Looper;
 import android.os.PowerManager;
-import android.os.Process;
-import android.os.SimpleClock;
-import android.os.SystemClock;
 import android.provider.Settings;
 import android.text.TextUtils;
 import android.util.FeatureFlagUtils;
@@ -64,7 +60,6 @@ import com.android.settings.core.SubSettingLauncher;
 import com.android.settings.datausage.DataUsagePreference;
 import com.android.settings.datausage.DataUsageUtils;
 import com.android.settings.location.WifiScanningFragment;
-import com.android.settings.overlay.FeatureFactory;
 import com.android.settings.search.BaseSearchIndexProvider;
 import com.android.settings.widget.MainSwitchBarController;
 import com.android.settings.wifi.details.WifiNetworkDetailsFragment;
@@ -80,8 +75,8 @@ import com.android.wifitrackerlib.WifiEntry;
 import com.android.wifitrackerlib.WifiEntry.ConnectCallback;
 import com.android.wifitrackerlib.WifiPickerTracker;
 
-import java.time.Clock;
-import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
@@ -107,11 +102,6 @@ public class WifiSettings extends RestrictedSettingsFragment
     static final int MENU_ID_MODIFY = Menu.FIRST + 4;
     static final int MENU_ID_SHARE = Menu.FIRST + 5;
 
-    // Max age of tracked WifiEntries
-    private static final long MAX_SCAN_AGE_MILLIS = 15_000;
-    // Interval between initiating WifiPickerTracker scans
-    private static final long SCAN_INTERVAL_MILLIS = 10_000;
-
     @VisibleForTesting
     static final int ADD_NETWORK_REQUEST = 2;
     static final int CONFIG_NETWORK_REQUEST = 3;
@@ -182,8 +172,8 @@ public class WifiSettings extends RestrictedSettingsFragment
 
     private WifiEnabler mWifiEnabler;
 
-    // Worker thread used for WifiPickerTracker work
-    private HandlerThread mWorkerThread;
+    // Subscription to the WifiPickerTracker shared with the other Wi-Fi screens
+    private WifiPickerTrackerHelper mWifiPickerTrackerHelper;
 
     @VisibleForTesting
     WifiPickerTracker mWifiPickerTracker;
@@ -275,25 +265,9 @@ public class WifiSettings extends RestrictedSettingsFragment
         super.onActivityCreated(savedInstanceState);
 
         final Context context = getContext();
-        mWorkerThread = new HandlerThread(TAG
-                + "{" + Integer.toHexString(System.identityHashCode(this)) + "}",
-                Process.THREAD_PRIORITY_BACKGROUND);
-        mWorkerThread.start();
-        final Clock elapsedRealtimeClock = new SimpleClock(ZoneOffset.UTC) {
-            @Override
-            public long millis() {
-                return SystemClock.elapsedRealtime();
-            }
-        };
-        mWifiPickerTracker = FeatureFactory.getFactory(context)
-                .getWifiTrackerLibProvider()
-                .createWifiPickerTracker(getSettingsLifecycle(), context,
-                        new Handler(Looper.getMainLooper()),
-                        mWorkerThread.getThreadHandler(),
-                        elapsedRealtimeClock,
-                        MAX_SCAN_AGE_MILLIS,
-                        SCAN_INTERVAL_MILLIS,
-                        this);
+        mWifiPickerTrackerHelper = new WifiPickerTrackerHelper(getSettingsLifecycle(), context,
+                this);
+        mWifiPickerTracker = mWifiPickerTrackerHelper.getWifiPickerTracker();
 
         final Activity activity = getActivity();
 
@@ -361,7 +335,12 @@ public class WifiSettings extends RestrictedSettingsFragment
         if (mWifiEnabler != null) {
             mWifiEnabler.teardownSwitchController();
         }
-        mWorkerThread.quit();
+        if (mWifiPickerTrackerHelper != null) {
+            // A new subscription is made when the view is created again.
+            getSettingsLifecycle().removeObserver(mWifiPickerTrackerHelper);
+            mWifiPickerTrackerHelper.onDestroy();
+            mWifiPickerTrackerHelper = null;
+        }
 
         super.onDestroyView();
     }
@@ -816,6 +795,7 @@ public class WifiSettings extends RestrictedSettingsFragment
             mWifiEntryPreferenceCategory.addPreference(pref);
         }
         removeCachedPrefs(mWifiEntryPreferenceCategory);
+        setWifiEntryListeners();
 
         if (!hasAvailableWifiEntries) {
             setProgressBarVisible(true);
@@ -835,6 +815,29 @@ public class WifiSettings extends RestrictedSettingsFragment
         setAdditionalSettingsSummaries();
     }
 
+    /**
+     * Listens to the entries of the shown preferences through {@link WifiPickerTrackerHelper}, as
+     * the entries are shared with the other Wi-Fi screens and a new preference sets itself as the
+     * only listener of its entry.
+     */
+    private void setWifiEntryListeners() {
+        if (mWifiPickerTrackerHelper == null) {
+            return;
+        }
+        mWifiPickerTrackerHelper.clearWifiEntryListeners();
+        for (PreferenceCategory category : Arrays.asList(mConnectedWifiEntryPreferenceCategory,
+                mWifiEntryPreferenceCategory)) {
+            for (int i = 0; i < category.getPreferenceCount(); i++) {
+                final Preference pref = category.getPreference(i);
+                if (pref instanceof LongPressWifiEntryPreference) {
+                    mWifiPickerTrackerHelper.setWifiEntryListener(
+                            ((LongPressWifiEntryPreference) pref).getWifiEntry(),
+                            (LongPressWifiEntryPreference) pref);
+                }
+            }
+        }
+    }
+
     private void launchNetworkDetailsFragment(LongPressWifiEntryPreference pref) {
         final WifiEntry wifiEntry = pref.getWifiEntry();
         final Context context = getContext();
@@ -1081,6 +1084,12 @@ public class WifiSettings extends RestrictedSettingsFragment
                     }
                     return keys;
                 }
+
+                @Override
+                public List<Uri> getSearchIndexDependencies(Context context) {
+                    // The saved networks are followed by the search index cache itself.
+                    return Collections.emptyList();
+                }
             };
 
     private class WifiEntryConnectCallback implements ConnectCallback {
@@ -55,6 +55,7 @@ import com.android.settings.SettingsActivity;
 import com.android.settings.SettingsPreferenceFragment;
 import com.android.settings.Utils;
 import com.android.settings.core.SubSettingLauncher;
+import com.android.settings.network.CarrierConfigCache;
 import com.android.settings.network.ims.WifiCallingQueryImsState;
 import com.android.settings.widget.SettingsMainSwitchBar;
 import com.android.settingslib.widget.OnMainSwitchChangeListener;
@@ -128,17 +129,13 @@ public class WifiCallingSettingsForSub extends SettingsPreferenceFragment
 
             boolean isWfcModeEditable = true;
             boolean isWfcRoamingModeEditable = false;
-            final CarrierConfigManager configManager = (CarrierConfigManager)
-                    activity.getSystemService(Context.CARRIER_CONFIG_SERVICE);
-            if (configManager != null) {
-                PersistableBundle b =
-                        configManager.getConfigForSubId(WifiCallingSettingsForSub.this.mSubId);
-                if (b != null) {
-                    isWfcModeEditable = b.getBoolean(
-                            CarrierConfigManager.KEY_EDITABLE_WFC_MODE_BOOL);
-                    isWfcRoamingModeEditable = b.getBoolean(
-                            CarrierConfigManager.KEY_EDITABLE_WFC_ROAMING_MODE_BOOL);
-                }
+            final PersistableBundle b = CarrierConfigCache.getConfigForSubId(activity,
+                    WifiCallingSettingsForSub.this.mSubId);
+            if (b != null) {
+                isWfcModeEditable = b.getBoolean(
+                        CarrierConfigManager.KEY_EDITABLE_WFC_MODE_BOOL);
+                isWfcRoamingModeEditable = b.getBoolean(
+                        CarrierConfigManager.KEY_EDITABLE_WFC_ROAMING_MODE_BOOL);
             }
 
             final Preference pref = getPreferenceScreen().findPreference(BUTTON_WFC_MODE);
@@ -343,23 +340,19 @@ public class WifiCallingSettingsForSub extends SettingsPreferenceFragment
             return;
         }
 
-        final CarrierConfigManager configManager = (CarrierConfigManager)
-                getSystemService(Context.CARRIER_CONFIG_SERVICE);
         boolean isWifiOnlySupported = true;
 
-        if (configManager != null) {
-            final PersistableBundle b = configManager.getConfigForSubId(mSubId);
-            if (b != null) {
-                mEditableWfcMode = b.getBoolean(
-                        CarrierConfigManager.KEY_EDITABLE_WFC_MODE_BOOL);
-                mEditableWfcRoamingMode = b.getBoolean(
-                        CarrierConfigManager.KEY_EDITABLE_WFC_ROAMING_MODE_BOOL);
-                mUseWfcHomeModeForRoaming = b.getBoolean(
-                        CarrierConfigManager.KEY_USE_WFC_HOME_NETWORK_MODE_IN_ROAMING_NETWORK_BOOL,
-                        false);
-                isWifiOnlySupported = b.getBoolean(
-                        CarrierConfigManager.KEY_CARRIER_WFC_SUPPORTS_WIFI_ONLY_BOOL, true);
-            }
+        final PersistableBundle b = CarrierConfigCache.getConfigForSubId(getActivity(), mSubId);
+        if (b != null) {
+            mEditableWfcMode = b.getBoolean(
+                    CarrierConfigManager.KEY_EDITABLE_WFC_MODE_BOOL);
+            mEditableWfcRoamingMode = b.getBoolean(
+                    CarrierConfigManager.KEY_EDITABLE_WFC_ROAMING_MODE_BOOL);
+            mUseWfcHomeModeForRoaming = b.getBoolean(
+                    CarrierConfigManager.KEY_USE_WFC_HOME_NETWORK_MODE_IN_ROAMING_NETWORK_BOOL,
+                    false);
+            isWifiOnlySupported = b.getBoolean(
+                    CarrierConfigManager.KEY_CARRIER_WFC_SUPPORTS_WIFI_ONLY_BOOL, true);
         }
 
         final Resources res = getResourcesForSubId();
@@ -492,11 +485,8 @@ public class WifiCallingSettingsForSub extends SettingsPreferenceFragment
      */
     private Intent getCarrierActivityIntent() {
         // Retrive component name from carrier config
-        final CarrierConfigManager configManager =
-                getActivity().getSystemService(CarrierConfigManager.class);
-        if (configManager == null) return null;
-
-        final PersistableBundle bundle = configManager.getConfigForSubId(mSubId);
+        final PersistableBundle bundle =
+                CarrierConfigCache.getConfigForSubId(getActivity(), mSubId);
         if (bundle == null) return null;
 
         final String carrierApp = bundle.getString(
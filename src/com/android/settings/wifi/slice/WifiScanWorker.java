@@ -152,9 +152,10 @@ public class WifiScanWorker extends SliceBackgroundWorker<WifiSliceItem> impleme
         }
 
         final List<WifiSliceItem> resultList = new ArrayList<>();
+        mWifiPickerTrackerHelper.clearWifiEntryListeners();
         final WifiEntry connectedWifiEntry = mWifiPickerTracker.getConnectedWifiEntry();
         if (connectedWifiEntry != null) {
-            connectedWifiEntry.setListener(this);
+            mWifiPickerTrackerHelper.setWifiEntryListener(connectedWifiEntry, this);
             resultList.add(new WifiSliceItem(getContext(), connectedWifiEntry));
         }
         for (WifiEntry wifiEntry : mWifiPickerTracker.getWifiEntries()) {
@@ -162,7 +163,7 @@ public class WifiScanWorker extends SliceBackgroundWorker<WifiSliceItem> impleme
                 break;
             }
             if (wifiEntry.getLevel() != WifiEntry.WIFI_LEVEL_UNREACHABLE) {
-                wifiEntry.setListener(this);
+                mWifiPickerTrackerHelper.setWifiEntryListener(wifiEntry, this);
                 resultList.add(new WifiSliceItem(getContext(), wifiEntry));
             }
         }
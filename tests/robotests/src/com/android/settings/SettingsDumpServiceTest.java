@@ -32,6 +32,9 @@ import android.content.pm.ResolveInfo;
 import androidx.annotation.NonNull;
 
 import com.android.settings.fuelgauge.batterytip.AnomalyConfigJobService;
+import com.android.settings.fuelgauge.batterytip.BatteryTipDetectorPipeline;
+import com.android.settings.search.SearchIndexableRawCollector;
+import com.android.settings.slices.SlicesDatabaseHelper;
 
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -101,6 +104,33 @@ public class SettingsDumpServiceTest {
                 ANOMALY_VERSION);
     }
 
+    @Test
+    public void testDumpBatteryTipDetectors_returnLatencyBuckets() throws JSONException {
+        final JSONObject jsonObject = mTestService.dumpBatteryTipDetectors();
+
+        assertThat(jsonObject.getJSONArray("latency_buckets_ms").length()).isEqualTo(
+                BatteryTipDetectorPipeline.LATENCY_BUCKETS_MS.length);
+        assertThat(jsonObject.getJSONObject("latency")).isNotNull();
+    }
+
+    @Test
+    public void testDumpSearchProviders_returnObject() throws JSONException {
+        final JSONObject jsonObject = mTestService.dumpSearchProviders();
+
+        assertThat(jsonObject.length()).isEqualTo(
+                SearchIndexableRawCollector.getProviderLatencies().size());
+    }
+
+    @Test
+    public void testDumpSlicesIndex_returnIndexingStats() throws JSONException {
+        doReturn(RuntimeEnvironment.application).when(mTestService).getApplicationContext();
+
+        final JSONObject jsonObject = mTestService.dumpSlicesIndex();
+
+        assertThat(jsonObject.length()).isEqualTo(SlicesDatabaseHelper
+                .getInstance(RuntimeEnvironment.application).getIndexingStats().size());
+    }
+
     @Test
     public void testDump_ReturnJsonObject() throws JSONException {
         mResolveInfo.activityInfo = new ActivityInfo();
@@ -0,0 +1,197 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.applications;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import android.content.pm.ApplicationInfo;
+import android.os.Looper;
+
+import com.android.settingslib.applications.ApplicationsState;
+import com.android.settingslib.applications.ApplicationsState.AppEntry;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(RobolectricTestRunner.class)
+public class AppStateBaseBridgeTest {
+
+    @Mock
+    private ApplicationsState mAppState;
+    @Mock
+    private ApplicationsState.Session mSession;
+    @Mock
+    private AppStateBaseBridge.Callback mCallback;
+
+    private ArrayList<AppEntry> mApps;
+    private TestBridge mBridge;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        ShadowLooper.pauseMainLooper();
+        mApps = new ArrayList<>();
+        when(mAppState.newSession(any())).thenReturn(mSession);
+        when(mAppState.getBackgroundLooper()).thenReturn(Looper.getMainLooper());
+        when(mSession.getAllApps()).thenAnswer(invocation -> new ArrayList<>(mApps));
+        mBridge = new TestBridge(mAppState, mCallback);
+        mApps.add(createAppEntry("pkg1", 1001));
+        mApps.add(createAppEntry("pkg2", 1002));
+    }
+
+    @Test
+    public void resume_loadAll() {
+        mBridge.resume();
+        ShadowLooper.idleMainLooper();
+
+        assertThat(mBridge.mLoadAllCount).isEqualTo(1);
+    }
+
+    @Test
+    public void onPackageListChanged_calledRepeatedly_loadOnceAfterDebounce() {
+        mBridge.onPackageListChanged();
+        mBridge.onPackageListChanged();
+        mBridge.onLoadEntriesCompleted();
+        ShadowLooper.idleMainLooper();
+
+        assertThat(mBridge.mUpdatedPackages).isEmpty();
+
+        ShadowLooper.idleMainLooper(AppStateBaseBridge.LOAD_DEBOUNCE_MS, TimeUnit.MILLISECONDS);
+
+        assertThat(mBridge.mUpdatedPackages).containsExactly("pkg1", "pkg2");
+    }
+
+    @Test
+    public void onPackageListChanged_fullLoadPending_onlyLoadAll() {
+        mBridge.resume();
+        mBridge.onPackageListChanged();
+        ShadowLooper.idleMainLooper(AppStateBaseBridge.LOAD_DEBOUNCE_MS, TimeUnit.MILLISECONDS);
+
+        assertThat(mBridge.mLoadAllCount).isEqualTo(1);
+        assertThat(mBridge.mUpdatedPackages).isEmpty();
+    }
+
+    @Test
+    public void onPackageListChanged_afterLoad_onlyLoadNewApps() {
+        mBridge.resume();
+        ShadowLooper.idleMainLooper();
+
+        mApps.add(createAppEntry("pkg3", 1003));
+        mBridge.onPackageListChanged();
+        ShadowLooper.idleMainLooper(AppStateBaseBridge.LOAD_DEBOUNCE_MS, TimeUnit.MILLISECONDS);
+
+        assertThat(mBridge.mUpdatedPackages).containsExactly("pkg3");
+    }
+
+    @Test
+    public void onPackageListChanged_applicationInfoRebuilt_noLoad() {
+        mBridge.resume();
+        ShadowLooper.idleMainLooper();
+
+        mApps.clear();
+        mApps.add(createAppEntry("pkg1", 1001));
+        mApps.add(createAppEntry("pkg2", 1002));
+        mBridge.onPackageListChanged();
+        ShadowLooper.idleMainLooper(AppStateBaseBridge.LOAD_DEBOUNCE_MS, TimeUnit.MILLISECONDS);
+
+        assertThat(mBridge.mUpdatedPackages).isEmpty();
+        assertThat(mBridge.mLoadAllCount).isEqualTo(1);
+    }
+
+    @Test
+    public void onPackageListChanged_appUpdated_loadUpdatedApp() {
+        mBridge.resume();
+        ShadowLooper.idleMainLooper();
+
+        mApps.set(0, createAppEntry("pkg1", 1001));
+        mApps.get(0).info.longVersionCode = 2;
+        mBridge.onPackageListChanged();
+        ShadowLooper.idleMainLooper(AppStateBaseBridge.LOAD_DEBOUNCE_MS, TimeUnit.MILLISECONDS);
+
+        assertThat(mBridge.mUpdatedPackages).containsExactly("pkg1");
+    }
+
+    @Test
+    public void onPackageListChanged_appReinstalledWithSameVersion_loadReinstalledApp() {
+        mBridge.resume();
+        ShadowLooper.idleMainLooper();
+
+        mApps.set(1, createAppEntry("pkg2", 1002));
+        mApps.get(1).info.sourceDir = "/data/app/pkg2-2/base.apk";
+        mBridge.onPackageListChanged();
+        ShadowLooper.idleMainLooper(AppStateBaseBridge.LOAD_DEBOUNCE_MS, TimeUnit.MILLISECONDS);
+
+        assertThat(mBridge.mUpdatedPackages).containsExactly("pkg2");
+    }
+
+    @Test
+    public void onPackageListChanged_tooManyNewApps_loadAll() {
+        mBridge.resume();
+        ShadowLooper.idleMainLooper();
+
+        for (int i = 0; i <= AppStateBaseBridge.MAX_INCREMENTAL_LOAD_COUNT; i++) {
+            mApps.add(createAppEntry("new" + i, 2000 + i));
+        }
+        mBridge.onPackageListChanged();
+        ShadowLooper.idleMainLooper(AppStateBaseBridge.LOAD_DEBOUNCE_MS, TimeUnit.MILLISECONDS);
+
+        assertThat(mBridge.mUpdatedPackages).isEmpty();
+        assertThat(mBridge.mLoadAllCount).isEqualTo(2);
+    }
+
+    private static AppEntry createAppEntry(String packageName, int uid) {
+        final AppEntry appEntry = mock(AppEntry.class);
+        appEntry.info = new ApplicationInfo();
+        appEntry.info.packageName = packageName;
+        appEntry.info.uid = uid;
+        appEntry.info.longVersionCode = 1;
+        appEntry.info.sourceDir = "/data/app/" + packageName + "-1/base.apk";
+        return appEntry;
+    }
+
+    private static class TestBridge extends AppStateBaseBridge {
+        private int mLoadAllCount;
+        private final List<String> mUpdatedPackages = new ArrayList<>();
+
+        TestBridge(ApplicationsState appState, Callback callback) {
+            super(appState, callback);
+        }
+
+        @Override
+        protected void loadAllExtraInfo() {
+            mLoadAllCount++;
+        }
+
+        @Override
+        protected void updateExtraInfo(AppEntry app, String pkg, int uid) {
+            mUpdatedPackages.add(pkg);
+        }
+    }
+}
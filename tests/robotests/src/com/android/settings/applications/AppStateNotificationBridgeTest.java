@@ -17,6 +17,7 @@
 package com.android.settings.applications;
 
 import static android.text.format.DateUtils.DAY_IN_MILLIS;
+import static android.text.format.DateUtils.HOUR_IN_MILLIS;
 
 import static com.android.settings.applications.AppStateNotificationBridge
         .FILTER_APP_NOTIFICATION_BLOCKED;
@@ -38,6 +39,7 @@ import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.longThat;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -59,9 +61,11 @@ import android.widget.Switch;
 import com.android.settings.R;
 import com.android.settings.applications.AppStateNotificationBridge.NotificationsSentState;
 import com.android.settings.notification.NotificationBackend;
+import com.android.settings.testutils.DatabaseTestUtils;
 import com.android.settingslib.applications.ApplicationsState;
 import com.android.settingslib.applications.ApplicationsState.AppEntry;
 
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -71,8 +75,10 @@ import org.robolectric.RobolectricTestRunner;
 import org.robolectric.RuntimeEnvironment;
 
 import java.util.ArrayList;
+import java.util.Calendar;
 import java.util.List;
 import java.util.Map;
+import java.util.TimeZone;
 
 @RunWith(RobolectricTestRunner.class)
 public class AppStateNotificationBridgeTest {
@@ -108,6 +114,11 @@ public class AppStateNotificationBridgeTest {
                 mock(AppStateBaseBridge.Callback.class), mUsageStats, mUserManager, mBackend);
     }
 
+    @After
+    public void tearDown() {
+        DatabaseTestUtils.clearDb(mContext);
+    }
+
     private AppEntry getMockAppEntry(String pkg) {
         AppEntry entry = mock(AppEntry.class);
         entry.info = mock(ApplicationInfo.class);
@@ -203,6 +214,159 @@ public class AppStateNotificationBridgeTest {
         assertThat(map.get(AppStateNotificationBridge.getKey(0, PKG2)).lastSent).isEqualTo(1);
     }
 
+    @Test
+    public void testGetAggregatedUsageEvents_secondLoad_onlyQueriesNewEvents() throws Exception {
+        final long firstLoadTime = System.currentTimeMillis();
+        List<Event> firstEvents = new ArrayList<>();
+        Event good = new Event();
+        good.mEventType = Event.NOTIFICATION_INTERRUPTION;
+        good.mPackage = PKG1;
+        good.mTimeStamp = firstLoadTime - 2000;
+        firstEvents.add(good);
+        List<Event> secondEvents = new ArrayList<>();
+        Event good1 = new Event();
+        good1.mEventType = Event.NOTIFICATION_INTERRUPTION;
+        good1.mPackage = PKG1;
+        good1.mTimeStamp = firstLoadTime - 1000;
+        secondEvents.add(good1);
+
+        when(mUsageStats.queryEventsForUser(anyLong(), anyLong(), anyInt(), anyString()))
+                .thenReturn(getUsageEvents(firstEvents), getUsageEvents(secondEvents));
+
+        mBridge.getAggregatedUsageEvents();
+        Map<String, NotificationsSentState> map = mBridge.getAggregatedUsageEvents();
+
+        verify(mUsageStats).queryEventsForUser(longThat(start -> start >= firstLoadTime),
+                anyLong(), eq(0), anyString());
+        assertThat(map.get(AppStateNotificationBridge.getKey(0, PKG1)).sentCount).isEqualTo(2);
+        assertThat(map.get(AppStateNotificationBridge.getKey(0, PKG1)).lastSent)
+                .isEqualTo(firstLoadTime - 1000);
+    }
+
+    @Test
+    public void testGetAggregatedUsageEvents_daysOutsideWindow_dropped() throws Exception {
+        List<Event> events = new ArrayList<>();
+        Event good = new Event();
+        good.mEventType = Event.NOTIFICATION_INTERRUPTION;
+        good.mPackage = PKG1;
+        good.mTimeStamp = System.currentTimeMillis() - 10 * DAY_IN_MILLIS;
+        events.add(good);
+
+        when(mUsageStats.queryEventsForUser(anyLong(), anyLong(), anyInt(), anyString()))
+                .thenReturn(getUsageEvents(events), mock(UsageEvents.class));
+
+        mBridge.getAggregatedUsageEvents();
+
+        assertThat(mBridge.getAggregatedUsageEvents()).isEmpty();
+    }
+
+    @Test
+    public void testGetAggregatedUsageEvents_firstLoad_queriesFromWindowStart() throws Exception {
+        when(mUsageStats.queryEventsForUser(anyLong(), anyLong(), anyInt(), anyString()))
+                .thenReturn(mock(UsageEvents.class));
+        final long now = System.currentTimeMillis();
+
+        mBridge.getAggregatedUsageEvents();
+
+        verify(mUsageStats).queryEventsForUser(
+                eq(NotificationsSentDatabaseHelper.getWindowStart(now)), anyLong(), eq(0),
+                anyString());
+    }
+
+    @Test
+    public void testGetWindowStart_coversFullDaysToCheckAndToday() {
+        final long now = System.currentTimeMillis();
+        final long windowStart = NotificationsSentDatabaseHelper.getWindowStart(now);
+        final Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(windowStart);
+
+        assertThat(calendar.get(Calendar.HOUR_OF_DAY)).isEqualTo(0);
+        assertThat(calendar.get(Calendar.MINUTE)).isEqualTo(0);
+        // A daylight saving time change moves the midnights by an hour.
+        assertThat(now - windowStart).isAtLeast(
+                NotificationsSentDatabaseHelper.DAYS_TO_CHECK * DAY_IN_MILLIS - HOUR_IN_MILLIS);
+        assertThat(now - windowStart).isLessThan(
+                (NotificationsSentDatabaseHelper.DAYS_TO_CHECK + 1) * DAY_IN_MILLIS
+                        + HOUR_IN_MILLIS);
+        assertThat(NotificationsSentDatabaseHelper.getWindowDays(now))
+                .isWithin(0.001f).of((float) (now - windowStart) / DAY_IN_MILLIS);
+    }
+
+    @Test
+    public void testGetAggregatedUsageEvents_localDayBeforeWindow_dropped() throws Exception {
+        final TimeZone timeZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("America/Los_Angeles"));
+        try {
+            final long windowStart =
+                    NotificationsSentDatabaseHelper.getWindowStart(System.currentTimeMillis());
+            List<Event> events = new ArrayList<>();
+            Event before = new Event();
+            before.mEventType = Event.NOTIFICATION_INTERRUPTION;
+            before.mPackage = PKG1;
+            // Same UTC day as the window start, but the local day before it.
+            before.mTimeStamp = windowStart - HOUR_IN_MILLIS;
+            events.add(before);
+            Event inside = new Event();
+            inside.mEventType = Event.NOTIFICATION_INTERRUPTION;
+            inside.mPackage = PKG1;
+            inside.mTimeStamp = windowStart + HOUR_IN_MILLIS;
+            events.add(inside);
+            when(mUsageStats.queryEventsForUser(anyLong(), anyLong(), anyInt(), anyString()))
+                    .thenReturn(getUsageEvents(events), mock(UsageEvents.class));
+
+            mBridge.getAggregatedUsageEvents();
+            Map<String, NotificationsSentState> map = mBridge.getAggregatedUsageEvents();
+
+            assertThat(map.get(AppStateNotificationBridge.getKey(0, PKG1)).sentCount)
+                    .isEqualTo(1);
+        } finally {
+            TimeZone.setDefault(timeZone);
+        }
+    }
+
+    @Test
+    public void testLoadAllExtraInfo_removedPackage_purged() throws RemoteException {
+        List<Event> events = new ArrayList<>();
+        Event good = new Event();
+        good.mEventType = Event.NOTIFICATION_INTERRUPTION;
+        good.mPackage = PKG1;
+        good.mTimeStamp = System.currentTimeMillis();
+        events.add(good);
+        when(mUsageStats.queryEventsForUser(anyLong(), anyLong(), anyInt(), anyString()))
+                .thenReturn(getUsageEvents(events));
+        when(mSession.getAllApps()).thenReturn(new ArrayList<>());
+
+        mBridge.loadAllExtraInfo();
+
+        assertThat(NotificationsSentDatabaseHelper.getInstance(mContext).getPackages(0))
+                .isEmpty();
+    }
+
+    @Test
+    public void testLoadAllExtraInfo_removedUser_purged() throws RemoteException {
+        List<Event> events = new ArrayList<>();
+        Event good = new Event();
+        good.mEventType = Event.NOTIFICATION_INTERRUPTION;
+        good.mPackage = PKG1;
+        good.mTimeStamp = System.currentTimeMillis();
+        events.add(good);
+        final long now = System.currentTimeMillis();
+        final NotificationsSentDatabaseHelper helper =
+                NotificationsSentDatabaseHelper.getInstance(mContext);
+        helper.mergeEvents(10, getUsageEvents(events),
+                NotificationsSentDatabaseHelper.getWindowStart(now), now);
+        when(mUsageStats.queryEventsForUser(anyLong(), anyLong(), anyInt(), anyString()))
+                .thenReturn(mock(UsageEvents.class));
+        ArrayList<AppEntry> apps = new ArrayList<>();
+        apps.add(getMockAppEntry(PKG1));
+        when(mSession.getAllApps()).thenReturn(apps);
+
+        mBridge.loadAllExtraInfo();
+
+        assertThat(helper.getPackages(10)).isEmpty();
+        assertThat(helper.getCheckpoint(10)).isEqualTo(0);
+    }
+
     @Test
     public void testLoadAllExtraInfo_noEvents() throws RemoteException {
         when(mUsageStats.queryEventsForUser(anyLong(), anyLong(), anyInt(), anyString()))
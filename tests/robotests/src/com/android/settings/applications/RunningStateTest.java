@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.applications;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.content.ComponentName;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageManager;
+import android.content.pm.ServiceInfo;
+import android.content.res.Resources;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.HashMap;
+
+@RunWith(RobolectricTestRunner.class)
+public class RunningStateTest {
+    private static final String PKG = "pkg";
+    private static final String OTHER_PKG = "other.pkg";
+    private static final int UID = 10001;
+    private static final int CLIENT_LABEL = 1;
+
+    private PackageManager mPm;
+    private RunningState.ComponentCache mCache;
+
+    @Before
+    public void setUp() throws Exception {
+        mPm = mock(PackageManager.class);
+        final Resources resources = mock(Resources.class);
+        when(resources.getString(CLIENT_LABEL)).thenReturn("client");
+        when(mPm.getResourcesForApplication(PKG)).thenReturn(resources);
+        when(mPm.getResourcesForApplication(OTHER_PKG)).thenReturn(resources);
+        mCache = new RunningState.ComponentCache();
+    }
+
+    @Test
+    public void removePackage_dropProcessLabelsOfPackageOnly() {
+        mCache.putProcessLabel(UID, PKG, createLabel(PKG));
+        mCache.putProcessLabel(UID, OTHER_PKG, createLabel(OTHER_PKG));
+
+        mCache.removePackage(PKG);
+
+        assertThat(mCache.getProcessLabel(UID, PKG)).isNull();
+        assertThat(mCache.getProcessLabel(UID, OTHER_PKG)).isNotNull();
+    }
+
+    @Test
+    public void removePackage_dropServicesOfPackageOnly() {
+        final ComponentName service = new ComponentName(PKG, "Service");
+        final ComponentName otherService = new ComponentName(OTHER_PKG, "Service");
+        final HashMap<ComponentName, RunningState.ComponentCache.Label> services =
+                new HashMap<>();
+        services.put(service, createLabel(PKG));
+        services.put(otherService, createLabel(OTHER_PKG));
+        mCache.mServices.put(0, services);
+
+        mCache.removePackage(PKG);
+
+        assertThat(services).containsKey(otherService);
+        assertThat(services).doesNotContainKey(service);
+    }
+
+    @Test
+    public void removePackage_reloadClientLabelOfPackageOnly() throws Exception {
+        mCache.getClientLabel(mPm, PKG, CLIENT_LABEL);
+        mCache.getClientLabel(mPm, OTHER_PKG, CLIENT_LABEL);
+
+        mCache.removePackage(PKG);
+        mCache.getClientLabel(mPm, PKG, CLIENT_LABEL);
+        mCache.getClientLabel(mPm, OTHER_PKG, CLIENT_LABEL);
+
+        verify(mPm, times(2)).getResourcesForApplication(PKG);
+        verify(mPm, times(1)).getResourcesForApplication(OTHER_PKG);
+    }
+
+    private static RunningState.ComponentCache.Label createLabel(String packageName) {
+        final ServiceInfo info = new ServiceInfo();
+        info.packageName = packageName;
+        info.applicationInfo = new ApplicationInfo();
+        info.applicationInfo.packageName = packageName;
+        return new RunningState.ComponentCache.Label(info, packageName);
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.applications.manageapplications;
+
+import static com.android.settings.applications.manageapplications.ManageApplications.SIZE_TOTAL;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.Mockito.mock;
+
+import android.content.pm.ApplicationInfo;
+
+import androidx.recyclerview.widget.ListUpdateCallback;
+
+import com.android.settings.R;
+import com.android.settings.applications.AppStateNotificationBridge.NotificationsSentState;
+import com.android.settingslib.applications.ApplicationsState.AppEntry;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.util.ReflectionHelpers;
+
+import java.util.ArrayList;
+
+@RunWith(RobolectricTestRunner.class)
+public class AppEntrySnapshotTest {
+
+    @Test
+    public void search_shouldMatchLabelIgnoringCase() {
+        final AppEntrySnapshot snapshot = AppEntrySnapshot.of(
+                getTestAppList(new String[]{"Apricot", "Banana", "Cantaloupe", "Fig"}),
+                SIZE_TOTAL);
+
+        final AppEntrySnapshot result = snapshot.search("AN");
+
+        assertThat(result.size()).isEqualTo(2);
+        assertThat(result.getEntries().get(0).label).isEqualTo("Banana");
+        assertThat(result.getEntries().get(1).label).isEqualTo("Cantaloupe");
+    }
+
+    @Test
+    public void search_emptyQuery_shouldReturnSameSnapshot() {
+        final AppEntrySnapshot snapshot = AppEntrySnapshot.of(
+                getTestAppList(new String[]{"Apricot", "Banana"}), SIZE_TOTAL);
+
+        assertThat(snapshot.search("")).isSameInstanceAs(snapshot);
+    }
+
+    @Test
+    public void sort_alpha_shouldSortByLabel() {
+        final AppEntrySnapshot snapshot = AppEntrySnapshot.of(
+                getTestAppList(new String[]{"Fig", "apricot", "Banana"}), SIZE_TOTAL);
+
+        final AppEntrySnapshot result = snapshot.sort(R.id.sort_order_alpha);
+
+        assertThat(result.getEntries().get(0).label).isEqualTo("apricot");
+        assertThat(result.getEntries().get(1).label).isEqualTo("Banana");
+        assertThat(result.getEntries().get(2).label).isEqualTo("Fig");
+    }
+
+    @Test
+    public void sort_size_shouldSortBySizeDescending() {
+        final ArrayList<AppEntry> entries =
+                getTestAppList(new String[]{"Apricot", "Banana", "Cantaloupe"});
+        entries.get(0).size = 10;
+        entries.get(1).size = 30;
+        entries.get(2).size = 20;
+
+        final AppEntrySnapshot result =
+                AppEntrySnapshot.of(entries, SIZE_TOTAL).sort(R.id.sort_order_size);
+
+        assertThat(result.getEntries().get(0).label).isEqualTo("Banana");
+        assertThat(result.getEntries().get(1).label).isEqualTo("Cantaloupe");
+        assertThat(result.getEntries().get(2).label).isEqualTo("Apricot");
+    }
+
+    @Test
+    public void sort_recentNotification_shouldPutAppsWithoutStatsFirstThenMostRecent() {
+        final ArrayList<AppEntry> entries =
+                getTestAppList(new String[]{"Apricot", "Banana", "Cantaloupe"});
+        entries.get(0).extraInfo = createSentState(100 /* lastSent */, 1 /* sentCount */);
+        entries.get(1).extraInfo = createSentState(300 /* lastSent */, 1 /* sentCount */);
+
+        final AppEntrySnapshot result = AppEntrySnapshot.of(entries, SIZE_TOTAL)
+                .sort(R.id.sort_order_recent_notification);
+
+        assertThat(result.getEntries().get(0).label).isEqualTo("Cantaloupe");
+        assertThat(result.getEntries().get(1).label).isEqualTo("Banana");
+        assertThat(result.getEntries().get(2).label).isEqualTo("Apricot");
+    }
+
+    @Test
+    public void sort_frequentNotification_shouldSortBySentCountThenLabel() {
+        final ArrayList<AppEntry> entries =
+                getTestAppList(new String[]{"Apricot", "Banana", "Cantaloupe"});
+        entries.get(0).extraInfo = createSentState(100 /* lastSent */, 2 /* sentCount */);
+        entries.get(1).extraInfo = createSentState(100 /* lastSent */, 5 /* sentCount */);
+        entries.get(2).extraInfo = createSentState(300 /* lastSent */, 2 /* sentCount */);
+
+        final AppEntrySnapshot result = AppEntrySnapshot.of(entries, SIZE_TOTAL)
+                .sort(R.id.sort_order_frequent_notification);
+
+        assertThat(result.getEntries().get(0).label).isEqualTo("Banana");
+        assertThat(result.getEntries().get(1).label).isEqualTo("Apricot");
+        assertThat(result.getEntries().get(2).label).isEqualTo("Cantaloupe");
+    }
+
+    @Test
+    public void diff_sameEntriesChangedExtraInfo_shouldOnlyChangeThatRow() {
+        final ArrayList<AppEntry> entries =
+                getTestAppList(new String[]{"Apricot", "Banana", "Cantaloupe"});
+        final AppEntrySnapshot oldSnapshot = AppEntrySnapshot.of(entries, SIZE_TOTAL);
+        entries.get(1).extraInfo = Boolean.TRUE;
+        final AppEntrySnapshot newSnapshot =
+                AppEntrySnapshot.of(new ArrayList<>(entries), SIZE_TOTAL);
+        final TestListUpdateCallback callback = new TestListUpdateCallback();
+
+        oldSnapshot.diff(newSnapshot).dispatchUpdatesTo(callback);
+
+        assertThat(callback.mChangedPositions).containsExactly(1);
+        assertThat(callback.mStructureChanged).isFalse();
+    }
+
+    private static NotificationsSentState createSentState(long lastSent, int sentCount) {
+        final NotificationsSentState state = new NotificationsSentState();
+        state.lastSent = lastSent;
+        state.sentCount = sentCount;
+        return state;
+    }
+
+    private ArrayList<AppEntry> getTestAppList(String[] appNames) {
+        final ArrayList<AppEntry> appList = new ArrayList<>();
+        for (int i = 0; i < appNames.length; i++) {
+            final AppEntry appEntry = mock(AppEntry.class);
+            appEntry.label = appNames[i];
+            appEntry.info = new ApplicationInfo();
+            appEntry.info.packageName = "package" + i;
+            ReflectionHelpers.setField(appEntry, "id", (long) i);
+            appList.add(appEntry);
+        }
+        return appList;
+    }
+
+    private static class TestListUpdateCallback implements ListUpdateCallback {
+        final ArrayList<Integer> mChangedPositions = new ArrayList<>();
+        boolean mStructureChanged;
+
+        @Override
+        public void onInserted(int position, int count) {
+            mStructureChanged = true;
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            mStructureChanged = true;
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            mStructureChanged = true;
+        }
+
+        @Override
+        public void onChanged(int position, int count, Object payload) {
+            for (int i = 0; i < count; i++) {
+                mChangedPositions.add(position + i);
+            }
+        }
+    }
+}
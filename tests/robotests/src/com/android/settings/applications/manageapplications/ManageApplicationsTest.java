@@ -462,6 +462,44 @@ public class ManageApplicationsTest {
         assertThat(mFragment.mSortOrder).isEqualTo(mSortFrequent.getItemId());
     }
 
+    @Test
+    public void rebuild_sortLoadedList_shouldSortWithoutSessionRebuild() {
+        final ManageApplications.ApplicationsAdapter adapter =
+                new ManageApplications.ApplicationsAdapter(
+                        mState, mFragment, mock(AppFilterItem.class), Bundle.EMPTY);
+        ReflectionHelpers.setField(adapter, "mOriginalEntries", getTestAppListBySize());
+        ReflectionHelpers.setField(adapter, "mHasReceivedLoadEntries", true);
+
+        adapter.rebuild(R.id.sort_order_size);
+
+        assertThat(adapter.getAppEntry(0).label).isEqualTo("Banana");
+        assertThat(adapter.getAppEntry(1).label).isEqualTo("Cantaloupe");
+        assertThat(adapter.getAppEntry(2).label).isEqualTo("Apricot");
+        assertThat((int) ReflectionHelpers.getField(adapter, "mSessionSortMode")).isEqualTo(-1);
+    }
+
+    @Test
+    public void onRebuildComplete_sortedLocally_shouldKeepLocalSortOrder() {
+        ReflectionHelpers.setField(mFragment, "mRecyclerView", mock(RecyclerView.class));
+        ReflectionHelpers.setField(
+                mFragment, "mFilterAdapter", mock(ManageApplications.FilterSpinnerAdapter.class));
+        final ManageApplications.ApplicationsAdapter adapter =
+                new ManageApplications.ApplicationsAdapter(mState, mFragment,
+                        AppFilterRegistry.getInstance().get(FILTER_APPS_ALL),
+                        null /* savedInstanceState */);
+        ReflectionHelpers.setField(adapter, "mLoadingViewController",
+                mock(LoadingViewController.class));
+        ReflectionHelpers.setField(adapter, "mOriginalEntries", getTestAppListBySize());
+        adapter.rebuild(R.id.sort_order_size);
+
+        // The session still sorts alphabetically.
+        adapter.onRebuildComplete(getTestAppListBySize());
+
+        assertThat(adapter.getAppEntry(0).label).isEqualTo("Banana");
+        assertThat(adapter.getAppEntry(1).label).isEqualTo("Cantaloupe");
+        assertThat(adapter.getAppEntry(2).label).isEqualTo("Apricot");
+    }
+
     @Test
     public void updateFilterView_hasFilterSet_shouldShowFilterAndHavePaddingTop() {
         mFragment.mRecyclerView = new RecyclerView(mContext);
@@ -624,6 +662,15 @@ public class ManageApplicationsTest {
         return appList;
     }
 
+    private ArrayList<AppEntry> getTestAppListBySize() {
+        final ArrayList<AppEntry> appList =
+                getTestAppList(new String[]{"Apricot", "Banana", "Cantaloupe"});
+        appList.get(0).size = 10;
+        appList.get(1).size = 30;
+        appList.get(2).size = 20;
+        return appList;
+    }
+
     private AppEntry createPowerAllowListApp(boolean isPowerAllowListed) {
         final ApplicationInfo info = new ApplicationInfo();
         info.sourceDir = "abc";
@@ -63,6 +63,7 @@ public class PreferenceXmlParserUtilsTest {
     @Before
     public void setUp() {
         mContext = getApplicationContext();
+        PreferenceXmlParserUtils.clearMetadataCache();
     }
 
     @Test
@@ -189,6 +190,27 @@ public class PreferenceXmlParserUtilsTest {
         }
     }
 
+    @Test
+    @Config(qualifiers = "mcc999")
+    public void extractMetadata_calledTwice_shouldReturnEqualButSeparateCopies()
+            throws IOException, XmlPullParserException {
+        final int flags = MetadataFlag.FLAG_NEED_KEY | MetadataFlag.FLAG_NEED_PREF_TITLE;
+        final List<Bundle> first = PreferenceXmlParserUtils.extractMetadata(mContext,
+                R.xml.location_settings, flags);
+        first.get(0).putString(METADATA_KEY, "modified");
+
+        final List<Bundle> second = PreferenceXmlParserUtils.extractMetadata(mContext,
+                R.xml.location_settings, flags);
+
+        assertThat(second).hasSize(first.size());
+        assertThat(second.get(0)).isNotSameInstanceAs(first.get(0));
+        assertThat(second.get(0).getString(METADATA_KEY)).isNotEqualTo("modified");
+        for (int i = 1; i < first.size(); i++) {
+            assertThat(second.get(i).getString(METADATA_KEY))
+                    .isEqualTo(first.get(i).getString(METADATA_KEY));
+        }
+    }
+
     @Test
     @Config(qualifiers = "mcc999")
     public void extractMetadata_requestTitle_shouldContainTitle()
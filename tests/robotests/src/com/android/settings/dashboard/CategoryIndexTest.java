@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.dashboard;
+
+import static com.android.settingslib.drawer.CategoryKey.CATEGORY_HOMEPAGE;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.when;
+
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.pm.ActivityInfo;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.ChangedPackages;
+import android.content.pm.PackageManager;
+import android.os.Bundle;
+
+import com.android.settingslib.drawer.ActivityTile;
+import com.android.settingslib.drawer.DashboardCategory;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Collections;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+public class CategoryIndexTest {
+    private static final String EXTRA_CATEGORY = "extra_category";
+
+    @Mock
+    private PackageManager mPackageManager;
+
+    private Context mContext;
+    private CategoryIndex mIndex;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        mContext = spy(RuntimeEnvironment.application);
+        when(mContext.getApplicationContext()).thenReturn(mContext);
+        when(mContext.getPackageManager()).thenReturn(mPackageManager);
+        mIndex = new CategoryIndex(mContext);
+        new File(mContext.getCacheDir(), "dashboard_categories").delete();
+    }
+
+    @Test
+    public void read_noIndex_returnNull() {
+        assertThat(mIndex.read()).isNull();
+    }
+
+    @Test
+    public void read_afterWrite_returnCategories() {
+        final CategoryIndex.Stamp stamp = mIndex.capture();
+
+        mIndex.write(stamp, Collections.singletonList(createCategory(CATEGORY_HOMEPAGE)),
+                Collections.singletonList(createCategory(EXTRA_CATEGORY)));
+        final CategoryIndex.Entry entry = mIndex.read();
+
+        assertThat(entry).isNotNull();
+        assertCategory(entry.mCategories, CATEGORY_HOMEPAGE);
+        assertCategory(entry.mExtraCategories, EXTRA_CATEGORY);
+    }
+
+    @Test
+    public void read_packageChangedSinceWrite_returnNull() {
+        mIndex.write(mIndex.capture(),
+                Collections.singletonList(createCategory(CATEGORY_HOMEPAGE)),
+                Collections.emptyList());
+        when(mPackageManager.getChangedPackages(0))
+                .thenReturn(new ChangedPackages(1, Collections.singletonList("pkg")));
+
+        assertThat(mIndex.read()).isNull();
+    }
+
+    @Test
+    public void read_otherEnvironment_returnNull() {
+        final CategoryIndex.Stamp stamp = mIndex.capture();
+        final CategoryIndex.Stamp otherBuild = new CategoryIndex.Stamp("other_fingerprint",
+                stamp.mBootCount, stamp.mLocales, stamp.mProfileIds, stamp.mSequenceNumber);
+
+        mIndex.write(otherBuild, Collections.singletonList(createCategory(CATEGORY_HOMEPAGE)),
+                Collections.emptyList());
+
+        assertThat(mIndex.read()).isNull();
+    }
+
+    @Test
+    public void read_corruptedIndex_returnNullAndDelete() throws Exception {
+        final File file = new File(mContext.getCacheDir(), "dashboard_categories");
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(new byte[] {1, 0, 0, 0, 42});
+        }
+
+        assertThat(mIndex.read()).isNull();
+        assertThat(file.exists()).isFalse();
+    }
+
+    @Test
+    public void isCurrent_packageChanged_returnFalse() {
+        final CategoryIndex.Stamp stamp = mIndex.capture();
+
+        assertThat(mIndex.isCurrent(stamp)).isTrue();
+
+        when(mPackageManager.getChangedPackages(stamp.mSequenceNumber))
+                .thenReturn(new ChangedPackages(stamp.mSequenceNumber + 1,
+                        Collections.singletonList("pkg")));
+
+        assertThat(mIndex.isCurrent(stamp)).isFalse();
+    }
+
+    private static void assertCategory(List<DashboardCategory> categories, String key) {
+        assertThat(categories).hasSize(1);
+        assertThat(categories.get(0).key).isEqualTo(key);
+        assertThat(categories.get(0).getTilesCount()).isEqualTo(1);
+        assertThat(categories.get(0).getTile(0).getIntent().getComponent())
+                .isEqualTo(new ComponentName("pkg", "class"));
+    }
+
+    private static DashboardCategory createCategory(String key) {
+        final ActivityInfo activityInfo = new ActivityInfo();
+        activityInfo.packageName = "pkg";
+        activityInfo.name = "class";
+        activityInfo.applicationInfo = new ApplicationInfo();
+        activityInfo.metaData = new Bundle();
+        final DashboardCategory category = new DashboardCategory(key);
+        category.addTile(new ActivityTile(activityInfo, key));
+        return category;
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.dashboard;
+
+import static com.android.settingslib.core.instrumentation.Instrumentable.METRICS_CATEGORY_UNKNOWN;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+import android.content.Context;
+
+import androidx.preference.Preference;
+import androidx.preference.PreferenceManager;
+import androidx.preference.PreferenceScreen;
+
+import com.android.settings.core.BackgroundAvailabilityController;
+import com.android.settingslib.core.AbstractPreferenceController;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+@RunWith(RobolectricTestRunner.class)
+public class ControllerRefreshEngineTest {
+    private static final String KEY = "my_key";
+    private static final String OTHER_KEY = "other_key";
+
+    private Context mContext;
+    private PreferenceScreen mScreen;
+    private Preference mPreference;
+    private TestPreferenceController mTestController;
+    private BackgroundController mBackgroundController;
+    private List<Runnable> mPendingTasks;
+    private ControllerRefreshEngine mEngine;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+        final PreferenceManager preferenceManager = new PreferenceManager(mContext);
+        mScreen = preferenceManager.createPreferenceScreen(mContext);
+        mPreference = new Preference(mContext);
+        mPreference.setKey(KEY);
+        mScreen.addPreference(mPreference);
+        mTestController = spy(new TestPreferenceController(mContext));
+        mTestController.setKey(KEY);
+        mBackgroundController = spy(new BackgroundController(mContext));
+        mBackgroundController.setKey(KEY);
+        mPendingTasks = new ArrayList<>();
+        final Executor executor = mPendingTasks::add;
+        mEngine = new ControllerRefreshEngine(executor, null /* metricsFeature */,
+                METRICS_CATEGORY_UNKNOWN);
+    }
+
+    @Test
+    public void refresh_controlNotAvailable_noRunUpdateState() {
+        mTestController.setAvailable(false);
+
+        mEngine.refresh(mScreen, Collections.singletonList(mTestController));
+
+        verify(mTestController, never()).updateState(any(Preference.class));
+    }
+
+    @Test
+    public void refresh_emptyKey_noRunUpdateState() {
+        mTestController.setKey("");
+
+        mEngine.refresh(mScreen, Collections.singletonList(mTestController));
+
+        verify(mTestController, never()).updateState(any(Preference.class));
+    }
+
+    @Test
+    public void refresh_preferenceNotExist_noRunUpdateState() {
+        mTestController.setKey(OTHER_KEY);
+
+        mEngine.refresh(mScreen, Collections.singletonList(mTestController));
+
+        verify(mTestController, never()).updateState(any(Preference.class));
+    }
+
+    @Test
+    public void refresh_notOptedIn_updateStateOnCallingThread() {
+        mEngine.refresh(mScreen, Collections.singletonList(mTestController));
+
+        verify(mTestController).updateState(mPreference);
+        assertThat(mPendingTasks).isEmpty();
+    }
+
+    @Test
+    public void refresh_optedIn_updateStateBeforeAvailabilityKnown() {
+        mEngine.refresh(mScreen, Collections.singletonList(mBackgroundController));
+
+        verify(mBackgroundController).updateState(mPreference);
+        verify(mBackgroundController, never()).isAvailable();
+        assertThat(mPendingTasks).hasSize(1);
+    }
+
+    @Test
+    public void refresh_optedIn_applyChangesAfterAllTasksFinished() {
+        final Preference otherPreference = new Preference(mContext);
+        otherPreference.setKey(OTHER_KEY);
+        mScreen.addPreference(otherPreference);
+        final BackgroundController otherController = spy(new BackgroundController(mContext));
+        otherController.setKey(OTHER_KEY);
+        mBackgroundController.setAvailable(false);
+        otherController.setAvailable(false);
+
+        mEngine.refresh(mScreen, Arrays.asList(mBackgroundController, otherController));
+        mPendingTasks.get(0).run();
+
+        assertThat(mPreference.isVisible()).isTrue();
+
+        mPendingTasks.get(1).run();
+
+        assertThat(mPreference.isVisible()).isFalse();
+        assertThat(otherPreference.isVisible()).isFalse();
+    }
+
+    @Test
+    public void refresh_becomesAvailable_showAndUpdatePreference() {
+        mPreference.setVisible(false);
+
+        mEngine.refresh(mScreen, Collections.singletonList(mBackgroundController));
+
+        verify(mBackgroundController, never()).updateState(any(Preference.class));
+
+        mPendingTasks.get(0).run();
+
+        assertThat(mPreference.isVisible()).isTrue();
+        verify(mBackgroundController).updateState(mPreference);
+    }
+
+    @Test
+    public void refresh_availabilityUnchanged_noUpdateStateAgain() {
+        mEngine.refresh(mScreen, Collections.singletonList(mBackgroundController));
+        mPendingTasks.get(0).run();
+
+        verify(mBackgroundController).updateState(mPreference);
+        assertThat(mPreference.isVisible()).isTrue();
+    }
+
+    @Test
+    public void refresh_supersededByNewRefresh_dropStaleResult() {
+        mBackgroundController.setAvailable(false);
+
+        mEngine.refresh(mScreen, Collections.singletonList(mBackgroundController));
+        mEngine.refresh(mScreen, Collections.singletonList(mBackgroundController));
+        mPendingTasks.get(0).run();
+
+        assertThat(mPreference.isVisible()).isTrue();
+
+        mPendingTasks.get(1).run();
+
+        assertThat(mPreference.isVisible()).isFalse();
+    }
+
+    @Test
+    public void refresh_cancelled_dropResult() {
+        mBackgroundController.setAvailable(false);
+
+        mEngine.refresh(mScreen, Collections.singletonList(mBackgroundController));
+        mEngine.cancel();
+        mPendingTasks.get(0).run();
+
+        assertThat(mPreference.isVisible()).isTrue();
+    }
+
+    @Test
+    public void refresh_unavailableAfterCancel_hidePreference() {
+        mEngine.refresh(mScreen, Collections.singletonList(mBackgroundController));
+        mPendingTasks.get(0).run();
+        mEngine.cancel();
+
+        mBackgroundController.setAvailable(false);
+        mEngine.refresh(mScreen, Collections.singletonList(mBackgroundController));
+        mPendingTasks.get(1).run();
+
+        assertThat(mPreference.isVisible()).isFalse();
+    }
+
+    static class TestPreferenceController extends AbstractPreferenceController {
+        private boolean mAvailable;
+        private String mKey;
+
+        TestPreferenceController(Context context) {
+            super(context);
+            mAvailable = true;
+        }
+
+        @Override
+        public boolean isAvailable() {
+            return mAvailable;
+        }
+
+        @Override
+        public String getPreferenceKey() {
+            return mKey;
+        }
+
+        void setAvailable(boolean available) {
+            mAvailable = available;
+        }
+
+        void setKey(String key) {
+            mKey = key;
+        }
+    }
+
+    static class BackgroundController extends TestPreferenceController
+            implements BackgroundAvailabilityController {
+
+        BackgroundController(Context context) {
+            super(context);
+        }
+    }
+}
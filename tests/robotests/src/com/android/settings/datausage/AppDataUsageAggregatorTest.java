@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.datausage;
+
+import static android.net.TrafficStats.UID_REMOVED;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.content.pm.UserInfo;
+import android.os.Process;
+import android.os.UserHandle;
+import android.os.UserManager;
+
+import com.android.settingslib.AppItem;
+import com.android.settingslib.net.UidDetailProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.Arrays;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+public class AppDataUsageAggregatorTest {
+    private static final int CURRENT_USER = 0;
+    private static final int MANAGED_USER = 10;
+    private static final int OTHER_USER = 11;
+    private static final int REMOVED_USER = 12;
+
+    @Mock
+    private UserManager mUserManager;
+
+    private AppDataUsageAggregator mAggregator;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        when(mUserManager.getUserInfo(OTHER_USER)).thenReturn(new UserInfo());
+        mAggregator = new AppDataUsageAggregator(CURRENT_USER, mUserManager,
+                Arrays.asList(UserHandle.of(CURRENT_USER), UserHandle.of(MANAGED_USER)));
+    }
+
+    @Test
+    public void add_sameApp_shouldAccumulate() {
+        final int uid = UserHandle.getUid(CURRENT_USER, Process.FIRST_APPLICATION_UID);
+        mAggregator.add(uid, 100);
+        mAggregator.add(uid, 50);
+
+        final List<AppItem> items = mAggregator.nextItems(10);
+
+        assertThat(items).hasSize(1);
+        assertThat(items.get(0).key).isEqualTo(uid);
+        assertThat(items.get(0).total).isEqualTo(150);
+        assertThat(mAggregator.getLargest()).isEqualTo(150);
+    }
+
+    @Test
+    public void add_managedProfileApp_shouldAlsoAddToUserItem() {
+        final int uid = UserHandle.getUid(MANAGED_USER, Process.FIRST_APPLICATION_UID);
+        mAggregator.add(uid, 100);
+
+        final List<AppItem> items = mAggregator.nextItems(10);
+
+        assertThat(items).hasSize(2);
+        assertThat(items.get(0).key).isEqualTo(UidDetailProvider.buildKeyForUser(MANAGED_USER));
+        assertThat(items.get(0).category).isEqualTo(AppItem.CATEGORY_USER);
+        assertThat(items.get(1).key).isEqualTo(uid);
+    }
+
+    @Test
+    public void add_otherUsers_shouldLookUpEachUserOnce() {
+        mAggregator.add(UserHandle.getUid(OTHER_USER, Process.FIRST_APPLICATION_UID), 100);
+        mAggregator.add(UserHandle.getUid(OTHER_USER, Process.FIRST_APPLICATION_UID + 1), 100);
+        mAggregator.add(UserHandle.getUid(REMOVED_USER, Process.FIRST_APPLICATION_UID), 10);
+        mAggregator.add(UserHandle.getUid(REMOVED_USER, Process.FIRST_APPLICATION_UID + 1), 10);
+
+        final List<AppItem> items = mAggregator.nextItems(10);
+
+        assertThat(items).hasSize(2);
+        assertThat(items.get(0).key).isEqualTo(UidDetailProvider.buildKeyForUser(OTHER_USER));
+        assertThat(items.get(0).total).isEqualTo(200);
+        assertThat(items.get(1).key).isEqualTo(UID_REMOVED);
+        assertThat(items.get(1).total).isEqualTo(20);
+        verify(mUserManager, times(2)).getUserInfo(anyInt());
+    }
+
+    @Test
+    public void nextItems_shouldReturnPagesInOrder() {
+        for (int i = 0; i < 5; i++) {
+            mAggregator.add(UserHandle.getUid(CURRENT_USER, Process.FIRST_APPLICATION_UID + i),
+                    (i + 1) * 100);
+        }
+
+        final List<AppItem> firstPage = mAggregator.nextItems(2);
+        final List<AppItem> secondPage = mAggregator.nextItems(10);
+
+        assertThat(firstPage.get(0).total).isEqualTo(500);
+        assertThat(firstPage.get(1).total).isEqualTo(400);
+        assertThat(secondPage).hasSize(3);
+        assertThat(secondPage.get(2).total).isEqualTo(100);
+        assertThat(mAggregator.hasNextItems()).isFalse();
+    }
+
+    @Test
+    public void setRestrictedUids_shouldOnlyKeepProfileApps() {
+        final int uid = UserHandle.getUid(CURRENT_USER, Process.FIRST_APPLICATION_UID);
+        mAggregator.setRestrictedUids(new int[]{
+                uid, UserHandle.getUid(OTHER_USER, Process.FIRST_APPLICATION_UID)});
+
+        final List<AppItem> items = mAggregator.nextItems(10);
+
+        assertThat(items).hasSize(1);
+        assertThat(items.get(0).key).isEqualTo(uid);
+        assertThat(items.get(0).restricted).isTrue();
+        assertThat(items.get(0).total).isEqualTo(-1);
+    }
+}
@@ -101,6 +101,7 @@ public class AppDataUsageTest {
     @After
     public void tearDown() {
         ShadowEntityHeaderController.reset();
+        NetworkStatsQueryCache.getInstance().clear();
     }
 
     @Test
@@ -400,6 +401,7 @@ public class AppDataUsageTest {
         mFragment = new AppDataUsage();
         ReflectionHelpers.setField(mFragment, "mContext", RuntimeEnvironment.application);
         ReflectionHelpers.setField(mFragment, "mCycleAdapter", mock(CycleAdapter.class));
+        ReflectionHelpers.setField(mFragment, "mAppItem", new AppItem(123456));
         ReflectionHelpers.setField(mFragment, "mSelectedCycle", tenDaysAgo);
         final Preference backgroundPref = mock(Preference.class);
         ReflectionHelpers.setField(mFragment, "mBackgroundUsage", backgroundPref);
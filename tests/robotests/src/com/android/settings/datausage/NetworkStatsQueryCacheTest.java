@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.datausage;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.net.NetworkTemplate;
+import android.os.SystemClock;
+import android.text.format.DateUtils;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+@RunWith(RobolectricTestRunner.class)
+public class NetworkStatsQueryCacheTest {
+    private static final String QUERY = NetworkStatsQueryCache.QUERY_APPS_USAGE;
+    private static final int UID = 123;
+
+    private NetworkStatsQueryCache mCache;
+    private NetworkTemplate mTemplate;
+
+    @Before
+    public void setUp() {
+        mCache = new NetworkStatsQueryCache();
+        mTemplate = NetworkTemplate.buildTemplateWifi(NetworkTemplate.WIFI_NETWORKID_ALL,
+                null /* subscriberId */);
+    }
+
+    @Test
+    public void get_differentKey_shouldReturnNull() {
+        final long now = System.currentTimeMillis();
+        mCache.put(QUERY, mTemplate, now - DateUtils.DAY_IN_MILLIS, now, UID, "usage");
+
+        assertThat((Object) mCache.get(QUERY, mTemplate, now - DateUtils.DAY_IN_MILLIS, now,
+                UID + 1)).isNull();
+        assertThat((Object) mCache.get(NetworkStatsQueryCache.QUERY_APP_CYCLES, mTemplate,
+                now - DateUtils.DAY_IN_MILLIS, now, UID)).isNull();
+    }
+
+    @Test
+    public void get_currentCycle_shouldRefreshAfterInterval() {
+        final long now = System.currentTimeMillis();
+        final long end = now + DateUtils.DAY_IN_MILLIS;
+        mCache.put(QUERY, mTemplate, now, end, UID, "usage");
+
+        assertThat((String) mCache.get(QUERY, mTemplate, now, end, UID)).isEqualTo("usage");
+
+        SystemClock.sleep(NetworkStatsQueryCache.MIN_REFRESH_INTERVAL_MS);
+
+        assertThat((Object) mCache.get(QUERY, mTemplate, now, end, UID)).isNull();
+    }
+
+    @Test
+    public void get_closedCycle_shouldNotExpire() {
+        final long end = System.currentTimeMillis() - DateUtils.DAY_IN_MILLIS;
+        final long start = end - DateUtils.DAY_IN_MILLIS;
+        mCache.put(QUERY, mTemplate, start, end, UID, "usage");
+
+        SystemClock.sleep(NetworkStatsQueryCache.MIN_REFRESH_INTERVAL_MS * 10);
+
+        assertThat((String) mCache.get(QUERY, mTemplate, start, end, UID)).isEqualTo("usage");
+    }
+}
@@ -23,9 +23,11 @@ import static com.android.settings.utils.FileSizeFormatter.MEGABYTE_IN_BYTES;
 import static com.google.common.truth.Truth.assertThat;
 
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.nullable;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -354,6 +356,26 @@ public class StorageItemPreferenceControllerTest {
         assertThat(mController.mTrashPreference.getSummary().toString()).isEqualTo("100 kB");
     }
 
+    @Test
+    public void onLoadFinished_partialResult_showUnmeasuredSizesAsCalculating() {
+        mController.displayPreference(mPreferenceScreen);
+        mController.setUsedSize(MEGABYTE_IN_BYTES * 970);
+        final StorageAsyncLoader.StorageResult result = new StorageAsyncLoader.StorageResult();
+        result.imagesSize = MEGABYTE_IN_BYTES * 350;
+        result.videosSize = StorageAsyncLoader.StorageResult.SIZE_UNKNOWN;
+        result.duplicateCodeSize = StorageAsyncLoader.StorageResult.SIZE_UNKNOWN;
+        final SparseArray<StorageAsyncLoader.StorageResult> results = new SparseArray<>();
+        results.put(0, result);
+
+        mController.onLoadFinished(results, 0);
+
+        final String calculating = mContext.getString(R.string.memory_calculating_size);
+        assertThat(mController.mImagesPreference.getSummary().toString()).isEqualTo("350 MB");
+        assertThat(mController.mVideosPreference.getSummary().toString()).isEqualTo(calculating);
+        assertThat(mController.mSystemPreference.getSummary().toString()).isEqualTo(calculating);
+        verify(mController.mSystemPreference, never()).setStorageSize(anyLong(), anyLong());
+    }
+
     @Test
     public void settingUserIdAppliesNewIcons() {
         mController.displayPreference(mPreferenceScreen);
@@ -21,6 +21,7 @@ import static com.google.common.truth.Truth.assertThat;
 import static org.mockito.Mockito.spy;
 
 import android.content.Context;
+import android.database.DatabaseUtils;
 import android.text.format.DateUtils;
 import android.util.SparseLongArray;
 
@@ -39,6 +40,7 @@ import org.robolectric.RuntimeEnvironment;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 @RunWith(RobolectricTestRunner.class)
 public class BatteryDatabaseManagerTest {
@@ -57,12 +59,16 @@ public class BatteryDatabaseManagerTest {
     private AppInfo mNewAppInfo;
     private AppInfo mOldAppInfo;
     private AppInfo mCombinedAppInfo;
+    private List<Runnable> mWriterTasks;
 
     @Before
     public void setUp() {
         MockitoAnnotations.initMocks(this);
 
         mContext = RuntimeEnvironment.application;
+        mWriterTasks = new ArrayList<>();
+        final Executor writeExecutor = mWriterTasks::add;
+        BatteryDatabaseManager.setWriteExecutorForTest(writeExecutor);
         mBatteryDatabaseManager = spy(BatteryDatabaseManager.getInstance(mContext));
 
         mNewAppInfo = new AppInfo.Builder()
@@ -94,6 +100,7 @@ public class BatteryDatabaseManagerTest {
                 AnomalyDatabaseHelper.State.NEW, NOW);
         mBatteryDatabaseManager.insertAnomaly(UID_OLD, PACKAGE_NAME_OLD, TYPE_OLD,
                 AnomalyDatabaseHelper.State.NEW, TWO_DAYS_BEFORE);
+        runWriterTasks();
 
         // In database, it contains two record
         List<AppInfo> totalAppInfos = mBatteryDatabaseManager.queryAllAnomalies(0 /* timeMsAfter */,
@@ -106,6 +113,7 @@ public class BatteryDatabaseManagerTest {
         assertThat(appInfos).containsExactly(mNewAppInfo);
 
         mBatteryDatabaseManager.deleteAllAnomaliesBeforeTimeStamp(ONE_DAY_BEFORE);
+        runWriterTasks();
 
         // The obsolete record is removed from database
         List<AppInfo> appInfos1 = mBatteryDatabaseManager.queryAllAnomalies(0 /* timeMsAfter */,
@@ -126,6 +134,7 @@ public class BatteryDatabaseManagerTest {
         // Change state of PACKAGE_NAME_OLD to handled
         mBatteryDatabaseManager.updateAnomalies(updateAppInfos,
                 AnomalyDatabaseHelper.State.HANDLED);
+        runWriterTasks();
 
         // The state of PACKAGE_NAME_NEW is still new
         List<AppInfo> newAppInfos = mBatteryDatabaseManager.queryAllAnomalies(ONE_DAY_BEFORE,
@@ -144,6 +153,7 @@ public class BatteryDatabaseManagerTest {
                 AnomalyDatabaseHelper.State.NEW, NOW);
         mBatteryDatabaseManager.insertAnomaly(UID_NEW, PACKAGE_NAME_NEW, TYPE_OLD,
                 AnomalyDatabaseHelper.State.NEW, NOW);
+        runWriterTasks();
 
         // Only contain one AppInfo with multiple types
         List<AppInfo> newAppInfos = mBatteryDatabaseManager.queryAllAnomalies(ONE_DAY_BEFORE,
@@ -160,6 +170,7 @@ public class BatteryDatabaseManagerTest {
                 PACKAGE_NAME_OLD, 1);
         mBatteryDatabaseManager.insertAction(AnomalyDatabaseHelper.ActionType.RESTRICTION, UID_NEW,
                 PACKAGE_NAME_NEW, timestamp);
+        runWriterTasks();
 
         final SparseLongArray timeArray = mBatteryDatabaseManager.queryActionTime(
                 AnomalyDatabaseHelper.ActionType.RESTRICTION);
@@ -169,9 +180,118 @@ public class BatteryDatabaseManagerTest {
 
         mBatteryDatabaseManager.deleteAction(AnomalyDatabaseHelper.ActionType.RESTRICTION, UID_NEW,
                 PACKAGE_NAME_NEW);
+        runWriterTasks();
         final SparseLongArray recentTimeArray = mBatteryDatabaseManager.queryActionTime(
                 AnomalyDatabaseHelper.ActionType.RESTRICTION);
         assertThat(recentTimeArray.size()).isEqualTo(1);
         assertThat(timeArray.get(UID_OLD)).isEqualTo(1);
     }
+
+    @Test
+    public void queryActionTime_modifyResult_doesNotChangeLaterQueries() {
+        mBatteryDatabaseManager.insertAction(AnomalyDatabaseHelper.ActionType.RESTRICTION, UID_OLD,
+                PACKAGE_NAME_OLD, 1);
+        runWriterTasks();
+
+        final SparseLongArray timeArray = mBatteryDatabaseManager.queryActionTime(
+                AnomalyDatabaseHelper.ActionType.RESTRICTION);
+        timeArray.put(UID_NEW, 2);
+
+        final SparseLongArray recentTimeArray = mBatteryDatabaseManager.queryActionTime(
+                AnomalyDatabaseHelper.ActionType.RESTRICTION);
+        assertThat(recentTimeArray.size()).isEqualTo(1);
+        assertThat(recentTimeArray.get(UID_OLD)).isEqualTo(1);
+    }
+
+    @Test
+    public void insertAnomaly_severalWrites_applyInOneBatch() {
+        mBatteryDatabaseManager.insertAnomaly(UID_NEW, PACKAGE_NAME_NEW, TYPE_NEW,
+                AnomalyDatabaseHelper.State.NEW, NOW);
+        mBatteryDatabaseManager.insertAnomaly(UID_OLD, PACKAGE_NAME_OLD, TYPE_OLD,
+                AnomalyDatabaseHelper.State.NEW, NOW);
+        mBatteryDatabaseManager.insertAction(AnomalyDatabaseHelper.ActionType.RESTRICTION, UID_OLD,
+                PACKAGE_NAME_OLD, NOW);
+
+        assertThat(mWriterTasks).hasSize(1);
+        assertThat(countRows(AnomalyDatabaseHelper.Tables.TABLE_ANOMALY)).isEqualTo(0);
+
+        mWriterTasks.get(0).run();
+
+        assertThat(countRows(AnomalyDatabaseHelper.Tables.TABLE_ANOMALY)).isEqualTo(2);
+        assertThat(countRows(AnomalyDatabaseHelper.Tables.TABLE_ACTION)).isEqualTo(1);
+    }
+
+    @Test
+    public void flush_writesQueued_applyBeforeWriterRuns() {
+        mBatteryDatabaseManager.insertAnomaly(UID_NEW, PACKAGE_NAME_NEW, TYPE_NEW,
+                AnomalyDatabaseHelper.State.NEW, NOW);
+        mBatteryDatabaseManager.insertAction(AnomalyDatabaseHelper.ActionType.RESTRICTION, UID_OLD,
+                PACKAGE_NAME_OLD, NOW);
+
+        mBatteryDatabaseManager.flush();
+
+        assertThat(countRows(AnomalyDatabaseHelper.Tables.TABLE_ANOMALY)).isEqualTo(1);
+        assertThat(countRows(AnomalyDatabaseHelper.Tables.TABLE_ACTION)).isEqualTo(1);
+        // The writer has nothing left to do, the next write needs a new batch.
+        mWriterTasks.get(0).run();
+        mBatteryDatabaseManager.deleteAction(AnomalyDatabaseHelper.ActionType.RESTRICTION,
+                UID_OLD, PACKAGE_NAME_OLD);
+
+        assertThat(mWriterTasks).hasSize(2);
+        assertThat(countRows(AnomalyDatabaseHelper.Tables.TABLE_ANOMALY)).isEqualTo(1);
+    }
+
+    @Test
+    public void queryAllAnomalies_writeQueued_readCommittedStateWithoutApplyingIt() {
+        mBatteryDatabaseManager.insertAnomaly(UID_NEW, PACKAGE_NAME_NEW, TYPE_NEW,
+                AnomalyDatabaseHelper.State.NEW, NOW);
+
+        assertThat(mBatteryDatabaseManager.queryAllAnomalies(0 /* timeMsAfter */,
+                AnomalyDatabaseHelper.State.NEW)).isEmpty();
+        assertThat(countRows(AnomalyDatabaseHelper.Tables.TABLE_ANOMALY)).isEqualTo(0);
+
+        runWriterTasks();
+
+        assertThat(mBatteryDatabaseManager.queryAllAnomalies(0 /* timeMsAfter */,
+                AnomalyDatabaseHelper.State.NEW)).containsExactly(mNewAppInfo);
+    }
+
+    @Test
+    public void insertAnomaly_oneWriteFails_applyOtherWritesOfBatch() {
+        mBatteryDatabaseManager.insertAnomaly(UID_NEW, PACKAGE_NAME_NEW, TYPE_NEW,
+                AnomalyDatabaseHelper.State.NEW, NOW);
+        // The action write fails without its table.
+        AnomalyDatabaseHelper.getInstance(mContext).getWritableDatabase().execSQL(
+                "DROP TABLE " + AnomalyDatabaseHelper.Tables.TABLE_ACTION);
+        mBatteryDatabaseManager.insertAction(AnomalyDatabaseHelper.ActionType.RESTRICTION, UID_OLD,
+                PACKAGE_NAME_OLD, NOW);
+        mBatteryDatabaseManager.insertAnomaly(UID_OLD, PACKAGE_NAME_OLD, TYPE_OLD,
+                AnomalyDatabaseHelper.State.NEW, NOW);
+
+        runWriterTasks();
+
+        assertThat(countRows(AnomalyDatabaseHelper.Tables.TABLE_ANOMALY)).isEqualTo(2);
+    }
+
+    @Test
+    public void flush_nothingQueued_noWrite() {
+        mBatteryDatabaseManager.flush();
+
+        assertThat(mWriterTasks).isEmpty();
+        assertThat(countRows(AnomalyDatabaseHelper.Tables.TABLE_ANOMALY)).isEqualTo(0);
+    }
+
+    private void runWriterTasks() {
+        final List<Runnable> tasks = new ArrayList<>(mWriterTasks);
+        mWriterTasks.clear();
+        for (Runnable task : tasks) {
+            task.run();
+        }
+    }
+
+    // Reads the database directly, without applying the queued writes.
+    private long countRows(String table) {
+        return DatabaseUtils.queryNumEntries(
+                AnomalyDatabaseHelper.getInstance(mContext).getReadableDatabase(), table);
+    }
 }
@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.settings.fuelgauge;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.ContentValues;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RunWith(RobolectricTestRunner.class)
+public final class BatteryHistoryTableTest {
+
+    @Test
+    public void of_internsKeysAcrossSteps() {
+        final Map<String, BatteryHistEntry> entryMap1 = new LinkedHashMap<>();
+        putEntry(entryMap1, createBatteryHistEntry(1L, 5.0, 10L, 20L));
+        final Map<String, BatteryHistEntry> entryMap2 = new LinkedHashMap<>();
+        putEntry(entryMap2, createBatteryHistEntry(1L, 6.0, 15L, 20L));
+        putEntry(entryMap2, createBatteryHistEntry(2L, 7.0, 30L, 40L));
+        final Map<String, BatteryHistEntry> entryMap3 = new LinkedHashMap<>();
+        putEntry(entryMap3, createBatteryHistEntry(2L, 9.0, 50L, 60L));
+        putEntry(entryMap3, createBatteryHistEntry(1L, 6.0, 15L, 20L));
+        final BatteryUsageStep[] steps = new BatteryUsageStep[] {
+            BatteryUsageStep.compute(101L, 102L, entryMap1, entryMap2),
+            BatteryUsageStep.compute(102L, 103L, entryMap2, entryMap3),
+        };
+
+        final BatteryHistoryTable table = BatteryHistoryTable.of(steps);
+
+        assertThat(table.getRowCount()).isEqualTo(2);
+        assertThat(table.getColumnCount()).isEqualTo(2);
+        assertThat(table.getKey(0)).isEqualTo("1");
+        assertThat(table.getKey(1)).isEqualTo("2");
+        assertThat(table.getForegroundUsageTimeInMs(0, 0)).isEqualTo(5L);
+        assertThat(table.getConsumePower(0, 0)).isEqualTo(1.0);
+        assertThat(table.getForegroundUsageTimeInMs(0, 1)).isEqualTo(30L);
+        // The app 1 has no usage in the second step.
+        assertThat(table.getConsumePower(1, 0)).isEqualTo(0.0);
+        assertThat(table.getForegroundUsageTimeInMs(1, 1)).isEqualTo(20L);
+        assertThat(table.getBackgroundUsageTimeInMs(1, 1)).isEqualTo(20L);
+        assertThat(table.getConsumePower(1, 1)).isEqualTo(2.0);
+    }
+
+    @Test
+    public void of_missingStep_emptyColumn() {
+        final Map<String, BatteryHistEntry> entryMap = new HashMap<>();
+        putEntry(entryMap, createBatteryHistEntry(1L, 5.0, 10L, 20L));
+        final BatteryUsageStep[] steps = new BatteryUsageStep[] {
+            BatteryUsageStep.compute(101L, 102L, entryMap, new HashMap<>()),
+            BatteryUsageStep.compute(102L, 103L, new HashMap<>(), entryMap),
+        };
+
+        final BatteryHistoryTable table = BatteryHistoryTable.of(steps);
+
+        assertThat(steps[0]).isNull();
+        assertThat(steps[1]).isNull();
+        assertThat(table.getRowCount()).isEqualTo(0);
+        assertThat(table.getColumnCount()).isEqualTo(2);
+    }
+
+    private static void putEntry(Map<String, BatteryHistEntry> entryMap, BatteryHistEntry entry) {
+        entryMap.put(entry.getKey(), entry);
+    }
+
+    private static BatteryHistEntry createBatteryHistEntry(
+            long uid, double consumePower,
+            long foregroundUsageTimeInMs, long backgroundUsageTimeInMs) {
+        final ContentValues values = new ContentValues();
+        values.put(BatteryHistEntry.KEY_UID, Long.valueOf(uid));
+        values.put(BatteryHistEntry.KEY_CONSUMER_TYPE,
+            Integer.valueOf(ConvertUtils.CONSUMER_TYPE_UID_BATTERY));
+        values.put(BatteryHistEntry.KEY_CONSUME_POWER, consumePower);
+        values.put(BatteryHistEntry.KEY_FOREGROUND_USAGE_TIME,
+            Long.valueOf(foregroundUsageTimeInMs));
+        values.put(BatteryHistEntry.KEY_BACKGROUND_USAGE_TIME,
+            Long.valueOf(backgroundUsageTimeInMs));
+        return new BatteryHistEntry(values);
+    }
+}
@@ -20,6 +20,7 @@ import static com.google.common.truth.Truth.assertThat;
 
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
@@ -261,6 +262,24 @@ public class BatteryInfoTest {
         assertThat(info.chargeLabel).isEqualTo("50% - Charging temporarily limited");
     }
 
+    @Test
+    public void testParseBatteryHistory_calledTwice_decodesHistoryOnce() {
+        mockBatteryStatsHistory();
+        final BatteryInfo info = getBatteryInfo(false /* charging */, false /* enhanced */,
+                false /* estimate */);
+        final BatteryInfo.BatteryDataParser parser1 = mock(BatteryInfo.BatteryDataParser.class);
+        final BatteryInfo.BatteryDataParser parser2 = mock(BatteryInfo.BatteryDataParser.class);
+
+        info.parseBatteryHistory(parser1);
+        info.parseBatteryHistory(parser2);
+
+        verify(mBatteryUsageStats, times(1)).iterateBatteryStatsHistory();
+        verify(parser1, times(3)).onDataPoint(anyLong(), any(BatteryStats.HistoryItem.class));
+        verify(parser2).onParsingStarted(0L, 2000L);
+        verify(parser2).onDataPoint(eq(2000L), any(BatteryStats.HistoryItem.class));
+        verify(parser2).onParsingDone();
+    }
+
     // Make our battery stats return a sequence of battery events.
     private void mockBatteryStatsHistory() {
         // Mock out new data every time iterateBatteryStatsHistory is called.
@@ -26,9 +26,13 @@ import android.os.BatteryManager;
 import android.os.BatteryUsageStats;
 import android.os.LocaleList;
 import android.os.UserHandle;
+import android.text.format.DateUtils;
 
+import com.android.settings.testutils.DatabaseTestUtils;
 import com.android.settings.testutils.FakeFeatureFactory;
+import com.android.settings.testutils.shadow.ShadowThreadUtils;
 
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -47,6 +51,7 @@ import java.util.TimeZone;
 
 @RunWith(RobolectricTestRunner.class)
 public final class ConvertUtilsTest {
+    private static final long BOOT_TIME = 1000000L;
 
     private Context mContext;
 
@@ -64,6 +69,14 @@ public final class ConvertUtilsTest {
         mContext = spy(RuntimeEnvironment.application);
         mFeatureFactory = FakeFeatureFactory.setupForTest();
         mPowerUsageFeatureProvider = mFeatureFactory.powerUsageFeatureProvider;
+        // The chart is loaded in the background.
+        ShadowThreadUtils.setIsMainThread(false);
+    }
+
+    @After
+    public void tearDown() {
+        ShadowThreadUtils.reset();
+        DatabaseTestUtils.clearDb(mContext);
     }
 
     @Test
@@ -383,6 +396,149 @@ public final class ConvertUtilsTest {
         assertThat(resultEntry.mBackgroundUsageTimeInMs).isEqualTo(0);
     }
 
+    @Test
+    public void testGetIndexedUsageMap_recentData_storesFinalSteps() {
+        final long[] batteryHistoryKeys = createRecentHistoryKeys();
+        final Map<Long, Map<String, BatteryHistEntry>> batteryHistoryMap =
+            createHistoryMap(batteryHistoryKeys, BOOT_TIME);
+
+        final Map<Integer, List<BatteryDiffEntry>> resultMap =
+            ConvertUtils.getIndexedUsageMap(
+                mContext, /*timeSlotSize=*/ 1, batteryHistoryKeys, batteryHistoryMap,
+                /*purgeLowPercentageAndFakeData=*/ false);
+
+        assertBatteryDiffEntry(resultMap.get(0).get(0), 100, 20L, 40L);
+        final BatteryUsageStepDatabaseHelper stepStore =
+            BatteryUsageStepDatabaseHelper.getInstance(mContext);
+        final BatteryUsageStep firstStep =
+            stepStore.getStep(batteryHistoryKeys[0], batteryHistoryKeys[1], BOOT_TIME);
+        assertThat(firstStep.mKeys).asList().containsExactly("1");
+        assertThat(firstStep.mForegroundUsageTimeInMs[0]).isEqualTo(10L);
+        // The last step is still open.
+        assertThat(stepStore.getStep(batteryHistoryKeys[1], batteryHistoryKeys[2], BOOT_TIME))
+            .isNull();
+        // Nor is the step of another boot.
+        assertThat(stepStore.getStep(batteryHistoryKeys[0], batteryHistoryKeys[1],
+            BOOT_TIME + DateUtils.HOUR_IN_MILLIS)).isNull();
+    }
+
+    @Test
+    public void testGetIndexedUsageMap_mainThread_noStoredSteps() {
+        ShadowThreadUtils.setIsMainThread(true);
+        final long[] batteryHistoryKeys = createRecentHistoryKeys();
+
+        ConvertUtils.getIndexedUsageMap(
+            mContext, /*timeSlotSize=*/ 1, batteryHistoryKeys,
+            createHistoryMap(batteryHistoryKeys, BOOT_TIME),
+            /*purgeLowPercentageAndFakeData=*/ false);
+
+        assertThat(BatteryUsageStepDatabaseHelper.getInstance(mContext)
+            .getStep(batteryHistoryKeys[0], batteryHistoryKeys[1], BOOT_TIME)).isNull();
+    }
+
+    @Test
+    public void testGetIndexedUsageMap_interpolatedDataOfOpenHour_noStoredSteps() {
+        final long[] batteryHistoryKeys = createRecentHistoryKeys();
+        final Map<Long, Map<String, BatteryHistEntry>> batteryHistoryMap =
+            createHistoryMap(batteryHistoryKeys, BOOT_TIME);
+        interpolateHistory(batteryHistoryKeys, batteryHistoryMap, /*index=*/ 1);
+
+        ConvertUtils.getIndexedUsageMap(
+            mContext, /*timeSlotSize=*/ 1, batteryHistoryKeys, batteryHistoryMap,
+            /*purgeLowPercentageAndFakeData=*/ false);
+
+        assertThat(BatteryUsageStepDatabaseHelper.getInstance(mContext)
+            .getStep(batteryHistoryKeys[0], batteryHistoryKeys[1], BOOT_TIME)).isNull();
+    }
+
+    @Test
+    public void testGetIndexedUsageMap_interpolatedDataOfClosedHour_storesSteps() {
+        final long now = System.currentTimeMillis();
+        final long[] batteryHistoryKeys = new long[] {
+            now - DateUtils.HOUR_IN_MILLIS * 3, now - DateUtils.HOUR_IN_MILLIS * 2,
+            now - DateUtils.HOUR_IN_MILLIS, now};
+        final Map<Long, Map<String, BatteryHistEntry>> batteryHistoryMap =
+            createHistoryMap(batteryHistoryKeys, BOOT_TIME);
+        interpolateHistory(batteryHistoryKeys, batteryHistoryMap, /*index=*/ 1);
+
+        ConvertUtils.getIndexedUsageMap(
+            mContext, /*timeSlotSize=*/ 1, batteryHistoryKeys, batteryHistoryMap,
+            /*purgeLowPercentageAndFakeData=*/ false);
+
+        final BatteryUsageStepDatabaseHelper stepStore =
+            BatteryUsageStepDatabaseHelper.getInstance(mContext);
+        final BatteryUsageStep firstStep =
+            stepStore.getStep(batteryHistoryKeys[0], batteryHistoryKeys[1], BOOT_TIME);
+        assertThat(firstStep.mForegroundUsageTimeInMs[0]).isEqualTo(10L);
+        assertThat(stepStore.getStep(batteryHistoryKeys[1], batteryHistoryKeys[2], BOOT_TIME))
+            .isNotNull();
+    }
+
+    @Test
+    public void testGetIndexedUsageMap_rebootInStep_noStoredSteps() {
+        final long[] batteryHistoryKeys = createRecentHistoryKeys();
+        final Map<Long, Map<String, BatteryHistEntry>> batteryHistoryMap =
+            createHistoryMap(batteryHistoryKeys, BOOT_TIME);
+        final long rebootTime = batteryHistoryKeys[1] - DateUtils.MINUTE_IN_MILLIS * 10;
+        batteryHistoryMap.putAll(createHistoryMap(
+            new long[] {batteryHistoryKeys[1], batteryHistoryKeys[2]}, rebootTime));
+
+        ConvertUtils.getIndexedUsageMap(
+            mContext, /*timeSlotSize=*/ 1, batteryHistoryKeys, batteryHistoryMap,
+            /*purgeLowPercentageAndFakeData=*/ false);
+
+        final BatteryUsageStepDatabaseHelper stepStore =
+            BatteryUsageStepDatabaseHelper.getInstance(mContext);
+        assertThat(stepStore.getStep(batteryHistoryKeys[0], batteryHistoryKeys[1], BOOT_TIME))
+            .isNull();
+        assertThat(stepStore.getStep(batteryHistoryKeys[0], batteryHistoryKeys[1], rebootTime))
+            .isNull();
+    }
+
+    @Test
+    public void testBatteryUsageStep_statsReset_unknownBootTime() {
+        final long[] batteryHistoryKeys = createRecentHistoryKeys();
+        final Map<Long, Map<String, BatteryHistEntry>> batteryHistoryMap =
+            createHistoryMap(batteryHistoryKeys, BOOT_TIME);
+
+        final BatteryUsageStep step = BatteryUsageStep.compute(
+            batteryHistoryKeys[1], batteryHistoryKeys[2],
+            batteryHistoryMap.get(batteryHistoryKeys[2]),
+            batteryHistoryMap.get(batteryHistoryKeys[1]));
+
+        assertThat(step.mBootTime).isEqualTo(BatteryUsageStep.UNKNOWN_BOOT_TIME);
+    }
+
+    // Replaces the snapshot at index with the data interpolated between its neighbours.
+    private static void interpolateHistory(long[] batteryHistoryKeys,
+            Map<Long, Map<String, BatteryHistEntry>> batteryHistoryMap, int index) {
+        final BatteryHistEntry interpolatedEntry = BatteryHistEntry.interpolate(
+            batteryHistoryKeys[index], batteryHistoryKeys[index + 1], /*ratio=*/ 0.5,
+            batteryHistoryMap.get(batteryHistoryKeys[index - 1]).get("1"),
+            batteryHistoryMap.get(batteryHistoryKeys[index + 1]).get("1"));
+        batteryHistoryMap.get(batteryHistoryKeys[index]).put("1", interpolatedEntry);
+    }
+
+    private static long[] createRecentHistoryKeys() {
+        final long now = System.currentTimeMillis();
+        return new long[] {now - DateUtils.HOUR_IN_MILLIS * 2, now - DateUtils.HOUR_IN_MILLIS, now};
+    }
+
+    // Recorded snapshots of the boot started at bootTime, with growing usage.
+    private static Map<Long, Map<String, BatteryHistEntry>> createHistoryMap(
+            long[] batteryHistoryKeys, long bootTime) {
+        final Map<Long, Map<String, BatteryHistEntry>> batteryHistoryMap = new HashMap<>();
+        for (int index = 0; index < batteryHistoryKeys.length; index++) {
+            final Map<String, BatteryHistEntry> entryMap = new HashMap<>();
+            final BatteryHistEntry entry = createBatteryHistEntry(
+                "package1", "label1", 5.0 * index, 1L, 10L * index, 20L * index,
+                batteryHistoryKeys[index], batteryHistoryKeys[index] - bootTime);
+            entryMap.put(entry.getKey(), entry);
+            batteryHistoryMap.put(Long.valueOf(batteryHistoryKeys[index]), entryMap);
+        }
+        return batteryHistoryMap;
+    }
+
     @Test
     public void getLocale_nullContext_returnDefaultLocale() {
         assertThat(ConvertUtils.getLocale(/*context=*/ null))
@@ -404,8 +560,19 @@ public final class ConvertUtilsTest {
     private static BatteryHistEntry createBatteryHistEntry(
             String packageName, String appLabel, double consumePower,
             long uid, long foregroundUsageTimeInMs, long backgroundUsageTimeInMs) {
+        return createBatteryHistEntry(packageName, appLabel, consumePower, uid,
+            foregroundUsageTimeInMs, backgroundUsageTimeInMs, /*timestamp=*/ 0,
+            /*bootTimestamp=*/ 0);
+    }
+
+    private static BatteryHistEntry createBatteryHistEntry(
+            String packageName, String appLabel, double consumePower,
+            long uid, long foregroundUsageTimeInMs, long backgroundUsageTimeInMs,
+            long timestamp, long bootTimestamp) {
         // Only insert required fields.
         final ContentValues values = new ContentValues();
+        values.put(BatteryHistEntry.KEY_TIMESTAMP, Long.valueOf(timestamp));
+        values.put(BatteryHistEntry.KEY_BOOT_TIMESTAMP, Long.valueOf(bootTimestamp));
         values.put(BatteryHistEntry.KEY_PACKAGE_NAME, packageName);
         values.put(BatteryHistEntry.KEY_APP_LABEL, appLabel);
         values.put(BatteryHistEntry.KEY_UID, Long.valueOf(uid));
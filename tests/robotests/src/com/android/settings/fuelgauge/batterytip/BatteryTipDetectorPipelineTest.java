@@ -0,0 +1,160 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.settings.fuelgauge.batterytip;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.android.settings.fuelgauge.batterytip.detectors.BatteryTipDetector;
+import com.android.settings.fuelgauge.batterytip.tips.BatteryTip;
+import com.android.settings.fuelgauge.batterytip.tips.LowBatteryTip;
+import com.android.settings.fuelgauge.batterytip.tips.SmartBatteryTip;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@RunWith(RobolectricTestRunner.class)
+public class BatteryTipDetectorPipelineTest {
+    private static final String LOW_BATTERY = "LowBatteryDetector";
+    private static final String SMART_BATTERY = "SmartBatteryDetector";
+
+    private final BatteryTip mLowBatteryTip =
+            new LowBatteryTip(BatteryTip.StateType.NEW, false /* powerSaveModeOn */);
+    private final BatteryTip mSmartBatteryTip = new SmartBatteryTip(BatteryTip.StateType.NEW);
+    private final CountDownLatch mLatch = new CountDownLatch(1);
+
+    @After
+    public void tearDown() {
+        mLatch.countDown();
+        BatteryTipDetectorPipeline.clearLatencyHistogramsForTest();
+    }
+
+    @Test
+    public void run_returnsTipsInOrder() {
+        final List<BatteryTip> tips = new BatteryTipDetectorPipeline().run(detectors(
+                SMART_BATTERY, () -> mSmartBatteryTip, LOW_BATTERY, () -> mLowBatteryTip));
+
+        assertThat(tips).containsExactly(mSmartBatteryTip, mLowBatteryTip).inOrder();
+    }
+
+    @Test
+    public void run_detectorMissesDeadline_usesCopyOfLastTip() {
+        final BatteryTipDetectorPipeline pipeline = new BatteryTipDetectorPipeline(
+                0 /* deadlineMs */, BatteryTipDetectorPipeline.MAX_LAST_TIP_AGE_MS);
+        pipeline.run(detectors(LOW_BATTERY, () -> mLowBatteryTip));
+        // Updated by its preference after the run.
+        mLowBatteryTip.updateState(
+                new LowBatteryTip(BatteryTip.StateType.INVISIBLE, true /* powerSaveModeOn */));
+
+        final List<BatteryTip> tips = pipeline.run(detectors(LOW_BATTERY, this::blockedTip,
+                SMART_BATTERY, () -> mSmartBatteryTip));
+
+        assertThat(tips.get(0)).isNotSameInstanceAs(mLowBatteryTip);
+        assertThat(tips.get(0)).isInstanceOf(LowBatteryTip.class);
+        assertThat(tips.get(0).getState()).isEqualTo(BatteryTip.StateType.NEW);
+        assertThat(tips.get(1)).isSameInstanceAs(mSmartBatteryTip);
+    }
+
+    @Test
+    public void run_lastTipTooOld_waitsForDetector() {
+        final BatteryTipDetectorPipeline pipeline =
+                new BatteryTipDetectorPipeline(0 /* deadlineMs */, -1 /* maxLastTipAgeMs */);
+        pipeline.run(detectors(LOW_BATTERY, () -> mLowBatteryTip));
+        final BatteryTip newTip =
+                new LowBatteryTip(BatteryTip.StateType.INVISIBLE, false /* powerSaveModeOn */);
+
+        final List<BatteryTip> tips = pipeline.run(detectors(LOW_BATTERY, () -> newTip));
+
+        assertThat(tips).containsExactly(newTip);
+    }
+
+    @Test
+    public void run_otherPipeline_doesNotShareLastTip() {
+        new BatteryTipDetectorPipeline(0 /* deadlineMs */,
+                BatteryTipDetectorPipeline.MAX_LAST_TIP_AGE_MS)
+                .run(detectors(LOW_BATTERY, () -> mLowBatteryTip));
+        final BatteryTip newTip =
+                new LowBatteryTip(BatteryTip.StateType.INVISIBLE, false /* powerSaveModeOn */);
+
+        final List<BatteryTip> tips = new BatteryTipDetectorPipeline(0 /* deadlineMs */,
+                BatteryTipDetectorPipeline.MAX_LAST_TIP_AGE_MS)
+                .run(detectors(LOW_BATTERY, () -> newTip));
+
+        assertThat(tips).containsExactly(newTip);
+    }
+
+    @Test
+    public void run_detectorStillRunning_doesNotStartItAgain() {
+        final BatteryTipDetectorPipeline pipeline = new BatteryTipDetectorPipeline(
+                0 /* deadlineMs */, BatteryTipDetectorPipeline.MAX_LAST_TIP_AGE_MS);
+        pipeline.run(detectors(LOW_BATTERY, () -> mLowBatteryTip));
+        final AtomicInteger detections = new AtomicInteger();
+        final BatteryTipDetector detector = () -> {
+            detections.incrementAndGet();
+            return blockedTip();
+        };
+
+        pipeline.run(detectors(LOW_BATTERY, detector));
+        pipeline.run(detectors(LOW_BATTERY, detector));
+        mLatch.countDown();
+
+        assertThat(detections.get()).isAtMost(1);
+    }
+
+    @Test
+    public void run_recordsLatencyHistogramPerDetector() {
+        new BatteryTipDetectorPipeline().run(detectors(
+                SMART_BATTERY, () -> mSmartBatteryTip, LOW_BATTERY, () -> mLowBatteryTip));
+
+        final Map<String, long[]> histograms = BatteryTipDetectorPipeline.getLatencyHistograms();
+
+        assertThat(histograms.keySet()).containsExactly(SMART_BATTERY, LOW_BATTERY);
+        assertThat(histograms.get(LOW_BATTERY))
+                .hasLength(BatteryTipDetectorPipeline.LATENCY_BUCKETS_MS.length + 1);
+        assertThat(Arrays.stream(histograms.get(LOW_BATTERY)).sum()).isEqualTo(1);
+    }
+
+    private BatteryTip blockedTip() {
+        try {
+            mLatch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return mLowBatteryTip;
+    }
+
+    private static Map<String, BatteryTipDetector> detectors(String name,
+            BatteryTipDetector detector) {
+        final Map<String, BatteryTipDetector> detectors = new LinkedHashMap<>();
+        detectors.put(name, detector);
+        return detectors;
+    }
+
+    private static Map<String, BatteryTipDetector> detectors(String name1,
+            BatteryTipDetector detector1, String name2, BatteryTipDetector detector2) {
+        final Map<String, BatteryTipDetector> detectors = detectors(name1, detector1);
+        detectors.put(name2, detector2);
+        return detectors;
+    }
+}
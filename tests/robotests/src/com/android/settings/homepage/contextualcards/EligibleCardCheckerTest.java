@@ -23,6 +23,8 @@ import static com.google.common.truth.Truth.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 import android.content.Context;
 import android.net.Uri;
@@ -54,6 +56,7 @@ public class EligibleCardCheckerTest {
         mEligibleCardChecker =
                 spy(new EligibleCardChecker(mContext, getContextualCard(TEST_SLICE_URI)));
         SliceProvider.setSpecs(SliceLiveData.SUPPORTED_SPECS);
+        EligibleCardChecker.clearCache();
     }
 
     @Test
@@ -125,6 +128,55 @@ public class EligibleCardCheckerTest {
         assertThat(mEligibleCardChecker.mCard.getSlice()).isNotNull();
     }
 
+    @Test
+    public void isCardEligibleToDisplay_checkedTwice_bindSliceOnce() {
+        final ContextualWifiSlice wifiSlice = new ContextualWifiSlice(mContext);
+        final Slice slice = wifiSlice.getSlice();
+        doReturn(slice).when(mEligibleCardChecker).bindSlice(any(Uri.class));
+
+        mEligibleCardChecker.isCardEligibleToDisplay(getContextualCard(TEST_SLICE_URI));
+        mEligibleCardChecker.isCardEligibleToDisplay(getContextualCard(TEST_SLICE_URI));
+
+        verify(mEligibleCardChecker).bindSlice(TEST_SLICE_URI);
+    }
+
+    @Test
+    public void isCardEligibleToDisplay_checkedTwice_keepVerdictWithoutSlice() {
+        final ContextualWifiSlice wifiSlice = new ContextualWifiSlice(mContext);
+        final Slice slice = wifiSlice.getSlice();
+        doReturn(slice).when(mEligibleCardChecker).bindSlice(any(Uri.class));
+
+        mEligibleCardChecker.isCardEligibleToDisplay(getContextualCard(TEST_SLICE_URI));
+        assertThat(mEligibleCardChecker.isCardEligibleToDisplay(getContextualCard(TEST_SLICE_URI)))
+                .isTrue();
+
+        assertThat(mEligibleCardChecker.mCard.hasInlineAction()).isTrue();
+        assertThat(mEligibleCardChecker.mCard.getSlice()).isNull();
+    }
+
+    @Test
+    public void isCardEligibleToDisplay_bindFailed_bindSliceAgain() {
+        doReturn(null).when(mEligibleCardChecker).bindSlice(any(Uri.class));
+
+        mEligibleCardChecker.isCardEligibleToDisplay(getContextualCard(TEST_SLICE_URI));
+        mEligibleCardChecker.isCardEligibleToDisplay(getContextualCard(TEST_SLICE_URI));
+
+        verify(mEligibleCardChecker, times(2)).bindSlice(TEST_SLICE_URI);
+    }
+
+    @Test
+    public void isCardEligibleToDisplay_cacheCleared_bindSliceAgain() {
+        final ContextualWifiSlice wifiSlice = new ContextualWifiSlice(mContext);
+        final Slice slice = wifiSlice.getSlice();
+        doReturn(slice).when(mEligibleCardChecker).bindSlice(any(Uri.class));
+
+        mEligibleCardChecker.isCardEligibleToDisplay(getContextualCard(TEST_SLICE_URI));
+        EligibleCardChecker.clearCache();
+        mEligibleCardChecker.isCardEligibleToDisplay(getContextualCard(TEST_SLICE_URI));
+
+        verify(mEligibleCardChecker, times(2)).bindSlice(TEST_SLICE_URI);
+    }
+
     private ContextualCard getContextualCard(Uri sliceUri) {
         return new ContextualCard.Builder()
                 .setName("test_card")
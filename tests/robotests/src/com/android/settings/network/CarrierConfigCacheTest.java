@@ -0,0 +1,180 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.network;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.content.Context;
+import android.content.Intent;
+import android.os.Looper;
+import android.os.PersistableBundle;
+import android.telephony.CarrierConfigManager;
+import android.telephony.SubscriptionManager;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+@RunWith(RobolectricTestRunner.class)
+public class CarrierConfigCacheTest {
+
+    private static final int SUB_ID_1 = 1;
+    private static final int SUB_ID_2 = 2;
+    private static final String KEY = "key";
+
+    @Mock
+    private CarrierConfigManager mCarrierConfigManager;
+
+    private Context mContext;
+    private PersistableBundle mConfig1;
+    private PersistableBundle mConfig2;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        mContext = spy(RuntimeEnvironment.application);
+        when(mContext.getSystemService(CarrierConfigManager.class))
+                .thenReturn(mCarrierConfigManager);
+        mConfig1 = new PersistableBundle();
+        mConfig2 = new PersistableBundle();
+        doReturn(mConfig1).when(mCarrierConfigManager).getConfigForSubId(SUB_ID_1);
+        doReturn(mConfig2).when(mCarrierConfigManager).getConfigForSubId(SUB_ID_2);
+        SubscriptionCacheInvalidator.setCachingEnabledForTest(true);
+    }
+
+    @After
+    public void tearDown() {
+        SubscriptionCacheInvalidator.setCachingEnabledForTest(null);
+    }
+
+    @Test
+    public void getConfigForSubId_calledTwice_readConfigOnce() {
+        mConfig1.putBoolean(KEY, true);
+
+        final PersistableBundle config = CarrierConfigCache.getConfigForSubId(mContext, SUB_ID_1);
+        final PersistableBundle cachedConfig =
+                CarrierConfigCache.getConfigForSubId(mContext, SUB_ID_1);
+
+        verify(mCarrierConfigManager).getConfigForSubId(SUB_ID_1);
+        assertThat(config.getBoolean(KEY)).isTrue();
+        assertThat(cachedConfig.getBoolean(KEY)).isTrue();
+    }
+
+    @Test
+    public void getConfigForSubId_modifyReturnedConfig_cachedConfigUnchanged() {
+        mConfig1.putBoolean(KEY, true);
+
+        CarrierConfigCache.getConfigForSubId(mContext, SUB_ID_1).putBoolean(KEY, false);
+
+        assertThat(CarrierConfigCache.getConfigForSubId(mContext, SUB_ID_1).getBoolean(KEY))
+                .isTrue();
+    }
+
+    @Test
+    public void getConfigForSubId_differentContexts_readConfigOnce() {
+        final Context otherContext = spy(RuntimeEnvironment.application);
+        when(otherContext.getSystemService(CarrierConfigManager.class))
+                .thenReturn(mCarrierConfigManager);
+
+        CarrierConfigCache.getConfigForSubId(mContext, SUB_ID_1);
+        CarrierConfigCache.getConfigForSubId(otherContext, SUB_ID_1);
+
+        verify(mCarrierConfigManager).getConfigForSubId(SUB_ID_1);
+    }
+
+    @Test
+    public void getConfigForSubId_cachingDisabled_readConfigEveryTime() {
+        SubscriptionCacheInvalidator.setCachingEnabledForTest(false);
+
+        CarrierConfigCache.getConfigForSubId(mContext, SUB_ID_1);
+        CarrierConfigCache.getConfigForSubId(mContext, SUB_ID_1);
+
+        verify(mCarrierConfigManager, times(2)).getConfigForSubId(SUB_ID_1);
+    }
+
+    @Test
+    public void getConfigForSubId_nullConfig_notCached() {
+        doReturn(null).when(mCarrierConfigManager).getConfigForSubId(SUB_ID_1);
+
+        assertThat(CarrierConfigCache.getConfigForSubId(mContext, SUB_ID_1)).isNull();
+        CarrierConfigCache.getConfigForSubId(mContext, SUB_ID_1);
+
+        verify(mCarrierConfigManager, times(2)).getConfigForSubId(SUB_ID_1);
+    }
+
+    @Test
+    public void getConfigForSubId_noCarrierConfigManager_returnNull() {
+        when(mContext.getSystemService(CarrierConfigManager.class)).thenReturn(null);
+
+        assertThat(CarrierConfigCache.getConfigForSubId(mContext, SUB_ID_1)).isNull();
+    }
+
+    @Test
+    public void invalidate_subId_onlyReadThatConfigAgain() {
+        CarrierConfigCache.getConfigForSubId(mContext, SUB_ID_1);
+        CarrierConfigCache.getConfigForSubId(mContext, SUB_ID_2);
+
+        SubscriptionCacheInvalidator.invalidate(SUB_ID_1);
+        CarrierConfigCache.getConfigForSubId(mContext, SUB_ID_1);
+        CarrierConfigCache.getConfigForSubId(mContext, SUB_ID_2);
+
+        verify(mCarrierConfigManager, times(2)).getConfigForSubId(SUB_ID_1);
+        verify(mCarrierConfigManager).getConfigForSubId(SUB_ID_2);
+    }
+
+    @Test
+    public void invalidate_invalidSubId_readAllConfigsAgain() {
+        CarrierConfigCache.getConfigForSubId(mContext, SUB_ID_1);
+        CarrierConfigCache.getConfigForSubId(mContext, SUB_ID_2);
+
+        SubscriptionCacheInvalidator.invalidate(SubscriptionManager.INVALID_SUBSCRIPTION_ID);
+        CarrierConfigCache.getConfigForSubId(mContext, SUB_ID_1);
+        CarrierConfigCache.getConfigForSubId(mContext, SUB_ID_2);
+
+        verify(mCarrierConfigManager, times(2)).getConfigForSubId(SUB_ID_1);
+        verify(mCarrierConfigManager, times(2)).getConfigForSubId(SUB_ID_2);
+    }
+
+    @Test
+    public void carrierConfigChanged_subIdNotCachedByListener_readConfigAgain() {
+        final ActiveSubscriptionsListener listener =
+                new ActiveSubscriptionsListener(Looper.getMainLooper(), mContext) {
+                    @Override
+                    public void onChanged() {
+                    }
+                };
+        CarrierConfigCache.getConfigForSubId(mContext, SUB_ID_1);
+
+        final Intent intent = new Intent(CarrierConfigManager.ACTION_CARRIER_CONFIG_CHANGED);
+        intent.putExtra(CarrierConfigManager.EXTRA_SUBSCRIPTION_INDEX, SUB_ID_1);
+        listener.getSubscriptionChangeReceiver().onReceive(mContext, intent);
+        CarrierConfigCache.getConfigForSubId(mContext, SUB_ID_1);
+
+        verify(mCarrierConfigManager, times(2)).getConfigForSubId(SUB_ID_1);
+    }
+}
@@ -20,6 +20,7 @@ import static com.google.common.truth.Truth.assertThat;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
@@ -33,12 +34,15 @@ import android.content.Context;
 import android.content.Intent;
 import android.database.ContentObserver;
 import android.net.Uri;
+import android.os.PersistableBundle;
 import android.provider.Settings;
+import android.telephony.CarrierConfigManager;
 import android.telephony.SubscriptionManager;
 
 import com.android.internal.telephony.TelephonyIntents;
 import com.android.settings.network.SubscriptionsChangeListener.SubscriptionsChangeListenerClient;
 
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -51,10 +55,14 @@ import org.robolectric.RuntimeEnvironment;
 @RunWith(RobolectricTestRunner.class)
 public class SubscriptionsChangeListenerTest {
 
+    private static final int SUB_ID = 1;
+
     @Mock
     private SubscriptionsChangeListenerClient mClient;
     @Mock
     private SubscriptionManager mSubscriptionManager;
+    @Mock
+    private CarrierConfigManager mCarrierConfigManager;
 
     private Context mContext;
     private SubscriptionsChangeListener mListener;
@@ -69,6 +77,11 @@ public class SubscriptionsChangeListenerTest {
         mAirplaneModeUri = Settings.Global.getUriFor(Settings.Global.AIRPLANE_MODE_ON);
     }
 
+    @After
+    public void tearDown() {
+        SubscriptionCacheInvalidator.setCachingEnabledForTest(null);
+    }
+
     private void initListener(boolean alsoStart) {
         mListener = new SubscriptionsChangeListener(mContext, mClient);
         if (alsoStart) {
@@ -138,4 +151,22 @@ public class SubscriptionsChangeListenerTest {
         assertThat(mListener.isAirplaneModeOn()).isFalse();
     }
 
+    @Test
+    public void onSubscriptionsChangedEvent_clientReadsCarrierConfig_readConfigAgain() {
+        SubscriptionCacheInvalidator.setCachingEnabledForTest(true);
+        when(mContext.getSystemService(CarrierConfigManager.class))
+                .thenReturn(mCarrierConfigManager);
+        when(mCarrierConfigManager.getConfigForSubId(SUB_ID)).thenReturn(new PersistableBundle());
+        doAnswer(invocation -> CarrierConfigCache.getConfigForSubId(mContext, SUB_ID))
+                .when(mClient).onSubscriptionsChanged();
+        CarrierConfigCache.getConfigForSubId(mContext, SUB_ID);
+        initListener(true);
+        final ArgumentCaptor<SubscriptionManager.OnSubscriptionsChangedListener> captor =
+                ArgumentCaptor.forClass(SubscriptionManager.OnSubscriptionsChangedListener.class);
+        verify(mSubscriptionManager).addOnSubscriptionsChangedListener(any(), captor.capture());
+
+        captor.getValue().onSubscriptionsChanged();
+
+        verify(mCarrierConfigManager, times(2)).getConfigForSubId(SUB_ID);
+    }
 }
@@ -0,0 +1,148 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.network;
+
+import static com.android.settings.network.WifiEntryListReconciler.ORDER_GAP;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.android.wifitrackerlib.WifiEntry;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+public class WifiEntryListReconcilerTest {
+
+    private final WifiEntry mEntryA = mockWifiEntry("A");
+    private final WifiEntry mEntryB = mockWifiEntry("B");
+    private final WifiEntry mEntryC = mockWifiEntry("C");
+    private final WifiEntry mEntryD = mockWifiEntry("D");
+
+    @Test
+    public void reconcile_noShownPreferences_shouldInsertAll() {
+        final WifiEntryListReconciler.Patch patch = WifiEntryListReconciler.reconcile(
+                Collections.emptyList(), Arrays.asList(mEntryA, mEntryB));
+
+        assertThat(patch.mRemovedKeys).isEmpty();
+        assertThat(patch.mInserted).asList().containsExactly(true, true);
+        assertThat(patch.mOrders).asList().containsExactly(ORDER_GAP, 2 * ORDER_GAP).inOrder();
+        assertThat(patch.getNextOrder()).isEqualTo(3 * ORDER_GAP);
+    }
+
+    @Test
+    public void reconcile_sameList_shouldNotChangeAnything() {
+        final List<WifiEntry> entries = Arrays.asList(mEntryA, mEntryB, mEntryC);
+
+        final WifiEntryListReconciler.Patch patch = WifiEntryListReconciler.reconcile(
+                toItems(entries), entries);
+
+        assertThat(patch.mRemovedKeys).isEmpty();
+        assertThat(patch.mInserted).asList().containsExactly(false, false, false);
+        assertThat(patch.mMoveCount).isEqualTo(0);
+    }
+
+    @Test
+    public void reconcile_insertAtTop_shouldNotMoveOthers() {
+        final WifiEntryListReconciler.Patch patch = WifiEntryListReconciler.reconcile(
+                toItems(Arrays.asList(mEntryA, mEntryB)), Arrays.asList(mEntryC, mEntryA, mEntryB));
+
+        assertThat(patch.mInserted).asList().containsExactly(true, false, false).inOrder();
+        assertThat(patch.mOrders[0]).isLessThan(ORDER_GAP);
+        assertThat(patch.mOrders[1]).isEqualTo(ORDER_GAP);
+        assertThat(patch.mOrders[2]).isEqualTo(2 * ORDER_GAP);
+        assertThat(patch.mMoveCount).isEqualTo(0);
+    }
+
+    @Test
+    public void reconcile_entryMovedToTop_shouldOnlyMoveIt() {
+        final WifiEntryListReconciler.Patch patch = WifiEntryListReconciler.reconcile(
+                toItems(Arrays.asList(mEntryA, mEntryB, mEntryC)),
+                Arrays.asList(mEntryC, mEntryA, mEntryB));
+
+        assertThat(patch.mInserted).asList().containsExactly(false, false, false);
+        assertThat(patch.mMoveCount).isEqualTo(1);
+        assertIncreasing(patch.mOrders);
+    }
+
+    @Test
+    public void reconcile_entryGone_shouldRemoveIt() {
+        final WifiEntryListReconciler.Patch patch = WifiEntryListReconciler.reconcile(
+                toItems(Arrays.asList(mEntryA, mEntryB, mEntryC)),
+                Arrays.asList(mEntryA, mEntryC));
+
+        assertThat(patch.mRemovedKeys).containsExactly("B");
+        assertThat(patch.mMoveCount).isEqualTo(0);
+    }
+
+    @Test
+    public void reconcile_wifiEntryObjectChanged_shouldReplacePreference() {
+        final WifiEntry newEntryB = mockWifiEntry("B");
+
+        final WifiEntryListReconciler.Patch patch = WifiEntryListReconciler.reconcile(
+                toItems(Arrays.asList(mEntryA, mEntryB)), Arrays.asList(mEntryA, newEntryB));
+
+        assertThat(patch.mRemovedKeys).containsExactly("B");
+        assertThat(patch.mInserted).asList().containsExactly(false, true).inOrder();
+    }
+
+    @Test
+    public void reconcile_noRoomLeft_shouldRenumberAll() {
+        final List<WifiEntryListReconciler.Item> items = new ArrayList<>();
+        items.add(new WifiEntryListReconciler.Item("A", mEntryA, 1));
+        items.add(new WifiEntryListReconciler.Item("B", mEntryB, 2));
+
+        final WifiEntryListReconciler.Patch patch = WifiEntryListReconciler.reconcile(items,
+                Arrays.asList(mEntryA, mEntryC, mEntryD, mEntryB));
+
+        assertThat(patch.mOrders).asList()
+                .containsExactly(ORDER_GAP, 2 * ORDER_GAP, 3 * ORDER_GAP, 4 * ORDER_GAP)
+                .inOrder();
+        assertThat(patch.mMoveCount).isEqualTo(2);
+    }
+
+    private static List<WifiEntryListReconciler.Item> toItems(List<WifiEntry> entries) {
+        final List<WifiEntryListReconciler.Item> items = new ArrayList<>();
+        for (int i = 0; i < entries.size(); i++) {
+            final WifiEntry entry = entries.get(i);
+            items.add(new WifiEntryListReconciler.Item(entry.getKey(), entry,
+                    (i + 1) * ORDER_GAP));
+        }
+        return items;
+    }
+
+    private static void assertIncreasing(int[] orders) {
+        for (int i = 1; i < orders.length; i++) {
+            assertThat(orders[i]).isGreaterThan(orders[i - 1]);
+        }
+    }
+
+    private static WifiEntry mockWifiEntry(String key) {
+        final WifiEntry wifiEntry = mock(WifiEntry.class);
+        when(wifiEntry.getKey()).thenReturn(key);
+        return wifiEntry;
+    }
+}
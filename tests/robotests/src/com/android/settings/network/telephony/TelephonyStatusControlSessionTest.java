@@ -0,0 +1,206 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.network.telephony;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import android.app.settings.SettingsEnums;
+import android.content.Context;
+import android.os.SystemClock;
+
+import com.android.settings.core.BasePreferenceController;
+import com.android.settingslib.core.AbstractPreferenceController;
+import com.android.settingslib.core.instrumentation.MetricsFeatureProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@RunWith(RobolectricTestRunner.class)
+public class TelephonyStatusControlSessionTest {
+
+    private static final int SUB_ID = 1;
+    private static final int METRICS_CATEGORY = SettingsEnums.MOBILE_NETWORK;
+
+    @Mock
+    private MetricsFeatureProvider mMetricsFeatureProvider;
+
+    private Context mContext;
+    private CountDownLatch mSlowLatch;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        mContext = RuntimeEnvironment.application;
+    }
+
+    @After
+    public void tearDown() {
+        if (mSlowLatch != null) {
+            mSlowLatch.countDown();
+        }
+    }
+
+    @Test
+    public void build_shouldSetAvailabilityStatusOfAllControllers() {
+        final FakeController available = new FakeController(mContext, "available",
+                BasePreferenceController.AVAILABLE);
+        final FakeController unavailable = new FakeController(mContext, "unavailable",
+                BasePreferenceController.CONDITIONALLY_UNAVAILABLE);
+
+        new TelephonyStatusControlSession.Builder(Arrays.asList(available, unavailable)).build();
+
+        assertThat(available.getAvailabilityStatus())
+                .isEqualTo(BasePreferenceController.AVAILABLE);
+        assertThat(unavailable.getAvailabilityStatus())
+                .isEqualTo(BasePreferenceController.CONDITIONALLY_UNAVAILABLE);
+        assertThat(available.mEvaluationCount.get()).isEqualTo(1);
+        assertThat(unavailable.mEvaluationCount.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void close_shouldEvaluateAvailabilityStatusAgain() {
+        final FakeController controller = new FakeController(mContext, "key",
+                BasePreferenceController.AVAILABLE);
+        final TelephonyStatusControlSession session = new TelephonyStatusControlSession.Builder(
+                Collections.singletonList(controller)).build();
+
+        session.close();
+        controller.getAvailabilityStatus();
+
+        assertThat(controller.mEvaluationCount.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void build_controllerTimedOut_shouldNotControlIt() {
+        mSlowLatch = new CountDownLatch(1);
+        final FakeController slow = new FakeController(mContext, "slow",
+                BasePreferenceController.AVAILABLE) {
+            @Override
+            public int getAvailabilityStatus(int subId) {
+                final int status = super.getAvailabilityStatus(subId);
+                try {
+                    mSlowLatch.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return status;
+            }
+        };
+        final FakeController fast = new FakeController(mContext, "fast",
+                BasePreferenceController.AVAILABLE);
+
+        final TelephonyStatusControlSession session = new TelephonyStatusControlSession.Builder(
+                Arrays.asList(slow, fast)).build();
+        mSlowLatch.countDown();
+        slow.getAvailabilityStatus();
+        fast.getAvailabilityStatus();
+        session.close();
+
+        assertThat(slow.mEvaluationCount.get()).isEqualTo(2);
+        assertThat(fast.mEvaluationCount.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void build_controllerTimedOut_shouldCancelIt() throws InterruptedException {
+        mSlowLatch = new CountDownLatch(1);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        final FakeController slow = new FakeController(mContext, "slow",
+                BasePreferenceController.AVAILABLE) {
+            @Override
+            public int getAvailabilityStatus(int subId) {
+                try {
+                    mSlowLatch.await();
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                }
+                return super.getAvailabilityStatus(subId);
+            }
+        };
+
+        new TelephonyStatusControlSession.Builder(Collections.singletonList(slow)).build();
+
+        assertThat(interrupted.await(1, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    public void build_slowController_shouldReportMetrics() {
+        final AbstractPreferenceController slow = new FakeController(mContext, "slow",
+                BasePreferenceController.AVAILABLE) {
+            @Override
+            public int getAvailabilityStatus(int subId) {
+                SystemClock.sleep(TelephonyStatusControlSession.AVAILABILITY_TIME_THRESHOLD_MS + 1);
+                return super.getAvailabilityStatus(subId);
+            }
+        };
+
+        new TelephonyStatusControlSession.Builder(Collections.singletonList(slow))
+                .setMetrics(mMetricsFeatureProvider, METRICS_CATEGORY)
+                .build();
+
+        verify(mMetricsFeatureProvider).action(eq(SettingsEnums.PAGE_UNKNOWN),
+                eq(SettingsEnums.ACTION_CONTROLLER_UPDATE_STATE), eq(METRICS_CATEGORY),
+                anyString(), anyInt());
+    }
+
+    @Test
+    public void build_fastController_shouldNotReportMetrics() {
+        final AbstractPreferenceController controller = new FakeController(mContext, "key",
+                BasePreferenceController.AVAILABLE);
+
+        new TelephonyStatusControlSession.Builder(Collections.singletonList(controller))
+                .setMetrics(mMetricsFeatureProvider, METRICS_CATEGORY)
+                .build();
+
+        verify(mMetricsFeatureProvider, never()).action(anyInt(), anyInt(), anyInt(),
+                anyString(), anyInt());
+    }
+
+    private static class FakeController extends TelephonyBasePreferenceController {
+        private final int mStatus;
+        final AtomicInteger mEvaluationCount = new AtomicInteger();
+
+        FakeController(Context context, String key, int status) {
+            super(context, key);
+            mSubId = SUB_ID;
+            mStatus = status;
+        }
+
+        @Override
+        public int getAvailabilityStatus(int subId) {
+            mEvaluationCount.incrementAndGet();
+            return mStatus;
+        }
+    }
+}
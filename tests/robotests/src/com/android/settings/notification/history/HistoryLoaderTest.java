@@ -0,0 +1,176 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.notification.history;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.app.NotificationHistory;
+import android.app.NotificationHistory.HistoricalNotification;
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageManager;
+import android.graphics.Color;
+import android.graphics.drawable.ColorDrawable;
+import android.os.UserHandle;
+
+import com.android.settings.notification.NotificationBackend;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+public class HistoryLoaderTest {
+    private static final String PKG = "pkg";
+
+    @Mock
+    private NotificationBackend mBackend;
+    @Mock
+    private PackageManager mPm;
+
+    private Context mContext;
+    private HistoryLoader mLoader;
+    private List<NotificationHistoryPackage> mLoaded;
+    private List<Integer> mPageStarts;
+
+    @Before
+    public void setUp() throws Exception {
+        MockitoAnnotations.initMocks(this);
+        mContext = RuntimeEnvironment.application;
+        mLoaded = new ArrayList<>();
+        mPageStarts = new ArrayList<>();
+        when(mPm.getApplicationInfoAsUser(anyString(), anyInt(), anyInt()))
+                .thenAnswer(invocation -> {
+                    final ApplicationInfo info = new ApplicationInfo();
+                    info.packageName = invocation.getArgument(0);
+                    return info;
+                });
+        when(mPm.getApplicationLabel(any(ApplicationInfo.class))).thenReturn("label");
+        when(mPm.getApplicationIcon(any(ApplicationInfo.class)))
+                .thenReturn(new ColorDrawable(Color.RED));
+        when(mPm.getUserBadgedIcon(any(), any(UserHandle.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        mLoader = new HistoryLoader(mContext, mBackend, mPm);
+    }
+
+    @Test
+    public void load_morePackagesThanPage_deliverPagesMostRecentFirst() {
+        final int count = HistoryLoader.PAGE_SIZE + 1;
+        final List<HistoricalNotification> notifications = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            notifications.add(createNotification(PKG + i, 1000 + i, i));
+        }
+        setHistory(notifications);
+
+        load();
+
+        assertThat(mPageStarts).containsExactly(0, HistoryLoader.PAGE_SIZE).inOrder();
+        assertThat(mLoaded).hasSize(count);
+        assertThat(mLoaded.get(0).pkgName).isEqualTo(PKG + (count - 1));
+        assertThat(mLoaded.get(count - 1).pkgName).isEqualTo(PKG + 0);
+    }
+
+    @Test
+    public void load_twice_iconNotShared() {
+        setHistory(createNotification(PKG, 1000, 1));
+
+        load();
+        load();
+
+        assertThat(mLoaded).hasSize(2);
+        assertThat(mLoaded.get(0).icon).isNotNull();
+        assertThat(mLoaded.get(1).icon).isNotSameInstanceAs(mLoaded.get(0).icon);
+        verify(mPm, times(1)).getApplicationLabel(any(ApplicationInfo.class));
+    }
+
+    @Test
+    public void load_afterInvalidate_reloadAppInfo() {
+        setHistory(createNotification(PKG, 1000, 1));
+        load();
+
+        when(mPm.getApplicationLabel(any(ApplicationInfo.class))).thenReturn("new label");
+        mLoader.invalidate(PKG);
+        load();
+
+        assertThat(mLoaded.get(1).label.toString()).isEqualTo("new label");
+    }
+
+    @Test
+    public void load_packageRemoved_showDefaultIcon() throws Exception {
+        when(mPm.getApplicationInfoAsUser(eq(PKG), anyInt(), anyInt()))
+                .thenThrow(new PackageManager.NameNotFoundException());
+        when(mPm.getDefaultActivityIcon()).thenReturn(new ColorDrawable(Color.BLUE));
+        setHistory(createNotification(PKG, 1000, 1));
+
+        load();
+
+        assertThat(mLoaded.get(0).label).isNull();
+        assertThat(mLoaded.get(0).icon).isNotNull();
+    }
+
+    private void load() {
+        mLoader.load((notificationsByPackage, start) -> {
+            mPageStarts.add(start);
+            mLoaded.addAll(notificationsByPackage);
+        });
+    }
+
+    private void setHistory(HistoricalNotification notification) {
+        final List<HistoricalNotification> notifications = new ArrayList<>();
+        notifications.add(notification);
+        setHistory(notifications);
+    }
+
+    // A new history for every load, since it can only be iterated once.
+    private void setHistory(List<HistoricalNotification> notifications) {
+        when(mBackend.getNotificationHistory(anyString(), any())).thenAnswer(invocation -> {
+            final NotificationHistory history = new NotificationHistory();
+            for (HistoricalNotification notification : notifications) {
+                history.addNotificationToWrite(notification);
+            }
+            return history;
+        });
+    }
+
+    private static HistoricalNotification createNotification(String pkg, int uid, long time) {
+        return new HistoricalNotification.Builder()
+                .setPackage(pkg)
+                .setUid(uid)
+                .setUserId(UserHandle.getUserId(uid))
+                .setChannelId("channel")
+                .setChannelName("channel")
+                .setTitle("title")
+                .setText("text")
+                .setPostedTimeMs(time)
+                .build();
+    }
+}
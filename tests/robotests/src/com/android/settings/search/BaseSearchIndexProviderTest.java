@@ -22,7 +22,9 @@ import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.spy;
 
 import android.content.Context;
+import android.net.Uri;
 import android.provider.SearchIndexableResource;
+import android.provider.Settings;
 
 import com.android.settings.R;
 import com.android.settings.core.BasePreferenceController;
@@ -39,6 +41,7 @@ import org.robolectric.RuntimeEnvironment;
 import org.robolectric.annotation.Config;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -46,6 +49,8 @@ import java.util.List;
 public class BaseSearchIndexProviderTest {
 
     private static final String TEST_PREF_KEY = "test_pref_key";
+    private static final Uri TEST_URI_1 = Settings.Secure.getUriFor("test_setting_1");
+    private static final Uri TEST_URI_2 = Settings.Secure.getUriFor("test_setting_2");
 
     private Context mContext;
     private BaseSearchIndexProvider mIndexProvider;
@@ -221,4 +226,58 @@ public class BaseSearchIndexProviderTest {
 
         assertThat(mIndexProvider.getDynamicRawDataToIndex(mContext, true)).isNotEmpty();
     }
+
+    @Test
+    public void getSearchIndexDependencies_allControllersDeclare_shouldReturnUnion() {
+        final List<AbstractPreferenceController> controllers = new ArrayList<>();
+        controllers.add(new DeclaringPreferenceController(mContext, TEST_URI_1));
+        controllers.add(new DeclaringPreferenceController(mContext, TEST_URI_1, TEST_URI_2));
+
+        assertThat(mIndexProvider.getSearchIndexDependencies(mContext, controllers))
+                .containsExactly(TEST_URI_1, TEST_URI_2);
+    }
+
+    @Test
+    public void getSearchIndexDependencies_controllerNotDeclaring_shouldReturnNull() {
+        final List<AbstractPreferenceController> controllers = new ArrayList<>();
+        controllers.add(new DeclaringPreferenceController(mContext, TEST_URI_1));
+        controllers.add(new AvailablePreferenceController(mContext));
+
+        assertThat(mIndexProvider.getSearchIndexDependencies(mContext, controllers)).isNull();
+    }
+
+    @Test
+    public void getSearchIndexDependencies_pageDeclares_shouldIgnoreControllers() {
+        final List<AbstractPreferenceController> controllers = new ArrayList<>();
+        controllers.add(new AvailablePreferenceController(mContext));
+        doReturn(Collections.singletonList(TEST_URI_2)).when(mIndexProvider)
+                .getSearchIndexDependencies(mContext);
+
+        assertThat(mIndexProvider.getSearchIndexDependencies(mContext, controllers))
+                .containsExactly(TEST_URI_2);
+    }
+
+    @Test
+    public void getSearchIndexDependencies_noControllers_shouldReturnNull() {
+        assertThat(mIndexProvider.getSearchIndexDependencies(mContext, null)).isNull();
+    }
+
+    private static class DeclaringPreferenceController extends BasePreferenceController {
+        private final List<Uri> mDependencies;
+
+        private DeclaringPreferenceController(Context context, Uri... dependencies) {
+            super(context, TEST_PREF_KEY);
+            mDependencies = Arrays.asList(dependencies);
+        }
+
+        @Override
+        public int getAvailabilityStatus() {
+            return AVAILABLE;
+        }
+
+        @Override
+        public List<Uri> getSearchIndexDependencies() {
+            return mDependencies;
+        }
+    }
 }
@@ -0,0 +1,206 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.search;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+import android.net.Uri;
+import android.provider.Settings;
+
+import com.android.settings.core.BasePreferenceController;
+import com.android.settingslib.core.AbstractPreferenceController;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+public class SearchIndexableDataCacheTest {
+
+    private static final String TEST_PREF_KEY = "test_pref_key";
+    private static final Uri TEST_URI = Settings.Secure.getUriFor("test_setting");
+
+    private Context mContext;
+    private SearchIndexableDataCache mCache;
+    private boolean mAvailable;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+        mCache = new SearchIndexableDataCache(mContext);
+        mAvailable = true;
+    }
+
+    @Test
+    public void getNonIndexableKeys_declaredDependencies_shouldCreateControllersOnce() {
+        final CountingProvider provider = new CountingProvider(Collections.singletonList(TEST_URI));
+
+        assertThat(mCache.getNonIndexableKeys(provider)).isEmpty();
+        mAvailable = false;
+
+        assertThat(mCache.getNonIndexableKeys(provider)).isEmpty();
+        assertThat(mCache.getDynamicRawData(provider)).isEmpty();
+        assertThat(provider.mCreateCount).isEqualTo(1);
+    }
+
+    @Test
+    public void getNonIndexableKeys_dependencyChanged_shouldComputeAgain() {
+        final CountingProvider provider = new CountingProvider(Collections.singletonList(TEST_URI));
+        mCache.getNonIndexableKeys(provider);
+        mAvailable = false;
+
+        mCache.invalidate(TEST_URI);
+
+        assertThat(mCache.getNonIndexableKeys(provider)).containsExactly(TEST_PREF_KEY);
+        assertThat(provider.mCreateCount).isEqualTo(2);
+    }
+
+    @Test
+    public void getNonIndexableKeys_cleared_shouldComputeAgain() {
+        final CountingProvider provider = new CountingProvider(Collections.emptyList());
+        mCache.getNonIndexableKeys(provider);
+        mAvailable = false;
+
+        mCache.clear();
+
+        assertThat(mCache.getNonIndexableKeys(provider)).containsExactly(TEST_PREF_KEY);
+        assertThat(provider.mCreateCount).isEqualTo(2);
+    }
+
+    @Test
+    public void getNonIndexableKeys_modifyResult_shouldNotChangeCachedKeys() {
+        final CountingProvider provider = new CountingProvider(Collections.emptyList());
+
+        mCache.getNonIndexableKeys(provider).add("other_key");
+
+        assertThat(mCache.getNonIndexableKeys(provider)).isEmpty();
+    }
+
+    @Test
+    public void getNonIndexableKeys_undeclaredDependencies_shouldNotCache() {
+        final CountingProvider provider = new CountingProvider(null);
+
+        assertThat(mCache.getNonIndexableKeys(provider)).isNull();
+        assertThat(mCache.getNonIndexableKeys(provider)).isNull();
+    }
+
+    @Test
+    public void getNonIndexableKeys_overriddenByProvider_shouldCacheOverriddenKeys() {
+        final CountingProvider provider = new CountingProvider(Collections.emptyList()) {
+            @Override
+            public List<String> getNonIndexableKeys(Context context) {
+                final List<String> keys = super.getNonIndexableKeys(context);
+                keys.add("other_key");
+                return keys;
+            }
+        };
+
+        assertThat(mCache.getNonIndexableKeys(provider)).containsExactly("other_key");
+        mAvailable = false;
+
+        assertThat(mCache.getNonIndexableKeys(provider)).containsExactly("other_key");
+    }
+
+    @Test
+    public void getNonIndexableKeys_undeclaredDependencies_shouldCreateControllersOnce() {
+        final CountingProvider provider = new CountingProvider(null);
+
+        mCache.getNonIndexableKeys(provider);
+        mCache.getNonIndexableKeys(provider);
+
+        assertThat(provider.mCreateCount).isEqualTo(1);
+    }
+
+    @Test
+    public void getNonIndexableKeys_overriddenWithoutDependencies_shouldNotCreateControllers() {
+        final CountingProvider provider = new CountingProvider(null) {
+            @Override
+            public List<String> getNonIndexableKeys(Context context) {
+                return super.getNonIndexableKeys(context);
+            }
+        };
+        provider.mControllerDependencies = Collections.emptyList();
+
+        assertThat(mCache.getNonIndexableKeys(provider)).isNull();
+        assertThat(provider.mCreateCount).isEqualTo(0);
+    }
+
+    @Test
+    public void getNonIndexableKeys_controllersDeclareDependencies_shouldCache() {
+        final CountingProvider provider = new CountingProvider(null);
+        provider.mControllerDependencies = Collections.singletonList(TEST_URI);
+
+        assertThat(mCache.getNonIndexableKeys(provider)).isEmpty();
+        mAvailable = false;
+
+        assertThat(mCache.getNonIndexableKeys(provider)).isEmpty();
+        assertThat(provider.mCreateCount).isEqualTo(1);
+    }
+
+    @Test
+    public void getNonIndexableKeys_controllerDependencyChanged_shouldComputeAgain() {
+        final CountingProvider provider = new CountingProvider(null);
+        provider.mControllerDependencies = Collections.singletonList(TEST_URI);
+        mCache.getNonIndexableKeys(provider);
+        mAvailable = false;
+
+        mCache.invalidate(TEST_URI);
+
+        assertThat(mCache.getNonIndexableKeys(provider)).containsExactly(TEST_PREF_KEY);
+        assertThat(provider.mCreateCount).isEqualTo(2);
+    }
+
+    private class CountingProvider extends BaseSearchIndexProvider {
+        private final List<Uri> mDependencies;
+        private List<Uri> mControllerDependencies;
+        private int mCreateCount;
+
+        CountingProvider(List<Uri> dependencies) {
+            mDependencies = dependencies;
+        }
+
+        @Override
+        public List<Uri> getSearchIndexDependencies(Context context) {
+            return mDependencies;
+        }
+
+        @Override
+        public List<AbstractPreferenceController> createPreferenceControllers(Context context) {
+            mCreateCount++;
+            final List<AbstractPreferenceController> controllers = new ArrayList<>();
+            controllers.add(new BasePreferenceController(context, TEST_PREF_KEY) {
+                @Override
+                public int getAvailabilityStatus() {
+                    return mAvailable ? AVAILABLE : UNSUPPORTED_ON_DEVICE;
+                }
+
+                @Override
+                public List<Uri> getSearchIndexDependencies() {
+                    return mControllerDependencies;
+                }
+            });
+            return controllers;
+        }
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.search;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+
+import com.android.settingslib.search.SearchIndexableData;
+import com.android.settingslib.search.SearchIndexableRaw;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(RobolectricTestRunner.class)
+public class SearchIndexableRawCollectorTest {
+
+    private static final long TIMEOUT_MS = 100;
+
+    private Context mContext;
+    private SearchIndexableData mFirstBundle;
+    private SearchIndexableData mSecondBundle;
+    private CountDownLatch mSlowLatch;
+    private SearchIndexableRawCollector mCollector;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+        mFirstBundle = new SearchIndexableData(FirstFragment.class,
+                new BaseSearchIndexProvider());
+        mSecondBundle = new SearchIndexableData(SecondFragment.class,
+                new BaseSearchIndexProvider());
+        mCollector = new SearchIndexableRawCollector(TIMEOUT_MS);
+    }
+
+    @After
+    public void tearDown() {
+        if (mSlowLatch != null) {
+            mSlowLatch.countDown();
+        }
+        SearchIndexableRawCollector.clearProviderLatenciesForTest();
+    }
+
+    @Test
+    public void collect_shouldMergeInBundleOrder() {
+        final List<SearchIndexableRaw> rawList = mCollector.collect(
+                SearchIndexableRawCollector.QUERY_RAW,
+                Arrays.asList(mFirstBundle, mSecondBundle),
+                bundle -> createRawData(bundle.getTargetClass().getSimpleName()));
+
+        assertThat(getTitles(rawList)).containsExactly("FirstFragment", "SecondFragment")
+                .inOrder();
+    }
+
+    @Test
+    public void collect_nullRawData_shouldSkipProvider() {
+        final List<SearchIndexableRaw> rawList = mCollector.collect(
+                SearchIndexableRawCollector.QUERY_RAW,
+                Arrays.asList(mFirstBundle, mSecondBundle),
+                bundle -> bundle == mFirstBundle ? null : createRawData("second"));
+
+        assertThat(getTitles(rawList)).containsExactly("second");
+    }
+
+    @Test
+    public void collect_providerTimedOut_shouldUseLastRawData() {
+        mCollector.collect(SearchIndexableRawCollector.QUERY_RAW,
+                Collections.singletonList(mFirstBundle), bundle -> createRawData("last"));
+        mSlowLatch = new CountDownLatch(1);
+
+        final List<SearchIndexableRaw> rawList = mCollector.collect(
+                SearchIndexableRawCollector.QUERY_RAW,
+                Collections.singletonList(mFirstBundle), bundle -> {
+                    try {
+                        mSlowLatch.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return createRawData("new");
+                });
+
+        assertThat(getTitles(rawList)).containsExactly("last");
+        final SearchIndexableRawCollector.ProviderLatency latency =
+                SearchIndexableRawCollector.getProviderLatencies().get(0);
+        assertThat(latency.count).isEqualTo(1);
+        assertThat(latency.timeouts).isEqualTo(1);
+    }
+
+    @Test
+    public void getProviderLatencies_shouldRecordEachProviderAndQuery() {
+        mCollector.collect(SearchIndexableRawCollector.QUERY_RAW,
+                Arrays.asList(mFirstBundle, mSecondBundle), bundle -> null);
+        mCollector.collect(SearchIndexableRawCollector.QUERY_DYNAMIC_RAW,
+                Collections.singletonList(mFirstBundle), bundle -> null);
+
+        final List<String> names = new ArrayList<>();
+        for (SearchIndexableRawCollector.ProviderLatency latency :
+                SearchIndexableRawCollector.getProviderLatencies()) {
+            names.add(latency.name);
+            assertThat(latency.count).isEqualTo(1);
+        }
+        assertThat(names).containsExactly(
+                FirstFragment.class.getName() + "/" + SearchIndexableRawCollector.QUERY_RAW,
+                SecondFragment.class.getName() + "/" + SearchIndexableRawCollector.QUERY_RAW,
+                FirstFragment.class.getName() + "/"
+                        + SearchIndexableRawCollector.QUERY_DYNAMIC_RAW);
+    }
+
+    @Test
+    public void collect_otherCollector_shouldNotShareLastRawData() {
+        mCollector.collect(SearchIndexableRawCollector.QUERY_RAW,
+                Collections.singletonList(mFirstBundle), bundle -> createRawData("last"));
+
+        final List<SearchIndexableRaw> rawList = new SearchIndexableRawCollector(0 /* timeoutMs */)
+                .collect(SearchIndexableRawCollector.QUERY_RAW,
+                        Collections.singletonList(mFirstBundle), bundle -> createRawData("new"));
+
+        assertThat(getTitles(rawList)).containsExactly("new");
+    }
+
+    @Test
+    public void collect_sameProviderOtherQuery_shouldWaitForRunningQuery() throws Exception {
+        final CountDownLatch rawStarted = new CountDownLatch(1);
+        final CountDownLatch dynamicStarted = new CountDownLatch(1);
+        mSlowLatch = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            final Future<?> rawQuery = executor.submit(() -> mCollector.collect(
+                    SearchIndexableRawCollector.QUERY_RAW,
+                    Collections.singletonList(mFirstBundle), bundle -> {
+                        rawStarted.countDown();
+                        try {
+                            mSlowLatch.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return null;
+                    }));
+            assertThat(rawStarted.await(1, TimeUnit.SECONDS)).isTrue();
+            final Future<?> dynamicQuery = executor.submit(() -> mCollector.collect(
+                    SearchIndexableRawCollector.QUERY_DYNAMIC_RAW,
+                    Collections.singletonList(mFirstBundle), bundle -> {
+                        dynamicStarted.countDown();
+                        return null;
+                    }));
+
+            assertThat(dynamicStarted.await(TIMEOUT_MS, TimeUnit.MILLISECONDS)).isFalse();
+
+            mSlowLatch.countDown();
+            rawQuery.get(1, TimeUnit.SECONDS);
+            dynamicQuery.get(1, TimeUnit.SECONDS);
+
+            assertThat(dynamicStarted.getCount()).isEqualTo(0);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void collect_moreProvidersThanThreads_shouldCollectAll() {
+        final List<SearchIndexableData> bundles = new ArrayList<>();
+        for (int i = 0; i < SearchIndexableRawCollector.THREADS * 2; i++) {
+            bundles.add(i % 2 == 0 ? mFirstBundle : mSecondBundle);
+        }
+
+        final List<SearchIndexableRaw> rawList = mCollector.collect(
+                SearchIndexableRawCollector.QUERY_RAW, bundles,
+                bundle -> createRawData(bundle.getTargetClass().getSimpleName()));
+
+        assertThat(rawList).hasSize(bundles.size());
+    }
+
+    private List<SearchIndexableRaw> createRawData(String title) {
+        final SearchIndexableRaw raw = new SearchIndexableRaw(mContext);
+        raw.title = title;
+        final List<SearchIndexableRaw> rawList = new ArrayList<>();
+        rawList.add(raw);
+        return rawList;
+    }
+
+    private static List<String> getTitles(List<SearchIndexableRaw> rawList) {
+        final List<String> titles = new ArrayList<>();
+        for (SearchIndexableRaw raw : rawList) {
+            titles.add(raw.title);
+        }
+        return titles;
+    }
+
+    private static class FirstFragment {
+    }
+
+    private static class SecondFragment {
+    }
+}
@@ -35,6 +35,7 @@ import com.android.settings.accessibility.AccessibilitySettings;
 import com.android.settings.accessibility.AccessibilitySlicePreferenceController;
 import com.android.settings.search.SearchFeatureProvider;
 import com.android.settings.search.SearchFeatureProviderImpl;
+import com.android.settings.slices.SliceDataConverter.ConvertedSliceData;
 import com.android.settings.testutils.FakeFeatureFactory;
 import com.android.settings.testutils.FakeIndexProvider;
 import com.android.settingslib.search.SearchIndexableData;
@@ -48,7 +49,9 @@ import org.robolectric.RuntimeEnvironment;
 import org.robolectric.annotation.Config;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 @RunWith(RobolectricTestRunner.class)
 public class SliceDataConverterTest {
@@ -114,6 +117,60 @@ public class SliceDataConverterTest {
         }
     }
 
+    @Test
+    @Config(qualifiers = "mcc999")
+    public void getSliceData_pageFingerprintIndexed_skipPage() {
+        setUpFakeProvider();
+        final Map<String, String> pageFingerprints =
+                mSliceDataConverter.getSliceData(Collections.emptyMap()).getPageFingerprints();
+
+        final ConvertedSliceData convertedData =
+                mSliceDataConverter.getSliceData(pageFingerprints);
+
+        assertThat(pageFingerprints).containsKey(FAKE_FRAGMENT_CLASSNAME);
+        assertThat(convertedData.getSkippedPages()).containsExactly(FAKE_FRAGMENT_CLASSNAME);
+        assertThat(convertedData.getConvertedPageCount()).isEqualTo(0);
+        assertThat(convertedData.getSliceData()).hasSize(1);
+        assertFakeA11ySlice(convertedData.getSliceData().get(0));
+    }
+
+    @Test
+    @Config(qualifiers = "mcc999")
+    public void getSliceData_pageFingerprintChanged_convertPage() {
+        setUpFakeProvider();
+
+        final ConvertedSliceData convertedData = mSliceDataConverter.getSliceData(
+                Collections.singletonMap(FAKE_FRAGMENT_CLASSNAME, "stale fingerprint"));
+
+        assertThat(convertedData.getSkippedPages()).isEmpty();
+        assertThat(convertedData.getConvertedPageCount()).isEqualTo(1);
+        assertThat(convertedData.getSliceData()).hasSize(2);
+    }
+
+    @Test
+    @Config(qualifiers = "mcc999")
+    public void getSliceData_versionChanged_convertPage() {
+        setUpFakeProvider();
+        final Map<String, String> pageFingerprints =
+                mSliceDataConverter.getSliceData(Collections.emptyMap()).getPageFingerprints();
+        doReturn(mSliceDataConverter.getVersionCode() + 1).when(mSliceDataConverter)
+                .getVersionCode();
+
+        final ConvertedSliceData convertedData =
+                mSliceDataConverter.getSliceData(pageFingerprints);
+
+        assertThat(convertedData.getSkippedPages()).isEmpty();
+        assertThat(convertedData.getSliceData()).hasSize(2);
+    }
+
+    private void setUpFakeProvider() {
+        mSearchFeatureProvider.getSearchIndexableResources().getProviderValues().clear();
+        mSearchFeatureProvider.getSearchIndexableResources().getProviderValues()
+                .add(new SearchIndexableData(FakeIndexProvider.class,
+                        FakeIndexProvider.SEARCH_INDEX_DATA_PROVIDER));
+        doReturn(getFakeService()).when(mSliceDataConverter).getAccessibilityServiceInfoList();
+    }
+
     private void assertFakeSlice(SliceData fakeSlice) {
         assertThat(fakeSlice.getKey()).isEqualTo(FAKE_KEY);
         assertThat(fakeSlice.getTitle()).isEqualTo(FAKE_TITLE);
@@ -27,6 +27,8 @@ import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 
 import com.android.settings.slices.SlicesDatabaseHelper.IndexColumns;
+import com.android.settings.slices.SlicesDatabaseHelper.IndexingStats;
+import com.android.settings.slices.SlicesDatabaseHelper.PageColumns;
 import com.android.settings.testutils.DatabaseTestUtils;
 
 import org.junit.After;
@@ -36,6 +38,7 @@ import org.junit.runner.RunWith;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.RuntimeEnvironment;
 
+import java.util.Collections;
 import java.util.Locale;
 
 @RunWith(RobolectricTestRunner.class)
@@ -75,7 +78,8 @@ public class SlicesDatabaseHelperTest {
                 IndexColumns.CONTROLLER,
                 IndexColumns.SLICE_TYPE,
                 IndexColumns.UNAVAILABLE_SLICE_SUBTITLE,
-                IndexColumns.PUBLIC_SLICE
+                IndexColumns.PUBLIC_SLICE,
+                IndexColumns.FINGERPRINT
         };
 
         assertThat(columnNames).isEqualTo(expectedNames);
@@ -95,6 +99,32 @@ public class SlicesDatabaseHelperTest {
         assertThat(newCursor.getCount()).isEqualTo(0);
     }
 
+    @Test
+    public void testUpgrade_dropsPageFingerprints() {
+        final ContentValues values = new ContentValues();
+        values.put(PageColumns.FRAGMENT, "fragmentClassName");
+        values.put(PageColumns.FINGERPRINT, "fingerprint");
+        mDatabase.replaceOrThrow(SlicesDatabaseHelper.Tables.TABLE_SLICES_PAGES, null, values);
+
+        mSlicesDatabaseHelper.onUpgrade(mDatabase, 0, 1);
+
+        try (Cursor cursor = mDatabase.rawQuery("SELECT * FROM slices_pages", null)) {
+            assertThat(cursor.getCount()).isEqualTo(0);
+        }
+    }
+
+    @Test
+    public void setIndexingStats_replacePreviousStats() {
+        mSlicesDatabaseHelper.setIndexingStats(
+                Collections.singletonMap(IndexingStats.ROWS_DELETED, 1L));
+
+        mSlicesDatabaseHelper.setIndexingStats(
+                Collections.singletonMap(IndexingStats.ROWS_INSERTED, 2L));
+
+        assertThat(mSlicesDatabaseHelper.getIndexingStats())
+                .containsExactly(IndexingStats.ROWS_INSERTED, 2L);
+    }
+
     @Test
     public void testIndexState_buildAndLocaleSet() {
         mSlicesDatabaseHelper.reconstruct(mDatabase);
@@ -18,8 +18,10 @@ package com.android.settings.slices;
 
 import static com.google.common.truth.Truth.assertThat;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
 
 import android.content.ContentValues;
 import android.content.Context;
@@ -27,7 +29,9 @@ import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.net.Uri;
 
+import com.android.settings.slices.SliceDataConverter.ConvertedSliceData;
 import com.android.settings.slices.SlicesDatabaseHelper.IndexColumns;
+import com.android.settings.slices.SlicesDatabaseHelper.IndexingStats;
 import com.android.settings.testutils.DatabaseTestUtils;
 
 import org.junit.After;
@@ -38,7 +42,9 @@ import org.robolectric.RobolectricTestRunner;
 import org.robolectric.RuntimeEnvironment;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 @RunWith(RobolectricTestRunner.class)
 public class SlicesIndexerTest {
@@ -54,6 +60,7 @@ public class SlicesIndexerTest {
     private final String PREF_CONTROLLER = "com.android.settings.slices.tester";
     private final int SLICE_TYPE = SliceData.SliceType.SLIDER;
     private final String UNAVAILABLE_SLICE_SUBTITLE = "subtitleOfUnavailableSlice";
+    private final String PAGE_FINGERPRINT = "page fingerprint";
 
     private Context mContext;
 
@@ -97,7 +104,7 @@ public class SlicesIndexerTest {
     public void testInsertSliceData_indexedStateSet() {
         final SlicesDatabaseHelper helper = SlicesDatabaseHelper.getInstance(mContext);
         helper.setIndexedState();
-        doReturn(new ArrayList<SliceData>()).when(mManager).getSliceData();
+        doReturn(getConvertedSliceData(new ArrayList<>())).when(mManager).getSliceData(any());
 
         mManager.run();
 
@@ -107,7 +114,7 @@ public class SlicesIndexerTest {
     @Test
     public void testInsertSliceData_nonPublicSlice_mockDataInserted() {
         final List<SliceData> sliceData = getMockIndexableData(false);
-        doReturn(sliceData).when(mManager).getSliceData();
+        doReturn(getConvertedSliceData(sliceData)).when(mManager).getSliceData(any());
 
         mManager.run();
 
@@ -152,7 +159,7 @@ public class SlicesIndexerTest {
     @Test
     public void insertSliceData_publicSlice_mockDataInserted() {
         final List<SliceData> sliceData = getMockIndexableData(true);
-        doReturn(sliceData).when(mManager).getSliceData();
+        doReturn(getConvertedSliceData(sliceData)).when(mManager).getSliceData(any());
 
         mManager.run();
 
@@ -194,6 +201,132 @@ public class SlicesIndexerTest {
         }
     }
 
+    @Test
+    public void indexSliceData_rowsUnchanged_keepStoredRows() {
+        final SlicesDatabaseHelper helper = SlicesDatabaseHelper.getInstance(mContext);
+        doReturn(getConvertedSliceData(getMockIndexableData(false))).when(mManager)
+                .getSliceData(any());
+        mManager.run();
+        final List<Long> rowIds = getRowIds();
+
+        clearIndexedState();
+        mManager.run();
+
+        assertThat(getRowIds()).isEqualTo(rowIds);
+        assertThat(helper.isSliceDataIndexed()).isTrue();
+    }
+
+    @Test
+    public void indexSliceData_rowChangedAndRemoved_updateDatabase() {
+        doReturn(getConvertedSliceData(getMockIndexableData(false))).when(mManager)
+                .getSliceData(any());
+        mManager.run();
+
+        final List<SliceData> sliceData = new ArrayList<>();
+        sliceData.add(new SliceData.Builder()
+                .setKey(KEYS[0])
+                .setTitle("newTitle")
+                .setUri(URI)
+                .setPreferenceControllerClassName(PREF_CONTROLLER)
+                .build());
+        doReturn(getConvertedSliceData(sliceData)).when(mManager).getSliceData(any());
+        clearIndexedState();
+        mManager.run();
+
+        final SQLiteDatabase db = SlicesDatabaseHelper.getInstance(mContext).getWritableDatabase();
+        try (Cursor cursor = db.rawQuery("SELECT * FROM slices_index", null)) {
+            assertThat(cursor.getCount()).isEqualTo(1);
+            cursor.moveToFirst();
+            assertThat(cursor.getString(cursor.getColumnIndex(IndexColumns.KEY)))
+                    .isEqualTo(KEYS[0]);
+            assertThat(cursor.getString(cursor.getColumnIndex(IndexColumns.TITLE)))
+                    .isEqualTo("newTitle");
+        } finally {
+            db.close();
+        }
+    }
+
+    @Test
+    public void indexSliceData_pageSkipped_keepPageRows() {
+        final Map<String, String> pageFingerprints =
+                Collections.singletonMap(FRAGMENT_NAME, PAGE_FINGERPRINT);
+        doReturn(new ConvertedSliceData(getMockIndexableData(false), pageFingerprints,
+                Collections.emptySet(), 1 /* convertedPageCount */)).when(mManager)
+                .getSliceData(any());
+        mManager.run();
+        final List<Long> rowIds = getRowIds();
+
+        doReturn(new ConvertedSliceData(new ArrayList<>(), pageFingerprints,
+                Collections.singleton(FRAGMENT_NAME), 0 /* convertedPageCount */)).when(mManager)
+                .getSliceData(any());
+        clearIndexedState();
+        mManager.run();
+
+        verify(mManager).getSliceData(pageFingerprints);
+        assertThat(getRowIds()).isEqualTo(rowIds);
+    }
+
+    @Test
+    public void indexSliceData_pageRemoved_deleteRowsAndPageFingerprint() {
+        doReturn(new ConvertedSliceData(getMockIndexableData(false),
+                Collections.singletonMap(FRAGMENT_NAME, PAGE_FINGERPRINT),
+                Collections.emptySet(), 1 /* convertedPageCount */)).when(mManager)
+                .getSliceData(any());
+        mManager.run();
+
+        doReturn(getConvertedSliceData(new ArrayList<>())).when(mManager).getSliceData(any());
+        clearIndexedState();
+        mManager.run();
+
+        final SQLiteDatabase db = SlicesDatabaseHelper.getInstance(mContext).getWritableDatabase();
+        try (Cursor cursor = db.rawQuery("SELECT * FROM slices_index", null)) {
+            assertThat(cursor.getCount()).isEqualTo(0);
+        }
+        try (Cursor cursor = db.rawQuery("SELECT * FROM slices_pages", null)) {
+            assertThat(cursor.getCount()).isEqualTo(0);
+        }
+    }
+
+    @Test
+    public void indexSliceData_recordIndexingStats() {
+        doReturn(getConvertedSliceData(getMockIndexableData(false))).when(mManager)
+                .getSliceData(any());
+
+        mManager.run();
+
+        final Map<String, Long> stats =
+                SlicesDatabaseHelper.getInstance(mContext).getIndexingStats();
+        assertThat(stats.get(IndexingStats.PAGES_CONVERTED)).isEqualTo(1L);
+        assertThat(stats.get(IndexingStats.PAGES_SKIPPED)).isEqualTo(0L);
+        assertThat(stats.get(IndexingStats.ROWS_INSERTED)).isEqualTo((long) KEYS.length);
+        assertThat(stats.get(IndexingStats.ROWS_DELETED)).isEqualTo(0L);
+        assertThat(stats).containsKey(IndexingStats.DURATION_MS);
+        assertThat(stats).containsKey(IndexingStats.CONVERSION_MS);
+    }
+
+    private static ConvertedSliceData getConvertedSliceData(List<SliceData> sliceData) {
+        return new ConvertedSliceData(sliceData, Collections.emptyMap(), Collections.emptySet(),
+                1 /* convertedPageCount */);
+    }
+
+    private List<Long> getRowIds() {
+        final List<Long> rowIds = new ArrayList<>();
+        final SQLiteDatabase db = SlicesDatabaseHelper.getInstance(mContext).getWritableDatabase();
+        try (Cursor cursor = db.rawQuery("SELECT rowid FROM slices_index", null)) {
+            while (cursor.moveToNext()) {
+                rowIds.add(cursor.getLong(0));
+            }
+        }
+        return rowIds;
+    }
+
+    private void clearIndexedState() {
+        mContext.getSharedPreferences("slices_shared_prefs", Context.MODE_PRIVATE)
+                .edit()
+                .clear()
+                .commit();
+    }
+
     private void insertSpecialCase(String key, String title) {
         final ContentValues values = new ContentValues();
         values.put(IndexColumns.KEY, key);
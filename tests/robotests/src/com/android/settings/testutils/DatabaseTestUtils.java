@@ -18,6 +18,8 @@ package com.android.settings.testutils;
 
 import android.content.Context;
 
+import com.android.settings.applications.NotificationsSentDatabaseHelper;
+import com.android.settings.fuelgauge.BatteryUsageStepDatabaseHelper;
 import com.android.settings.fuelgauge.batterytip.AnomalyDatabaseHelper;
 import com.android.settings.fuelgauge.batterytip.BatteryDatabaseManager;
 import com.android.settings.slices.SlicesDatabaseHelper;
@@ -27,9 +29,12 @@ import org.robolectric.util.ReflectionHelpers;
 public class DatabaseTestUtils {
 
     public static void clearDb(Context context) {
+        flushAnomalyDbManager();
         clearSlicesDb(context);
         clearAnomalyDb(context);
         clearAnomalyDbManager();
+        clearNotificationsSentDb(context);
+        clearBatteryUsageStepDb(context);
     }
 
     private static void clearSlicesDb(Context context) {
@@ -46,7 +51,35 @@ public class DatabaseTestUtils {
         ReflectionHelpers.setStaticField(AnomalyDatabaseHelper.class, "sSingleton", null);
     }
 
+    // Applies the writes still queued, so they don't end up in the database of the next test.
+    private static void flushAnomalyDbManager() {
+        final BatteryDatabaseManager manager =
+                ReflectionHelpers.getStaticField(BatteryDatabaseManager.class, "sSingleton");
+        if (manager != null) {
+            manager.flush();
+        }
+        BatteryDatabaseManager.setWriteExecutorForTest(null);
+    }
+
     private static void clearAnomalyDbManager() {
         ReflectionHelpers.setStaticField(BatteryDatabaseManager.class, "sSingleton", null);
     }
+
+    private static void clearNotificationsSentDb(Context context) {
+        NotificationsSentDatabaseHelper helper =
+                NotificationsSentDatabaseHelper.getInstance(context);
+        helper.close();
+
+        ReflectionHelpers.setStaticField(NotificationsSentDatabaseHelper.class, "sSingleton",
+                null);
+    }
+
+    private static void clearBatteryUsageStepDb(Context context) {
+        BatteryUsageStepDatabaseHelper helper =
+                BatteryUsageStepDatabaseHelper.getInstance(context);
+        helper.close();
+
+        ReflectionHelpers.setStaticField(BatteryUsageStepDatabaseHelper.class, "sSingleton",
+                null);
+    }
 }
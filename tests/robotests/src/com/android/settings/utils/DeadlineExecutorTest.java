@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.settings.utils;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.junit.Assert.fail;
+
+import android.os.SystemClock;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@RunWith(RobolectricTestRunner.class)
+public class DeadlineExecutorTest {
+
+    private final CountDownLatch mLatch = new CountDownLatch(1);
+    private final ExecutorService mExecutor = DeadlineExecutor.newExecutor("test", 2);
+
+    @After
+    public void tearDown() {
+        mLatch.countDown();
+        mExecutor.shutdownNow();
+    }
+
+    @Test
+    public void await_taskDone_returnsResult() throws Exception {
+        final Future<String> future = mExecutor.submit(() -> "result");
+
+        assertThat(DeadlineExecutor.await(future, SystemClock.elapsedRealtime() + 1000,
+                true /* cancelOnTimeout */)).isEqualTo("result");
+    }
+
+    @Test
+    public void await_missesDeadlineWithCancel_cancelsTask() throws Exception {
+        final Future<Boolean> future = mExecutor.submit(
+                () -> mLatch.await(1, TimeUnit.MINUTES));
+
+        try {
+            DeadlineExecutor.await(future, SystemClock.elapsedRealtime(),
+                    true /* cancelOnTimeout */);
+            fail("Expected TimeoutException");
+        } catch (TimeoutException e) {
+            // expected
+        }
+
+        assertThat(future.isCancelled()).isTrue();
+    }
+
+    @Test
+    public void await_missesDeadlineWithoutCancel_keepsTaskRunning() throws Exception {
+        final Future<Boolean> future = mExecutor.submit(
+                () -> mLatch.await(1, TimeUnit.MINUTES));
+
+        try {
+            DeadlineExecutor.await(future, SystemClock.elapsedRealtime(),
+                    false /* cancelOnTimeout */);
+            fail("Expected TimeoutException");
+        } catch (TimeoutException e) {
+            // expected
+        }
+        mLatch.countDown();
+
+        assertThat(future.get(1, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    public void newExecutor_allThreadsBlocked_queuesNewTask() throws Exception {
+        final List<Future<Boolean>> blocked = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            blocked.add(mExecutor.submit(() -> mLatch.await(1, TimeUnit.MINUTES)));
+        }
+
+        final Future<String> future = mExecutor.submit(() -> "result");
+
+        try {
+            future.get(100, TimeUnit.MILLISECONDS);
+            fail("Expected TimeoutException");
+        } catch (TimeoutException e) {
+            // expected
+        }
+        mLatch.countDown();
+        assertThat(future.get(1, TimeUnit.SECONDS)).isEqualTo("result");
+        assertThat(blocked.get(0).get(1, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    public void await_queuedTaskMissesDeadlineWithCancel_neverRunsTask() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            mExecutor.submit(() -> mLatch.await(1, TimeUnit.MINUTES));
+        }
+        final AtomicBoolean ran = new AtomicBoolean();
+        final Future<?> future = mExecutor.submit(() -> ran.set(true));
+
+        try {
+            DeadlineExecutor.await(future, SystemClock.elapsedRealtime(),
+                    true /* cancelOnTimeout */);
+            fail("Expected TimeoutException");
+        } catch (TimeoutException e) {
+            // expected
+        }
+        mLatch.countDown();
+        mExecutor.submit(() -> null).get(1, TimeUnit.SECONDS);
+
+        assertThat(future.isCancelled()).isTrue();
+        assertThat(ran.get()).isFalse();
+    }
+
+    @Test
+    public void awaitResult_taskFailed_rethrowsCause() {
+        final Future<String> future = mExecutor.submit(() -> {
+            throw new IllegalArgumentException();
+        });
+
+        try {
+            DeadlineExecutor.awaitResult(future, "task");
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+}
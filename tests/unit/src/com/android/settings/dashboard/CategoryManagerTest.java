@@ -22,11 +22,13 @@ import static com.android.settingslib.drawer.TileUtils.META_DATA_PREFERENCE_KEYH
 
 import static com.google.common.truth.Truth.assertThat;
 
+import android.content.ComponentName;
 import android.content.Context;
 import android.content.pm.ActivityInfo;
 import android.content.pm.ApplicationInfo;
 import android.content.pm.ProviderInfo;
 import android.os.Bundle;
+import android.util.ArraySet;
 import android.util.Pair;
 
 import androidx.test.core.app.ApplicationProvider;
@@ -42,8 +44,12 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @RunWith(AndroidJUnit4.class)
 public class CategoryManagerTest {
@@ -315,6 +321,53 @@ public class CategoryManagerTest {
         assertThat(category.getTilesCount()).isEqualTo(1);
     }
 
+    @Test
+    public void updateCategoryFromDenylist_shouldNotModifyPublishedCategory() {
+        final CategoryManager categoryManager = new CategoryManager(mContext);
+        final Tile tile = createActivityTile(CATEGORY_HOMEPAGE, "pkg", "class1", 100);
+        setLoadedCategory(categoryManager, tile);
+        final DashboardCategory published =
+                categoryManager.getTilesByCategory(mContext, CATEGORY_HOMEPAGE);
+
+        categoryManager.updateCategoryFromDenylist(
+                Collections.singleton(new ComponentName("pkg", "class1")));
+
+        assertThat(published.getTilesCount()).isEqualTo(1);
+        assertThat(categoryManager.getTilesByCategory(mContext, CATEGORY_HOMEPAGE)
+                .getTilesCount()).isEqualTo(0);
+        assertThat(categoryManager.getCategories(mContext).get(0).getTilesCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void updateCategoryFromDenylist_tileNoLongerDenied_shouldRestoreTile() {
+        final CategoryManager categoryManager = new CategoryManager(mContext);
+        final Tile tile1 = createActivityTile(CATEGORY_HOMEPAGE, "pkg", "class1", 100);
+        final Tile tile2 = createActivityTile(CATEGORY_HOMEPAGE, "pkg", "class2", 50);
+        setLoadedCategory(categoryManager, tile1, tile2);
+        final Set<ComponentName> denylist = new ArraySet<>();
+        denylist.add(new ComponentName("pkg", "class1"));
+
+        categoryManager.updateCategoryFromDenylist(denylist);
+        categoryManager.updateCategoryFromDenylist(Collections.emptySet());
+
+        final DashboardCategory category =
+                categoryManager.getTilesByCategory(mContext, CATEGORY_HOMEPAGE);
+        assertThat(category.getTilesCount()).isEqualTo(2);
+        assertThat(category.getTile(0)).isSameInstanceAs(tile1);
+        assertThat(category.getTile(1)).isSameInstanceAs(tile2);
+    }
+
+    private void setLoadedCategory(CategoryManager categoryManager, Tile... tiles) {
+        final DashboardCategory category = new DashboardCategory(CATEGORY_HOMEPAGE);
+        for (Tile tile : tiles) {
+            category.addTile(tile);
+        }
+        final List<DashboardCategory> categories = new ArrayList<>();
+        categories.add(category);
+        mCategoryByKeyMap.put(CATEGORY_HOMEPAGE, category);
+        categoryManager.setLoadedCategories(categories, mCategoryByKeyMap);
+    }
+
     private Tile createActivityTile(String categoryKey, String packageName, String className,
             int order) {
         final ActivityInfo activityInfo = new ActivityInfo();
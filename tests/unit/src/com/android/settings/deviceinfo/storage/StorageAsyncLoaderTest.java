@@ -22,9 +22,13 @@ import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import android.content.Context;
@@ -48,6 +52,7 @@ import com.android.settingslib.applications.StorageStatsSource;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
@@ -80,6 +85,7 @@ public class StorageAsyncLoaderTest {
     @Before
     public void setUp() throws Exception {
         MockitoAnnotations.initMocks(this);
+        AppStorageStatsCache.clear();
         mContext = spy(ApplicationProvider.getApplicationContext());
         mInfo = new ArrayList<>();
         mLoader = new StorageAsyncLoader(mContext, mUserManager, "id", mSource, mPackageManager);
@@ -208,6 +214,51 @@ public class StorageAsyncLoaderTest {
         assertThat(result.get(PRIMARY_USER_ID).allAppsExceptGamesSize).isEqualTo(33L);
     }
 
+    @Test
+    public void testPackageStatsAreReused() throws Exception {
+        addPackage(PACKAGE_NAME_1, 0, 1, 10, ApplicationInfo.CATEGORY_UNDEFINED);
+
+        mLoader.loadInBackground();
+        SparseArray<StorageAsyncLoader.StorageResult> result = mLoader.loadInBackground();
+
+        assertThat(result.get(PRIMARY_USER_ID).allAppsExceptGamesSize).isEqualTo(11L);
+        verify(mSource, times(1)).getStatsForPackage(anyString(), eq(PACKAGE_NAME_1),
+                any(UserHandle.class));
+    }
+
+    @Test
+    public void testUpdatedPackageStatsAreQueriedAgain() throws Exception {
+        ApplicationInfo info =
+                addPackage(PACKAGE_NAME_1, 0, 1, 10, ApplicationInfo.CATEGORY_UNDEFINED);
+
+        mLoader.loadInBackground();
+        info.longVersionCode = 2;
+        mLoader.loadInBackground();
+
+        verify(mSource, times(2)).getStatsForPackage(anyString(), eq(PACKAGE_NAME_1),
+                any(UserHandle.class));
+    }
+
+    @Test
+    public void testPartialResultLeavesUnmeasuredSizesUnknown() throws Exception {
+        addPackage(PACKAGE_NAME_1, 0, 1, 10, ApplicationInfo.CATEGORY_UNDEFINED);
+        mLoader = spy(mLoader);
+        doNothing().when(mLoader).postPartialResult(any());
+
+        SparseArray<StorageAsyncLoader.StorageResult> result = mLoader.loadInBackground();
+
+        ArgumentCaptor<SparseArray<StorageAsyncLoader.StorageResult>> captor =
+                ArgumentCaptor.forClass(SparseArray.class);
+        verify(mLoader, atLeastOnce()).postPartialResult(captor.capture());
+        StorageAsyncLoader.StorageResult partialResult =
+                captor.getAllValues().get(0).get(PRIMARY_USER_ID);
+        assertThat(partialResult.isComplete()).isFalse();
+        assertThat(partialResult.duplicateCodeSize)
+                .isEqualTo(StorageAsyncLoader.StorageResult.SIZE_UNKNOWN);
+        assertThat(result.get(PRIMARY_USER_ID).isComplete()).isTrue();
+        assertThat(result.get(PRIMARY_USER_ID).duplicateCodeSize).isEqualTo(0L);
+    }
+
     private ApplicationInfo addPackage(String packageName, long cacheSize, long codeSize,
             long dataSize, int category) throws Exception {
         StorageStatsSource.AppStorageStats storageStats =
@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.settings.network.helper;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.telephony.SubscriptionManager;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.android.settings.network.SubscriptionCacheInvalidator;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@RunWith(AndroidJUnit4.class)
+public class SubscriptionAnnotationCacheTest {
+
+    private AtomicInteger mQueryCount;
+    private Callable<List<SubscriptionAnnotation>> mQuery;
+
+    @Before
+    public void setUp() {
+        mQueryCount = new AtomicInteger();
+        mQuery = () -> {
+            mQueryCount.incrementAndGet();
+            return Collections.unmodifiableList(new ArrayList<>());
+        };
+        SubscriptionCacheInvalidator.setCachingEnabledForTest(true);
+    }
+
+    @After
+    public void tearDown() {
+        SubscriptionCacheInvalidator.setCachingEnabledForTest(null);
+    }
+
+    @Test
+    public void get_calledTwice_queryOnce() throws Exception {
+        List<SubscriptionAnnotation> first = SubscriptionAnnotationCache.get(true, mQuery);
+        List<SubscriptionAnnotation> second = SubscriptionAnnotationCache.get(true, mQuery);
+
+        assertThat(second).isSameInstanceAs(first);
+        assertThat(mQueryCount.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void get_differentQuery_queryEach() throws Exception {
+        SubscriptionAnnotationCache.get(true, mQuery);
+        SubscriptionAnnotationCache.get(false, mQuery);
+
+        assertThat(mQueryCount.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void get_cachingDisabled_queryEveryTime() throws Exception {
+        SubscriptionCacheInvalidator.setCachingEnabledForTest(false);
+
+        SubscriptionAnnotationCache.get(true, mQuery);
+        SubscriptionAnnotationCache.get(true, mQuery);
+
+        assertThat(mQueryCount.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void get_afterInvalidate_queryAgain() throws Exception {
+        SubscriptionAnnotationCache.get(true, mQuery);
+
+        SubscriptionCacheInvalidator.invalidate(SubscriptionManager.INVALID_SUBSCRIPTION_ID);
+        SubscriptionAnnotationCache.get(true, mQuery);
+
+        assertThat(mQueryCount.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void get_queryFailed_queryAgain() throws Exception {
+        Callable<List<SubscriptionAnnotation>> failedQuery = () -> {
+            mQueryCount.incrementAndGet();
+            throw new IllegalStateException();
+        };
+
+        try {
+            SubscriptionAnnotationCache.get(true, failedQuery);
+        } catch (IllegalStateException exception) {
+            // expected
+        }
+        SubscriptionAnnotationCache.get(true, mQuery);
+
+        assertThat(mQueryCount.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void get_concurrentCallers_shareOneQuery() throws Exception {
+        CountDownLatch queryStarted = new CountDownLatch(1);
+        CountDownLatch queryReleased = new CountDownLatch(1);
+        Callable<List<SubscriptionAnnotation>> slowQuery = () -> {
+            queryStarted.countDown();
+            queryReleased.await();
+            return mQuery.call();
+        };
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            Future<List<SubscriptionAnnotation>> first = executor.submit(() ->
+                    SubscriptionAnnotationCache.get(true, slowQuery));
+            queryStarted.await(1, TimeUnit.SECONDS);
+            Future<List<SubscriptionAnnotation>> second = executor.submit(() ->
+                    SubscriptionAnnotationCache.get(true, slowQuery));
+            queryReleased.countDown();
+
+            assertThat(second.get(1, TimeUnit.SECONDS))
+                    .isSameInstanceAs(first.get(1, TimeUnit.SECONDS));
+            assertThat(mQueryCount.get()).isEqualTo(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
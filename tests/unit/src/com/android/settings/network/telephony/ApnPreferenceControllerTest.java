@@ -81,7 +81,6 @@ public class ApnPreferenceControllerTest {
         mController = new ApnPreferenceController(mContext, "mobile_data");
         mController.init(SUB_ID);
         mController.setPreference(mPreference);
-        mController.mCarrierConfigManager = mCarrierConfigManager;
         mPreference.setKey(mController.getPreferenceKey());
     }
 
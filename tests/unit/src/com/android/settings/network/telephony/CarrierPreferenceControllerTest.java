@@ -87,7 +87,6 @@ public class CarrierPreferenceControllerTest {
         mPreference = new RestrictedPreference(mContext);
         mController = new CarrierPreferenceController(mContext, "mobile_data");
         mController.init(SUB_ID);
-        mController.mCarrierConfigManager = mCarrierConfigManager;
         mPreference.setKey(mController.getPreferenceKey());
     }
 
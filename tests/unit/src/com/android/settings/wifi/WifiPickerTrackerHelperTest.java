@@ -24,12 +24,12 @@ import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import android.content.Context;
 import android.net.wifi.WifiManager;
-import android.os.HandlerThread;
 import android.os.PersistableBundle;
 import android.telephony.CarrierConfigManager;
 
@@ -68,6 +68,7 @@ public class WifiPickerTrackerHelperTest {
     @Mock
     public WifiEntry.ConnectCallback mConnectCallback;
 
+    private Context mContext;
     private WifiPickerTrackerHelper mWifiPickerTrackerHelper;
 
     private FakeFeatureFactory mFeatureFactory;
@@ -75,9 +76,10 @@ public class WifiPickerTrackerHelperTest {
 
     @Before
     public void setUp() {
-        final Context context = spy(ApplicationProvider.getApplicationContext());
-        when(context.getSystemService(WifiManager.class)).thenReturn(mWifiManager);
-        when(context.getSystemService(CarrierConfigManager.class))
+        WifiPickerTrackerHub.resetForTest();
+        mContext = spy(ApplicationProvider.getApplicationContext());
+        when(mContext.getSystemService(WifiManager.class)).thenReturn(mWifiManager);
+        when(mContext.getSystemService(CarrierConfigManager.class))
                 .thenReturn(mCarrierConfigManager);
         mCarrierConfig = new PersistableBundle();
         doReturn(mCarrierConfig).when(mCarrierConfigManager).getConfigForSubId(SUB_ID);
@@ -88,7 +90,7 @@ public class WifiPickerTrackerHelperTest {
                         any(), any(), any(), any(), any(), anyLong(), anyLong(), any()))
                 .thenReturn(mWifiPickerTracker);
         mWifiPickerTrackerHelper = new WifiPickerTrackerHelper(mock(Lifecycle.class),
-                context, null);
+                mContext, null);
     }
 
     @Test
@@ -97,13 +99,34 @@ public class WifiPickerTrackerHelperTest {
     }
 
     @Test
-    public void onDestroy_workerThreadQuit() {
-        final HandlerThread workerThread = mock(HandlerThread.class);
-        mWifiPickerTrackerHelper.setWorkerThread(workerThread);
+    public void newHelper_shareWifiPickerTracker() {
+        final WifiPickerTrackerHelper helper = new WifiPickerTrackerHelper(
+                mock(Lifecycle.class), mContext, null);
 
+        assertThat(helper.getWifiPickerTracker()).isSameInstanceAs(mWifiPickerTracker);
+        verify(mFeatureFactory.wifiTrackerLibProvider).createWifiPickerTracker(
+                any(), any(), any(), any(), any(), anyLong(), anyLong(), any());
+    }
+
+    @Test
+    public void onDestroy_otherHelperLeft_keepWifiPickerTracker() {
+        final WifiPickerTrackerHelper helper = new WifiPickerTrackerHelper(
+                mock(Lifecycle.class), mContext, null);
+
+        mWifiPickerTrackerHelper.onDestroy();
+        new WifiPickerTrackerHelper(mock(Lifecycle.class), mContext, null);
+
+        verify(mFeatureFactory.wifiTrackerLibProvider, times(1)).createWifiPickerTracker(
+                any(), any(), any(), any(), any(), anyLong(), anyLong(), any());
+    }
+
+    @Test
+    public void onDestroy_lastHelper_releaseWifiPickerTracker() {
         mWifiPickerTrackerHelper.onDestroy();
+        new WifiPickerTrackerHelper(mock(Lifecycle.class), mContext, null);
 
-        verify(workerThread).quit();
+        verify(mFeatureFactory.wifiTrackerLibProvider, times(2)).createWifiPickerTracker(
+                any(), any(), any(), any(), any(), anyLong(), anyLong(), any());
     }
 
     @Test
@@ -0,0 +1,213 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.wifi;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.content.Context;
+
+import androidx.lifecycle.Lifecycle;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.android.settings.testutils.FakeFeatureFactory;
+import com.android.wifitrackerlib.WifiEntry;
+import com.android.wifitrackerlib.WifiPickerTracker;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+@RunWith(AndroidJUnit4.class)
+public class WifiPickerTrackerHubTest {
+
+    private static final String KEY = "key";
+
+    @Rule
+    public final MockitoRule mMockitoRule = MockitoJUnit.rule();
+    @Mock
+    public WifiPickerTracker mWifiPickerTracker;
+    @Mock
+    public WifiPickerTracker.WifiPickerTrackerCallback mCallback1;
+    @Mock
+    public WifiPickerTracker.WifiPickerTrackerCallback mCallback2;
+    @Mock
+    public WifiEntry mWifiEntry;
+    @Mock
+    public WifiEntry.WifiEntryCallback mEntryListener1;
+    @Mock
+    public WifiEntry.WifiEntryCallback mEntryListener2;
+
+    private WifiPickerTrackerHub mHub;
+    private WifiPickerTrackerHub.Subscriber mSubscriber1;
+    private WifiPickerTrackerHub.Subscriber mSubscriber2;
+
+    @Before
+    public void setUp() {
+        WifiPickerTrackerHub.resetForTest();
+        final Context context = ApplicationProvider.getApplicationContext();
+        final FakeFeatureFactory featureFactory = FakeFeatureFactory.setupForTest();
+        when(featureFactory.wifiTrackerLibProvider
+                .createWifiPickerTracker(
+                        any(), any(), any(), any(), any(), anyLong(), anyLong(), any()))
+                .thenReturn(mWifiPickerTracker);
+        when(mWifiEntry.getKey()).thenReturn(KEY);
+
+        mHub = WifiPickerTrackerHub.getInstance(context);
+        runOnMainSync(() -> {
+            mSubscriber1 = mHub.acquire(mCallback1);
+            mSubscriber2 = mHub.acquire(mCallback2);
+        });
+    }
+
+    @After
+    public void tearDown() {
+        runOnMainSync(() -> {
+            mHub.release(mSubscriber1);
+            mHub.release(mSubscriber2);
+        });
+        WifiPickerTrackerHub.resetForTest();
+    }
+
+    @Test
+    public void start_firstSubscriber_startTracker() {
+        runOnMainSync(() -> mHub.start(mSubscriber1));
+
+        assertThat(mHub.getLifecycle().getCurrentState()).isEqualTo(Lifecycle.State.STARTED);
+    }
+
+    @Test
+    public void stop_otherSubscriberStarted_keepTrackerStarted() {
+        runOnMainSync(() -> {
+            mHub.start(mSubscriber1);
+            mHub.start(mSubscriber2);
+            mHub.stop(mSubscriber1);
+        });
+
+        assertThat(mHub.getLifecycle().getCurrentState()).isEqualTo(Lifecycle.State.STARTED);
+    }
+
+    @Test
+    public void stop_lastStartedSubscriber_stopTracker() {
+        runOnMainSync(() -> {
+            mHub.start(mSubscriber1);
+            mHub.start(mSubscriber2);
+            mHub.stop(mSubscriber1);
+            mHub.stop(mSubscriber2);
+        });
+
+        assertThat(mHub.getLifecycle().getCurrentState()).isEqualTo(Lifecycle.State.CREATED);
+    }
+
+    @Test
+    public void stop_calledTwice_countOnce() {
+        runOnMainSync(() -> {
+            mHub.start(mSubscriber1);
+            mHub.start(mSubscriber2);
+            mHub.stop(mSubscriber1);
+            mHub.stop(mSubscriber1);
+        });
+
+        assertThat(mHub.getLifecycle().getCurrentState()).isEqualTo(Lifecycle.State.STARTED);
+    }
+
+    @Test
+    public void start_trackerAlreadyStarted_replayStateToLateSubscriber() {
+        runOnMainSync(() -> mHub.start(mSubscriber1));
+        runOnMainSync(() -> mHub.start(mSubscriber2));
+        InstrumentationRegistry.getInstrumentation().waitForIdleSync();
+
+        verify(mCallback2).onWifiStateChanged();
+        verify(mCallback2).onWifiEntriesChanged();
+        verify(mCallback2).onNumSavedNetworksChanged();
+        verify(mCallback2).onNumSavedSubscriptionsChanged();
+        verify(mCallback1, never()).onWifiEntriesChanged();
+    }
+
+    @Test
+    public void onWifiEntriesChanged_forwardToStartedSubscribersOnly() {
+        runOnMainSync(() -> {
+            mHub.start(mSubscriber1);
+            mHub.onWifiEntriesChanged();
+        });
+
+        verify(mCallback1).onWifiEntriesChanged();
+        verify(mCallback2, never()).onWifiEntriesChanged();
+    }
+
+    @Test
+    public void setWifiEntryListener_twoSubscribers_forwardUpdateToBoth() {
+        runOnMainSync(() -> {
+            mHub.setWifiEntryListener(mSubscriber1, mWifiEntry, mEntryListener1);
+            mHub.setWifiEntryListener(mSubscriber2, mWifiEntry, mEntryListener2);
+        });
+
+        getEntryListener(2).onUpdated();
+
+        verify(mEntryListener1).onUpdated();
+        verify(mEntryListener2).onUpdated();
+    }
+
+    @Test
+    public void removeWifiEntryListeners_otherSubscriberLeft_forwardUpdateToIt() {
+        runOnMainSync(() -> {
+            mHub.setWifiEntryListener(mSubscriber1, mWifiEntry, mEntryListener1);
+            mHub.setWifiEntryListener(mSubscriber2, mWifiEntry, mEntryListener2);
+            mHub.removeWifiEntryListeners(mSubscriber1);
+        });
+
+        getEntryListener(2).onUpdated();
+
+        verify(mEntryListener1, never()).onUpdated();
+        verify(mEntryListener2).onUpdated();
+    }
+
+    @Test
+    public void removeWifiEntryListeners_lastListener_clearEntryListener() {
+        runOnMainSync(() -> {
+            mHub.setWifiEntryListener(mSubscriber1, mWifiEntry, mEntryListener1);
+            mHub.removeWifiEntryListeners(mSubscriber1);
+        });
+
+        verify(mWifiEntry).setListener(null);
+    }
+
+    private WifiEntry.WifiEntryCallback getEntryListener(int setCount) {
+        final ArgumentCaptor<WifiEntry.WifiEntryCallback> captor =
+                ArgumentCaptor.forClass(WifiEntry.WifiEntryCallback.class);
+        verify(mWifiEntry, times(setCount)).setListener(captor.capture());
+        return captor.getValue();
+    }
+
+    private static void runOnMainSync(Runnable runnable) {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(runnable);
+    }
+}